@@ -20,14 +20,23 @@
 package com.github.checkstyle.regression;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -39,14 +48,42 @@ import org.apache.commons.cli.ParseException;
 import org.immutables.value.Value;
 
 import com.github.checkstyle.regression.configuration.ConfigGenerator;
+import com.github.checkstyle.regression.data.BranchDiff;
+import com.github.checkstyle.regression.data.DependencyGraph;
+import com.github.checkstyle.regression.data.FilteredChanges;
 import com.github.checkstyle.regression.data.GitChange;
+import com.github.checkstyle.regression.data.ImmutableDependencyGraph;
+import com.github.checkstyle.regression.data.ImmutableModuleSetDelta;
+import com.github.checkstyle.regression.data.ImmutablePathFilterSpec;
 import com.github.checkstyle.regression.data.ModuleExtractInfo;
+import com.github.checkstyle.regression.data.ModuleExtraction;
 import com.github.checkstyle.regression.data.ModuleInfo;
+import com.github.checkstyle.regression.data.ModuleSelection;
+import com.github.checkstyle.regression.data.ModuleSetDelta;
+import com.github.checkstyle.regression.data.PathFilterSpec;
 import com.github.checkstyle.regression.extract.ExtractInfoProcessor;
+import com.github.checkstyle.regression.extract.ImmutableMavenProfile;
+import com.github.checkstyle.regression.extract.MavenProfile;
+import com.github.checkstyle.regression.git.CommitGraph;
+import com.github.checkstyle.regression.git.DiffAlgorithmType;
+import com.github.checkstyle.regression.git.DiffCache;
 import com.github.checkstyle.regression.git.DiffParser;
+import com.github.checkstyle.regression.git.DiffSettings;
+import com.github.checkstyle.regression.git.ImmutableDiffSettings;
+import com.github.checkstyle.regression.git.ImmutablePackSettings;
+import com.github.checkstyle.regression.git.PackSettings;
+import com.github.checkstyle.regression.git.RepositorySession;
+import com.github.checkstyle.regression.git.ScratchClone;
 import com.github.checkstyle.regression.module.ModuleCollector;
+import com.github.checkstyle.regression.module.ModuleRegistry;
 import com.github.checkstyle.regression.module.ModuleUtils;
+import com.github.checkstyle.regression.pipeline.Pipeline;
+import com.github.checkstyle.regression.pipeline.Stage;
+import com.github.checkstyle.regression.pipeline.StageTask;
 import com.github.checkstyle.regression.report.ReportGenerator;
+import com.github.checkstyle.regression.state.BranchState;
+import com.github.checkstyle.regression.state.ImmutableBranchState;
+import com.github.checkstyle.regression.state.StateStore;
 
 /**
  * Utility class, contains main function and its auxiliary routines.
@@ -59,16 +96,111 @@ public final class Main {
     /** Option name of the PR branch name. */
     private static final String OPT_PATCH_BRANCH = "patchBranch";
 
+    /** Option name of whether to process many PR branches in one run. */
+    private static final String OPT_BATCH = "batch";
+
+    /** Option name of the revision which the PR branch is compared with. */
+    private static final String OPT_BASE_REVISION = "baseRevision";
+
+    /** Option name of whether to diff the working tree instead of a PR branch. */
+    private static final String OPT_WORKING_TREE = "workingTree";
+
+    /** Option name of the directory of the states of the PR branches. */
+    private static final String OPT_STATE_DIR = "stateDir";
+
     /** Option name of checkstyle-tester path. */
     private static final String OPT_CHECKSTYLE_TESTER_PATH = "checkstyleTesterPath";
 
     /** Option name of whether to stop after generating config. */
     private static final String OPT_STOP_AFTER_CONFIG_GENERATION = "stopAfterConfigGeneration";
 
+    /** Option name of the compiled checkstyle classes path. */
+    private static final String OPT_CHECKSTYLE_CLASSES_PATH = "checkstyleClassesPath";
+
+    /** Option name of the cache directory. */
+    private static final String OPT_CACHE_DIR = "cacheDir";
+
+    /** Option name of the limit of the total size of the diff cache. */
+    private static final String OPT_DIFF_CACHE_LIMIT = "diffCacheLimit";
+
+    /** Option name of whether to extract modules from the sources. */
+    private static final String OPT_EXTRACT_FROM_SOURCES = "extractFromSources";
+
+    /** Option name of the Maven profile file. */
+    private static final String OPT_MAVEN_PROFILE = "mavenProfile";
+
+    /** Option name of the glob patterns of the paths to include in the diff. */
+    private static final String OPT_INCLUDE_PATHS = "includePaths";
+
+    /** Option name of the glob patterns of the paths to exclude from the diff. */
+    private static final String OPT_EXCLUDE_PATHS = "excludePaths";
+
+    /** Option name of the diff algorithm. */
+    private static final String OPT_DIFF_ALGORITHM = "diffAlgorithm";
+
+    /** Option name of the minimum similarity score of renames. */
+    private static final String OPT_RENAME_SCORE = "renameScore";
+
+    /** Option name of the limit of the rename detection by similarity. */
+    private static final String OPT_RENAME_LIMIT = "renameLimit";
+
+    /** Option name of whether to memory map the pack windows. */
+    private static final String OPT_PACKED_GIT_MMAP = "packedGitMmap";
+
+    /** Option name of the size of a pack window. */
+    private static final String OPT_PACKED_GIT_WINDOW_SIZE = "packedGitWindowSize";
+
+    /** Option name of the limit of the pack windows in memory. */
+    private static final String OPT_PACKED_GIT_LIMIT = "packedGitLimit";
+
+    /** Option name of the limit of the delta base cache. */
+    private static final String OPT_DELTA_BASE_CACHE_LIMIT = "deltaBaseCacheLimit";
+
     /** The option order to be shown in the help text. */
     private static final List<String> OPT_ORDER = Arrays.asList(
-            OPT_CHECKSTYLE_REPO_PATH, OPT_PATCH_BRANCH,
-            OPT_CHECKSTYLE_TESTER_PATH, OPT_STOP_AFTER_CONFIG_GENERATION);
+            OPT_CHECKSTYLE_REPO_PATH, OPT_PATCH_BRANCH, OPT_BATCH, OPT_BASE_REVISION,
+            OPT_WORKING_TREE, OPT_STATE_DIR, OPT_CHECKSTYLE_TESTER_PATH,
+            OPT_STOP_AFTER_CONFIG_GENERATION, OPT_CHECKSTYLE_CLASSES_PATH, OPT_CACHE_DIR,
+            OPT_DIFF_CACHE_LIMIT, OPT_EXTRACT_FROM_SOURCES, OPT_MAVEN_PROFILE, OPT_INCLUDE_PATHS,
+            OPT_EXCLUDE_PATHS, OPT_DIFF_ALGORITHM, OPT_RENAME_SCORE, OPT_RENAME_LIMIT,
+            OPT_PACKED_GIT_MMAP, OPT_PACKED_GIT_WINDOW_SIZE, OPT_PACKED_GIT_LIMIT,
+            OPT_DELTA_BASE_CACHE_LIMIT);
+
+    /** The separator of the values of the options which accept many values. */
+    private static final String VALUE_SEPARATOR = ",";
+
+    /** The units of the size suffixes, like git config. */
+    private static final String SIZE_UNITS = "kmg";
+
+    /** The factor between the units of sizes. */
+    private static final int SIZE_UNIT_FACTOR = 1024;
+
+    /** The default cache directory, relative to the git directory. */
+    private static final String DEFAULT_CACHE_DIR = "regression-tool";
+
+    /** The default limit of the total size of the diff cache. */
+    private static final String DEFAULT_DIFF_CACHE_LIMIT = "256m";
+
+    /** The directory of the diff cache, relative to the cache directory. */
+    private static final String DIFF_CACHE_DIR = "diffs";
+
+    /** The file of the commit graph, relative to the cache directory. */
+    private static final String COMMIT_GRAPH_FILE = "commit-graph";
+
+    /** The revision which the PR branch is compared with by default. */
+    private static final String DEFAULT_BASE_REVISION = "master";
+
+    /** The revision which the working tree is on, in --workingTree mode. */
+    private static final String WORKING_TREE_REVISION = "HEAD";
+
+    /** The name of the working tree in the file names, in --workingTree mode. */
+    private static final String WORKING_TREE_NAME = "working-tree";
+
+    /** The maximum similarity score of renames. */
+    private static final int MAX_RENAME_SCORE = 100;
+
+    /** The maximum number of module set extractions running at once in --batch mode. */
+    private static final int BATCH_EXTRACTIONS = 2;
 
     /** Prevents instantiation. */
     private Main() {
@@ -101,10 +233,32 @@ public final class Main {
 
         final Arguments arguments = ImmutableArguments.builder()
                 .checkstyleRepoPath(cmd.getOptionValue(OPT_CHECKSTYLE_REPO_PATH))
-                .branch(cmd.getOptionValue(OPT_PATCH_BRANCH))
+                .branch(Optional.ofNullable(cmd.getOptionValue(OPT_PATCH_BRANCH)))
+                .batch(cmd.hasOption(OPT_BATCH))
+                .baseRevision(cmd.getOptionValue(OPT_BASE_REVISION, DEFAULT_BASE_REVISION))
+                .workingTree(cmd.hasOption(OPT_WORKING_TREE))
+                .stateDir(Optional.ofNullable(cmd.getOptionValue(OPT_STATE_DIR)))
                 .checkstyleTesterPath(
                         Optional.ofNullable(cmd.getOptionValue(OPT_CHECKSTYLE_TESTER_PATH)))
                 .stopAfterConfigGeneration(cmd.hasOption(OPT_STOP_AFTER_CONFIG_GENERATION))
+                .checkstyleClassesPath(
+                        Optional.ofNullable(cmd.getOptionValue(OPT_CHECKSTYLE_CLASSES_PATH)))
+                .cacheDir(Optional.ofNullable(cmd.getOptionValue(OPT_CACHE_DIR)))
+                .diffCacheLimit(
+                        cmd.getOptionValue(OPT_DIFF_CACHE_LIMIT, DEFAULT_DIFF_CACHE_LIMIT))
+                .extractFromSources(cmd.hasOption(OPT_EXTRACT_FROM_SOURCES))
+                .mavenProfile(Optional.ofNullable(cmd.getOptionValue(OPT_MAVEN_PROFILE)))
+                .includePaths(Optional.ofNullable(cmd.getOptionValue(OPT_INCLUDE_PATHS)))
+                .excludePaths(Optional.ofNullable(cmd.getOptionValue(OPT_EXCLUDE_PATHS)))
+                .diffAlgorithm(Optional.ofNullable(cmd.getOptionValue(OPT_DIFF_ALGORITHM)))
+                .renameScore(Optional.ofNullable(cmd.getOptionValue(OPT_RENAME_SCORE)))
+                .renameLimit(Optional.ofNullable(cmd.getOptionValue(OPT_RENAME_LIMIT)))
+                .packedGitMmap(cmd.hasOption(OPT_PACKED_GIT_MMAP))
+                .packedGitWindowSize(
+                        Optional.ofNullable(cmd.getOptionValue(OPT_PACKED_GIT_WINDOW_SIZE)))
+                .packedGitLimit(Optional.ofNullable(cmd.getOptionValue(OPT_PACKED_GIT_LIMIT)))
+                .deltaBaseCacheLimit(
+                        Optional.ofNullable(cmd.getOptionValue(OPT_DELTA_BASE_CACHE_LIMIT)))
                 .build();
 
         validateArguments(arguments);
@@ -129,12 +283,51 @@ public final class Main {
 
         final Option branch = Option.builder("p")
                 .longOpt(OPT_PATCH_BRANCH)
-                .required()
+                .required(false)
                 .hasArg()
-                .desc("the name of the PR branch")
+                .desc("the revision of the PR branch, like a branch name, a commit id, "
+                        + "a tag, a remote-tracking ref or a ref like 'refs/pull/1/head'")
                 .build();
         options.addOption(branch);
 
+        final Option batch = Option.builder()
+                .longOpt(OPT_BATCH)
+                .required(false)
+                .hasArg(false)
+                .desc("indicates that patchBranch is a comma separated list of branch names "
+                        + "or patterns of ref names like 'refs/pull/*/head', which are all "
+                        + "diffed in one walk and processed in one run")
+                .build();
+        options.addOption(batch);
+
+        final Option baseRevision = Option.builder()
+                .longOpt(OPT_BASE_REVISION)
+                .required(false)
+                .hasArg()
+                .desc("the revision which the PR branch is compared with, "
+                        + "any revision like patchBranch, default is 'master'")
+                .build();
+        options.addOption(baseRevision);
+
+        final Option workingTree = Option.builder()
+                .longOpt(OPT_WORKING_TREE)
+                .required(false)
+                .hasArg(false)
+                .desc("indicates that the working tree, with the uncommitted changes, "
+                        + "would be compared with the base revision instead of a PR branch")
+                .build();
+        options.addOption(workingTree);
+
+        final Option stateDir = Option.builder()
+                .longOpt(OPT_STATE_DIR)
+                .required(false)
+                .hasArg()
+                .desc("the directory of the states of the PR branches, when it is given, "
+                        + "only the modules affected since the previous run of the same "
+                        + "branch are run again, and the other results are kept")
+                .build();
+        options.addOption(stateDir);
+
         final Option tester = Option.builder("t")
                 .longOpt(OPT_CHECKSTYLE_TESTER_PATH)
                 .required(false)
@@ -151,6 +344,129 @@ public final class Main {
                 .build();
         options.addOption(stopAfterConfigGeneration);
 
+        final Option classes = Option.builder("c")
+                .longOpt(OPT_CHECKSTYLE_CLASSES_PATH)
+                .required(false)
+                .hasArg()
+                .desc("the path of the compiled checkstyle classes of the PR branch, "
+                        + "either a class directory or a jar, "
+                        + "modules are read from it instead of being extracted by Maven")
+                .build();
+        options.addOption(classes);
+
+        final Option cacheDir = Option.builder()
+                .longOpt(OPT_CACHE_DIR)
+                .required(false)
+                .hasArg()
+                .desc("the directory of the regression tool caches, "
+                        + "default is 'regression-tool' in the git directory "
+                        + "of the checkstyle repository")
+                .build();
+        options.addOption(cacheDir);
+
+        final Option diffCacheLimit = Option.builder()
+                .longOpt(OPT_DIFF_CACHE_LIMIT)
+                .required(false)
+                .hasArg()
+                .desc("the limit of the total size of the cached diffs, "
+                        + "default is '" + DEFAULT_DIFF_CACHE_LIMIT + "'")
+                .build();
+        options.addOption(diffCacheLimit);
+
+        final Option extractFromSources = Option.builder()
+                .longOpt(OPT_EXTRACT_FROM_SOURCES)
+                .required(false)
+                .hasArg(false)
+                .desc("indicates that modules would be extracted by parsing the sources "
+                        + "of the PR branch, without checkout and Maven")
+                .build();
+        options.addOption(extractFromSources);
+
+        final Option mavenProfile = Option.builder()
+                .longOpt(OPT_MAVEN_PROFILE)
+                .required(false)
+                .hasArg()
+                .desc("the path of the properties file of the Maven invocation settings "
+                        + "used by the extraction")
+                .build();
+        options.addOption(mavenProfile);
+
+        final Option includePaths = Option.builder()
+                .longOpt(OPT_INCLUDE_PATHS)
+                .required(false)
+                .hasArg()
+                .desc("comma separated glob patterns of the paths to include in the diff, "
+                        + "default is 'src/main/java/**/*.java,src/test/java/**/*.java'")
+                .build();
+        options.addOption(includePaths);
+
+        final Option excludePaths = Option.builder()
+                .longOpt(OPT_EXCLUDE_PATHS)
+                .required(false)
+                .hasArg()
+                .desc("comma separated glob patterns of the paths to exclude from the diff")
+                .build();
+        options.addOption(excludePaths);
+
+        final Option diffAlgorithm = Option.builder()
+                .longOpt(OPT_DIFF_ALGORITHM)
+                .required(false)
+                .hasArg()
+                .desc("the algorithm to compute the changed lines, "
+                        + "either 'histogram' or 'myers', default is 'histogram'")
+                .build();
+        options.addOption(diffAlgorithm);
+
+        final Option renameScore = Option.builder()
+                .longOpt(OPT_RENAME_SCORE)
+                .required(false)
+                .hasArg()
+                .desc("the minimum similarity score, from 0 to 100, of a deleted file "
+                        + "and an added file to be detected as a rename, default is 50")
+                .build();
+        options.addOption(renameScore);
+
+        final Option renameLimit = Option.builder()
+                .longOpt(OPT_RENAME_LIMIT)
+                .required(false)
+                .hasArg()
+                .desc("the number of deleted or added files above which only the renames "
+                        + "of the same content are detected, default is 200")
+                .build();
+        options.addOption(renameLimit);
+
+        final Option packedGitMmap = Option.builder()
+                .longOpt(OPT_PACKED_GIT_MMAP)
+                .required(false)
+                .hasArg(false)
+                .desc("indicates that the pack windows would be memory mapped")
+                .build();
+        options.addOption(packedGitMmap);
+
+        final Option packedGitWindowSize = Option.builder()
+                .longOpt(OPT_PACKED_GIT_WINDOW_SIZE)
+                .required(false)
+                .hasArg()
+                .desc("the size of a pack window, a power of 2 like '64k' or '1m'")
+                .build();
+        options.addOption(packedGitWindowSize);
+
+        final Option packedGitLimit = Option.builder()
+                .longOpt(OPT_PACKED_GIT_LIMIT)
+                .required(false)
+                .hasArg()
+                .desc("the limit of the pack windows in memory, like '256m'")
+                .build();
+        options.addOption(packedGitLimit);
+
+        final Option deltaBaseCacheLimit = Option.builder()
+                .longOpt(OPT_DELTA_BASE_CACHE_LIMIT)
+                .required(false)
+                .hasArg()
+                .desc("the limit of the delta base cache of each reader, like '96m'")
+                .build();
+        options.addOption(deltaBaseCacheLimit);
+
         return options;
     }
 
@@ -164,6 +480,36 @@ public final class Main {
             throw new IllegalArgumentException(
                     "path of local git repo must exist and be a directory");
         }
+        if (args.checkstyleClassesPath().isPresent()
+                && !new File(args.checkstyleClassesPath().get()).exists()) {
+            throw new IllegalArgumentException("path of checkstyle classes must exist");
+        }
+        if (args.mavenProfile().isPresent()
+                && !new File(args.mavenProfile().get()).isFile()) {
+            throw new IllegalArgumentException("path of maven profile must exist and be a file");
+        }
+        if (args.checkstyleClassesPath().isPresent() && args.extractFromSources()) {
+            throw new IllegalArgumentException("checkstyleClassesPath could not be used "
+                    + "with --extractFromSources mode");
+        }
+        validateWorkingTreeMode(args);
+        if (args.stateDir().isPresent() && (args.batch() || args.workingTree())) {
+            throw new IllegalArgumentException("stateDir could not be used "
+                    + "with --batch or --workingTree mode");
+        }
+        if (args.checkstyleClassesPath().isPresent() && args.batch()) {
+            throw new IllegalArgumentException("checkstyleClassesPath could not be used "
+                    + "with --batch mode");
+        }
+        if (args.diffAlgorithm().isPresent()
+                && Arrays.stream(DiffAlgorithmType.values()).noneMatch(algorithm -> {
+                    return algorithm.name().equalsIgnoreCase(args.diffAlgorithm().get());
+                })) {
+            throw new IllegalArgumentException(
+                    "diff algorithm must be either histogram or myers");
+        }
+        validateRenameDetection(args);
+        validatePackSizes(args);
         if (!args.stopAfterConfigGeneration()) {
             if (args.checkstyleTesterPath().isPresent()) {
                 if (!existAndIsDirectory(args.checkstyleTesterPath().get())) {
@@ -179,37 +525,1018 @@ public final class Main {
     }
 
     /**
-     * Runs the regression tool.
+     * Validates the arguments which depend on whether --workingTree mode is used.
+     * @param args the parsed CLI arguments.
+     * @throws IllegalArgumentException the arguments are invalid
+     */
+    private static void validateWorkingTreeMode(Arguments args) {
+        if (args.workingTree()) {
+            if (args.branch().isPresent() || args.batch()) {
+                throw new IllegalArgumentException("patchBranch and --batch could not be "
+                        + "used with --workingTree mode");
+            }
+            if (usesMavenExtraction(args)) {
+                throw new IllegalArgumentException("--workingTree mode requires either "
+                        + "checkstyleClassesPath or --extractFromSources");
+            }
+            if (!args.stopAfterConfigGeneration()) {
+                throw new IllegalArgumentException("--workingTree mode could only be used "
+                        + "with --stopAfterConfigGeneration mode");
+            }
+        }
+        else if (!args.branch().isPresent()) {
+            throw new IllegalArgumentException("missing patchBranch, which is "
+                    + "required if you are not using --workingTree mode");
+        }
+    }
+
+    /**
+     * Validates the settings of the rename detection.
+     * @param args the parsed CLI arguments.
+     * @throws IllegalArgumentException the settings are invalid
+     */
+    private static void validateRenameDetection(Arguments args) {
+        if (args.renameScore().isPresent()) {
+            final int score = parseInteger(args.renameScore().get());
+            if (score < 0 || score > MAX_RENAME_SCORE) {
+                throw new IllegalArgumentException(
+                        "renameScore must be an integer from 0 to 100");
+            }
+        }
+        if (args.renameLimit().isPresent() && parseInteger(args.renameLimit().get()) <= 0) {
+            throw new IllegalArgumentException("renameLimit must be a positive integer");
+        }
+        if (parseSize(args.diffCacheLimit()) <= 0) {
+            throw new IllegalArgumentException("diffCacheLimit must be a positive number "
+                    + "with an optional k, m or g suffix");
+        }
+    }
+
+    /**
+     * Validates the sizes of the pack options.
+     * @param args the parsed CLI arguments.
+     * @throws IllegalArgumentException the sizes are invalid
+     */
+    private static void validatePackSizes(Arguments args) {
+        final List<Optional<String>> sizes = Arrays.asList(args.packedGitWindowSize(),
+                args.packedGitLimit(), args.deltaBaseCacheLimit());
+        for (Optional<String> size : sizes) {
+            if (size.isPresent() && parseSize(size.get()) <= 0) {
+                throw new IllegalArgumentException("size of pack options must be "
+                        + "a positive number with an optional k, m or g suffix");
+            }
+        }
+        for (Optional<String> size
+                : Arrays.asList(args.packedGitWindowSize(), args.deltaBaseCacheLimit())) {
+            if (size.isPresent() && parseSize(size.get()) > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(
+                        "packedGitWindowSize and deltaBaseCacheLimit must be less than 2g");
+            }
+        }
+        if (args.packedGitWindowSize().isPresent()
+                && Long.bitCount(parseSize(args.packedGitWindowSize().get())) != 1) {
+            throw new IllegalArgumentException("packedGitWindowSize must be a power of 2");
+        }
+    }
+
+    /**
+     * Runs the regression tool. The work is modeled as a pipeline of stages, so
+     * the diff and the extractions of the merge-base and the PR branch overlap.
+     * The checkstyle repository is opened once and shared by all the stages,
+     * and by all the branches in --batch mode, with the commit graph which finds
+     * the merge-bases.
      * @param args the parsed CLI arguments.
      * @throws Exception execute failure
      */
     private static void runRegression(Arguments args) throws Exception {
-        final File config = generateConfig(args);
-        System.out.println("config generated at " + config.getAbsolutePath());
-        if (!args.stopAfterConfigGeneration()) {
-            final File report = ReportGenerator.generate(args.checkstyleTesterPath().get(),
-                    args.checkstyleRepoPath(), args.branch(), config);
-            System.out.println("report generated at " + report.getAbsolutePath());
+        final MavenProfile profile = getMavenProfile(args);
+        RepositorySession.configurePacks(getPackSettings(args));
+        try (RepositorySession session = RepositorySession.open(args.checkstyleRepoPath());
+                Pipeline pipeline = new Pipeline()) {
+            final File commitGraphFile = new File(getCacheDir(session, args), COMMIT_GRAPH_FILE);
+            final CommitGraph commitGraph = CommitGraph.load(commitGraphFile);
+            commitGraph.getLoadError().ifPresent(error -> {
+                System.err.println("commit graph " + commitGraphFile + " is rebuilt: " + error);
+            });
+            session.setCommitGraph(commitGraph);
+            try {
+                if (args.batch()) {
+                    runBatch(pipeline, session, args, profile);
+                }
+                else {
+                    runSingle(pipeline, session, args, profile);
+                }
+            }
+            finally {
+                pipeline.await();
+                saveCommitGraph(commitGraph);
+                if (usesMavenExtraction(args) && profile.stopDaemon()) {
+                    ExtractInfoProcessor.stopMavenDaemon(getCacheDir(session, args), profile);
+                }
+                System.out.println(pipeline.getReport());
+            }
+        }
+    }
+
+    /**
+     * Saves the commit graph for the next runs. A failure is reported but does not fail
+     * the run, as the commit graph is only an index of the repository.
+     * @param commitGraph the commit graph to save
+     */
+    private static void saveCommitGraph(CommitGraph commitGraph) {
+        try {
+            commitGraph.save();
+        }
+        catch (IOException ex) {
+            System.err.println("unable to save the commit graph: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Runs the regression of a single PR branch on the given pipeline. The diff and the
+     * merge-base of the PR branch are read from the diff cache if they are cached, the
+     * module set of the PR branch and the dependencies between its main sources are
+     * extracted concurrently with them. The changes of main sources which only change
+     * comments, Javadoc, imports or formatting are dropped before the modules are
+     * selected. If the state directory is given, only the modules affected since the
+     * previous run are run.
+     * @param pipeline the pipeline to add the stages to
+     * @param session  the session of checkstyle repository
+     * @param args     the parsed CLI arguments.
+     * @param profile  the settings of the Maven invocation
+     * @throws Exception execute failure
+     */
+    private static void runSingle(Pipeline pipeline, RepositorySession session,
+            Arguments args, MavenProfile profile) throws Exception {
+        final Stage<List<GitChange>> diff;
+        final Stage<String> mergeBase;
+        if (args.workingTree()) {
+            diff = pipeline.add("diff", () -> {
+                return DiffParser.parseWorkingTree(session, args.baseRevision(),
+                        getPathFilterSpec(args), getDiffSettings(args));
+            });
+            mergeBase = pipeline.add("merge-base", () -> {
+                return DiffParser.getMergeBase(session, args.baseRevision(),
+                        WORKING_TREE_REVISION);
+            });
+        }
+        else {
+            final Stage<BranchDiff> branchDiff = pipeline.add("cached diff", () -> {
+                final DiffCache cache = getDiffCache(session, args);
+                final BranchDiff returnValue = DiffParser.parseCached(session,
+                        args.baseRevision(), args.branch().get(), getPathFilterSpec(args),
+                        getDiffSettings(args), cache);
+                reportWarnings(cache.getWarnings());
+                return returnValue;
+            });
+            diff = pipeline.add("diff", () -> branchDiff.get().changes(), branchDiff);
+            mergeBase = pipeline.add("merge-base", () -> {
+                return branchDiff.get().mergeBase();
+            }, branchDiff);
+        }
+        final Stage<Map<String, ModuleExtractInfo>> prExtraction =
+                addPrExtractionStage(pipeline, session, args, profile);
+        final Stage<ModuleRegistry> registry = pipeline.add("registry", () -> {
+            return ModuleRegistry.of(prExtraction.get());
+        }, prExtraction);
+        final Stage<DependencyGraph> dependencies = pipeline.add("dependencies", () -> {
+            return getDependencyGraph(session, args, diff.get());
+        }, diff);
+        final Stage<List<GitChange>> filtered = pipeline.add("neutral change filter", () -> {
+            final FilteredChanges returnValue;
+            if (args.workingTree()) {
+                returnValue = ExtractInfoProcessor.filterNeutralChangesOfWorkingTree(session,
+                        mergeBase.get(), diff.get());
+            }
+            else {
+                returnValue = ExtractInfoProcessor.filterNeutralChanges(session,
+                        mergeBase.get(), args.branch().get(), diff.get());
+            }
+            return reportFilteredChanges(returnValue);
+        }, diff, mergeBase);
+        final Stage<List<ModuleInfo>> modules = addModulesStage(pipeline, "modules", filtered,
+                registry, addDeltaStage(pipeline, session, args, profile, mergeBase,
+                        prExtraction), dependencies);
+        if (args.stateDir().isPresent()) {
+            runIncremental(pipeline, session, args, diff, mergeBase, registry, modules,
+                    dependencies);
+        }
+        else {
+            runFull(pipeline, session, args, modules);
+        }
+    }
+
+    /**
+     * Runs all the selected modules of a single PR branch, or of the working tree.
+     * @param pipeline the pipeline to add the stages to
+     * @param session  the session of checkstyle repository
+     * @param args     the parsed CLI arguments.
+     * @param modules  the stage which selects the modules
+     * @throws Exception execute failure
+     */
+    private static void runFull(Pipeline pipeline, RepositorySession session,
+            Arguments args, Stage<List<ModuleInfo>> modules) throws Exception {
+        final Stage<File> config = addConfigStage(pipeline, "config",
+                args.branch().orElse(WORKING_TREE_NAME), modules);
+        if (args.stopAfterConfigGeneration()) {
+            System.out.println("config generated at " + config.get().getAbsolutePath());
+        }
+        else {
+            final Stage<File> report = pipeline.add("report", () -> {
+                return generateReport(session, args, args.branch().get(), config.get(),
+                        Optional.empty());
+            }, config);
+            System.out.println("config generated at " + config.get().getAbsolutePath());
+            System.out.println("report generated at " + report.get().getAbsolutePath());
         }
     }
 
     /**
-     * Generates the config file.
+     * Runs the modules of a single PR branch which are affected since the previous run of
+     * the branch, whose state is kept in the state directory. The trees of the previous
+     * head and the current head are diffed, and only the modules changed by this update,
+     * or newly selected, are run again. The results of the other modules are merged from
+     * the state. All the modules are run if the branch has not been run, if the merge-base
+     * has changed or if the previous head is no longer in the repository. The state is
+     * not saved if only the config is generated, as the modules are not run.
+     * @param pipeline     the pipeline to add the stages to
+     * @param session      the session of checkstyle repository
+     * @param args         the parsed CLI arguments.
+     * @param diff         the stage which parses the diff of the branch
+     * @param mergeBase    the stage which finds the merge-base of the branch
+     * @param registry     the stage which indexes the module set of the branch
+     * @param modules      the stage which selects the modules
+     * @param dependencies the stage which gets the dependencies between the main sources
+     * @throws Exception execute failure
+     */
+    private static void runIncremental(Pipeline pipeline, RepositorySession session,
+            Arguments args, Stage<List<GitChange>> diff, Stage<String> mergeBase,
+            Stage<ModuleRegistry> registry, Stage<List<ModuleInfo>> modules,
+            Stage<DependencyGraph> dependencies) throws Exception {
+        final StateStore store = new StateStore(new File(args.stateDir().get()));
+        final String branch = args.branch().get();
+        final Stage<Optional<BranchState>> previous =
+                pipeline.add("load state", () -> store.load(branch));
+        final Stage<BranchState> current = pipeline.add("resolve head", () -> {
+            return ImmutableBranchState.builder()
+                    .mergeBase(mergeBase.get())
+                    .head(RepositorySession.resolve(session.getRepository(), branch).name())
+                    .build();
+        }, mergeBase);
+        final Stage<Optional<List<GitChange>>> update = pipeline.add("update diff", () -> {
+            return getUpdateChanges(session, args, previous.get(), current.get());
+        }, previous, current);
+        final Stage<DependencyGraph> updateDependencies =
+                pipeline.add("update dependencies", () -> {
+                    final DependencyGraph returnValue;
+                    if (!update.get().isPresent()) {
+                        returnValue = ImmutableDependencyGraph.builder().build();
+                    }
+                    else if (ModuleUtils.hasJavaMainSourceChanges(diff.get())) {
+                        returnValue = dependencies.get();
+                    }
+                    else {
+                        returnValue = getDependencyGraph(session, args, update.get().get());
+                    }
+                    return returnValue;
+                }, update, diff, dependencies);
+        final Stage<List<ModuleInfo>> selected = pipeline.add("incremental selection", () -> {
+            final List<ModuleInfo> returnValue;
+            if (update.get().isPresent()) {
+                returnValue = ModuleCollector.selectUpdated(registry.get(), modules.get(),
+                        update.get().get(), previous.get().get().results().keySet(),
+                        updateDependencies.get());
+            }
+            else {
+                returnValue = modules.get();
+            }
+            return returnValue;
+        }, modules, update, registry, updateDependencies);
+        final Stage<File> config = addConfigStage(pipeline, "config", branch, selected);
+        if (args.stopAfterConfigGeneration()) {
+            System.out.println(selected.get().size() + " of " + modules.get().size()
+                    + " modules to run");
+            System.out.println("config generated at " + config.get().getAbsolutePath());
+            System.out.println("state is not saved, as no report is generated");
+        }
+        else {
+            saveIncrementalResult(pipeline, session, args, store, current, previous, modules,
+                    selected, config);
+        }
+    }
+
+    /**
+     * Generates the report of the selected modules of an incremental run, if there is
+     * any, and saves the new state of the branch with it.
+     * @param pipeline the pipeline to add the stages to
+     * @param session  the session of checkstyle repository
+     * @param args     the parsed CLI arguments.
+     * @param store    the store of the states of the branches
+     * @param current  the stage which resolves the head and merge-base of the current run
+     * @param previous the stage which loads the state of the previous run
+     * @param modules  the stage which selects all the modules of the branch
+     * @param selected the stage which selects the modules to run this time
+     * @param config   the stage which generates the config of the modules to run
+     * @throws Exception execute failure
+     */
+    private static void saveIncrementalResult(Pipeline pipeline, RepositorySession session,
+            Arguments args, StateStore store, Stage<BranchState> current,
+            Stage<Optional<BranchState>> previous, Stage<List<ModuleInfo>> modules,
+            Stage<List<ModuleInfo>> selected, Stage<File> config) throws Exception {
+        final String branch = args.branch().get();
+        final Stage<Optional<File>> report = pipeline.add("report", () -> {
+            final Optional<File> returnValue;
+            if (selected.get().isEmpty()) {
+                returnValue = Optional.empty();
+            }
+            else {
+                returnValue = Optional.of(generateReport(session, args, branch, config.get(),
+                        Optional.of(getIncrementalReportName(args, branch,
+                                current.get().head()))));
+            }
+            return returnValue;
+        }, config, current);
+        final Stage<BranchState> state = pipeline.add("save state", () -> {
+            final BranchState returnValue = mergeResults(current.get(), previous.get(),
+                    modules.get(), selected.get(), report.get());
+            store.save(branch, returnValue);
+            return returnValue;
+        }, current, previous, modules, selected, report);
+
+        System.out.println(selected.get().size() + " of " + modules.get().size()
+                + " modules to run");
+        System.out.println("config generated at " + config.get().getAbsolutePath());
+        if (report.get().isPresent()) {
+            System.out.println("report generated at " + report.get().get().getAbsolutePath());
+        }
+        for (Map.Entry<String, String> moduleResult : state.get().results().entrySet()) {
+            System.out.println("result of " + moduleResult.getKey() + " at "
+                    + moduleResult.getValue());
+        }
+        System.out.println("state saved at " + store.getFile(branch).getAbsolutePath());
+    }
+
+    /**
+     * Gets the name of the report directory of an incremental run, from the branch and
+     * its head. The results of the previous runs keep pointing at their reports, so an
+     * existing report is never replaced, a numbered name is taken instead.
+     * @param args   the parsed CLI arguments.
+     * @param branch the name of the PR branch
+     * @param head   the id of the head commit of the PR branch
+     * @return the name of the report directory, unused in checkstyle-tester
+     */
+    private static String getIncrementalReportName(Arguments args, String branch,
+            String head) {
+        final File reportsDir = new File(args.checkstyleTesterPath().get(), "reports");
+        final String name = "diff-" + toFileName(branch) + "-" + head;
+        String returnValue = name;
+        for (int index = 1; new File(reportsDir, returnValue).exists(); ++index) {
+            returnValue = name + "-" + index;
+        }
+        return returnValue;
+    }
+
+    /**
+     * Gets the changes of the PR branch since its previous run, if the modules
+     * could be selected incrementally from them.
+     * @param session  the session of checkstyle repository
+     * @param args     the parsed CLI arguments.
+     * @param previous the state of the previous run of the branch
+     * @param current  the head and merge-base of the current run
+     * @return the changes between the previous head and the current head, without the
+     *         behavior-neutral ones, or empty if all the modules must be run
+     * @throws IOException JGit library exception
+     */
+    private static Optional<List<GitChange>> getUpdateChanges(RepositorySession session,
+            Arguments args, Optional<BranchState> previous, BranchState current)
+            throws IOException {
+        Optional<List<GitChange>> returnValue = Optional.empty();
+        if (!previous.isPresent()) {
+            System.out.println("no previous run of the branch, all the modules are run");
+        }
+        else if (!previous.get().mergeBase().equals(current.mergeBase())) {
+            System.out.println("the merge-base has changed since the previous run, "
+                    + "all the modules are run");
+        }
+        else if (RepositorySession.resolve(session.getRepository(),
+                previous.get().head()) == null) {
+            System.out.println("the previous head " + previous.get().head()
+                    + " is not in the repository, all the modules are run");
+        }
+        else {
+            final List<GitChange> changes = DiffParser.parseUpdate(session,
+                    previous.get().head(), current.head(), getPathFilterSpec(args));
+            returnValue = Optional.of(reportFilteredChanges(
+                    ExtractInfoProcessor.filterNeutralChanges(session,
+                            previous.get().head(), current.head(), changes)));
+        }
+        return returnValue;
+    }
+
+    /**
+     * Prints why each neutral change is dropped, and which sources could not be parsed
+     * so that their changes are kept.
+     * @param filtered the changes filtered by the neutral change filter
+     * @return the changes which are kept
+     */
+    private static List<GitChange> reportFilteredChanges(FilteredChanges filtered) {
+        for (Map.Entry<String, String> skipped : filtered.skipped().entrySet()) {
+            System.out.println(skipped.getKey() + " is skipped, " + skipped.getValue());
+        }
+        for (Map.Entry<String, String> unparsed : filtered.unparsed().entrySet()) {
+            System.err.println("unable to parse " + unparsed.getKey() + ", it is kept: "
+                    + unparsed.getValue());
+        }
+        return filtered.changes();
+    }
+
+    /**
+     * Prints the warnings of a step which went on despite them, like the failures of
+     * a cache.
+     * @param warnings the warnings to print
+     */
+    private static void reportWarnings(List<String> warnings) {
+        for (String warning : warnings) {
+            System.err.println(warning);
+        }
+    }
+
+    /**
+     * Merges the result of the current run with the results of the previous runs. The
+     * modules which are run this time get the given result, the other selected modules
+     * keep their previous results, and the modules which are no longer selected are
+     * dropped. A module which is not run this time must have a previous result, as
+     * {@link ModuleCollector#selectUpdated} selects all the modules without one.
+     * @param current  the head and merge-base of the current run
+     * @param previous the state of the previous run of the branch
+     * @param modules  all the selected modules of the branch
+     * @param selected the modules which are run this time
+     * @param result   the report of this run, absent if nothing is run
+     * @return the new state of the branch
+     * @throws IllegalStateException if a module which is not run has no previous result
+     */
+    private static BranchState mergeResults(BranchState current,
+            Optional<BranchState> previous, List<ModuleInfo> modules,
+            List<ModuleInfo> selected, Optional<File> result) {
+        final Set<String> selectedNames = new HashSet<>();
+        for (ModuleInfo moduleInfo : selected) {
+            selectedNames.add(moduleInfo.moduleExtractInfo().fullName());
+        }
+        final Map<String, String> results = new TreeMap<>();
+        for (ModuleInfo moduleInfo : modules) {
+            final String fullName = moduleInfo.moduleExtractInfo().fullName();
+            if (selectedNames.contains(fullName)) {
+                results.put(fullName, result.get().getAbsolutePath());
+            }
+            else {
+                final String previousResult = previous.get().results().get(fullName);
+                if (previousResult == null) {
+                    throw new IllegalStateException("module " + fullName
+                            + " is neither run nor has a previous result");
+                }
+                results.put(fullName, previousResult);
+            }
+        }
+        return ImmutableBranchState.builder().from(current).results(results).build();
+    }
+
+    /**
+     * Runs the regression of many PR branches on the given pipeline. The diffs of all
+     * the branches are computed in one walk, and the stages of each branch are added as
+     * soon as its diff is computed. The failure of a branch does not stop the others.
+     * At most {@link #BATCH_EXTRACTIONS} module set extractions run at once, and the
+     * reports are generated one by one, as checkstyle-tester works in one directory.
+     * @param pipeline the pipeline to add the stages to
+     * @param session  the session of checkstyle repository
+     * @param args     the parsed CLI arguments.
+     * @param profile  the settings of the Maven invocation
+     * @throws Exception failure of the diff, or of any of the branches
+     */
+    private static void runBatch(Pipeline pipeline, RepositorySession session,
+            Arguments args, MavenProfile profile) throws Exception {
+        final Semaphore extractions = new Semaphore(BATCH_EXTRACTIONS);
+        final Object reportLock = new Object();
+        final List<Stage<File>> results = Collections.synchronizedList(new ArrayList<>());
+        final Stage<Integer> diffs = pipeline.add("batch diff", () -> {
+            final DiffCache cache = getDiffCache(session, args);
+            DiffParser.parseBatch(session, args.baseRevision(), splitValues(args.branch().get()),
+                    getPathFilterSpec(args), getDiffSettings(args), cache,
+                    branchDiff -> {
+                        results.add(addBranchStages(pipeline, session, args, profile,
+                                branchDiff, extractions, reportLock));
+                    });
+            reportWarnings(cache.getWarnings());
+            return results.size();
+        });
+        System.out.println("branches to process: " + diffs.get());
+
+        int failures = 0;
+        for (Stage<File> result : results) {
+            try {
+                System.out.println(result.getName() + " generated at "
+                        + result.get().getAbsolutePath());
+            }
+            // -@cs[IllegalCatch] The failure of a branch must not stop the others
+            catch (Exception ex) {
+                ++failures;
+                System.err.println(result.getName() + " failed: " + ex.getMessage());
+            }
+        }
+        if (failures > 0) {
+            throw new IllegalStateException("regression failed for " + failures + " of "
+                    + results.size() + " branches");
+        }
+    }
+
+    /**
+     * Adds the stages which generate the config file and the report of a branch in
+     * --batch mode, named after the branch.
+     * @param pipeline    the pipeline to add the stages to
+     * @param session     the session of checkstyle repository
+     * @param args        the parsed CLI arguments.
+     * @param profile     the settings of the Maven invocation
+     * @param branchDiff  the diff of the branch
+     * @param extractions the permits of the module set extractions
+     * @param reportLock  the lock of the report generation
+     * @return the last stage of the branch, which generates either the report or the config
+     */
+    private static Stage<File> addBranchStages(Pipeline pipeline, RepositorySession session,
+            Arguments args, MavenProfile profile, BranchDiff branchDiff, Semaphore extractions,
+            Object reportLock) {
+        final String branch = branchDiff.branch();
+        final Stage<List<GitChange>> diff = pipeline.add(branch + " diff", () -> {
+            return reportFilteredChanges(ExtractInfoProcessor.filterNeutralChanges(session,
+                    branchDiff.mergeBase(), branchDiff.commitId(), branchDiff.changes()));
+        });
+        final Stage<Map<String, ModuleExtractInfo>> prExtraction =
+                pipeline.add(branch + " extract PR", () -> {
+                    return runWithPermit(extractions, () -> {
+                        return getModuleExtractInfos(session, args, profile,
+                                branchDiff.commitId());
+                    });
+                });
+        final Stage<Map<String, ModuleExtractInfo>> baseExtraction =
+                pipeline.add(branch + " extract merge-base", () -> {
+                    return runWithPermit(extractions, () -> {
+                        return getModuleExtractInfos(session, args, profile,
+                                branchDiff.mergeBase());
+                    });
+                });
+        final Stage<ModuleRegistry> registry = pipeline.add(branch + " registry", () -> {
+            return ModuleRegistry.of(prExtraction.get());
+        }, prExtraction);
+        final Stage<ModuleSetDelta> delta = pipeline.add(branch + " module set delta", () -> {
+            return ModuleUtils.createModuleSetDelta(baseExtraction.get(), prExtraction.get());
+        }, baseExtraction, prExtraction);
+        final Stage<DependencyGraph> dependencies =
+                pipeline.add(branch + " dependencies", () -> {
+                    final DependencyGraph returnValue;
+                    if (ModuleUtils.hasJavaMainSourceChanges(branchDiff.changes())) {
+                        returnValue = ExtractInfoProcessor.getDependencyGraph(session,
+                                branchDiff.commitId(), getCacheDir(session, args));
+                        reportWarnings(returnValue.warnings());
+                    }
+                    else {
+                        returnValue = ImmutableDependencyGraph.builder().build();
+                    }
+                    return returnValue;
+                });
+        final Stage<File> config = addConfigStage(pipeline, branch + " config", branch,
+                addModulesStage(pipeline, branch + " modules", diff, registry, delta,
+                        dependencies));
+        final Stage<File> returnValue;
+        if (args.stopAfterConfigGeneration()) {
+            returnValue = config;
+        }
+        else {
+            returnValue = pipeline.add(branch + " report", () -> {
+                synchronized (reportLock) {
+                    return generateReport(session, args, branch, config.get(),
+                            Optional.of("diff-" + toFileName(branch)));
+                }
+            }, config);
+        }
+        return returnValue;
+    }
+
+    /**
+     * Generates the report of a branch, in a scratch clone of the checkstyle repository
+     * where checkstyle-tester could check out, so the checkstyle repository itself is
+     * never checked out and could be a bare mirror.
+     * @param session    the session of checkstyle repository
+     * @param args       the parsed CLI arguments.
+     * @param branch     the revision of the PR branch
+     * @param config     the generated config file
+     * @param reportName the name of the directory of the report, if it is not the default
+     * @return the directory of the generated report
+     * @throws Exception failure of the clone or of the report generation
+     */
+    private static File generateReport(RepositorySession session, Arguments args,
+            String branch, File config, Optional<String> reportName) throws Exception {
+        final File cloneDir = new File(getCacheDir(session, args), "clones");
+        Files.createDirectories(cloneDir.toPath());
+        try (ScratchClone clone = ScratchClone.create(session,
+                Files.createTempDirectory(cloneDir.toPath(), "report-").toFile(),
+                args.baseRevision(), branch)) {
+            final File returnValue;
+            if (reportName.isPresent()) {
+                returnValue = ReportGenerator.generate(args.checkstyleTesterPath().get(),
+                        clone.getPath(), clone.getBaseBranch(), clone.getBranch(), config,
+                        reportName.get());
+            }
+            else {
+                returnValue = ReportGenerator.generate(args.checkstyleTesterPath().get(),
+                        clone.getPath(), clone.getBaseBranch(), clone.getBranch(), config);
+            }
+            return returnValue;
+        }
+    }
+
+    /**
+     * Runs the given task with a permit of the given semaphore.
+     * @param permits the semaphore to acquire a permit from
+     * @param task    the task to run
+     * @param <T>     the type of the result
+     * @return the result of the task
+     * @throws Exception failure of the task
+     */
+    private static <T> T runWithPermit(Semaphore permits, StageTask<T> task) throws Exception {
+        permits.acquire();
+        try {
+            return task.run();
+        }
+        finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Adds the stage which extracts the module set of the PR branch, either from the
+     * compiled checkstyle classes if they are given, or from the PR branch itself. In
+     * --workingTree mode, the working tree takes the place of the PR branch.
+     * @param pipeline the pipeline to add the stage to
+     * @param session  the session of checkstyle repository
+     * @param args     the parsed CLI arguments.
+     * @param profile  the settings of the Maven invocation
+     * @return the stage which extracts the module set of the PR branch
+     */
+    private static Stage<Map<String, ModuleExtractInfo>> addPrExtractionStage(
+            Pipeline pipeline, RepositorySession session, Arguments args,
+            MavenProfile profile) {
+        final Stage<Map<String, ModuleExtractInfo>> returnValue;
+        if (args.checkstyleClassesPath().isPresent()) {
+            returnValue = pipeline.add("extract PR classes", () -> {
+                return ExtractInfoProcessor.getModuleExtractInfosFromClasses(
+                        new File(args.checkstyleClassesPath().get()));
+            });
+        }
+        else {
+            returnValue = pipeline.add("extract PR", () -> {
+                final Map<String, ModuleExtractInfo> extractInfos;
+                if (args.workingTree()) {
+                    extractInfos = reportExtraction(
+                            ExtractInfoProcessor.getModuleExtractInfosFromWorkingTree(session));
+                }
+                else {
+                    extractInfos =
+                            getModuleExtractInfos(session, args, profile, args.branch().get());
+                }
+                return extractInfos;
+            });
+        }
+        return returnValue;
+    }
+
+    /**
+     * Adds the stages which compute the module set delta. The module set of the merge-base
+     * is extracted as soon as the merge-base is found, concurrently with the extraction of
+     * the PR branch, unless the compiled checkstyle classes of the PR branch are given,
+     * then the delta is empty.
+     * @param pipeline     the pipeline to add the stages to
+     * @param session      the session of checkstyle repository
+     * @param args         the parsed CLI arguments.
+     * @param profile      the settings of the Maven invocation
+     * @param mergeBase    the stage which finds the merge-base
+     * @param prExtraction the stage which extracts the module set of the PR branch
+     * @return the stage which computes the module set delta
+     */
+    private static Stage<ModuleSetDelta> addDeltaStage(Pipeline pipeline,
+            RepositorySession session, Arguments args, MavenProfile profile,
+            Stage<String> mergeBase, Stage<Map<String, ModuleExtractInfo>> prExtraction) {
+        final Stage<ModuleSetDelta> returnValue;
+        if (args.checkstyleClassesPath().isPresent()) {
+            returnValue = pipeline.add("module set delta", () -> {
+                return ImmutableModuleSetDelta.builder().build();
+            });
+        }
+        else {
+            final Stage<Map<String, ModuleExtractInfo>> baseExtraction =
+                    pipeline.add("extract merge-base", () -> {
+                        return getModuleExtractInfos(session, args, profile, mergeBase.get());
+                    }, mergeBase);
+            returnValue = pipeline.add("module set delta", () -> {
+                return ModuleUtils.createModuleSetDelta(
+                        baseExtraction.get(), prExtraction.get());
+            }, baseExtraction, prExtraction);
+        }
+        return returnValue;
+    }
+
+    /**
+     * Gets the dependencies between the main sources of the PR branch, or of the working
+     * tree, to look up the users of the given changes. They are neither built nor loaded
+     * if no Java main source is changed, as there is nothing to look up. The warnings of
+     * building them are printed.
+     * @param session the session of checkstyle repository
+     * @param args    the parsed CLI arguments.
+     * @param changes the changes of which users are looked up
+     * @return the dependencies between the main sources, empty if they are not needed
+     * @throws IOException failure of reading the sources
+     */
+    private static DependencyGraph getDependencyGraph(RepositorySession session,
+            Arguments args, List<GitChange> changes) throws IOException {
+        final DependencyGraph returnValue;
+        if (!ModuleUtils.hasJavaMainSourceChanges(changes)) {
+            returnValue = ImmutableDependencyGraph.builder().build();
+        }
+        else if (args.workingTree()) {
+            returnValue = ExtractInfoProcessor.getDependencyGraphFromWorkingTree(session);
+        }
+        else {
+            returnValue = ExtractInfoProcessor.getDependencyGraph(session,
+                    args.branch().get(), getCacheDir(session, args));
+        }
+        reportWarnings(returnValue.warnings());
+        return returnValue;
+    }
+
+    /**
+     * Adds the stage which selects the modules of a branch from its diff, module set and
+     * the dependencies between its main sources.
+     * @param pipeline     the pipeline to add the stage to
+     * @param name         the name of the stage
+     * @param diff         the stage which parses the diff of the branch
+     * @param registry     the stage which indexes the module set of the branch
+     * @param delta        the stage which computes the module set delta of the branch
+     * @param dependencies the stage which gets the dependencies between the main sources
+     * @return the stage which selects the modules
+     */
+    private static Stage<List<ModuleInfo>> addModulesStage(Pipeline pipeline, String name,
+            Stage<List<GitChange>> diff, Stage<ModuleRegistry> registry,
+            Stage<ModuleSetDelta> delta, Stage<DependencyGraph> dependencies) {
+        return pipeline.add(name, () -> {
+            for (ModuleExtractInfo extractInfo : delta.get().removed()) {
+                System.out.println("module " + extractInfo.fullName()
+                        + " is removed in the PR branch, skipped");
+            }
+            final ModuleSelection selection = ModuleCollector.select(registry.get(),
+                    diff.get(), delta.get(), dependencies.get());
+            if (selection.changedSupertypes() > 0) {
+                System.out.println(selection.subtypeModules()
+                        + " modules are selected as they extend "
+                        + selection.changedSupertypes() + " changed classes");
+            }
+            if (selection.changedClasses() > 0) {
+                System.out.println(selection.dependentModules()
+                        + " modules are selected as they use "
+                        + selection.changedClasses() + " changed classes");
+            }
+            return selection.modules();
+        }, diff, registry, delta, dependencies);
+    }
+
+    /**
+     * Adds the stage which generates the config file of a branch.
+     * @param pipeline the pipeline to add the stage to
+     * @param name     the name of the stage
+     * @param branch   the name of the PR branch
+     * @param modules  the stage which selects the modules of the branch
+     * @return the stage which generates the config file
+     */
+    private static Stage<File> addConfigStage(Pipeline pipeline, String name, String branch,
+            Stage<List<ModuleInfo>> modules) {
+        return pipeline.add(name, () -> {
+            final DateFormat format =
+                    new SimpleDateFormat("yyyyMMddHHmmss", Locale.getDefault());
+            final String configFileName = String.format("config-%s-%s.xml",
+                    toFileName(branch), format.format(new Date()));
+            return ConfigGenerator.generateConfig(configFileName, modules.get());
+        }, modules);
+    }
+
+    /**
+     * Gets the module extract info map of the given revision, either from its sources
+     * in --extractFromSources mode, or from the injection on it. How they are extracted
+     * is printed.
+     * @param session  the session of checkstyle repository
+     * @param args     the parsed CLI arguments.
+     * @param profile  the settings of the Maven invocation
+     * @param revision the branch name or commit id to extract from
+     * @return the full qualified name to module extract info map
+     * @throws Exception extraction failure
+     */
+    private static Map<String, ModuleExtractInfo> getModuleExtractInfos(RepositorySession session,
+            Arguments args, MavenProfile profile, String revision) throws Exception {
+        final ModuleExtraction extraction;
+        if (args.extractFromSources()) {
+            extraction = ExtractInfoProcessor.getModuleExtractInfosFromSources(
+                    session, revision);
+        }
+        else {
+            extraction = ExtractInfoProcessor.getModuleExtractInfos(
+                    session, revision, getCacheDir(session, args), profile);
+        }
+        return reportExtraction(extraction);
+    }
+
+    /**
+     * Prints the cached file, the report of the Maven invocation and the warnings of
+     * the given module extraction.
+     * @param extraction the module extraction to report
+     * @return the full qualified name to module extract info map of the extraction
+     */
+    private static Map<String, ModuleExtractInfo> reportExtraction(
+            ModuleExtraction extraction) {
+        extraction.cachedFile().ifPresent(file -> {
+            System.out.println("module extract info loaded from cache " + file);
+        });
+        extraction.mavenReport().ifPresent(System.out::println);
+        reportWarnings(extraction.warnings());
+        return extraction.moduleExtractInfos();
+    }
+
+    /**
+     * Gets the settings of the Maven invocation, either loaded from the Maven profile file
+     * if it is given, or the default ones.
+     * @param args the parsed CLI arguments.
+     * @return the settings of the Maven invocation
+     * @throws IOException failure of loading the Maven profile file
+     */
+    private static MavenProfile getMavenProfile(Arguments args) throws IOException {
+        final MavenProfile returnValue;
+        if (args.mavenProfile().isPresent()) {
+            returnValue = MavenProfile.load(new File(args.mavenProfile().get()));
+        }
+        else {
+            returnValue = ImmutableMavenProfile.builder().build();
+        }
+        return returnValue;
+    }
+
+    /**
+     * Gets the path filters of the diff, where the default ones are replaced by
+     * the given include patterns.
      * @param args the parsed CLI arguments.
-     * @return the generated config file
-     * @throws Exception generation failure
+     * @return the path filters of the diff
      */
-    private static File generateConfig(Arguments args)
-            throws Exception {
-        final List<GitChange> changes = DiffParser.parse(args.checkstyleRepoPath(), args.branch());
-        final Map<String, ModuleExtractInfo> extractInfos = ExtractInfoProcessor
-                .getModuleExtractInfos(args.checkstyleRepoPath(), args.branch());
-        ModuleUtils.setNameToModuleExtractInfo(extractInfos);
-        final List<ModuleInfo> moduleInfos = ModuleCollector.generate(changes);
-        final DateFormat format = new SimpleDateFormat("yyyyMMddHHmmss", Locale.getDefault());
-        final String configFileName =
-                String.format("config-%s-%s.xml", args.branch(), format.format(new Date()));
-        return ConfigGenerator.generateConfig(configFileName, moduleInfos);
+    private static PathFilterSpec getPathFilterSpec(Arguments args) {
+        final ImmutablePathFilterSpec.Builder builder = ImmutablePathFilterSpec.builder();
+        if (args.includePaths().isPresent()) {
+            builder.addAllIncludes(splitValues(args.includePaths().get()));
+        }
+        else {
+            builder.addAllIncludes(PathFilterSpec.defaultSpec().includes());
+        }
+        args.excludePaths().ifPresent(paths -> builder.addAllExcludes(splitValues(paths)));
+        return builder.build();
+    }
+
+    /**
+     * Gets the settings of the computation of the changed lines.
+     * @param args the parsed CLI arguments.
+     * @return the settings of the computation of the changed lines
+     */
+    private static DiffSettings getDiffSettings(Arguments args) {
+        final ImmutableDiffSettings.Builder builder = ImmutableDiffSettings.builder();
+        args.diffAlgorithm().ifPresent(algorithm -> {
+            builder.algorithm(DiffAlgorithmType.valueOf(algorithm.toUpperCase(Locale.ROOT)));
+        });
+        args.renameScore().ifPresent(score -> builder.renameScore(parseInteger(score)));
+        args.renameLimit().ifPresent(limit -> builder.renameLimit(parseInteger(limit)));
+        return builder.build();
+    }
+
+    /**
+     * Gets the settings of the pack access.
+     * @param args the parsed CLI arguments.
+     * @return the settings of the pack access
+     */
+    private static PackSettings getPackSettings(Arguments args) {
+        final ImmutablePackSettings.Builder builder = ImmutablePackSettings.builder();
+        if (args.packedGitMmap()) {
+            builder.mmap(true);
+        }
+        args.packedGitWindowSize().ifPresent(size -> {
+            builder.windowSize(Math.toIntExact(parseSize(size)));
+        });
+        args.packedGitLimit().ifPresent(size -> builder.packedGitLimit(parseSize(size)));
+        args.deltaBaseCacheLimit().ifPresent(size -> {
+            builder.deltaBaseCacheLimit(Math.toIntExact(parseSize(size)));
+        });
+        return builder.build();
+    }
+
+    /**
+     * Parses an integer option value.
+     * @param value the value to parse
+     * @return the integer, or -1 if it could not be parsed
+     */
+    private static int parseInteger(String value) {
+        int returnValue;
+        try {
+            returnValue = Integer.parseInt(value.trim());
+        }
+        catch (NumberFormatException ex) {
+            returnValue = -1;
+        }
+        return returnValue;
+    }
+
+    /**
+     * Parses a size with an optional {@code k}, {@code m} or {@code g} suffix, like git config.
+     * @param size the size to parse
+     * @return the size in bytes, or -1 if it could not be parsed
+     */
+    private static long parseSize(String size) {
+        long returnValue;
+        final String lowerCase = size.trim().toLowerCase(Locale.ROOT);
+        final int unit;
+        if (lowerCase.isEmpty()) {
+            unit = -1;
+        }
+        else {
+            unit = SIZE_UNITS.indexOf(lowerCase.charAt(lowerCase.length() - 1));
+        }
+        try {
+            if (unit < 0) {
+                returnValue = Long.parseLong(lowerCase);
+            }
+            else {
+                returnValue = Long.parseLong(lowerCase.substring(0, lowerCase.length() - 1));
+                for (int i = 0; i <= unit; ++i) {
+                    returnValue = Math.multiplyExact(returnValue, SIZE_UNIT_FACTOR);
+                }
+            }
+        }
+        catch (NumberFormatException | ArithmeticException ex) {
+            returnValue = -1;
+        }
+        return returnValue;
+    }
+
+    /**
+     * Splits the comma separated values of an option, like the glob patterns
+     * of a path filter option.
+     * @param values the comma separated values
+     * @return the values, without blank ones
+     */
+    private static List<String> splitValues(String values) {
+        return Arrays.stream(values.split(VALUE_SEPARATOR))
+                .map(String::trim)
+                .filter(path -> !path.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Converts a branch name to a part of a file name, replacing the characters
+     * which are not safe in file names, like the separators of ref names.
+     * @param branch the name of the branch
+     * @return the part of a file name
+     */
+    private static String toFileName(String branch) {
+        return branch.replaceAll("[^\\w.-]", "-");
+    }
+
+    /**
+     * Checks whether the module sets are extracted by Maven invocations.
+     * @param args the parsed CLI arguments.
+     * @return true if the module sets are extracted by Maven invocations
+     */
+    private static boolean usesMavenExtraction(Arguments args) {
+        return !args.checkstyleClassesPath().isPresent() && !args.extractFromSources();
+    }
+
+    /**
+     * Gets the root directory of the regression tool caches.
+     * @param session the session of checkstyle repository
+     * @param args    the parsed CLI arguments.
+     * @return the root directory of the caches
+     */
+    private static File getCacheDir(RepositorySession session, Arguments args) {
+        return args.cacheDir().map(File::new).orElseGet(() -> {
+            return new File(session.getRepository().getDirectory(), DEFAULT_CACHE_DIR);
+        });
+    }
+
+    /**
+     * Gets the cache of the diffs of the PR branches.
+     * @param session the session of checkstyle repository
+     * @param args    the parsed CLI arguments.
+     * @return the cache of the diffs
+     */
+    private static DiffCache getDiffCache(RepositorySession session, Arguments args) {
+        return new DiffCache(new File(getCacheDir(session, args), DIFF_CACHE_DIR),
+                parseSize(args.diffCacheLimit()));
     }
 
     /**
@@ -232,10 +1559,34 @@ public final class Main {
         String checkstyleRepoPath();
 
         /**
-         * The PR branch name.
+         * The PR branch name, absent in --workingTree mode.
          * @return the PR branch name
          */
-        String branch();
+        Optional<String> branch();
+
+        /**
+         * Whether the PR branch name is a list of branch names or ref name patterns.
+         * @return whether to process many PR branches in one run
+         */
+        boolean batch();
+
+        /**
+         * The revision which the PR branch is compared with.
+         * @return the base revision
+         */
+        String baseRevision();
+
+        /**
+         * Whether to diff the working tree instead of a PR branch.
+         * @return whether to diff the working tree
+         */
+        boolean workingTree();
+
+        /**
+         * The directory of the states of the PR branches.
+         * @return the directory of the states
+         */
+        Optional<String> stateDir();
 
         /**
          * Checkstyle-tester path.
@@ -248,5 +1599,89 @@ public final class Main {
          * @return whether to stop after generating config
          */
         boolean stopAfterConfigGeneration();
+
+        /**
+         * The path of the compiled checkstyle classes of the PR branch.
+         * @return the path of the compiled checkstyle classes
+         */
+        Optional<String> checkstyleClassesPath();
+
+        /**
+         * The root directory of the regression tool caches.
+         * @return the root directory of the caches
+         */
+        Optional<String> cacheDir();
+
+        /**
+         * The limit of the total size of the diff cache.
+         * @return the limit of the total size of the diff cache
+         */
+        String diffCacheLimit();
+
+        /**
+         * Whether to extract modules by parsing the sources.
+         * @return whether to extract modules by parsing the sources
+         */
+        boolean extractFromSources();
+
+        /**
+         * The path of the Maven profile file.
+         * @return the path of the Maven profile file
+         */
+        Optional<String> mavenProfile();
+
+        /**
+         * The comma separated glob patterns of the paths to include in the diff.
+         * @return the glob patterns of the paths to include
+         */
+        Optional<String> includePaths();
+
+        /**
+         * The comma separated glob patterns of the paths to exclude from the diff.
+         * @return the glob patterns of the paths to exclude
+         */
+        Optional<String> excludePaths();
+
+        /**
+         * The name of the diff algorithm.
+         * @return the name of the diff algorithm
+         */
+        Optional<String> diffAlgorithm();
+
+        /**
+         * The minimum similarity score of renames.
+         * @return the minimum similarity score of renames
+         */
+        Optional<String> renameScore();
+
+        /**
+         * The limit of the rename detection by similarity.
+         * @return the limit of the rename detection by similarity
+         */
+        Optional<String> renameLimit();
+
+        /**
+         * Whether to memory map the pack windows.
+         * @return whether to memory map the pack windows
+         */
+        boolean packedGitMmap();
+
+        /**
+         * The size of a pack window.
+         * @return the size of a pack window
+         */
+        Optional<String> packedGitWindowSize();
+
+        /**
+         * The limit of the pack windows in memory.
+         * @return the limit of the pack windows in memory
+         */
+        Optional<String> packedGitLimit();
+
+        /**
+         * The limit of the delta base cache of each object reader.
+         * @return the limit of the delta base cache
+         */
+        Optional<String> deltaBaseCacheLimit();
     }
 }
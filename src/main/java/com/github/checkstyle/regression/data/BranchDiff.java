@@ -0,0 +1,56 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.data;
+
+import java.util.List;
+
+import org.immutables.value.Value;
+
+/**
+ * Represents the diff between a PR branch and master, one of the results of a batch diff.
+ * @author LuoLiangchen
+ */
+@Value.Immutable
+public interface BranchDiff {
+    /**
+     * The name of the PR branch, the short name for local branches and the full ref name
+     * for the others, like {@code refs/pull/1/head}.
+     * @return the name of the PR branch
+     */
+    String branch();
+
+    /**
+     * The id of the head commit of the PR branch.
+     * @return the id of the head commit of the PR branch
+     */
+    String commitId();
+
+    /**
+     * The id of the merge-base commit between the PR branch and master.
+     * @return the id of the merge-base commit
+     */
+    String mergeBase();
+
+    /**
+     * The changes of the PR branch since the merge-base.
+     * @return the changes of the PR branch
+     */
+    List<GitChange> changes();
+}
@@ -0,0 +1,42 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.data;
+
+/**
+ * Represents the type of the git change of a file. Deletions are only represented
+ * in the diff between two heads of a branch, since the deleted files are never selected.
+ * @author LuoLiangchen
+ */
+public enum ChangeType {
+    /** The file is added. */
+    ADD,
+
+    /** The content or the mode of the file is modified. */
+    MODIFY,
+
+    /** The file is renamed, and maybe modified. */
+    RENAME,
+
+    /** The file is copied from another file, and maybe modified. */
+    COPY,
+
+    /** The file is deleted. */
+    DELETE
+}
@@ -0,0 +1,56 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.data;
+
+import java.util.List;
+
+import org.immutables.value.Value;
+
+/**
+ * Represents a list of changes classified by what they change, in the order of the changes.
+ * @author LuoLiangchen
+ */
+@Value.Immutable
+public interface ClassifiedChanges {
+    /**
+     * The modules of which main sources are changed.
+     * @return the modules of which main sources are changed
+     */
+    List<ModuleExtractInfo> modules();
+
+    /**
+     * The modules of which tests are changed.
+     * @return the modules of which tests are changed
+     */
+    List<ModuleExtractInfo> moduleTests();
+
+    /**
+     * The full qualified names of the changed main sources which are not modules,
+     * like utility classes and base classes.
+     * @return the full qualified names of the changed utility classes
+     */
+    List<String> utilities();
+
+    /**
+     * The changes which are neither main sources nor tests of modules.
+     * @return the other changes
+     */
+    List<GitChange> others();
+}
@@ -0,0 +1,95 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.data;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.immutables.value.Value;
+
+/**
+ * Represents the class-level dependencies between the Java main sources of a branch.
+ * A class is the full qualified name derived from the path of a source file, like
+ * {@code com.puppycrawl.tools.checkstyle.utils.CommonUtil} for
+ * {@code src/main/java/com/puppycrawl/tools/checkstyle/utils/CommonUtil.java}.
+ * Only the dependencies between the sources are kept.
+ * @author LuoLiangchen
+ */
+@Value.Immutable
+public interface DependencyGraph {
+    /**
+     * The map of class to the classes it uses directly.
+     * @return the map of class to the classes it uses directly
+     */
+    Map<String, Set<String>> dependencies();
+
+    /**
+     * The warnings of building the graph, like the sources which could not be parsed,
+     * to be reported by the caller. They are neither a part of the value nor cached.
+     * @return the warnings of building the graph
+     */
+    @Value.Auxiliary
+    List<String> warnings();
+
+    /**
+     * The map of class to the classes which use it directly, the reverse of
+     * {@link #dependencies()}, built once on the first access.
+     * @return the map of class to the classes which use it directly
+     */
+    @Value.Lazy
+    default Map<String, Set<String>> dependents() {
+        final Map<String, Set<String>> returnValue = new HashMap<>();
+        for (Map.Entry<String, Set<String>> entry : dependencies().entrySet()) {
+            for (String dependency : entry.getValue()) {
+                returnValue.computeIfAbsent(dependency, name -> new HashSet<>())
+                        .add(entry.getKey());
+            }
+        }
+        return returnValue;
+    }
+
+    /**
+     * Gets the classes which use any of the given classes, directly or transitively.
+     * The given classes are not included, unless they use each other.
+     * @param classes the full qualified names of the used classes
+     * @return the full qualified names of the classes using them, in natural order
+     */
+    default Set<String> getTransitiveDependents(Collection<String> classes) {
+        final Set<String> returnValue = new TreeSet<>();
+        final Deque<String> queue = new ArrayDeque<>(classes);
+        while (!queue.isEmpty()) {
+            for (String dependent : dependents().getOrDefault(queue.poll(),
+                    Collections.emptySet())) {
+                if (returnValue.add(dependent)) {
+                    queue.add(dependent);
+                }
+            }
+        }
+        return returnValue;
+    }
+}
@@ -0,0 +1,53 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.data;
+
+import java.util.List;
+import java.util.Map;
+
+import org.immutables.value.Value;
+
+/**
+ * Represents a list of changes without the neutral changes of Java main sources, with
+ * the reasons why each of them is dropped, to be reported by the caller.
+ * @author LuoLiangchen
+ */
+@Value.Immutable
+public interface FilteredChanges {
+    /**
+     * The changes which could change the behavior of a module, in the order of the
+     * filtered changes.
+     * @return the changes which are kept
+     */
+    List<GitChange> changes();
+
+    /**
+     * The map of path to the reason why the change of it is neutral and dropped.
+     * @return the reasons of the dropped changes
+     */
+    Map<String, String> skipped();
+
+    /**
+     * The map of path to the reason why the source could not be parsed, so that the
+     * change of it is kept.
+     * @return the reasons of the unparsed sources
+     */
+    Map<String, String> unparsed();
+}
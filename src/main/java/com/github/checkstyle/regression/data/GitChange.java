@@ -19,12 +19,18 @@
 
 package com.github.checkstyle.regression.data;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Optional;
 
 import org.immutables.value.Value;
 
 /**
  * Represents git changes of a file.
+ * The line-level changes are loaded on the first access of them, so the content
+ * of a file is only diffed if its lines are needed. They are not a part of the value,
+ * so the changes of the same path and type are equal.
  * @author LuoLiangchen
  */
 @Value.Immutable
@@ -36,16 +42,80 @@ public interface GitChange {
     String path();
 
     /**
-     * The line numbers of the added changes.
+     * The path of the file before the change, which is present only if the file is
+     * renamed or copied. The line-level changes are then the ones from this file.
+     * @return the path of the file before the change
+     */
+    Optional<String> oldPath();
+
+    /**
+     * The type of the change.
+     * @return the type of the change
+     */
+    @Value.Default
+    default ChangeType changeType() {
+        return ChangeType.MODIFY;
+    }
+
+    /**
+     * The loader of the line-level changes, which has no changed line by default.
+     * @return the loader of the line-level changes
+     */
+    @Value.Auxiliary
+    @Value.Default
+    default LineChangesLoader lineChangesLoader() {
+        return LineChangesLoader.of(ImmutableLineChanges.builder().build());
+    }
+
+    /**
+     * The line-level changes, loaded once on the first access.
+     * @return the line-level changes
+     * @throws UncheckedIOException failure of loading the line-level changes
+     */
+    @Value.Lazy
+    default LineChanges lineChanges() {
+        try {
+            return lineChangesLoader().load();
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(
+                    "unable to load the line changes of " + path(), ex);
+        }
+    }
+
+    /**
+     * The ranges of the line numbers of the added changes.
+     * The first line of a file is marked as line zero.
+     * @return the ranges of the line numbers of the added changes
+     */
+    default LineRanges addedLineRanges() {
+        return lineChanges().added();
+    }
+
+    /**
+     * The ranges of the line numbers of the deleted changes.
+     * The first line of a file is marked as line zero.
+     * @return the ranges of the line numbers of the deleted changes
+     */
+    default LineRanges deletedLineRanges() {
+        return lineChanges().deleted();
+    }
+
+    /**
+     * The line numbers of the added changes, as a view of {@link #addedLineRanges()}.
      * The first line of a file is marked as line zero.
      * @return the line numbers of the added changes
      */
-    List<Integer> addedLines();
+    default List<Integer> addedLines() {
+        return addedLineRanges().toList();
+    }
 
     /**
-     * The line numbers of the deleted changes.
+     * The line numbers of the deleted changes, as a view of {@link #deletedLineRanges()}.
      * The first line of a file is marked as line zero.
      * @return the line numbers of the deleted changes
      */
-    List<Integer> deletedLines();
+    default List<Integer> deletedLines() {
+        return deletedLineRanges().toList();
+    }
 }
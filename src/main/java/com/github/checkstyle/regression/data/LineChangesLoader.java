@@ -0,0 +1,45 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.data;
+
+import java.io.IOException;
+
+/**
+ * Loads the line-level changes of a file, which requires diffing its content.
+ * @author LuoLiangchen
+ */
+@FunctionalInterface
+public interface LineChangesLoader {
+    /**
+     * Loads the line-level changes.
+     * @return the line-level changes
+     * @throws IOException failure of reading or diffing the content
+     */
+    LineChanges load() throws IOException;
+
+    /**
+     * Creates a loader of the line-level changes which are already known.
+     * @param lineChanges the line-level changes
+     * @return the loader which returns the given line-level changes
+     */
+    static LineChangesLoader of(LineChanges lineChanges) {
+        return () -> lineChanges;
+    }
+}
@@ -0,0 +1,282 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.data;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+/**
+ * Represents a set of line numbers as sorted, disjoint ranges of primitive values,
+ * so large changes do not expand into a boxed value per line.
+ * Each range is described by its first line and the line after its last one.
+ * @author LuoLiangchen
+ */
+public final class LineRanges {
+    /** The line ranges without any line. */
+    public static final LineRanges EMPTY = new LineRanges(new int[0], new int[0]);
+
+    /** The first line of each range, in ascending order. */
+    private final int[] starts;
+
+    /** The line after the last line of each range. */
+    private final int[] ends;
+
+    /** The number of lines before each range, plus the total at the end. */
+    private final int[] offsets;
+
+    /**
+     * Creates a new LineRanges instance.
+     * @param starts the first line of each range, sorted and disjoint
+     * @param ends   the line after the last line of each range
+     */
+    private LineRanges(int[] starts, int[] ends) {
+        this.starts = starts;
+        this.ends = ends;
+        offsets = new int[starts.length + 1];
+        for (int i = 0; i < starts.length; ++i) {
+            offsets[i + 1] = offsets[i] + ends[i] - starts[i];
+        }
+    }
+
+    /**
+     * Creates a new builder of line ranges.
+     * @return the new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Gets the number of lines.
+     * @return the number of lines
+     */
+    public int size() {
+        return offsets[starts.length];
+    }
+
+    /**
+     * Checks whether there is no line.
+     * @return true if there is no line
+     */
+    public boolean isEmpty() {
+        return starts.length == 0;
+    }
+
+    /**
+     * Gets the number of disjoint ranges.
+     * @return the number of ranges
+     */
+    public int getRangeCount() {
+        return starts.length;
+    }
+
+    /**
+     * Gets the first line of the range at the given index.
+     * @param index the index of the range
+     * @return the first line of the range
+     */
+    public int getStart(int index) {
+        return starts[index];
+    }
+
+    /**
+     * Gets the line after the last line of the range at the given index.
+     * @param index the index of the range
+     * @return the line after the last line of the range
+     */
+    public int getEnd(int index) {
+        return ends[index];
+    }
+
+    /**
+     * Checks whether the given line is in any range.
+     * @param line the line number
+     * @return true if the line is in any range
+     */
+    public boolean contains(int line) {
+        final int index = findRange(line);
+        return index >= 0 && line < ends[index];
+    }
+
+    /**
+     * Checks whether any line from {@code start} until {@code end} is in any range.
+     * @param start the first line to check
+     * @param end   the line after the last line to check
+     * @return true if any of the lines is in any range
+     */
+    public boolean overlaps(int start, int end) {
+        boolean returnValue = false;
+        if (start < end) {
+            final int index = findRange(start);
+            if (index >= 0 && start < ends[index]) {
+                returnValue = true;
+            }
+            else if (index + 1 < starts.length) {
+                returnValue = starts[index + 1] < end;
+            }
+        }
+        return returnValue;
+    }
+
+    /**
+     * Gets the lines as a list view in ascending order, which does not copy the lines.
+     * @return the lines as a list view
+     */
+    public List<Integer> toList() {
+        return new AbstractList<Integer>() {
+            @Override
+            public Integer get(int index) {
+                if (index < 0 || index >= size()) {
+                    throw new IndexOutOfBoundsException("Index: " + index);
+                }
+                // the ranges are never empty, so the offsets are strictly ascending
+                int range = Arrays.binarySearch(offsets, 0, starts.length, index);
+                if (range < 0) {
+                    range = -range - 2;
+                }
+                return starts[range] + index - offsets[range];
+            }
+
+            @Override
+            public int size() {
+                return LineRanges.this.size();
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        boolean returnValue = this == object;
+        if (!returnValue && object instanceof LineRanges) {
+            final LineRanges other = (LineRanges) object;
+            returnValue = Arrays.equals(starts, other.starts) && Arrays.equals(ends, other.ends);
+        }
+        return returnValue;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(Arrays.hashCode(starts), Arrays.hashCode(ends));
+    }
+
+    @Override
+    public String toString() {
+        final StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        for (int i = 0; i < starts.length; ++i) {
+            joiner.add(starts[i] + ".." + (ends[i] - 1));
+        }
+        return joiner.toString();
+    }
+
+    /**
+     * Finds the last range which starts at or before the given line.
+     * @param line the line number
+     * @return the index of the range, or -1 if all the ranges start after the line
+     */
+    private int findRange(int line) {
+        int returnValue = Arrays.binarySearch(starts, line);
+        if (returnValue < 0) {
+            returnValue = -returnValue - 2;
+        }
+        return returnValue;
+    }
+
+    /** The builder of {@link LineRanges}, which accepts ranges in any order. */
+    public static final class Builder {
+        /** The initial capacity of the added ranges. */
+        private static final int INITIAL_CAPACITY = 8;
+
+        /** The added ranges, each packed as its start in the high bits and end in the low. */
+        private long[] ranges = new long[INITIAL_CAPACITY];
+
+        /** The number of the added ranges. */
+        private int count;
+
+        /** Creates a new Builder instance. */
+        private Builder() {
+        }
+
+        /**
+         * Adds the lines from {@code start} until {@code end}. Empty ranges are ignored.
+         * @param start the first line of the range
+         * @param end   the line after the last line of the range
+         * @return this builder
+         */
+        public Builder addRange(int start, int end) {
+            if (start < 0 || end < start) {
+                throw new IllegalArgumentException(
+                        "illegal line range: " + start + " until " + end);
+            }
+            if (start < end) {
+                if (count == ranges.length) {
+                    ranges = Arrays.copyOf(ranges, count * 2);
+                }
+                ranges[count] = (long) start << Integer.SIZE | end;
+                ++count;
+            }
+            return this;
+        }
+
+        /**
+         * Adds a single line.
+         * @param line the line number
+         * @return this builder
+         */
+        public Builder addLine(int line) {
+            return addRange(line, line + 1);
+        }
+
+        /**
+         * Builds the line ranges, where overlapping and adjacent ranges are merged.
+         * @return the built line ranges
+         */
+        public LineRanges build() {
+            final LineRanges returnValue;
+            if (count == 0) {
+                returnValue = EMPTY;
+            }
+            else {
+                final long[] sorted = Arrays.copyOf(ranges, count);
+                Arrays.sort(sorted);
+                final int[] starts = new int[count];
+                final int[] ends = new int[count];
+                int merged = -1;
+                for (long range : sorted) {
+                    final int start = (int) (range >>> Integer.SIZE);
+                    final int end = (int) range;
+                    if (merged >= 0 && start <= ends[merged]) {
+                        ends[merged] = Math.max(ends[merged], end);
+                    }
+                    else {
+                        ++merged;
+                        starts[merged] = start;
+                        ends[merged] = end;
+                    }
+                }
+                returnValue = new LineRanges(Arrays.copyOf(starts, merged + 1),
+                        Arrays.copyOf(ends, merged + 1));
+            }
+            return returnValue;
+        }
+    }
+}
@@ -19,6 +19,8 @@
 
 package com.github.checkstyle.regression.data;
 
+import java.util.List;
+
 import org.immutables.gson.Gson;
 import org.immutables.value.Value;
 
@@ -48,6 +50,24 @@ public abstract class ModuleExtractInfo {
      */
     public abstract String parent();
 
+    /**
+     * The full qualified names of the super classes of this module, from the direct
+     * super class up to, but excluding, {@code java.lang.Object}.
+     * They are not part of the identity of the module.
+     * @return the full qualified names of the super classes of this module
+     */
+    @Value.Auxiliary
+    public abstract List<String> hierarchies();
+
+    /**
+     * The full qualified names of the interfaces directly implemented by this module
+     * or by any of its super classes.
+     * They are not part of the identity of the module.
+     * @return the full qualified names of the interfaces of this module
+     */
+    @Value.Auxiliary
+    public abstract List<String> interfaces();
+
     /**
      * The full qualified name of this module.
      * @return the full qualified name of this module
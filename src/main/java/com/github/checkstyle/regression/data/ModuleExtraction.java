@@ -0,0 +1,60 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.data;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.immutables.value.Value;
+
+/**
+ * Represents the module extract infos of a branch, with how they are extracted,
+ * to be reported by the caller.
+ * @author LuoLiangchen
+ */
+@Value.Immutable
+public interface ModuleExtraction {
+    /**
+     * The map of full qualified name to module extract info.
+     * @return the full qualified name to module extract info map
+     */
+    Map<String, ModuleExtractInfo> moduleExtractInfos();
+
+    /**
+     * The report of the time spent in each mojo execution of the Maven invocation,
+     * which is present only if Maven is invoked.
+     * @return the report of the Maven invocation
+     */
+    Optional<String> mavenReport();
+
+    /**
+     * The path of the cached extract info file, which is present only if the module
+     * extract infos are loaded from the cache instead of being generated.
+     * @return the path of the cached extract info file
+     */
+    Optional<String> cachedFile();
+
+    /**
+     * The warnings of the extraction, like the sources which could not be parsed.
+     * @return the warnings of the extraction
+     */
+    List<String> warnings();
+}
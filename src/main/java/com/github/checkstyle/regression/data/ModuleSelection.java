@@ -0,0 +1,77 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.data;
+
+import java.util.List;
+
+import org.immutables.value.Value;
+
+/**
+ * Represents the modules selected from the changes of a branch, with the counts of
+ * why they are selected, to be reported by the caller.
+ * @author LuoLiangchen
+ */
+@Value.Immutable
+public interface ModuleSelection {
+    /**
+     * The information of the selected modules, in the order of selection.
+     * @return the information of the selected modules
+     */
+    List<ModuleInfo> modules();
+
+    /**
+     * The number of the changed main classes of which users are looked up.
+     * @return the number of the changed main classes
+     */
+    @Value.Default
+    default int changedClasses() {
+        return 0;
+    }
+
+    /**
+     * The number of the modules selected only as they use the changed main classes,
+     * directly or transitively.
+     * @return the number of the modules selected as dependents
+     */
+    @Value.Default
+    default int dependentModules() {
+        return 0;
+    }
+
+    /**
+     * The number of the changed main classes which are extended or implemented by
+     * any module.
+     * @return the number of the changed supertypes
+     */
+    @Value.Default
+    default int changedSupertypes() {
+        return 0;
+    }
+
+    /**
+     * The number of the modules selected only as they extend or implement the changed
+     * main classes.
+     * @return the number of the modules selected as subtypes
+     */
+    @Value.Default
+    default int subtypeModules() {
+        return 0;
+    }
+}
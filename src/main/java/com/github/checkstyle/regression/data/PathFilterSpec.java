@@ -0,0 +1,58 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.data;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.immutables.value.Value;
+
+/**
+ * Represents the include and exclude path filters of a diff, as glob patterns relative
+ * to the repository root. {@code *} and {@code ?} match within a path segment and
+ * {@code **} matches any number of segments. A path is selected if it matches any
+ * include, or there is no include, and it matches no exclude.
+ * @author LuoLiangchen
+ */
+@Value.Immutable
+public interface PathFilterSpec {
+    /**
+     * The glob patterns of the paths to include, empty to include all the paths.
+     * @return the glob patterns of the paths to include
+     */
+    List<String> includes();
+
+    /**
+     * The glob patterns of the paths to exclude.
+     * @return the glob patterns of the paths to exclude
+     */
+    List<String> excludes();
+
+    /**
+     * Creates the default path filters, which only select the paths used to select
+     * modules: the Java main sources and the Java test sources.
+     * @return the default path filters
+     */
+    static PathFilterSpec defaultSpec() {
+        return ImmutablePathFilterSpec.builder()
+                .addAllIncludes(Arrays.asList("src/main/java/**/*.java", "src/test/java/**/*.java"))
+                .build();
+    }
+}
@@ -22,7 +22,15 @@ package com.github.checkstyle.regression.extract;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.maven.shared.invoker.DefaultInvocationRequest;
@@ -31,48 +39,93 @@ import org.apache.maven.shared.invoker.InvocationRequest;
 import org.apache.maven.shared.invoker.InvocationResult;
 import org.apache.maven.shared.invoker.Invoker;
 import org.apache.maven.shared.invoker.MavenInvocationException;
-import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.api.errors.GitAPIException;
+import org.apache.maven.shared.invoker.SystemOutHandler;
 import org.eclipse.jgit.lib.Repository;
-import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
 
 /**
- * Injects files to checkstyle repository, which would be invoked by maven command
- * to generate module extract info.
+ * Injects files to a pooled working tree of checkstyle repository, which would be
+ * invoked by maven command to generate module extract info. The working tree of
+ * the checkstyle repository itself is never touched.
  * @author LuoLiangchen
  */
 final class CheckstyleInjector implements Closeable {
+    /** The charset of the recorded main source tree id. */
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
     /** The injection files to be copied. */
-    private static final String[] INJECTIONS = {"ExtractInfoGeneratorTest.java", "JsonUtil.java"};
+    static final String[] INJECTIONS = {"ExtractInfoGeneratorTest.java", "JsonUtil.java"};
+
+    /** The resource path of the injection files. */
+    private static final String INJECTION_PATH = "/com/github/checkstyle/regression/extract/";
+
+    /** The path of the injection files in the working tree. */
+    private static final String INJECTION_DEST_PATH =
+            "src/test/java/com/puppycrawl/tools/checkstyle/";
+
+    /** The name of the generated extract info file. */
+    private static final String EXTRACT_INFO_FILE_NAME = "checkstyle_modules.json";
+
+    /**
+     * The file which records the id of the main source tree from which the classes
+     * in the working tree are compiled.
+     */
+    private static final String CLASSES_TREE_FILE_NAME = "target/regression-tool-main-tree";
 
-    /** The path to checkstyle repository. */
-    private final String repoPath;
+    /** The test method which generates the extract info file. */
+    private static final String EXTRACT_INFO_TEST =
+            "ExtractInfoGeneratorTest#generateExtractInfoFile";
+
+    /** The lifecycle goals of a full build. */
+    private static final List<String> LIFECYCLE_GOALS = Collections.singletonList("test");
+
+    /** The goals which only compile and run the tests, reusing the compiled classes. */
+    private static final List<String> TEST_ONLY_GOALS =
+            Arrays.asList("compiler:testCompile", "surefire:test");
+
+    /** The properties which skip the static analysis plugins of checkstyle build. */
+    private static final List<String> ANALYSIS_SKIP_PROPERTIES = Arrays.asList(
+            "checkstyle.skip", "checkstyle.ant.skip", "pmd.skip", "cpd.skip",
+            "findbugs.skip", "spotbugs.skip", "forbiddenapis.skip", "xml.skip",
+            "jacoco.skip", "maven.javadoc.skip", "maven.source.skip", "enforcer.skip",
+            "animal.sniffer.skip", "license.skip", "sevntu-checkstyle-check.skip");
 
     /** The name of PR branch. */
     private final String branch;
 
+    /** The directory of the working tree pool. */
+    private final File poolDir;
+
+    /** The settings of the Maven invocation. */
+    private final MavenProfile profile;
+
+    /** The Maven daemon to send the invocation to, null to run a new Maven process. */
+    private final MavenDaemon daemon;
+
     /** The checkstyle repository. */
     private final Repository repository;
 
+    /** The working tree acquired from the pool, null before generation. */
+    private Worktree worktree;
+
+    /** The report of the time spent in each mojo execution, null before invocation. */
+    private String mavenReport;
+
     /**
      * Creates a new instance of CheckstyleInjector.
-     * @param repoPath the path to checkstyle repository
-     * @param branch   the name of PR branch
+     * @param repository the checkstyle repository, which is not closed by the injector
+     * @param branch     the name of PR branch
+     * @param poolDir    the directory of the working tree pool
+     * @param profile    the settings of the Maven invocation
+     * @param daemon     the Maven daemon to send the invocation to, null to run
+     *                   a new Maven process
      */
-    CheckstyleInjector(String repoPath, String branch) {
-        this.repoPath = repoPath;
+    CheckstyleInjector(Repository repository, String branch, File poolDir,
+            MavenProfile profile, MavenDaemon daemon) {
+        this.repository = repository;
         this.branch = branch;
-
-        final File gitDir = new File(repoPath, ".git");
-        final Repository repo;
-        try {
-            repo = new FileRepositoryBuilder().setGitDir(gitDir)
-                    .readEnvironment().findGitDir().build();
-        }
-        catch (IOException ex) {
-            throw new IllegalStateException(ex);
-        }
-        repository = repo;
+        this.poolDir = poolDir;
+        this.profile = profile;
+        this.daemon = daemon;
     }
 
     /**
@@ -82,50 +135,104 @@ final class CheckstyleInjector implements Closeable {
      */
     public File generateExtractInfoFile() throws InjectException {
         try {
-            checkoutToPrBranch();
-            copyInjectFilesToCheckstyleRepo();
-            invokeMavenCommand();
-            return new File(repoPath, "checkstyle_modules.json");
+            worktree = Worktree.acquire(repository, poolDir);
+            worktree.checkout(branch);
+            copyInjectFilesToWorktree();
+            invokeMavenCommand(
+                    ExtractInfoCache.getSourceTreeId(repository, branch).getName());
+            return new File(worktree.getDirectory(), EXTRACT_INFO_FILE_NAME);
         }
-        catch (IOException | GitAPIException ex) {
+        catch (IOException ex) {
             throw new InjectException("unable to generate extract info file", ex);
         }
     }
 
     /**
-     * Clears the injected files and the generated info file in checkstyle repository.
+     * Gets the report of the time spent in each mojo execution of the Maven invocation.
+     * @return the report of the Maven invocation, or empty if Maven is not invoked
+     */
+    public Optional<String> getMavenReport() {
+        return Optional.ofNullable(mavenReport);
+    }
+
+    /**
+     * Clears the injected files and the generated info file in the working tree.
+     * The other untracked files, like the build output, are kept.
      * @throws InjectException failure of clearing
      */
     public void clearInjections() throws InjectException {
-        final Git git = new Git(repository);
-
-        try {
-            git.clean().setCleanDirectories(true).call();
-        }
-        catch (GitAPIException ex) {
-            throw new InjectException("unable to clear injections", ex);
-        }
-        finally {
-            git.close();
+        if (worktree != null) {
+            final File directory = worktree.getDirectory();
+            final List<File> files = new ArrayList<>();
+            for (String injection : INJECTIONS) {
+                files.add(new File(directory, INJECTION_DEST_PATH + injection));
+            }
+            files.add(new File(directory, EXTRACT_INFO_FILE_NAME));
+            for (File file : files) {
+                try {
+                    Files.deleteIfExists(file.toPath());
+                }
+                catch (IOException ex) {
+                    throw new InjectException("unable to clear injections", ex);
+                }
+            }
         }
     }
 
-    /** Closes the repository resource. */
+    /** Releases the working tree. */
     @Override
     public void close() {
-        repository.close();
+        try {
+            if (worktree != null) {
+                worktree.close();
+            }
+        }
+        catch (IOException ex) {
+            throw new IllegalStateException("unable to release the working tree", ex);
+        }
     }
 
     /**
-     * Invokes Maven command to generate the extract info file in checkstyle repository.
+     * Invokes Maven command to generate the extract info file in the working tree.
+     * The compiled classes are reused if the profile allows it and they are compiled
+     * from the given main source tree. The time spent in each mojo execution is kept as
+     * the Maven report.
+     * @param mainTreeId the id of the main source tree of the branch
      * @throws InjectException failure of invoking Maven
+     * @throws IOException     failure of recording the main source tree of the classes
      */
-    private void invokeMavenCommand() throws InjectException {
+    private void invokeMavenCommand(String mainTreeId) throws InjectException, IOException {
+        final File classesTreeFile = new File(worktree.getDirectory(), CLASSES_TREE_FILE_NAME);
         final InvocationRequest request = new DefaultInvocationRequest();
-        request.setPomFile(new File(repoPath, "pom.xml"));
-        request.setGoals(Arrays.asList(
-                "test", "-Dtest=ExtractInfoGeneratorTest#generateExtractInfoFile"));
+        request.setPomFile(new File(worktree.getDirectory(), "pom.xml"));
+        if (profile.reuseClasses() && classesTreeFile.exists()
+                && mainTreeId.equals(FileUtils.readFileToString(classesTreeFile, UTF_8))) {
+            request.setGoals(TEST_ONLY_GOALS);
+        }
+        else {
+            request.setGoals(LIFECYCLE_GOALS);
+        }
+        request.setOffline(profile.offline());
+        profile.threads().ifPresent(request::setThreads);
+        profile.localRepository().map(File::new).ifPresent(request::setLocalRepositoryDirectory);
+        final Properties properties = new Properties();
+        properties.setProperty("test", EXTRACT_INFO_TEST);
+        if (profile.skipAnalysis()) {
+            for (String property : ANALYSIS_SKIP_PROPERTIES) {
+                properties.setProperty(property, Boolean.TRUE.toString());
+            }
+        }
         final Invoker invoker = new DefaultInvoker();
+        if (daemon == null) {
+            profile.jvmOptions().ifPresent(request::setMavenOpts);
+        }
+        else {
+            daemon.configure(invoker, request, properties);
+        }
+        request.setProperties(properties);
+
+        final MavenExecutionTimer timer = new MavenExecutionTimer(new SystemOutHandler());
+        request.setOutputHandler(timer);
         try {
             final InvocationResult result = invoker.execute(request);
             if (result.getExitCode() != 0) {
@@ -135,35 +242,31 @@ final class CheckstyleInjector implements Closeable {
         catch (MavenInvocationException ex) {
             throw new InjectException("maven invocation failed", ex);
         }
+        finally {
+            timer.finish();
+            mavenReport = timer.getReport();
+        }
+        FileUtils.writeStringToFile(classesTreeFile, mainTreeId, UTF_8);
     }
 
     /**
-     * Copies the injection files to checkstyle repository.
+     * Copies the injection files to the working tree.
      * @throws IOException failure of copying
      */
-    private void copyInjectFilesToCheckstyleRepo() throws IOException {
-        final String path = "/com/github/checkstyle/regression/extract/";
-        final File destDir = new File(repoPath, "src/test/java/com/puppycrawl/tools/checkstyle/");
+    private void copyInjectFilesToWorktree() throws IOException {
+        final File destDir = new File(worktree.getDirectory(), INJECTION_DEST_PATH);
         for (String injection : INJECTIONS) {
             final File destFile = new File(destDir, injection);
-            FileUtils.copyInputStreamToFile(
-                    getClass().getResourceAsStream(path + injection), destFile);
+            FileUtils.copyInputStreamToFile(getInjectionStream(injection), destFile);
         }
     }
 
     /**
-     * Checkouts to the PR branch in the given repository.
-     * @throws GitAPIException JGit library exception
+     * Opens the resource stream of the given injection file.
+     * @param injection the name of the injection file
+     * @return the resource stream of the injection file
      */
-    private void checkoutToPrBranch()
-            throws GitAPIException {
-        final Git git = new Git(repository);
-
-        try {
-            git.checkout().setName(branch).call();
-        }
-        finally {
-            git.close();
-        }
+    static InputStream getInjectionStream(String injection) {
+        return CheckstyleInjector.class.getResourceAsStream(INJECTION_PATH + injection);
     }
 }
@@ -0,0 +1,292 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.extract;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the {@link ClassInfo} from a compiled class file, without loading the class.
+ * Only the parts of the class file format which are needed are decoded, the
+ * rest is skipped. See chapter 4 of the Java Virtual Machine Specification.
+ * @author LuoLiangchen
+ */
+final class ClassFileReader {
+    /** The magic number of class files. */
+    private static final int MAGIC = 0xCAFEBABE;
+
+    /** The access flag of abstract classes. */
+    private static final int ACC_ABSTRACT = 0x0400;
+
+    /** The access flag of interfaces. */
+    private static final int ACC_INTERFACE = 0x0200;
+
+    /** The constant pool tag of UTF-8 strings. */
+    private static final int TAG_UTF8 = 1;
+
+    /** The constant pool tag of classes. */
+    private static final int TAG_CLASS = 7;
+
+    /** The constant pool tag of integer values. */
+    private static final int TAG_INTEGER = 3;
+
+    /** The constant pool tag of float values. */
+    private static final int TAG_FLOAT = 4;
+
+    /** The constant pool tag of long values. */
+    private static final int TAG_LONG = 5;
+
+    /** The constant pool tag of double values. */
+    private static final int TAG_DOUBLE = 6;
+
+    /** The constant pool tag of strings. */
+    private static final int TAG_STRING = 8;
+
+    /** The constant pool tag of field references. */
+    private static final int TAG_FIELD_REF = 9;
+
+    /** The constant pool tag of method references. */
+    private static final int TAG_METHOD_REF = 10;
+
+    /** The constant pool tag of interface method references. */
+    private static final int TAG_INTERFACE_METHOD_REF = 11;
+
+    /** The constant pool tag of name and type descriptors. */
+    private static final int TAG_NAME_AND_TYPE = 12;
+
+    /** The constant pool tag of method handles. */
+    private static final int TAG_METHOD_HANDLE = 15;
+
+    /** The constant pool tag of method types. */
+    private static final int TAG_METHOD_TYPE = 16;
+
+    /** The constant pool tag of dynamically-computed constants. */
+    private static final int TAG_DYNAMIC = 17;
+
+    /** The constant pool tag of dynamically-computed call sites. */
+    private static final int TAG_INVOKE_DYNAMIC = 18;
+
+    /** The constant pool tag of modules. */
+    private static final int TAG_MODULE = 19;
+
+    /** The constant pool tag of packages. */
+    private static final int TAG_PACKAGE = 20;
+
+    /** The name of constructors. */
+    private static final String CONSTRUCTOR_NAME = "<init>";
+
+    /** The descriptor of constructors without parameters. */
+    private static final String DEFAULT_CONSTRUCTOR_DESCRIPTOR = "()V";
+
+    /** Prevents instantiation. */
+    private ClassFileReader() {
+    }
+
+    /**
+     * Reads the class information from the given class file stream.
+     * The stream is not closed.
+     * @param stream the class file stream
+     * @return the class information
+     * @throws IOException failure of reading or malformed class file
+     */
+    public static ClassInfo read(InputStream stream) throws IOException {
+        final DataInputStream input = new DataInputStream(new BufferedInputStream(stream));
+        if (input.readInt() != MAGIC) {
+            throw new IOException("not a class file");
+        }
+        // minor and major version
+        input.readUnsignedShort();
+        input.readUnsignedShort();
+
+        final Object[] constants = readConstantPool(input);
+        final int access = input.readUnsignedShort();
+        final String name = getClassName(constants, input.readUnsignedShort());
+        final int superIndex = input.readUnsignedShort();
+        final ImmutableClassInfo.Builder builder = ImmutableClassInfo.builder()
+                .name(toCanonicalName(name))
+                .isAbstract((access & (ACC_ABSTRACT | ACC_INTERFACE)) != 0)
+                .isTopLevel(name.indexOf('$') < 0);
+        if (superIndex != 0 && (access & ACC_INTERFACE) == 0) {
+            builder.superName(toCanonicalName(getClassName(constants, superIndex)));
+        }
+        final int interfaceCount = input.readUnsignedShort();
+        for (int i = 0; i < interfaceCount; ++i) {
+            builder.addInterfaces(
+                    toCanonicalName(getClassName(constants, input.readUnsignedShort())));
+        }
+
+        // fields
+        skipMembers(input);
+        builder.hasDefaultConstructor(hasDefaultConstructor(input, constants));
+        return builder.build();
+    }
+
+    /**
+     * Reads the constant pool. Only UTF-8 strings and class entries are kept, the
+     * class entries are stored as the index of their name in the pool.
+     * @param input the class file input
+     * @return the constant pool, indexed as in the class file
+     * @throws IOException failure of reading or malformed class file
+     */
+    private static Object[] readConstantPool(DataInputStream input) throws IOException {
+        final int count = input.readUnsignedShort();
+        final Object[] constants = new Object[count];
+        int index = 1;
+        while (index < count) {
+            final int tag = input.readUnsignedByte();
+            switch (tag) {
+                case TAG_UTF8:
+                    constants[index] = input.readUTF();
+                    break;
+                case TAG_CLASS:
+                    constants[index] = input.readUnsignedShort();
+                    break;
+                case TAG_LONG:
+                case TAG_DOUBLE:
+                    input.readLong();
+                    // eight-byte constants take up two entries
+                    ++index;
+                    break;
+                case TAG_METHOD_HANDLE:
+                    input.readUnsignedByte();
+                    input.readUnsignedShort();
+                    break;
+                case TAG_STRING:
+                case TAG_METHOD_TYPE:
+                case TAG_MODULE:
+                case TAG_PACKAGE:
+                    input.readUnsignedShort();
+                    break;
+                case TAG_INTEGER:
+                case TAG_FLOAT:
+                case TAG_FIELD_REF:
+                case TAG_METHOD_REF:
+                case TAG_INTERFACE_METHOD_REF:
+                case TAG_NAME_AND_TYPE:
+                case TAG_DYNAMIC:
+                case TAG_INVOKE_DYNAMIC:
+                    input.readInt();
+                    break;
+                default:
+                    throw new IOException("unknown constant pool tag " + tag);
+            }
+            ++index;
+        }
+        return constants;
+    }
+
+    /**
+     * Checks whether the methods of the class contain a constructor without parameters.
+     * @param input     the class file input, positioned at the methods count
+     * @param constants the constant pool
+     * @return true if there is a constructor without parameters
+     * @throws IOException failure of reading
+     */
+    private static boolean hasDefaultConstructor(DataInputStream input, Object[] constants)
+            throws IOException {
+        boolean returnValue = false;
+        final int count = input.readUnsignedShort();
+        for (int i = 0; i < count; ++i) {
+            // access flags
+            input.readUnsignedShort();
+            final Object name = constants[input.readUnsignedShort()];
+            final Object descriptor = constants[input.readUnsignedShort()];
+            skipAttributes(input);
+            if (CONSTRUCTOR_NAME.equals(name)
+                    && DEFAULT_CONSTRUCTOR_DESCRIPTOR.equals(descriptor)) {
+                returnValue = true;
+            }
+        }
+        return returnValue;
+    }
+
+    /**
+     * Skips the fields or methods of the class.
+     * @param input the class file input, positioned at the members count
+     * @throws IOException failure of reading
+     */
+    private static void skipMembers(DataInputStream input) throws IOException {
+        final int count = input.readUnsignedShort();
+        for (int i = 0; i < count; ++i) {
+            // access flags, name and descriptor
+            input.readUnsignedShort();
+            input.readUnsignedShort();
+            input.readUnsignedShort();
+            skipAttributes(input);
+        }
+    }
+
+    /**
+     * Skips the attributes of a member.
+     * @param input the class file input, positioned at the attributes count
+     * @throws IOException failure of reading
+     */
+    private static void skipAttributes(DataInputStream input) throws IOException {
+        final int count = input.readUnsignedShort();
+        for (int i = 0; i < count; ++i) {
+            input.readUnsignedShort();
+            skipFully(input, input.readInt());
+        }
+    }
+
+    /**
+     * Skips exactly the given number of bytes. {@link DataInputStream#skipBytes(int)}
+     * could skip fewer bytes without reaching the end of the stream, so the remaining
+     * bytes are skipped again, or read one by one when nothing could be skipped.
+     * @param input  the class file input
+     * @param length the number of bytes to skip
+     * @throws IOException failure of reading
+     * @throws java.io.EOFException if the stream ends before all the bytes are skipped
+     */
+    private static void skipFully(DataInputStream input, int length) throws IOException {
+        int remaining = length;
+        while (remaining > 0) {
+            final int skipped = input.skipBytes(remaining);
+            if (skipped == 0) {
+                input.readByte();
+                --remaining;
+            }
+            else {
+                remaining -= skipped;
+            }
+        }
+    }
+
+    /**
+     * Gets the internal class name of the given class entry in constant pool.
+     * @param constants the constant pool
+     * @param index     the index of the class entry
+     * @return the internal class name, like {@code java/util/Map$Entry}
+     */
+    private static String getClassName(Object[] constants, int index) {
+        return (String) constants[(Integer) constants[index]];
+    }
+
+    /**
+     * Converts an internal class name to the canonical name.
+     * @param internalName the internal class name, like {@code java/util/Map$Entry}
+     * @return the canonical name, like {@code java.util.Map.Entry}
+     */
+    private static String toCanonicalName(String internalName) {
+        return internalName.replace('/', '.').replace('$', '.');
+    }
+}
@@ -0,0 +1,96 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.extract;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.immutables.value.Value;
+
+/**
+ * Represents the type information of a class which is needed to decide
+ * whether it is a checkstyle module, without loading the class.
+ * All the class names are canonical names, like {@code java.util.Map.Entry}.
+ * @author LuoLiangchen
+ */
+@Value.Immutable
+interface ClassInfo {
+    /**
+     * The canonical name of the class.
+     * @return the canonical name of the class
+     */
+    String name();
+
+    /**
+     * The canonical name of the super class, absent for {@code java.lang.Object}
+     * and interfaces.
+     * @return the canonical name of the super class
+     */
+    Optional<String> superName();
+
+    /**
+     * The canonical names of the interfaces directly implemented by the class.
+     * @return the canonical names of the direct interfaces
+     */
+    List<String> interfaces();
+
+    /**
+     * Whether the class is abstract or an interface.
+     * @return true if the class is abstract or an interface
+     */
+    boolean isAbstract();
+
+    /**
+     * Whether the class is a top level class.
+     * @return true if the class is a top level class
+     */
+    boolean isTopLevel();
+
+    /**
+     * Whether the class declares a constructor without parameters,
+     * either explicitly or implicitly.
+     * @return true if the class has a constructor without parameters
+     */
+    boolean hasDefaultConstructor();
+
+    /**
+     * The package name of the class.
+     * @return the package name of the class
+     */
+    default String packageName() {
+        final int index = name().lastIndexOf('.');
+        final String returnValue;
+        if (index < 0) {
+            returnValue = "";
+        }
+        else {
+            returnValue = name().substring(0, index);
+        }
+        return returnValue;
+    }
+
+    /**
+     * The simple name of the class.
+     * @return the simple name of the class
+     */
+    default String simpleName() {
+        return name().substring(name().lastIndexOf('.') + 1);
+    }
+}
@@ -0,0 +1,112 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.extract;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Scans the compiled classes in a class directory (like {@code target/classes})
+ * or a jar file, and reads their {@link ClassInfo}.
+ * @author LuoLiangchen
+ */
+final class ClassScanner {
+    /** The extension of class files. */
+    private static final String CLASS_EXTENSION = "class";
+
+    /** The file name of module descriptors, which are not classes. */
+    private static final String MODULE_INFO = "module-info.class";
+
+    /** Prevents instantiation. */
+    private ClassScanner() {
+    }
+
+    /**
+     * Scans the classes in the given class directory or jar file.
+     * @param location the class directory or jar file
+     * @return the map of canonical name to class information
+     * @throws IOException failure of reading the classes
+     */
+    public static Map<String, ClassInfo> scan(File location) throws IOException {
+        final Map<String, ClassInfo> returnValue;
+        if (location.isDirectory()) {
+            returnValue = scanDirectory(location);
+        }
+        else if (location.isFile()) {
+            returnValue = scanJar(location);
+        }
+        else {
+            throw new IOException("class location does not exist: " + location);
+        }
+        return returnValue;
+    }
+
+    /**
+     * Scans the classes in the given class directory.
+     * @param directory the class directory
+     * @return the map of canonical name to class information
+     * @throws IOException failure of reading the classes
+     */
+    private static Map<String, ClassInfo> scanDirectory(File directory) throws IOException {
+        final Map<String, ClassInfo> returnValue = new HashMap<>();
+        for (File file : FileUtils.listFiles(directory, new String[] {CLASS_EXTENSION}, true)) {
+            if (!MODULE_INFO.equals(file.getName())) {
+                try (InputStream stream = new FileInputStream(file)) {
+                    final ClassInfo classInfo = ClassFileReader.read(stream);
+                    returnValue.put(classInfo.name(), classInfo);
+                }
+            }
+        }
+        return returnValue;
+    }
+
+    /**
+     * Scans the classes in the given jar file.
+     * @param jar the jar file
+     * @return the map of canonical name to class information
+     * @throws IOException failure of reading the classes
+     */
+    private static Map<String, ClassInfo> scanJar(File jar) throws IOException {
+        final Map<String, ClassInfo> returnValue = new HashMap<>();
+        try (JarFile jarFile = new JarFile(jar)) {
+            final Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                final JarEntry entry = entries.nextElement();
+                final String name = entry.getName();
+                if (name.endsWith("." + CLASS_EXTENSION) && !name.endsWith(MODULE_INFO)) {
+                    try (InputStream stream = jarFile.getInputStream(entry)) {
+                        final ClassInfo classInfo = ClassFileReader.read(stream);
+                        returnValue.put(classInfo.name(), classInfo);
+                    }
+                }
+            }
+        }
+        return returnValue;
+    }
+}
@@ -0,0 +1,187 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.extract;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.github.checkstyle.regression.data.DependencyGraph;
+import com.github.checkstyle.regression.data.ImmutableDependencyGraph;
+
+/**
+ * On-disk cache of the dependency graphs of the Java main sources. An entry is keyed by
+ * the tree id of the "src/main/java" directory of the branch, so the sources only need
+ * to be parsed again when they change. The classes are stored once, and the dependencies
+ * as indexes of the classes.
+ * @author LuoLiangchen
+ */
+final class DependencyCache {
+    /** The magic number of the entry files. */
+    private static final int MAGIC = 0x44455053;
+
+    /** The version of the entry format. */
+    private static final int VERSION = 1;
+
+    /** The extension of the cache entry files. */
+    private static final String ENTRY_EXTENSION = ".deps";
+
+    /** The directory holding the cache entries. */
+    private final File cacheDir;
+
+    /** The failures of reading or deleting the cache entries. */
+    private final List<String> warnings = new ArrayList<>();
+
+    /**
+     * Creates a new instance of DependencyCache.
+     * @param cacheDir the directory holding the cache entries
+     */
+    DependencyCache(File cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * Gets the cached dependency graph of the given key. A corrupted entry is deleted
+     * and reported as missing.
+     * @param key the cache key
+     * @return the cached dependency graph, or {@code null} if there is no such entry
+     */
+    public DependencyGraph get(String key) {
+        final File file = new File(cacheDir, key + ENTRY_EXTENSION);
+        DependencyGraph returnValue = null;
+        if (file.isFile()) {
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(
+                    new GZIPInputStream(new FileInputStream(file))))) {
+                returnValue = read(input);
+            }
+            catch (IOException ex) {
+                warnings.add("dependency cache entry " + file + " is dropped: "
+                        + ex.getMessage());
+                if (!file.delete()) {
+                    warnings.add("unable to delete dependency cache entry " + file);
+                }
+            }
+        }
+        return returnValue;
+    }
+
+    /**
+     * Gets the failures of reading or deleting the cache entries so far.
+     * @return the warnings of the cache
+     */
+    public List<String> getWarnings() {
+        return Collections.unmodifiableList(warnings);
+    }
+
+    /**
+     * Stores the given dependency graph in the cache. The entry is written to a temporary
+     * file first and then moved to its final place, so that concurrent readers never see
+     * a partially written entry.
+     * @param key   the cache key
+     * @param graph the dependency graph to store
+     * @throws IOException failure of writing the entry
+     */
+    public void put(String key, DependencyGraph graph) throws IOException {
+        Files.createDirectories(cacheDir.toPath());
+        final File temp = File.createTempFile(key, ".tmp", cacheDir);
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(new FileOutputStream(temp))))) {
+                write(output, graph);
+            }
+            Files.move(temp.toPath(), new File(cacheDir, key + ENTRY_EXTENSION).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    /**
+     * Writes the given dependency graph to the entry output.
+     * @param output the entry output
+     * @param graph  the dependency graph to write
+     * @throws IOException failure of writing
+     */
+    private static void write(DataOutputStream output, DependencyGraph graph)
+            throws IOException {
+        final Map<String, Integer> indexes = new HashMap<>();
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(graph.dependencies().size());
+        for (String name : graph.dependencies().keySet()) {
+            indexes.put(name, indexes.size());
+            output.writeUTF(name);
+        }
+        for (Set<String> dependencies : graph.dependencies().values()) {
+            output.writeInt(dependencies.size());
+            for (String dependency : dependencies) {
+                output.writeInt(indexes.get(dependency));
+            }
+        }
+    }
+
+    /**
+     * Reads a dependency graph from the entry input.
+     * @param input the entry input
+     * @return the dependency graph
+     * @throws IOException failure of reading, or if the entry is malformed
+     */
+    private static DependencyGraph read(DataInputStream input) throws IOException {
+        if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+            throw new IOException("not a dependency cache entry of version " + VERSION);
+        }
+        final int count = input.readInt();
+        final List<String> names = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            names.add(input.readUTF());
+        }
+        final ImmutableDependencyGraph.Builder builder = ImmutableDependencyGraph.builder();
+        for (String name : names) {
+            final int dependencyCount = input.readInt();
+            final Set<String> dependencies = new TreeSet<>();
+            for (int i = 0; i < dependencyCount; ++i) {
+                final int index = input.readInt();
+                if (index < 0 || index >= count) {
+                    throw new IOException("malformed dependency of " + name);
+                }
+                dependencies.add(names.get(index));
+            }
+            builder.putDependencies(name, dependencies);
+        }
+        return builder.build();
+    }
+}
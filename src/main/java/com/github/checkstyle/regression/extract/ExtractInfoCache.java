@@ -0,0 +1,156 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.extract;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+
+import org.apache.commons.io.IOUtils;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+
+import com.github.checkstyle.regression.git.RepositorySession;
+
+/**
+ * On-disk cache of the generated module extract info files.
+ * An entry is keyed by the tree id of the "src/main/java" directory of the branch
+ * and the content of the injection files, so the module set only needs to be
+ * extracted again when either of them changes.
+ * @author LuoLiangchen
+ */
+final class ExtractInfoCache {
+    /** The path of the Java main sources, which determines the module set. */
+    private static final String JAVA_MAIN_SOURCE_PATH = "src/main/java";
+
+    /** The extension of the cache entry files. */
+    private static final String ENTRY_EXTENSION = ".json";
+
+    /** The directory holding the cache entries. */
+    private final File cacheDir;
+
+    /**
+     * Creates a new instance of ExtractInfoCache.
+     * @param cacheDir the directory holding the cache entries
+     */
+    ExtractInfoCache(File cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * Creates the cache key of the module extract info of the given branch.
+     * @param repository the checkstyle repository
+     * @param branch     the name of the branch
+     * @return the cache key
+     * @throws InjectException failure of resolving the branch or reading the injection files
+     */
+    public static String createKey(Repository repository, String branch) throws InjectException {
+        try {
+            final MessageDigest digest = Constants.newMessageDigest();
+            digest.update(getSourceTreeId(repository, branch).name()
+                    .getBytes(Charset.forName("UTF-8")));
+            for (String injection : CheckstyleInjector.INJECTIONS) {
+                try (InputStream stream = CheckstyleInjector.getInjectionStream(injection)) {
+                    digest.update(IOUtils.toByteArray(stream));
+                }
+            }
+            return ObjectId.fromRaw(digest.digest()).name();
+        }
+        catch (IOException ex) {
+            throw new InjectException("unable to create the extract info cache key", ex);
+        }
+    }
+
+    /**
+     * Gets the cached module extract info file of the given key.
+     * @param key the cache key
+     * @return the cached file, or {@code null} if there is no such entry
+     */
+    public File get(String key) {
+        final File file = new File(cacheDir, key + ENTRY_EXTENSION);
+        final File returnValue;
+        if (file.isFile()) {
+            returnValue = file;
+        }
+        else {
+            returnValue = null;
+        }
+        return returnValue;
+    }
+
+    /**
+     * Stores the given module extract info file in the cache.
+     * The file is copied to a temporary file first and then moved to its final place,
+     * so that concurrent readers never see a partially written entry.
+     * @param key  the cache key
+     * @param file the generated module extract info file
+     * @return the cached file
+     * @throws IOException failure of copying the file
+     */
+    public File put(String key, File file) throws IOException {
+        Files.createDirectories(cacheDir.toPath());
+        final File temp = File.createTempFile(key, ".tmp", cacheDir);
+        final File entry = new File(cacheDir, key + ENTRY_EXTENSION);
+        Files.copy(file.toPath(), temp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        Files.move(temp.toPath(), entry.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        return entry;
+    }
+
+    /**
+     * Gets the id of the "src/main/java" tree of the head commit of the given branch.
+     * The root tree id is used if there is no such directory.
+     * @param repository the checkstyle repository
+     * @param branch     the name of the branch
+     * @return the id of the source tree
+     * @throws IOException     JGit library exception
+     * @throws InjectException the branch does not exist
+     */
+    static ObjectId getSourceTreeId(Repository repository, String branch)
+            throws IOException, InjectException {
+        final ObjectId commitId = RepositorySession.resolve(repository, branch);
+        if (commitId == null) {
+            throw new InjectException("unable to find branch " + branch);
+        }
+
+        try (RevWalk walk = new RevWalk(repository)) {
+            final RevCommit commit = walk.parseCommit(commitId);
+            final ObjectId returnValue;
+            try (TreeWalk treeWalk = TreeWalk.forPath(
+                    repository, JAVA_MAIN_SOURCE_PATH, commit.getTree())) {
+                if (treeWalk == null) {
+                    returnValue = commit.getTree().getId();
+                }
+                else {
+                    returnValue = treeWalk.getObjectId(0);
+                }
+            }
+            return returnValue;
+        }
+    }
+}
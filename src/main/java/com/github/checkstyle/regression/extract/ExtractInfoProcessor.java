@@ -27,12 +27,25 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 import java.lang.reflect.Type;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.stream.Collectors;
 
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import com.github.checkstyle.regression.data.DependencyGraph;
+import com.github.checkstyle.regression.data.FilteredChanges;
+import com.github.checkstyle.regression.data.GitChange;
+import com.github.checkstyle.regression.data.ImmutableDependencyGraph;
+import com.github.checkstyle.regression.data.ImmutableModuleExtraction;
 import com.github.checkstyle.regression.data.ModuleExtractInfo;
+import com.github.checkstyle.regression.data.ModuleExtraction;
+import com.github.checkstyle.regression.git.RepositorySession;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.TypeAdapterFactory;
@@ -63,28 +76,259 @@ public final class ExtractInfoProcessor {
     }
 
     /**
-     * Gets the module extract info map from the given branch of checkstyle repository.
-     * @param repoPath the path of checkstyle repository
-     * @param branch   the given branch on which to generate the extract info
+     * Gets the module extract info map from the given branch or commit of the checkstyle
+     * repository of the given session.
+     * The extract info file is looked up in the cache first, the injection and Maven
+     * invocation are only done when there is no cache entry for the branch. They are
+     * done in a pooled working tree, which is reset rather than recreated.
+     * @param session  the session of checkstyle repository
+     * @param branch   the given branch or commit id on which to generate the extract info
+     * @param cacheDir the root directory of the regression tool caches
+     * @param profile  the settings of the Maven invocation
+     * @return the module extract infos, with the cached file or the Maven report
+     * @throws InjectException failure when making injection
+     */
+    public static ModuleExtraction getModuleExtractInfos(RepositorySession session,
+            String branch, File cacheDir, MavenProfile profile) throws InjectException {
+        final ExtractInfoCache cache = new ExtractInfoCache(new File(cacheDir, "extract"));
+        final String key = ExtractInfoCache.createKey(session.getRepository(), branch);
+        final ImmutableModuleExtraction.Builder builder = ImmutableModuleExtraction.builder();
+
+        File file = cache.get(key);
+        if (file == null) {
+            final CheckstyleInjector injector = new CheckstyleInjector(session.getRepository(),
+                    branch, new File(cacheDir, "worktrees"), profile,
+                    getMavenDaemon(cacheDir, profile));
+            file = generateExtractInfoFile(injector, cache, key);
+            builder.mavenReport(injector.getMavenReport());
+        }
+        else {
+            builder.cachedFile(file.getAbsolutePath());
+        }
+
+        try {
+            final Reader reader = new InputStreamReader(
+                    new FileInputStream(file), Charset.forName("UTF-8"));
+            return builder
+                    .moduleExtractInfos(getModuleExtractInfosFromReader(reader))
+                    .build();
+        }
+        catch (FileNotFoundException ex) {
+            throw new InjectException(
+                    "unable to find the generated module extract info file", ex);
+        }
+    }
+
+    /**
+     * Stops the Maven daemons managed by the regression tool, if the given profile
+     * uses a Maven daemon.
+     * @param cacheDir the root directory of the regression tool caches
+     * @param profile  the settings of the Maven invocation
+     * @throws IOException          failure of running the daemon client
+     * @throws InterruptedException the stop is interrupted
+     */
+    public static void stopMavenDaemon(File cacheDir, MavenProfile profile)
+            throws IOException, InterruptedException {
+        final MavenDaemon daemon = getMavenDaemon(cacheDir, profile);
+        if (daemon != null) {
+            daemon.stop();
+        }
+    }
+
+    /**
+     * Gets the module extract info map from the compiled checkstyle classes.
+     * The classes are read in this JVM without being loaded, so no Maven invocation
+     * is needed and the checkstyle repository is not touched.
+     * @param classesLocation the class directory (like {@code target/classes})
+     *                        or the jar file of checkstyle
      * @return the full qualified name to module extract info map
+     * @throws IOException failure of reading the classes
+     */
+    public static Map<String, ModuleExtractInfo> getModuleExtractInfosFromClasses(
+            File classesLocation) throws IOException {
+        return ModuleClassifier.classify(ClassScanner.scan(classesLocation));
+    }
+
+    /**
+     * Gets the module extract info map by parsing the main sources of the given branch
+     * straight from the git objects of the repository of the given session. Neither
+     * checkout nor compilation is needed, so the working tree is not touched.
+     * @param session the session of checkstyle repository
+     * @param branch  the given branch or commit id of which to parse the sources
+     * @return the module extract infos, with the sources which could not be parsed
+     * @throws IOException failure of reading the sources
+     */
+    public static ModuleExtraction getModuleExtractInfosFromSources(
+            RepositorySession session, String branch) throws IOException {
+        final Repository repository = session.getRepository();
+        final ObjectId commitId = RepositorySession.resolve(repository, branch);
+        if (commitId == null) {
+            throw new IOException("unable to find branch " + branch);
+        }
+        final List<String> warnings = new ArrayList<>();
+        final Map<String, ClassInfo> classes = SourceScanner.scan(repository, commitId,
+                Runtime.getRuntime().availableProcessors(), warnings);
+        return ImmutableModuleExtraction.builder()
+                .moduleExtractInfos(ModuleClassifier.classify(classes))
+                .warnings(warnings)
+                .build();
+    }
+
+    /**
+     * Gets the module extract info map by parsing the main sources in the working tree
+     * of the repository of the given session, as they are on the disk, including the
+     * uncommitted changes.
+     * @param session the session of checkstyle repository
+     * @return the module extract infos, with the sources which could not be parsed
+     * @throws IOException failure of reading the sources, or if there is no working tree
+     */
+    public static ModuleExtraction getModuleExtractInfosFromWorkingTree(
+            RepositorySession session) throws IOException {
+        final Repository repository = session.getRepository();
+        if (repository.isBare()) {
+            throw new IOException("unable to read the working tree of a bare repository");
+        }
+        final List<String> warnings = new ArrayList<>();
+        final Map<String, ClassInfo> classes = SourceScanner.scan(repository.getWorkTree(),
+                Runtime.getRuntime().availableProcessors(), warnings);
+        return ImmutableModuleExtraction.builder()
+                .moduleExtractInfos(ModuleClassifier.classify(classes))
+                .warnings(warnings)
+                .build();
+    }
+
+    /**
+     * Gets the class-level dependency graph of the main sources of the given branch,
+     * parsed straight from the git objects of the repository of the given session.
+     * The graph is looked up in the cache first, by the tree id of the main sources.
+     * The failures of the cache and the sources which could not be parsed are the
+     * warnings of the graph.
+     * @param session  the session of checkstyle repository
+     * @param branch   the given branch or commit id of which to parse the sources
+     * @param cacheDir the root directory of the regression tool caches
+     * @return the dependency graph of the main sources
+     * @throws IOException failure of reading the sources or of caching the graph
+     */
+    public static DependencyGraph getDependencyGraph(RepositorySession session,
+            String branch, File cacheDir) throws IOException {
+        final Repository repository = session.getRepository();
+        final String key;
+        try {
+            key = ExtractInfoCache.getSourceTreeId(repository, branch).name();
+        }
+        catch (InjectException ex) {
+            throw new IOException(ex.getMessage(), ex);
+        }
+        final DependencyCache cache = new DependencyCache(new File(cacheDir, "dependencies"));
+        final List<String> warnings = new ArrayList<>();
+        DependencyGraph returnValue = cache.get(key);
+        if (returnValue == null) {
+            returnValue = SourceScanner.scanDependencies(repository,
+                    RepositorySession.resolve(repository, branch),
+                    Runtime.getRuntime().availableProcessors(), warnings);
+            cache.put(key, returnValue);
+        }
+        warnings.addAll(0, cache.getWarnings());
+        return ImmutableDependencyGraph.copyOf(returnValue).withWarnings(warnings);
+    }
+
+    /**
+     * Gets the class-level dependency graph of the main sources in the working tree of
+     * the repository of the given session, as they are on the disk. It is not cached.
+     * The sources which could not be parsed are the warnings of the graph.
+     * @param session the session of checkstyle repository
+     * @return the dependency graph of the main sources
+     * @throws IOException failure of reading the sources, or if there is no working tree
+     */
+    public static DependencyGraph getDependencyGraphFromWorkingTree(
+            RepositorySession session) throws IOException {
+        final Repository repository = session.getRepository();
+        if (repository.isBare()) {
+            throw new IOException("unable to read the working tree of a bare repository");
+        }
+        final List<String> warnings = new ArrayList<>();
+        final DependencyGraph graph = SourceScanner.scanDependencies(repository.getWorkTree(),
+                Runtime.getRuntime().availableProcessors(), warnings);
+        return ImmutableDependencyGraph.copyOf(graph).withWarnings(warnings);
+    }
+
+    /**
+     * Filters out the changes of main sources which only change comments, Javadoc,
+     * imports or formatting between the given revisions, as they could not change the
+     * behavior of any module.
+     * @param session      the session of checkstyle repository
+     * @param baseRevision the revision before the changes
+     * @param revision     the revision after the changes
+     * @param changes      the changes between the revisions
+     * @return the changes which could change the behavior of a module, with the reasons
+     *      of the dropped changes
+     * @throws IOException failure of reading the sources
+     */
+    public static FilteredChanges filterNeutralChanges(RepositorySession session,
+            String baseRevision, String revision, List<GitChange> changes) throws IOException {
+        final Repository repository = session.getRepository();
+        final FilteredChanges returnValue;
+        try (ObjectReader reader = repository.newObjectReader();
+                RevWalk walk = new RevWalk(reader)) {
+            returnValue = NeutralChangeFilter.filter(changes,
+                    NeutralChangeFilter.ofTree(reader, walk.parseCommit(
+                            RepositorySession.resolve(repository, baseRevision)).getTree()),
+                    NeutralChangeFilter.ofTree(reader, walk.parseCommit(
+                            RepositorySession.resolve(repository, revision)).getTree()));
+        }
+        return returnValue;
+    }
+
+    /**
+     * Filters out the changes of main sources which only change comments, Javadoc,
+     * imports or formatting between the given revision and the working tree.
+     * @param session      the session of checkstyle repository
+     * @param baseRevision the revision before the changes
+     * @param changes      the changes between the revision and the working tree
+     * @return the changes which could change the behavior of a module, with the reasons
+     *      of the dropped changes
+     * @throws IOException failure of reading the sources, or if there is no working tree
+     */
+    public static FilteredChanges filterNeutralChangesOfWorkingTree(
+            RepositorySession session, String baseRevision, List<GitChange> changes)
+            throws IOException {
+        final Repository repository = session.getRepository();
+        if (repository.isBare()) {
+            throw new IOException("unable to read the working tree of a bare repository");
+        }
+        final FilteredChanges returnValue;
+        try (ObjectReader reader = repository.newObjectReader();
+                RevWalk walk = new RevWalk(reader)) {
+            returnValue = NeutralChangeFilter.filter(changes,
+                    NeutralChangeFilter.ofTree(reader, walk.parseCommit(
+                            RepositorySession.resolve(repository, baseRevision)).getTree()),
+                    NeutralChangeFilter.ofWorkingTree(repository.getWorkTree()));
+        }
+        return returnValue;
+    }
+
+    /**
+     * Generates the module extract info file by injection and stores it in the cache.
+     * The injector is closed when the generation is done.
+     * @param injector the injector of the branch
+     * @param cache    the cache to store the generated file
+     * @param key      the cache key of the branch
+     * @return the cached extract info file
      * @throws InjectException failure when making injection
      */
-    public static Map<String, ModuleExtractInfo> getModuleExtractInfos(
-            String repoPath, String branch) throws InjectException {
-        final Map<String, ModuleExtractInfo> returnValue;
-        final CheckstyleInjector injector = new CheckstyleInjector(repoPath, branch);
+    private static File generateExtractInfoFile(CheckstyleInjector injector,
+            ExtractInfoCache cache, String key) throws InjectException {
+        final File returnValue;
 
         try {
             final File file = injector.generateExtractInfoFile();
 
             try {
-                final Reader reader = new InputStreamReader(
-                        new FileInputStream(file), Charset.forName("UTF-8"));
-                returnValue = getModuleExtractInfosFromReader(reader);
+                returnValue = cache.put(key, file);
             }
-            catch (FileNotFoundException ex) {
+            catch (IOException ex) {
                 throw new InjectException(
-                        "unable to find the generated module extract info file", ex);
+                        "unable to cache the generated module extract info file", ex);
             }
             finally {
                 injector.clearInjections();
@@ -97,6 +341,22 @@ public final class ExtractInfoProcessor {
         return returnValue;
     }
 
+    /**
+     * Gets the Maven daemon of the given profile, which keeps its registry in
+     * the cache directory.
+     * @param cacheDir the root directory of the regression tool caches
+     * @param profile  the settings of the Maven invocation
+     * @return the Maven daemon, null if the profile does not use a Maven daemon
+     */
+    private static MavenDaemon getMavenDaemon(File cacheDir, MavenProfile profile) {
+        return profile.daemonExecutable()
+                .map(executable -> {
+                    return new MavenDaemon(new File(executable), new File(cacheDir, "mvnd"),
+                            profile);
+                })
+                .orElse(null);
+    }
+
     /**
      * Gets the module extract info map from the given reader. Map key is the
      * fully qualified module name.
@@ -0,0 +1,322 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.extract;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.puppycrawl.tools.checkstyle.JavaParser;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.DetailAST;
+import com.puppycrawl.tools.checkstyle.api.FileContents;
+import com.puppycrawl.tools.checkstyle.api.FileText;
+import com.puppycrawl.tools.checkstyle.api.FullIdent;
+import com.puppycrawl.tools.checkstyle.api.TokenTypes;
+
+/**
+ * Parses the class declarations of a Java source file, or the names it refers to other
+ * classes with, with checkstyle {@link JavaParser}.
+ * @author LuoLiangchen
+ */
+final class JavaSourceParser {
+    /** The suffix of on-demand imports. */
+    private static final String ON_DEMAND_SUFFIX = ".*";
+
+    /** Prevents instantiation. */
+    private JavaSourceParser() {
+    }
+
+    /**
+     * Parses the class declarations of the given source, including the nested ones.
+     * @param path    the path of the source file
+     * @param content the content of the source file
+     * @return the class declarations in the source
+     * @throws CheckstyleException failure of parsing the source
+     */
+    public static List<SourceClass> parse(String path, String content)
+            throws CheckstyleException {
+        final DetailAST root = parseAst(path, content);
+        final ImmutableSourceClass.Builder context = ImmutableSourceClass.builder()
+                .packageName("");
+        final Map<String, String> singleTypeImports = new HashMap<>();
+        final List<DetailAST> typeDefs = new ArrayList<>();
+
+        for (DetailAST ast = root; ast != null; ast = ast.getNextSibling()) {
+            switch (ast.getType()) {
+                case TokenTypes.PACKAGE_DEF:
+                    context.packageName(FullIdent.createFullIdent(
+                            ast.getLastChild().getPreviousSibling()).getText());
+                    break;
+                case TokenTypes.IMPORT:
+                    addImport(context, singleTypeImports,
+                            FullIdent.createFullIdentBelow(ast).getText());
+                    break;
+                case TokenTypes.CLASS_DEF:
+                case TokenTypes.INTERFACE_DEF:
+                case TokenTypes.ENUM_DEF:
+                case TokenTypes.ANNOTATION_DEF:
+                    typeDefs.add(ast);
+                    break;
+                default:
+                    break;
+            }
+        }
+        context.singleTypeImports(singleTypeImports);
+
+        final List<SourceClass> returnValue = new ArrayList<>();
+        final SourceClass unit = context.name("").isAbstract(false)
+                .hasDefaultConstructor(false).build();
+        for (DetailAST typeDef : typeDefs) {
+            addClass(returnValue, typeDef, unit, Collections.emptyList());
+        }
+        return returnValue;
+    }
+
+    /**
+     * Parses the names the given source could refer to other classes with: its imports
+     * and all the identifiers in it.
+     * @param path    the path of the source file
+     * @param content the content of the source file
+     * @return the names the source refers to other classes with
+     * @throws CheckstyleException failure of parsing the source
+     */
+    public static SourceReferences parseReferences(String path, String content)
+            throws CheckstyleException {
+        final ImmutableSourceReferences.Builder builder = ImmutableSourceReferences.builder()
+                .packageName("");
+        final Set<String> identifiers = new HashSet<>();
+        final Deque<DetailAST> stack = new ArrayDeque<>();
+        for (DetailAST ast = parseAst(path, content); ast != null; ast = ast.getNextSibling()) {
+            switch (ast.getType()) {
+                case TokenTypes.PACKAGE_DEF:
+                    builder.packageName(FullIdent.createFullIdent(
+                            ast.getLastChild().getPreviousSibling()).getText());
+                    break;
+                case TokenTypes.IMPORT:
+                    addReferenceImport(builder,
+                            FullIdent.createFullIdentBelow(ast).getText());
+                    break;
+                case TokenTypes.STATIC_IMPORT:
+                    addReferenceImport(builder, FullIdent.createFullIdent(
+                            ast.findFirstToken(TokenTypes.DOT)).getText());
+                    break;
+                default:
+                    stack.push(ast);
+                    break;
+            }
+        }
+        while (!stack.isEmpty()) {
+            final DetailAST ast = stack.pop();
+            if (ast.getType() == TokenTypes.IDENT) {
+                identifiers.add(ast.getText());
+            }
+            for (DetailAST child = ast.getFirstChild(); child != null;
+                    child = child.getNextSibling()) {
+                stack.push(child);
+            }
+        }
+        return builder.identifiers(identifiers).build();
+    }
+
+    /**
+     * Parses the abstract syntax tree of the given source, without comments.
+     * @param path    the path of the source file
+     * @param content the content of the source file
+     * @return the first top level node of the tree
+     * @throws CheckstyleException failure of parsing the source
+     */
+    static DetailAST parseAst(String path, String content)
+            throws CheckstyleException {
+        final FileText text = new FileText(new File(path),
+                Arrays.asList(content.split("\r\n|\r|\n", -1)));
+        return JavaParser.parse(new FileContents(text));
+    }
+
+    /**
+     * Adds an import to the references of a source.
+     * @param builder the builder of the references
+     * @param name    the imported name
+     */
+    private static void addReferenceImport(ImmutableSourceReferences.Builder builder,
+            String name) {
+        if (name.endsWith(ON_DEMAND_SUFFIX)) {
+            builder.addOnDemandImports(
+                    name.substring(0, name.length() - ON_DEMAND_SUFFIX.length()));
+        }
+        else {
+            builder.addImports(name);
+        }
+    }
+
+    /**
+     * Adds an import to the compilation unit context.
+     * @param context           the builder of the compilation unit context
+     * @param singleTypeImports the simple name to canonical name map of single-type imports
+     * @param name              the imported name
+     */
+    private static void addImport(ImmutableSourceClass.Builder context,
+            Map<String, String> singleTypeImports, String name) {
+        if (name.endsWith(ON_DEMAND_SUFFIX)) {
+            context.addOnDemandImports(
+                    name.substring(0, name.length() - ON_DEMAND_SUFFIX.length()));
+        }
+        else {
+            singleTypeImports.put(name.substring(name.lastIndexOf('.') + 1), name);
+        }
+    }
+
+    /**
+     * Adds the class declaration of the given type definition and the nested ones.
+     * @param classes    the list of class declarations to add to
+     * @param typeDef    the type definition
+     * @param unit       the declaration holding the compilation unit context
+     * @param enclosings the canonical names of the enclosing classes, from the innermost one
+     */
+    private static void addClass(List<SourceClass> classes, DetailAST typeDef,
+            SourceClass unit, List<String> enclosings) {
+        final String simpleName = typeDef.findFirstToken(TokenTypes.IDENT).getText();
+        final String name;
+        if (!enclosings.isEmpty()) {
+            name = enclosings.get(0) + "." + simpleName;
+        }
+        else if (unit.packageName().isEmpty()) {
+            name = simpleName;
+        }
+        else {
+            name = unit.packageName() + "." + simpleName;
+        }
+
+        final ImmutableSourceClass.Builder builder = ImmutableSourceClass.builder()
+                .from(unit)
+                .name(name)
+                .enclosingNames(enclosings);
+        final DetailAST extendsClause = typeDef.findFirstToken(TokenTypes.EXTENDS_CLAUSE);
+        final DetailAST implementsClause = typeDef.findFirstToken(TokenTypes.IMPLEMENTS_CLAUSE);
+        switch (typeDef.getType()) {
+            case TokenTypes.INTERFACE_DEF:
+                builder.isAbstract(true).addAllRawInterfaces(getTypeNames(extendsClause));
+                break;
+            case TokenTypes.ANNOTATION_DEF:
+                builder.isAbstract(true).addRawInterfaces("java.lang.annotation.Annotation");
+                break;
+            case TokenTypes.ENUM_DEF:
+                builder.isAbstract(false).rawSuperName("java.lang.Enum")
+                        .addAllRawInterfaces(getTypeNames(implementsClause));
+                break;
+            default:
+                builder.isAbstract(typeDef.findFirstToken(TokenTypes.MODIFIERS)
+                            .findFirstToken(TokenTypes.ABSTRACT) != null)
+                        .addAllRawInterfaces(getTypeNames(implementsClause));
+                getTypeNames(extendsClause).forEach(builder::rawSuperName);
+                break;
+        }
+
+        final DetailAST objBlock = typeDef.findFirstToken(TokenTypes.OBJBLOCK);
+        builder.hasDefaultConstructor(hasDefaultConstructor(objBlock));
+        classes.add(builder.build());
+
+        final List<String> nestedEnclosings = new ArrayList<>();
+        nestedEnclosings.add(name);
+        nestedEnclosings.addAll(enclosings);
+        for (DetailAST child = objBlock.getFirstChild(); child != null;
+                child = child.getNextSibling()) {
+            if (child.getType() == TokenTypes.CLASS_DEF
+                    || child.getType() == TokenTypes.INTERFACE_DEF
+                    || child.getType() == TokenTypes.ENUM_DEF
+                    || child.getType() == TokenTypes.ANNOTATION_DEF) {
+                addClass(classes, child, unit, nestedEnclosings);
+            }
+        }
+    }
+
+    /**
+     * Checks whether the class body has a constructor without parameters, either
+     * explicitly or implicitly when there is no constructor declared.
+     * @param objBlock the class body
+     * @return true if there is a constructor without parameters
+     */
+    private static boolean hasDefaultConstructor(DetailAST objBlock) {
+        boolean hasConstructor = false;
+        boolean returnValue = false;
+        for (DetailAST child = objBlock.getFirstChild(); child != null;
+                child = child.getNextSibling()) {
+            if (child.getType() == TokenTypes.CTOR_DEF) {
+                hasConstructor = true;
+                if (child.findFirstToken(TokenTypes.PARAMETERS).getChildCount() == 0) {
+                    returnValue = true;
+                }
+            }
+        }
+        return returnValue || !hasConstructor;
+    }
+
+    /**
+     * Gets the raw type names in an extends or implements clause.
+     * @param clause the extends or implements clause, could be {@code null}
+     * @return the raw type names, without type arguments
+     */
+    private static List<String> getTypeNames(DetailAST clause) {
+        final List<String> returnValue = new ArrayList<>();
+        if (clause != null) {
+            for (DetailAST child = clause.getFirstChild(); child != null;
+                    child = child.getNextSibling()) {
+                if (child.getType() == TokenTypes.IDENT || child.getType() == TokenTypes.DOT) {
+                    returnValue.add(getTypeName(child));
+                }
+            }
+        }
+        return returnValue;
+    }
+
+    /**
+     * Gets the type name of an identifier or a qualified name, ignoring type arguments.
+     * @param ast the identifier or the qualified name
+     * @return the type name
+     */
+    private static String getTypeName(DetailAST ast) {
+        final String returnValue;
+        if (ast.getType() == TokenTypes.DOT) {
+            final StringBuilder builder = new StringBuilder();
+            for (DetailAST child = ast.getFirstChild(); child != null;
+                    child = child.getNextSibling()) {
+                if (child.getType() == TokenTypes.IDENT || child.getType() == TokenTypes.DOT) {
+                    if (builder.length() > 0) {
+                        builder.append('.');
+                    }
+                    builder.append(getTypeName(child));
+                }
+            }
+            returnValue = builder.toString();
+        }
+        else {
+            returnValue = ast.getText();
+        }
+        return returnValue;
+    }
+}
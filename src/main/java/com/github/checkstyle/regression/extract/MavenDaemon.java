@@ -0,0 +1,102 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.extract;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Properties;
+
+import org.apache.maven.shared.invoker.InvocationRequest;
+import org.apache.maven.shared.invoker.Invoker;
+
+/**
+ * Represents a resident Maven daemon (mvnd) managed by the regression tool, which keeps
+ * a warm build session alive between extractions. The daemons of the tool keep their
+ * registry in a dedicated storage directory, so they are never shared with the daemons
+ * started by the user, and they resolve everything from the local repository only.
+ * @author LuoLiangchen
+ */
+final class MavenDaemon {
+    /** The property of the daemon storage directory. */
+    private static final String STORAGE_PROPERTY = "mvnd.daemonStorage";
+
+    /** The property of the idle timeout of the daemon. */
+    private static final String IDLE_TIMEOUT_PROPERTY = "mvnd.idleTimeout";
+
+    /** The property of the JVM arguments of the daemon. */
+    private static final String JVM_ARGS_PROPERTY = "mvnd.jvmArgs";
+
+    /** The path of the daemon client executable. */
+    private final File executable;
+
+    /** The daemon storage directory. */
+    private final File storageDir;
+
+    /** The settings of the Maven invocation. */
+    private final MavenProfile profile;
+
+    /**
+     * Creates a new MavenDaemon instance.
+     * @param executable the path of the daemon client executable
+     * @param storageDir the daemon storage directory
+     * @param profile    the settings of the Maven invocation
+     */
+    MavenDaemon(File executable, File storageDir, MavenProfile profile) {
+        this.executable = executable;
+        this.storageDir = storageDir;
+        this.profile = profile;
+    }
+
+    /**
+     * Configures the invocation to be sent to the daemon. The invocation is forced
+     * offline, and the JVM options of the profile are passed to the daemon.
+     * @param invoker    the invoker
+     * @param request    the invocation request
+     * @param properties the system properties of the invocation
+     */
+    public void configure(Invoker invoker, InvocationRequest request, Properties properties) {
+        invoker.setMavenExecutable(executable);
+        request.setOffline(true);
+        properties.setProperty(STORAGE_PROPERTY, storageDir.getAbsolutePath());
+        profile.daemonIdleTimeout().ifPresent(timeout -> {
+            properties.setProperty(IDLE_TIMEOUT_PROPERTY, timeout);
+        });
+        profile.jvmOptions().ifPresent(options -> {
+            properties.setProperty(JVM_ARGS_PROPERTY, options);
+        });
+    }
+
+    /**
+     * Stops the daemons of the regression tool.
+     * @throws IOException          failure of running the daemon client
+     * @throws InterruptedException the stop is interrupted
+     */
+    public void stop() throws IOException, InterruptedException {
+        final Process process = new ProcessBuilder()
+                .command(executable.getAbsolutePath(), "--stop",
+                        "-D" + STORAGE_PROPERTY + "=" + storageDir.getAbsolutePath())
+                .inheritIO()
+                .start();
+        final int code = process.waitFor();
+        if (code != 0) {
+            throw new IOException("maven daemon stop exit with code: " + code);
+        }
+    }
+}
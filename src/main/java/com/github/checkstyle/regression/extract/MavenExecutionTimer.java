@@ -0,0 +1,122 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.extract;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.maven.shared.invoker.InvocationOutputHandler;
+
+/**
+ * Passes the Maven output on and measures the time spent in each mojo execution,
+ * like {@code maven-compiler-plugin:3.8.1:compile (default-compile)}. An execution
+ * lasts until the next one starts, or until {@link #finish()} is called.
+ * @author LuoLiangchen
+ */
+final class MavenExecutionTimer implements InvocationOutputHandler {
+    /** The pattern of the line which starts a mojo execution. */
+    private static final Pattern EXECUTION_PATTERN =
+            Pattern.compile("^\\[INFO\\] --- (.+) @ .+ ---$");
+
+    /** The handler which the Maven output is passed on to. */
+    private final InvocationOutputHandler output;
+
+    /** The clock in nanoseconds. */
+    private final LongSupplier clock;
+
+    /** The execution to nanoseconds map, in order of execution. */
+    private final Map<String, Long> times = new LinkedHashMap<>();
+
+    /** The running execution, null if there is none. */
+    private String current;
+
+    /** The start time of the running execution, in nanoseconds. */
+    private long start;
+
+    /**
+     * Creates a new MavenExecutionTimer instance.
+     * @param output the handler which the Maven output is passed on to
+     */
+    MavenExecutionTimer(InvocationOutputHandler output) {
+        this(output, System::nanoTime);
+    }
+
+    /**
+     * Creates a new MavenExecutionTimer instance with the given clock.
+     * @param output the handler which the Maven output is passed on to
+     * @param clock  the clock in nanoseconds
+     */
+    MavenExecutionTimer(InvocationOutputHandler output, LongSupplier clock) {
+        this.output = output;
+        this.clock = clock;
+    }
+
+    @Override
+    public void consumeLine(String line) throws IOException {
+        output.consumeLine(line);
+        final Matcher matcher = EXECUTION_PATTERN.matcher(line);
+        if (matcher.matches()) {
+            finish();
+            current = matcher.group(1);
+            start = clock.getAsLong();
+        }
+    }
+
+    /** Ends the running execution, if any. */
+    public void finish() {
+        if (current != null) {
+            times.merge(current, clock.getAsLong() - start, Long::sum);
+            current = null;
+        }
+    }
+
+    /**
+     * Gets the time spent in each mojo execution.
+     * @return the execution to milliseconds map, in order of execution
+     */
+    public Map<String, Long> getTimes() {
+        final Map<String, Long> returnValue = new LinkedHashMap<>();
+        times.forEach((execution, nanos) -> {
+            returnValue.put(execution, TimeUnit.NANOSECONDS.toMillis(nanos));
+        });
+        return returnValue;
+    }
+
+    /**
+     * Gets the report of the time spent in each mojo execution.
+     * @return the report
+     */
+    public String getReport() {
+        final StringBuilder builder = new StringBuilder("maven execution times:");
+        long total = 0;
+        for (Map.Entry<String, Long> entry : getTimes().entrySet()) {
+            builder.append(System.lineSeparator())
+                    .append(String.format("%8d ms  %s", entry.getValue(), entry.getKey()));
+            total += entry.getValue();
+        }
+        builder.append(System.lineSeparator()).append(String.format("%8d ms  total", total));
+        return builder.toString();
+    }
+}
@@ -0,0 +1,163 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.extract;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+import java.util.Properties;
+
+import org.immutables.value.Value;
+
+/**
+ * Represents the settings of the Maven invocation which generates the module extract info.
+ * The default profile runs the {@code test} lifecycle with the default Maven settings.
+ * @author LuoLiangchen
+ */
+@Value.Immutable
+public interface MavenProfile {
+    /** The property key of whether to run Maven offline. */
+    String KEY_OFFLINE = "offline";
+
+    /** The property key of whether to skip the analysis plugins. */
+    String KEY_SKIP_ANALYSIS = "skipAnalysis";
+
+    /** The property key of the thread count of the parallel builder. */
+    String KEY_THREADS = "threads";
+
+    /** The property key of the local repository. */
+    String KEY_LOCAL_REPOSITORY = "localRepository";
+
+    /** The property key of the JVM options of the Maven process. */
+    String KEY_JVM_OPTIONS = "jvmOptions";
+
+    /** The property key of whether to reuse the up-to-date compiled classes. */
+    String KEY_REUSE_CLASSES = "reuseClasses";
+
+    /** The property key of the Maven daemon client executable. */
+    String KEY_DAEMON_EXECUTABLE = "daemonExecutable";
+
+    /** The property key of the idle timeout of the Maven daemon. */
+    String KEY_DAEMON_IDLE_TIMEOUT = "daemonIdleTimeout";
+
+    /** The property key of whether to stop the Maven daemon after extraction. */
+    String KEY_STOP_DAEMON = "stopDaemon";
+
+    /**
+     * Whether to run Maven offline.
+     * @return whether to run Maven offline
+     */
+    @Value.Default
+    default boolean offline() {
+        return false;
+    }
+
+    /**
+     * Whether to skip the static analysis plugins bound to the lifecycle.
+     * @return whether to skip the analysis plugins
+     */
+    @Value.Default
+    default boolean skipAnalysis() {
+        return false;
+    }
+
+    /**
+     * The thread count of the parallel builder, like {@code 4} or {@code 1C}.
+     * @return the thread count of the parallel builder
+     */
+    Optional<String> threads();
+
+    /**
+     * The path of the dedicated local repository.
+     * @return the path of the local repository
+     */
+    Optional<String> localRepository();
+
+    /**
+     * The JVM options of the Maven process, which are passed as {@code MAVEN_OPTS},
+     * or as the JVM arguments of the Maven daemon.
+     * @return the JVM options of the Maven process
+     */
+    Optional<String> jvmOptions();
+
+    /**
+     * Whether to reuse the compiled classes in the working tree when they are built
+     * from the same main sources, then only the test sources are compiled and run.
+     * @return whether to reuse the compiled classes
+     */
+    @Value.Default
+    default boolean reuseClasses() {
+        return false;
+    }
+
+    /**
+     * The path of the Maven daemon (mvnd) client executable. If it is present, the
+     * extractions are sent to a warm daemon managed by the regression tool instead of
+     * a new Maven process, and they are always offline.
+     * @return the path of the Maven daemon client executable
+     */
+    Optional<String> daemonExecutable();
+
+    /**
+     * The idle timeout after which the Maven daemon exits, like {@code 3h}.
+     * @return the idle timeout of the Maven daemon
+     */
+    Optional<String> daemonIdleTimeout();
+
+    /**
+     * Whether to stop the Maven daemon after extraction, otherwise it is kept
+     * warm for the next runs until its idle timeout.
+     * @return whether to stop the Maven daemon after extraction
+     */
+    @Value.Default
+    default boolean stopDaemon() {
+        return false;
+    }
+
+    /**
+     * Loads the profile from the given properties file. The absent keys keep
+     * their default values.
+     * @param file the properties file
+     * @return the loaded profile
+     * @throws IOException failure of reading the file
+     */
+    static MavenProfile load(File file) throws IOException {
+        final Properties properties = new Properties();
+        try (InputStream stream = new FileInputStream(file)) {
+            properties.load(stream);
+        }
+        return ImmutableMavenProfile.builder()
+                .offline(Boolean.parseBoolean(properties.getProperty(KEY_OFFLINE)))
+                .skipAnalysis(Boolean.parseBoolean(properties.getProperty(KEY_SKIP_ANALYSIS)))
+                .threads(Optional.ofNullable(properties.getProperty(KEY_THREADS)))
+                .localRepository(
+                        Optional.ofNullable(properties.getProperty(KEY_LOCAL_REPOSITORY)))
+                .jvmOptions(Optional.ofNullable(properties.getProperty(KEY_JVM_OPTIONS)))
+                .reuseClasses(Boolean.parseBoolean(properties.getProperty(KEY_REUSE_CLASSES)))
+                .daemonExecutable(
+                        Optional.ofNullable(properties.getProperty(KEY_DAEMON_EXECUTABLE)))
+                .daemonIdleTimeout(
+                        Optional.ofNullable(properties.getProperty(KEY_DAEMON_IDLE_TIMEOUT)))
+                .stopDaemon(Boolean.parseBoolean(properties.getProperty(KEY_STOP_DAEMON)))
+                .build();
+    }
+}
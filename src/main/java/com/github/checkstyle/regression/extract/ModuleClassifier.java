@@ -0,0 +1,211 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.extract;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.github.checkstyle.regression.data.ImmutableModuleExtractInfo;
+import com.github.checkstyle.regression.data.ModuleExtractInfo;
+
+/**
+ * Classifies the checkstyle modules from a set of {@link ClassInfo}, following the
+ * same rules as {@code ModuleReflectionUtil} of checkstyle, but without loading classes.
+ * Type relations are resolved only among the given classes, so the classes of
+ * checkstyle itself must all be present.
+ * @author LuoLiangchen
+ */
+final class ModuleClassifier {
+    /** The base package of checkstyle. */
+    private static final String BASE_PACKAGE = "com.puppycrawl.tools.checkstyle";
+
+    /** The package of checkstyle API. */
+    private static final String API_PACKAGE = BASE_PACKAGE + ".api.";
+
+    /** The base class of all the checkstyle modules. */
+    private static final String AUTOMATIC_BEAN = API_PACKAGE + "AutomaticBean";
+
+    /** The base class of TreeWalker checks. */
+    private static final String ABSTRACT_CHECK = API_PACKAGE + "AbstractCheck";
+
+    /** The interface of TreeWalker filters. */
+    private static final String TREE_WALKER_FILTER = BASE_PACKAGE + ".TreeWalkerFilter";
+
+    /** The interface of root modules. */
+    private static final String ROOT_MODULE = API_PACKAGE + "RootModule";
+
+    /** The types of which subtypes are checkstyle modules. */
+    private static final List<String> MODULE_TYPES = Arrays.asList(
+            ABSTRACT_CHECK,
+            API_PACKAGE + "AbstractFileSetCheck",
+            API_PACKAGE + "Filter",
+            API_PACKAGE + "BeforeExecutionFileFilter",
+            TREE_WALKER_FILTER,
+            API_PACKAGE + "AuditListener",
+            ROOT_MODULE);
+
+    /** The prefix of the names of classes which are not considered as modules. */
+    private static final String XPATH_FILE_GENERATOR = "XpathFileGenerator";
+
+    /** The root of all the classes. */
+    private static final String OBJECT = "java.lang.Object";
+
+    /** The parent name "TreeWalker". */
+    private static final String PARENT_TREE_WALKER = "TreeWalker";
+
+    /** The parent name "Checker". */
+    private static final String PARENT_CHECKER = "Checker";
+
+    /** Prevents instantiation. */
+    private ModuleClassifier() {
+    }
+
+    /**
+     * Classifies the checkstyle modules from the given classes.
+     * @param classes the map of canonical name to class information
+     * @return the full qualified name to module extract info map
+     */
+    public static Map<String, ModuleExtractInfo> classify(Map<String, ClassInfo> classes) {
+        final Map<String, ModuleExtractInfo> returnValue = new TreeMap<>();
+
+        for (ClassInfo classInfo : classes.values()) {
+            if (isModuleCandidate(classInfo)) {
+                final Set<String> supertypes = getSupertypes(classInfo, classes);
+                if (isCheckstyleModule(supertypes)) {
+                    final ImmutableModuleExtractInfo.Builder builder =
+                            ImmutableModuleExtractInfo.builder()
+                                    .name(classInfo.simpleName())
+                                    .packageName(classInfo.packageName())
+                                    .parent(getParent(supertypes));
+                    addHierarchies(builder, classInfo, classes);
+                    final ModuleExtractInfo extractInfo = builder.build();
+                    returnValue.put(extractInfo.fullName(), extractInfo);
+                }
+            }
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Checks whether the given class could be a checkstyle module, regardless of its
+     * supertypes. Candidates are concrete top level classes in checkstyle package,
+     * with a constructor without parameters.
+     * @param classInfo the class to check
+     * @return true if the given class could be a checkstyle module
+     */
+    private static boolean isModuleCandidate(ClassInfo classInfo) {
+        return classInfo.isTopLevel() && !classInfo.isAbstract()
+                && classInfo.hasDefaultConstructor()
+                && classInfo.name().startsWith(BASE_PACKAGE + ".")
+                && !classInfo.simpleName().startsWith(XPATH_FILE_GENERATOR);
+    }
+
+    /**
+     * Checks whether a candidate class with the given supertypes is a checkstyle module.
+     * @param supertypes the canonical names of all the supertypes of the class
+     * @return true if the class is a checkstyle module
+     */
+    private static boolean isCheckstyleModule(Set<String> supertypes) {
+        return supertypes.contains(AUTOMATIC_BEAN)
+                && MODULE_TYPES.stream().anyMatch(supertypes::contains);
+    }
+
+    /**
+     * Gets the parent of a module with the given supertypes, which is "TreeWalker"
+     * for TreeWalker checks and filters, empty for root modules and "Checker" for the others.
+     * @param supertypes the canonical names of all the supertypes of the module
+     * @return the parent of the module
+     */
+    private static String getParent(Set<String> supertypes) {
+        final String returnValue;
+        if (supertypes.contains(ABSTRACT_CHECK) || supertypes.contains(TREE_WALKER_FILTER)) {
+            returnValue = PARENT_TREE_WALKER;
+        }
+        else if (supertypes.contains(ROOT_MODULE)) {
+            returnValue = "";
+        }
+        else {
+            returnValue = PARENT_CHECKER;
+        }
+        return returnValue;
+    }
+
+    /**
+     * Adds the super classes of the given class, and the interfaces directly implemented
+     * by the class or any of its super classes, like the injected extract info generator.
+     * The walk stops at {@code java.lang.Object}, or at a super class which is not in
+     * the given classes.
+     * @param builder   the builder of the module extract info
+     * @param classInfo the class of the module
+     * @param classes   the map of canonical name to class information
+     */
+    private static void addHierarchies(ImmutableModuleExtractInfo.Builder builder,
+            ClassInfo classInfo, Map<String, ClassInfo> classes) {
+        ClassInfo current = classInfo;
+        while (current != null) {
+            builder.addAllInterfaces(current.interfaces());
+            final String superName = current.superName().orElse(OBJECT);
+            if (OBJECT.equals(superName)) {
+                current = null;
+            }
+            else {
+                builder.addHierarchies(superName);
+                current = classes.get(superName);
+            }
+        }
+    }
+
+    /**
+     * Gets all the supertypes of the given class, including the class itself.
+     * Supertypes which are not in the given classes are included, but their own
+     * supertypes could not be resolved.
+     * @param classInfo the class to resolve
+     * @param classes   the map of canonical name to class information
+     * @return the canonical names of all the supertypes
+     */
+    private static Set<String> getSupertypes(ClassInfo classInfo, Map<String, ClassInfo> classes) {
+        final Set<String> returnValue = new HashSet<>();
+        final Deque<ClassInfo> queue = new ArrayDeque<>();
+        returnValue.add(classInfo.name());
+        queue.add(classInfo);
+
+        while (!queue.isEmpty()) {
+            final ClassInfo current = queue.poll();
+            final List<String> directSupertypes = new ArrayList<>(current.interfaces());
+            current.superName().ifPresent(directSupertypes::add);
+            for (String supertype : directSupertypes) {
+                final ClassInfo supertypeInfo = classes.get(supertype);
+                if (returnValue.add(supertype) && supertypeInfo != null) {
+                    queue.add(supertypeInfo);
+                }
+            }
+        }
+
+        return returnValue;
+    }
+}
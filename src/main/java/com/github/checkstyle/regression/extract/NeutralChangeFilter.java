@@ -0,0 +1,318 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.extract;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.treewalk.TreeWalk;
+
+import com.github.checkstyle.regression.data.ChangeType;
+import com.github.checkstyle.regression.data.FilteredChanges;
+import com.github.checkstyle.regression.data.GitChange;
+import com.github.checkstyle.regression.data.ImmutableFilteredChanges;
+import com.github.checkstyle.regression.data.LineRanges;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.DetailAST;
+import com.puppycrawl.tools.checkstyle.api.FullIdent;
+import com.puppycrawl.tools.checkstyle.api.TokenTypes;
+
+/**
+ * Drops the changes of Java main sources which could not change the behavior of any
+ * module, so that the modules only touched by them are not run. The old and the new
+ * versions of a modified source are parsed with the checkstyle parser, and the change
+ * is neutral if their syntax trees are the same, apart from comments and Javadoc, and if
+ * the imports are only reordered. An import which is added, removed or retargeted could
+ * bind a name to another class, or change what an import check reports, so the change
+ * is not neutral.
+ * The changed line ranges tell which kind of neutral edit it is.
+ * @author LuoLiangchen
+ */
+final class NeutralChangeFilter {
+    /** The path prefix of Java main source files. */
+    private static final String JAVA_MAIN_SOURCE_PREFIX = "src/main/java/";
+
+    /** The extension of Java source files. */
+    private static final String JAVA_EXTENSION = ".java";
+
+    /** The charset of Java source files. */
+    private static final Charset JAVA_CHARSET = Charset.forName("UTF-8");
+
+    /** The reason of a change of which changed lines hold no code. */
+    private static final String REASON_NO_CODE_LINE =
+            "only comments, Javadoc, imports or blank lines are changed";
+
+    /** The reason of a change of which changed lines hold the same code. */
+    private static final String REASON_FORMATTING = "only formatting is changed";
+
+    /** The reason of a change of which changed lines are unknown. */
+    private static final String REASON_UNKNOWN_LINES =
+            "only comments, Javadoc, imports or formatting are changed";
+
+    /** Prevents instantiation. */
+    private NeutralChangeFilter() {
+    }
+
+    /**
+     * Filters out the neutral changes of Java main sources, with the reason of each one.
+     * Only the modified sources are checked, the added, renamed and copied ones always
+     * change a class. The changes of the sources which could not be parsed are kept.
+     * @param changes    the changes to filter
+     * @param oldSources the loader of the sources before the changes
+     * @param newSources the loader of the sources after the changes
+     * @return the changes which are not neutral, in the order of the given changes,
+     *      with the reasons of the dropped changes and of the unparsed sources
+     * @throws IOException failure of reading the sources
+     */
+    public static FilteredChanges filter(List<GitChange> changes, SourceLoader oldSources,
+            SourceLoader newSources) throws IOException {
+        final ImmutableFilteredChanges.Builder returnValue = ImmutableFilteredChanges.builder();
+        for (GitChange change : changes) {
+            Optional<String> reason = Optional.empty();
+            if (isModifiedMainSource(change)) {
+                final String oldContent = oldSources.load(change.path());
+                final String newContent = newSources.load(change.path());
+                if (oldContent != null && newContent != null) {
+                    try {
+                        reason = getNeutralReason(change, oldContent, newContent);
+                    }
+                    catch (CheckstyleException ex) {
+                        returnValue.putUnparsed(change.path(), ex.getMessage());
+                    }
+                }
+            }
+            if (reason.isPresent()) {
+                returnValue.putSkipped(change.path(), reason.get());
+            }
+            else {
+                returnValue.addChanges(change);
+            }
+        }
+        return returnValue.build();
+    }
+
+    /**
+     * Gets the reason why the given change of a Java source is neutral.
+     * @param change     the change of the Java source
+     * @param oldContent the content of the source before the change
+     * @param newContent the content of the source after the change
+     * @return the reason why the change is neutral, or empty if the code is changed
+     * @throws CheckstyleException if any version of the source could not be parsed
+     */
+    public static Optional<String> getNeutralReason(GitChange change, String oldContent,
+            String newContent) throws CheckstyleException {
+        Optional<String> returnValue = Optional.empty();
+        final Code oldCode = new Code(JavaSourceParser.parseAst(change.path(), oldContent));
+        final Code newCode = new Code(JavaSourceParser.parseAst(change.path(), newContent));
+        if (oldCode.nodes.equals(newCode.nodes)
+                && oldCode.imports.equals(newCode.imports)) {
+            if (change.addedLineRanges().isEmpty() && change.deletedLineRanges().isEmpty()) {
+                returnValue = Optional.of(REASON_UNKNOWN_LINES);
+            }
+            else if (oldCode.hasLineIn(change.deletedLineRanges())
+                    || newCode.hasLineIn(change.addedLineRanges())) {
+                returnValue = Optional.of(REASON_FORMATTING);
+            }
+            else {
+                returnValue = Optional.of(REASON_NO_CODE_LINE);
+            }
+        }
+        return returnValue;
+    }
+
+    /**
+     * Creates the loader of the sources in the given tree of a commit.
+     * @param reader the object reader of the repository
+     * @param tree   the tree of the commit
+     * @return the loader of the sources in the tree
+     */
+    public static SourceLoader ofTree(ObjectReader reader, RevTree tree) {
+        return path -> {
+            String returnValue = null;
+            try (TreeWalk treeWalk = TreeWalk.forPath(reader, path, tree)) {
+                if (treeWalk != null) {
+                    returnValue = new String(reader.open(treeWalk.getObjectId(0)).getBytes(),
+                            JAVA_CHARSET);
+                }
+            }
+            return returnValue;
+        };
+    }
+
+    /**
+     * Creates the loader of the sources in the given working tree, as they are on the disk.
+     * @param workTree the working tree
+     * @return the loader of the sources in the working tree
+     */
+    public static SourceLoader ofWorkingTree(File workTree) {
+        return path -> {
+            final File file = new File(workTree, path);
+            String returnValue = null;
+            if (file.isFile()) {
+                returnValue = new String(Files.readAllBytes(file.toPath()), JAVA_CHARSET);
+            }
+            return returnValue;
+        };
+    }
+
+    /**
+     * Checks whether the given change modifies a Java main source in place.
+     * @param change the change to check
+     * @return true if the change modifies a Java main source in place
+     */
+    private static boolean isModifiedMainSource(GitChange change) {
+        return change.changeType() == ChangeType.MODIFY
+                && change.path().startsWith(JAVA_MAIN_SOURCE_PREFIX)
+                && change.path().endsWith(JAVA_EXTENSION);
+    }
+
+    /** Loads the content of a source by its path. */
+    @FunctionalInterface
+    interface SourceLoader {
+        /**
+         * Loads the content of the source of the given path.
+         * @param path the path of the source
+         * @return the content of the source, or {@code null} if there is no such source
+         * @throws IOException failure of reading the source
+         */
+        String load(String path) throws IOException;
+    }
+
+    /**
+     * Represents the code of a source: the nodes of its syntax tree without comments and
+     * imports, in pre-order with their depths, the lines which hold any of them, and the
+     * full text of the imports.
+     */
+    private static final class Code {
+        /** The nodes of the syntax tree, in pre-order. */
+        private final List<CodeNode> nodes = new ArrayList<>();
+
+        /** The full text of the imports, with a {@code static} prefix for static ones. */
+        private final Set<String> imports = new TreeSet<>();
+
+        /** The zero-based lines which hold any node. */
+        private final BitSet lines = new BitSet();
+
+        /**
+         * Creates the code of a source from its syntax tree. The tree is walked without
+         * recursion, as the trees of long expressions are deep.
+         * @param first the first top level node of the syntax tree
+         */
+        Code(DetailAST first) {
+            DetailAST node = first;
+            int depth = 0;
+            while (node != null) {
+                DetailAST next = null;
+                if (node.getType() == TokenTypes.IMPORT) {
+                    imports.add(FullIdent.createFullIdentBelow(node).getText());
+                }
+                else if (node.getType() == TokenTypes.STATIC_IMPORT) {
+                    imports.add("static " + FullIdent.createFullIdent(
+                            node.findFirstToken(TokenTypes.DOT)).getText());
+                }
+                else {
+                    nodes.add(new CodeNode(depth, node.getType(), node.getText()));
+                    if (node.getLineNo() > 0) {
+                        lines.set(node.getLineNo() - 1);
+                    }
+                    next = node.getFirstChild();
+                }
+                if (next == null) {
+                    next = node;
+                    while (next != null && next.getNextSibling() == null) {
+                        next = next.getParent();
+                        --depth;
+                    }
+                    if (next != null) {
+                        next = next.getNextSibling();
+                    }
+                }
+                else {
+                    ++depth;
+                }
+                node = next;
+            }
+        }
+
+        /**
+         * Checks whether any line which holds a node is in the given ranges.
+         * @param ranges the line ranges to check
+         * @return true if any line which holds a node is in the given ranges
+         */
+        boolean hasLineIn(LineRanges ranges) {
+            boolean returnValue = false;
+            for (int index = 0; index < ranges.getRangeCount() && !returnValue; ++index) {
+                final int line = lines.nextSetBit(ranges.getStart(index));
+                returnValue = line >= 0 && line < ranges.getEnd(index);
+            }
+            return returnValue;
+        }
+    }
+
+    /** Represents a node of a syntax tree, with its depth in the tree. */
+    private static final class CodeNode {
+        /** The depth of the node, zero for the top level nodes. */
+        private final int depth;
+
+        /** The token type of the node. */
+        private final int type;
+
+        /** The text of the node. */
+        private final String text;
+
+        /**
+         * Creates a new CodeNode instance.
+         * @param depth the depth of the node
+         * @param type  the token type of the node
+         * @param text  the text of the node
+         */
+        CodeNode(int depth, int type, String text) {
+            this.depth = depth;
+            this.type = type;
+            this.text = text;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            boolean returnValue = this == object;
+            if (!returnValue && object instanceof CodeNode) {
+                final CodeNode other = (CodeNode) object;
+                returnValue = depth == other.depth && type == other.type
+                        && text.equals(other.text);
+            }
+            return returnValue;
+        }
+
+        @Override
+        public int hashCode() {
+            return (depth * 31 + type) * 31 + text.hashCode();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.extract;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.immutables.value.Value;
+
+/**
+ * Represents a class declaration parsed from a Java source file, before the
+ * type names in it are resolved. The raw type names are kept as they are written
+ * in the source, together with the import context needed to resolve them.
+ * @author LuoLiangchen
+ */
+@Value.Immutable
+interface SourceClass {
+    /**
+     * The canonical name of the class.
+     * @return the canonical name of the class
+     */
+    String name();
+
+    /**
+     * The package name of the compilation unit.
+     * @return the package name of the compilation unit
+     */
+    String packageName();
+
+    /**
+     * The canonical names of the enclosing classes, from the innermost one.
+     * @return the canonical names of the enclosing classes
+     */
+    List<String> enclosingNames();
+
+    /**
+     * The single-type imports of the compilation unit, as a simple name to
+     * canonical name map.
+     * @return the single-type imports
+     */
+    Map<String, String> singleTypeImports();
+
+    /**
+     * The packages or types imported on demand by the compilation unit.
+     * @return the names imported on demand
+     */
+    List<String> onDemandImports();
+
+    /**
+     * The raw name of the super class, as it is written in the source.
+     * @return the raw name of the super class
+     */
+    Optional<String> rawSuperName();
+
+    /**
+     * The raw names of the direct interfaces, as they are written in the source.
+     * @return the raw names of the direct interfaces
+     */
+    List<String> rawInterfaces();
+
+    /**
+     * Whether the class is abstract or an interface.
+     * @return true if the class is abstract or an interface
+     */
+    boolean isAbstract();
+
+    /**
+     * Whether the class declares a constructor without parameters,
+     * either explicitly or implicitly.
+     * @return true if the class has a constructor without parameters
+     */
+    boolean hasDefaultConstructor();
+}
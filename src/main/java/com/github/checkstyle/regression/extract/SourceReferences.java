@@ -0,0 +1,59 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.extract;
+
+import java.util.List;
+import java.util.Set;
+
+import org.immutables.value.Value;
+
+/**
+ * Represents the names a Java source file could refer to other classes with, before
+ * they are resolved against the classes declared in the sources.
+ * @author LuoLiangchen
+ */
+@Value.Immutable
+interface SourceReferences {
+    /**
+     * The package name of the compilation unit.
+     * @return the package name of the compilation unit
+     */
+    String packageName();
+
+    /**
+     * The single-type and single-static imports, like {@code java.util.Map.Entry} or
+     * {@code com.puppycrawl.tools.checkstyle.utils.CommonUtil.isBlank}.
+     * @return the imported names
+     */
+    List<String> imports();
+
+    /**
+     * The packages or types imported on demand, including the static imports on demand.
+     * @return the names imported on demand
+     */
+    List<String> onDemandImports();
+
+    /**
+     * All the identifiers in the source, which could be the simple names of
+     * the classes in the same package or in the packages imported on demand.
+     * @return the identifiers in the source
+     */
+    Set<String> identifiers();
+}
@@ -0,0 +1,481 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.extract;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.Charset;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.PathSuffixFilter;
+
+import com.github.checkstyle.regression.data.DependencyGraph;
+import com.github.checkstyle.regression.data.ImmutableDependencyGraph;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+
+/**
+ * Scans the Java main sources of a commit straight from the git objects, or of a
+ * working tree, without checkout or compilation, and reads their {@link ClassInfo}
+ * or the dependencies between them.
+ * The sources are parsed in parallel, then the type names in them are resolved
+ * against all the classes declared in the sources.
+ * @author LuoLiangchen
+ */
+final class SourceScanner {
+    /** The path of the Java main sources. */
+    private static final String JAVA_MAIN_SOURCE_PATH = "src/main/java";
+
+    /** The extension of Java source files. */
+    private static final String JAVA_EXTENSION = ".java";
+
+    /** The charset of Java source files. */
+    private static final Charset JAVA_CHARSET = Charset.forName("UTF-8");
+
+    /** The package of which types are implicitly imported. */
+    private static final String JAVA_LANG_PACKAGE = "java.lang.";
+
+    /** Prevents instantiation. */
+    private SourceScanner() {
+    }
+
+    /**
+     * Scans the Java main sources of the given commit.
+     * @param repository  the repository
+     * @param commitId    the id of the commit
+     * @param parallelism the parallelism level of parsing
+     * @param warnings    the collection to add the reasons of the skipped sources to
+     * @return the map of canonical name to class information
+     * @throws IOException failure of reading the git objects
+     */
+    public static Map<String, ClassInfo> scan(Repository repository, ObjectId commitId,
+            int parallelism, Collection<String> warnings) throws IOException {
+        return scan(readSources(repository, commitId), parallelism, warnings);
+    }
+
+    /**
+     * Scans the Java main sources in the given working tree, as they are on the disk.
+     * @param workTree    the working tree
+     * @param parallelism the parallelism level of parsing
+     * @param warnings    the collection to add the reasons of the skipped sources to
+     * @return the map of canonical name to class information
+     * @throws IOException failure of reading the files
+     */
+    public static Map<String, ClassInfo> scan(File workTree, int parallelism,
+            Collection<String> warnings) throws IOException {
+        return scan(readSources(workTree), parallelism, warnings);
+    }
+
+    /**
+     * Scans the class-level dependencies between the Java main sources of the given commit.
+     * @param repository  the repository
+     * @param commitId    the id of the commit
+     * @param parallelism the parallelism level of parsing
+     * @param warnings    the collection to add the reasons of the skipped sources to
+     * @return the dependencies between the sources
+     * @throws IOException failure of reading the git objects
+     */
+    public static DependencyGraph scanDependencies(Repository repository, ObjectId commitId,
+            int parallelism, Collection<String> warnings) throws IOException {
+        return scanDependencies(readSources(repository, commitId), parallelism, warnings);
+    }
+
+    /**
+     * Scans the class-level dependencies between the Java main sources in the given
+     * working tree, as they are on the disk.
+     * @param workTree    the working tree
+     * @param parallelism the parallelism level of parsing
+     * @param warnings    the collection to add the reasons of the skipped sources to
+     * @return the dependencies between the sources
+     * @throws IOException failure of reading the files
+     */
+    public static DependencyGraph scanDependencies(File workTree, int parallelism,
+            Collection<String> warnings) throws IOException {
+        return scanDependencies(readSources(workTree), parallelism, warnings);
+    }
+
+    /**
+     * Scans the class-level dependencies between the given Java sources. The classes are
+     * named after the paths of the sources. A source uses the classes it imports, or the
+     * outer classes of the members it imports, and the classes of its own package and of
+     * the packages imported on demand which any of its identifiers is the simple name of.
+     * A class referred to only by its full qualified name, without import, is missed.
+     * @param sources     the sources to scan
+     * @param parallelism the parallelism level of parsing
+     * @param warnings    the collection to add the reasons of the skipped sources to
+     * @return the dependencies between the sources
+     * @throws IOException the parsing is interrupted
+     */
+    private static DependencyGraph scanDependencies(List<Source> sources, int parallelism,
+            Collection<String> warnings) throws IOException {
+        final Map<String, SourceReferences> references = new TreeMap<>();
+        for (Map.Entry<String, SourceReferences> entry : parseSources(sources, parallelism,
+                SourceScanner::parseReferences, warnings)) {
+            references.put(entry.getKey(), entry.getValue());
+        }
+
+        final ImmutableDependencyGraph.Builder builder = ImmutableDependencyGraph.builder();
+        for (Map.Entry<String, SourceReferences> entry : references.entrySet()) {
+            final Set<String> dependencies = new TreeSet<>();
+            final SourceReferences reference = entry.getValue();
+            for (String imported : reference.imports()) {
+                getOuterClass(imported, references.keySet()).ifPresent(dependencies::add);
+            }
+            final List<String> packages = new ArrayList<>();
+            packages.add(reference.packageName());
+            for (String imported : reference.onDemandImports()) {
+                final Optional<String> importedClass =
+                        getOuterClass(imported, references.keySet());
+                if (importedClass.isPresent()) {
+                    dependencies.add(importedClass.get());
+                }
+                else {
+                    packages.add(imported);
+                }
+            }
+            for (String identifier : reference.identifiers()) {
+                for (String packageName : packages) {
+                    final String name = qualify(packageName, identifier);
+                    if (references.containsKey(name)) {
+                        dependencies.add(name);
+                    }
+                }
+            }
+            dependencies.remove(entry.getKey());
+            builder.putDependencies(entry.getKey(), dependencies);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Scans the given Java sources.
+     * @param sources     the sources to scan
+     * @param parallelism the parallelism level of parsing
+     * @param warnings    the collection to add the reasons of the skipped sources to
+     * @return the map of canonical name to class information
+     * @throws IOException the parsing is interrupted
+     */
+    private static Map<String, ClassInfo> scan(List<Source> sources, int parallelism,
+            Collection<String> warnings) throws IOException {
+        final List<SourceClass> sourceClasses =
+                parseSources(sources, parallelism, SourceScanner::parseSource, warnings);
+        final Map<String, SourceClass> declared = new HashMap<>();
+        for (SourceClass sourceClass : sourceClasses) {
+            declared.put(sourceClass.name(), sourceClass);
+        }
+
+        final Map<String, ClassInfo> returnValue = new HashMap<>();
+        for (SourceClass sourceClass : sourceClasses) {
+            final ImmutableClassInfo.Builder builder = ImmutableClassInfo.builder()
+                    .name(sourceClass.name())
+                    .isAbstract(sourceClass.isAbstract())
+                    .isTopLevel(sourceClass.enclosingNames().isEmpty())
+                    .hasDefaultConstructor(sourceClass.hasDefaultConstructor());
+            sourceClass.rawSuperName().ifPresent(rawName -> {
+                builder.superName(resolve(rawName, sourceClass, declared.keySet()));
+            });
+            for (String rawName : sourceClass.rawInterfaces()) {
+                builder.addInterfaces(resolve(rawName, sourceClass, declared.keySet()));
+            }
+            returnValue.put(sourceClass.name(), builder.build());
+        }
+        return returnValue;
+    }
+
+    /**
+     * Reads the Java main sources of the given commit.
+     * @param repository the repository
+     * @param commitId   the id of the commit
+     * @return the Java main sources
+     * @throws IOException failure of reading the git objects
+     */
+    private static List<Source> readSources(Repository repository, ObjectId commitId)
+            throws IOException {
+        final List<Source> returnValue = new ArrayList<>();
+        try (RevWalk walk = new RevWalk(repository);
+             TreeWalk treeWalk = new TreeWalk(repository)) {
+            final RevCommit commit = walk.parseCommit(commitId);
+            final ObjectReader reader = treeWalk.getObjectReader();
+            treeWalk.addTree(commit.getTree());
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(AndTreeFilter.create(PathFilter.create(JAVA_MAIN_SOURCE_PATH),
+                    PathSuffixFilter.create(JAVA_EXTENSION)));
+            while (treeWalk.next()) {
+                final byte[] content = reader.open(treeWalk.getObjectId(0)).getBytes();
+                returnValue.add(new Source(treeWalk.getPathString(),
+                        new String(content, JAVA_CHARSET)));
+            }
+        }
+        return returnValue;
+    }
+
+    /**
+     * Reads the Java main sources in the given working tree.
+     * @param workTree the working tree
+     * @return the Java main sources
+     * @throws IOException failure of reading the files
+     */
+    private static List<Source> readSources(File workTree) throws IOException {
+        final List<Source> returnValue = new ArrayList<>();
+        final File directory = new File(workTree, JAVA_MAIN_SOURCE_PATH);
+        if (directory.isDirectory()) {
+            for (File file : FileUtils.listFiles(directory,
+                    new String[] {JAVA_EXTENSION.substring(1)}, true)) {
+                final String path = workTree.toPath().relativize(file.toPath()).toString();
+                returnValue.add(new Source(path,
+                        FileUtils.readFileToString(file, JAVA_CHARSET)));
+            }
+        }
+        return returnValue;
+    }
+
+    /**
+     * Parses the given sources in parallel, on a dedicated fork-join pool. The warnings
+     * of the parser are added to the given collection once all the sources are parsed,
+     * sorted so that they do not depend on the order of parsing.
+     * @param sources     the sources to parse
+     * @param parallelism the parallelism level of the pool
+     * @param parser      the parser of a source, which adds its warnings to the given
+     *                    thread-safe collection
+     * @param warnings    the collection to add the warnings of the parser to
+     * @param <T>         the type of the parsed elements
+     * @return the parsed elements of all the sources
+     * @throws IOException the parsing is interrupted
+     */
+    private static <T> List<T> parseSources(List<Source> sources, int parallelism,
+            BiFunction<Source, Collection<String>, List<T>> parser,
+            Collection<String> warnings) throws IOException {
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        final Collection<String> parserWarnings = new ConcurrentLinkedQueue<>();
+        try {
+            final List<T> returnValue = pool.submit(() -> {
+                return sources.parallelStream()
+                        .flatMap(source -> parser.apply(source, parserWarnings).stream())
+                        .collect(Collectors.toList());
+            }).get();
+            warnings.addAll(new TreeSet<>(parserWarnings));
+            return returnValue;
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("parsing of sources is interrupted");
+        }
+        catch (ExecutionException ex) {
+            throw new IllegalStateException("unable to parse sources", ex.getCause());
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Parses the given source. A source which could not be parsed is skipped with
+     * a warning, as sources of a branch which does not compile yet are expected.
+     * @param source   the source to parse
+     * @param warnings the collection to add the reason of the skipped source to
+     * @return the class declarations in the source
+     */
+    private static List<SourceClass> parseSource(Source source, Collection<String> warnings) {
+        List<SourceClass> returnValue;
+        try {
+            returnValue = JavaSourceParser.parse(source.path, source.content);
+        }
+        catch (CheckstyleException ex) {
+            warnings.add("unable to parse " + source.path + ", skipped: " + ex.getMessage());
+            returnValue = Collections.emptyList();
+        }
+        return returnValue;
+    }
+
+    /**
+     * Parses the references of the given source, named after the path of the source.
+     * A source which could not be parsed is skipped with a warning, like in
+     * {@link #parseSource(Source, Collection)}.
+     * @param source   the source to parse
+     * @param warnings the collection to add the reason of the skipped source to
+     * @return the class name and the references of the source, or nothing
+     */
+    private static List<Map.Entry<String, SourceReferences>> parseReferences(Source source,
+            Collection<String> warnings) {
+        List<Map.Entry<String, SourceReferences>> returnValue;
+        try {
+            returnValue = Collections.singletonList(new AbstractMap.SimpleImmutableEntry<>(
+                    getClassName(source.path),
+                    JavaSourceParser.parseReferences(source.path, source.content)));
+        }
+        catch (CheckstyleException ex) {
+            warnings.add("unable to parse " + source.path + ", skipped: " + ex.getMessage());
+            returnValue = Collections.emptyList();
+        }
+        return returnValue;
+    }
+
+    /**
+     * Gets the full qualified class name derived from the path of a Java main source.
+     * @param path the path of the source, relative to the repository
+     * @return the full qualified class name
+     */
+    private static String getClassName(String path) {
+        return path.substring(JAVA_MAIN_SOURCE_PATH.length() + 1,
+                path.length() - JAVA_EXTENSION.length())
+                .replace(File.separatorChar, '.').replace('/', '.');
+    }
+
+    /**
+     * Gets the outermost class of the given classes which the given name starts with,
+     * like the class of an imported member or nested class.
+     * @param name    the imported name
+     * @param classes the full qualified names of the classes
+     * @return the full qualified name of the class, or empty if there is none
+     */
+    private static Optional<String> getOuterClass(String name, Set<String> classes) {
+        Optional<String> returnValue = Optional.empty();
+        int index = name.indexOf('.');
+        while (!returnValue.isPresent() && index >= 0) {
+            final String prefix = name.substring(0, index);
+            if (classes.contains(prefix)) {
+                returnValue = Optional.of(prefix);
+            }
+            index = name.indexOf('.', index + 1);
+        }
+        if (!returnValue.isPresent() && classes.contains(name)) {
+            returnValue = Optional.of(name);
+        }
+        return returnValue;
+    }
+
+    /**
+     * Qualifies a simple name with a package name.
+     * @param packageName the package name, empty for the default package
+     * @param name        the simple name
+     * @return the qualified name
+     */
+    private static String qualify(String packageName, String name) {
+        final String returnValue;
+        if (packageName.isEmpty()) {
+            returnValue = name;
+        }
+        else {
+            returnValue = packageName + "." + name;
+        }
+        return returnValue;
+    }
+
+    /**
+     * Resolves the raw type name in the context of the given class declaration.
+     * A qualified name is resolved from its first identifier, unless it is already
+     * the canonical name of a declared class.
+     * @param rawName  the raw type name
+     * @param context  the class declaration which refers to the type
+     * @param declared the canonical names of all the declared classes
+     * @return the canonical name of the type
+     */
+    private static String resolve(String rawName, SourceClass context, Set<String> declared) {
+        final int index = rawName.indexOf('.');
+        final String returnValue;
+        if (index < 0) {
+            returnValue = resolveSimpleName(rawName, context, declared);
+        }
+        else if (declared.contains(rawName)) {
+            returnValue = rawName;
+        }
+        else {
+            returnValue = resolveSimpleName(rawName.substring(0, index), context, declared)
+                    + rawName.substring(index);
+        }
+        return returnValue;
+    }
+
+    /**
+     * Resolves the simple type name in the context of the given class declaration.
+     * Member types of the enclosing classes are looked up first, then single-type
+     * imports, the same package, on-demand imports and at last {@code java.lang}.
+     * @param name     the simple type name
+     * @param context  the class declaration which refers to the type
+     * @param declared the canonical names of all the declared classes
+     * @return the canonical name of the type
+     */
+    private static String resolveSimpleName(
+            String name, SourceClass context, Set<String> declared) {
+        Optional<String> returnValue = context.enclosingNames().stream()
+                .map(enclosing -> enclosing + "." + name)
+                .filter(declared::contains)
+                .findFirst();
+        if (!returnValue.isPresent()) {
+            returnValue = Optional.ofNullable(context.singleTypeImports().get(name));
+        }
+        if (!returnValue.isPresent()) {
+            final String samePackage = qualify(context.packageName(), name);
+            if (declared.contains(samePackage)) {
+                returnValue = Optional.of(samePackage);
+            }
+        }
+        if (!returnValue.isPresent()) {
+            returnValue = context.onDemandImports().stream()
+                    .map(imported -> imported + "." + name)
+                    .filter(declared::contains)
+                    .findFirst();
+        }
+        return returnValue.orElse(JAVA_LANG_PACKAGE + name);
+    }
+
+    /** Represents a Java source file. */
+    private static final class Source {
+        /** The path of the source file. */
+        private final String path;
+
+        /** The content of the source file. */
+        private final String content;
+
+        /**
+         * Creates a new Source instance.
+         * @param path    the path of the source file
+         * @param content the content of the source file
+         */
+        Source(String path, String content) {
+            this.path = path;
+            this.content = content;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.extract;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheCheckout;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+
+import com.github.checkstyle.regression.git.RepositorySession;
+
+/**
+ * Represents a working tree in a pool, which shares the git directory of the
+ * checkstyle repository but has its own directory and index.
+ * A slot of the pool is held by a file lock, so several jobs, even in different
+ * processes, could work on one clone at the same time. A slot is reset to another
+ * commit rather than recreated, the untracked files like {@code target/} are kept,
+ * so the incremental compilation stays warm between runs.
+ * @author LuoLiangchen
+ */
+final class Worktree implements Closeable {
+    /** The extension of the lock files of the slots. */
+    private static final String LOCK_EXTENSION = ".lock";
+
+    /** The extension of the index files of the slots. */
+    private static final String INDEX_EXTENSION = ".index";
+
+    /** The channel of the lock file of the slot. */
+    private final FileChannel channel;
+
+    /** The repository bound to the working tree of the slot. */
+    private final Repository repository;
+
+    /**
+     * Creates a new Worktree instance.
+     * @param channel    the channel of the lock file of the slot, which is locked
+     * @param repository the repository bound to the working tree of the slot
+     */
+    private Worktree(FileChannel channel, Repository repository) {
+        this.channel = channel;
+        this.repository = repository;
+    }
+
+    /**
+     * Acquires the first free slot in the given pool. A new slot is added to the pool
+     * if all the existing ones are in use.
+     * @param parent  the checkstyle repository
+     * @param poolDir the directory of the pool
+     * @return the working tree of the acquired slot
+     * @throws IOException failure of locking the slot or opening the repository
+     */
+    public static Worktree acquire(Repository parent, File poolDir) throws IOException {
+        Files.createDirectories(poolDir.toPath());
+        Worktree returnValue = null;
+        int slot = 0;
+        while (returnValue == null) {
+            final FileChannel channel = FileChannel.open(
+                    new File(poolDir, slot + LOCK_EXTENSION).toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (tryLock(channel)) {
+                try {
+                    returnValue = new Worktree(channel, new FileRepositoryBuilder()
+                            .setGitDir(parent.getDirectory())
+                            .setWorkTree(new File(poolDir, String.valueOf(slot)))
+                            .setIndexFile(new File(poolDir, slot + INDEX_EXTENSION))
+                            .build());
+                }
+                catch (IOException ex) {
+                    channel.close();
+                    throw ex;
+                }
+            }
+            else {
+                channel.close();
+                ++slot;
+            }
+        }
+        return returnValue;
+    }
+
+    /**
+     * Gets the directory of the working tree.
+     * @return the directory of the working tree
+     */
+    public File getDirectory() {
+        return repository.getWorkTree();
+    }
+
+    /**
+     * Resets the working tree and its index to the given branch or commit.
+     * The tracked files are overwritten, the untracked ones are kept.
+     * The HEAD of the checkstyle repository is not touched.
+     * @param branch the name of the branch or the id of the commit
+     * @throws IOException failure of the checkout
+     */
+    public void checkout(String branch) throws IOException {
+        final ObjectId commitId = RepositorySession.resolve(repository, branch);
+        if (commitId == null) {
+            throw new IOException("unable to find branch " + branch);
+        }
+        try (RevWalk walk = new RevWalk(repository)) {
+            final RevCommit commit = walk.parseCommit(commitId);
+            final DirCache dirCache = repository.lockDirCache();
+            final DirCacheCheckout checkout =
+                    new DirCacheCheckout(repository, dirCache, commit.getTree());
+            checkout.setFailOnConflict(false);
+            checkout.checkout();
+        }
+    }
+
+    /**
+     * Releases the slot.
+     * @throws IOException failure of releasing the lock
+     */
+    @Override
+    public void close() throws IOException {
+        repository.close();
+        channel.close();
+    }
+
+    /**
+     * Tries to lock the given lock file channel.
+     * @param channel the lock file channel
+     * @return true if the lock is acquired
+     * @throws IOException failure of locking
+     */
+    private static boolean tryLock(FileChannel channel) throws IOException {
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        }
+        catch (OverlappingFileLockException ex) {
+            // the slot is held in this JVM
+            lock = null;
+        }
+        return lock != null;
+    }
+}
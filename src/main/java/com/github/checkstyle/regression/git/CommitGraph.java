@@ -0,0 +1,341 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.git;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+/**
+ * On-disk index of the commits of the checkstyle repository, with their parents and
+ * generation numbers, to find merge-bases without parsing commits. The generation of a
+ * commit is one more than the largest generation of its parents, so an ancestor always
+ * has a smaller generation than its descendants. The index grows incrementally, the
+ * commits which are not yet indexed are parsed once when a merge-base is searched from
+ * them, and saved at the end of a run. A commit is indexed only after all its parents,
+ * so the parents of a commit always come before it.
+ * @author LuoLiangchen
+ */
+public final class CommitGraph {
+    /** The magic number of the index file. */
+    private static final int MAGIC = 0x43475048;
+
+    /** The version of the index file format. */
+    private static final int VERSION = 1;
+
+    /** The initial capacity of the arrays of an empty index. */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** The flag of the commits reachable from the first commit of a search. */
+    private static final int REACHABLE_FROM_A = 1;
+
+    /** The flag of the commits reachable from the second commit of a search. */
+    private static final int REACHABLE_FROM_B = 2;
+
+    /** The flags of the commits reachable from both commits of a search. */
+    private static final int REACHABLE_FROM_BOTH = REACHABLE_FROM_A | REACHABLE_FROM_B;
+
+    /** The file of the index. */
+    private final File file;
+
+    /** The map of commit id to its position in the index. */
+    private final Map<ObjectId, Integer> positions = new HashMap<>();
+
+    /** The ids of the indexed commits, by position. */
+    private ObjectId[] ids;
+
+    /** The generation numbers of the indexed commits, by position. */
+    private int[] generations;
+
+    /** The positions of the parents of the indexed commits, by position. */
+    private int[][] parents;
+
+    /** The number of the indexed commits. */
+    private int size;
+
+    /** The number of the indexed commits which are saved in the file. */
+    private int savedSize;
+
+    /** The reason why the file could not be loaded, or {@code null} if it is loaded. */
+    private String loadError;
+
+    /**
+     * Creates a new empty CommitGraph instance.
+     * @param file the file of the index
+     */
+    private CommitGraph(File file) {
+        this.file = file;
+        ids = new ObjectId[INITIAL_CAPACITY];
+        generations = new int[INITIAL_CAPACITY];
+        parents = new int[INITIAL_CAPACITY][];
+    }
+
+    /**
+     * Loads the index from the given file. The index is empty if the file does not
+     * exist, or if it is corrupted, then it is rebuilt from the commits as they are needed,
+     * and the reason is kept for the caller to report.
+     * @param file the file of the index
+     * @return the loaded index
+     */
+    public static CommitGraph load(File file) {
+        CommitGraph returnValue = new CommitGraph(file);
+        if (file.isFile()) {
+            try (DataInputStream input = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(file)))) {
+                returnValue.read(input);
+            }
+            catch (IOException ex) {
+                returnValue = new CommitGraph(file);
+                returnValue.loadError = ex.getMessage();
+            }
+        }
+        return returnValue;
+    }
+
+    /**
+     * Gets the reason why the file of the index could not be loaded, so that it is
+     * rebuilt.
+     * @return the reason of the load failure, or empty if the file is loaded or missing
+     */
+    public Optional<String> getLoadError() {
+        return Optional.ofNullable(loadError);
+    }
+
+    /**
+     * Gets the number of the indexed commits.
+     * @return the number of the indexed commits
+     */
+    public synchronized int getCommitCount() {
+        return size;
+    }
+
+    /**
+     * Gets the merge-base of two commits, which is the common ancestor with the largest
+     * generation. The commits are indexed first if they are not yet. The search visits
+     * the ancestors of both commits in the order of decreasing generation, so it stops
+     * at the first commit reachable from both, as all the commits which could reach it
+     * are visited already. Only the commits down to the generation of the merge-base are
+     * visited, and none of them is parsed.
+     * @param walk    the {@link RevWalk} to parse the commits which are not yet indexed
+     * @param commitA the first commit
+     * @param commitB the second commit
+     * @return the id of the merge-base, or {@code null} if there is no common ancestor
+     * @throws IOException failure of parsing the commits, or if a parent is missing,
+     *                     like in a shallow clone
+     */
+    public synchronized ObjectId getMergeBase(RevWalk walk, RevCommit commitA,
+            RevCommit commitB) throws IOException {
+        final int positionA = index(walk, commitA);
+        final int positionB = index(walk, commitB);
+        final Map<Integer, Integer> flags = new HashMap<>();
+        final PriorityQueue<Integer> queue = new PriorityQueue<>((first, second) -> {
+            return Integer.compare(generations[second], generations[first]);
+        });
+        flags.put(positionA, REACHABLE_FROM_A);
+        flags.merge(positionB, REACHABLE_FROM_B, (first, second) -> first | second);
+        queue.add(positionA);
+        if (positionB != positionA) {
+            queue.add(positionB);
+        }
+
+        ObjectId returnValue = null;
+        while (returnValue == null && !queue.isEmpty()) {
+            final int position = queue.poll();
+            final int flag = flags.get(position);
+            if (flag == REACHABLE_FROM_BOTH) {
+                returnValue = ids[position];
+            }
+            else {
+                for (int parent : parents[position]) {
+                    final Integer parentFlag = flags.get(parent);
+                    if (parentFlag == null) {
+                        flags.put(parent, flag);
+                        queue.add(parent);
+                    }
+                    else {
+                        flags.put(parent, parentFlag | flag);
+                    }
+                }
+            }
+        }
+        return returnValue;
+    }
+
+    /**
+     * Saves the index to its file, if any commit has been indexed since it was loaded.
+     * The index is written to a temporary file first and then moved to its final place,
+     * so that concurrent runs never read a partially written index.
+     * @throws IOException failure of writing the index
+     */
+    public synchronized void save() throws IOException {
+        if (size > savedSize) {
+            final File directory = file.getAbsoluteFile().getParentFile();
+            Files.createDirectories(directory.toPath());
+            final File temp = File.createTempFile(file.getName(), ".tmp", directory);
+            try {
+                try (DataOutputStream output = new DataOutputStream(
+                        new BufferedOutputStream(new FileOutputStream(temp)))) {
+                    write(output);
+                }
+                Files.move(temp.toPath(), file.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            finally {
+                Files.deleteIfExists(temp.toPath());
+            }
+            savedSize = size;
+        }
+    }
+
+    /**
+     * Indexes the given commit and all its ancestors which are not yet indexed. The
+     * ancestors are parsed depth first, without recursion, as the history could be deep.
+     * @param walk   the {@link RevWalk} to parse the commits
+     * @param commit the commit to index
+     * @return the position of the commit in the index
+     * @throws IOException failure of parsing the commits
+     */
+    private int index(RevWalk walk, RevCommit commit) throws IOException {
+        final Deque<RevCommit> stack = new ArrayDeque<>();
+        stack.push(commit);
+        while (!stack.isEmpty()) {
+            final RevCommit current = stack.peek();
+            if (positions.containsKey(current)) {
+                stack.pop();
+            }
+            else {
+                walk.parseHeaders(current);
+                boolean ready = true;
+                for (RevCommit parent : current.getParents()) {
+                    if (!positions.containsKey(parent)) {
+                        ready = false;
+                        stack.push(parent);
+                    }
+                }
+                if (ready) {
+                    stack.pop();
+                    add(current);
+                }
+            }
+        }
+        return positions.get(commit);
+    }
+
+    /**
+     * Adds a commit of which all the parents are indexed.
+     * @param commit the commit to add
+     */
+    private void add(RevCommit commit) {
+        final int[] parentPositions = new int[commit.getParentCount()];
+        int generation = 1;
+        for (int i = 0; i < parentPositions.length; ++i) {
+            parentPositions[i] = positions.get(commit.getParent(i));
+            generation = Math.max(generation, generations[parentPositions[i]] + 1);
+        }
+        append(commit.copy(), generation, parentPositions);
+    }
+
+    /**
+     * Appends a commit to the arrays of the index.
+     * @param id              the id of the commit
+     * @param generation      the generation of the commit
+     * @param parentPositions the positions of the parents of the commit
+     */
+    private void append(ObjectId id, int generation, int[] parentPositions) {
+        if (size == ids.length) {
+            final int capacity = size * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            generations = Arrays.copyOf(generations, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+        }
+        ids[size] = id;
+        generations[size] = generation;
+        parents[size] = parentPositions;
+        positions.put(id, size);
+        ++size;
+    }
+
+    /**
+     * Reads the index from the given input. The generations are not stored, they are
+     * computed again from the parents, which also validates the order of the commits.
+     * @param input the index input
+     * @throws IOException failure of reading, or if the index is malformed
+     */
+    private void read(DataInputStream input) throws IOException {
+        if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+            throw new IOException("not a commit graph of version " + VERSION);
+        }
+        final int count = input.readInt();
+        final byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+        for (int i = 0; i < count; ++i) {
+            input.readFully(raw);
+            final int[] parentPositions = new int[input.readUnsignedShort()];
+            int generation = 1;
+            for (int j = 0; j < parentPositions.length; ++j) {
+                parentPositions[j] = input.readInt();
+                if (parentPositions[j] < 0 || parentPositions[j] >= i) {
+                    throw new IOException("malformed parent of commit " + i);
+                }
+                generation = Math.max(generation, generations[parentPositions[j]] + 1);
+            }
+            append(ObjectId.fromRaw(raw), generation, parentPositions);
+        }
+        savedSize = size;
+    }
+
+    /**
+     * Writes the index to the given output.
+     * @param output the index output
+     * @throws IOException failure of writing
+     */
+    private void write(DataOutputStream output) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(size);
+        final byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+        for (int i = 0; i < size; ++i) {
+            ids[i].copyRawTo(raw, 0);
+            output.write(raw);
+            output.writeShort(parents[i].length);
+            for (int parent : parents[i]) {
+                output.writeInt(parent);
+            }
+        }
+    }
+}
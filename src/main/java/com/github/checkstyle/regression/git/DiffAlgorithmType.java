@@ -0,0 +1,53 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.git;
+
+import org.eclipse.jgit.diff.DiffAlgorithm;
+
+/**
+ * Represents the algorithms to compute the line-level changes of a file.
+ * @author LuoLiangchen
+ */
+public enum DiffAlgorithmType {
+    /** The histogram diff, which is usually much faster on sources with many common lines. */
+    HISTOGRAM(DiffAlgorithm.SupportedAlgorithm.HISTOGRAM),
+
+    /** The Myers diff, which is the default algorithm of the git command line. */
+    MYERS(DiffAlgorithm.SupportedAlgorithm.MYERS);
+
+    /** The corresponding algorithm of JGit. */
+    private final DiffAlgorithm.SupportedAlgorithm supportedAlgorithm;
+
+    /**
+     * Creates a new DiffAlgorithmType instance.
+     * @param supportedAlgorithm the corresponding algorithm of JGit
+     */
+    DiffAlgorithmType(DiffAlgorithm.SupportedAlgorithm supportedAlgorithm) {
+        this.supportedAlgorithm = supportedAlgorithm;
+    }
+
+    /**
+     * Creates a new instance of the diff algorithm.
+     * @return the diff algorithm
+     */
+    DiffAlgorithm createAlgorithm() {
+        return DiffAlgorithm.getAlgorithm(supportedAlgorithm);
+    }
+}
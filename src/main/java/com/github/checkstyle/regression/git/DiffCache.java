@@ -0,0 +1,295 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.git;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectInserter;
+
+import com.github.checkstyle.regression.data.BranchDiff;
+import com.github.checkstyle.regression.data.ChangeType;
+import com.github.checkstyle.regression.data.GitChange;
+import com.github.checkstyle.regression.data.ImmutableBranchDiff;
+import com.github.checkstyle.regression.data.ImmutableGitChange;
+import com.github.checkstyle.regression.data.PathFilterSpec;
+
+/**
+ * On-disk cache of the diffs of the PR branches, with their merge-bases, so the merge-base
+ * and the changed paths of the same commits are never computed twice. The line-level
+ * changes are not stored, as only the few files used to select modules are diffed by
+ * their contents, when their lines are accessed, so a cache hit still reads those contents
+ * with JGit. An entry is keyed by the base commit, the head commit, the path filters and
+ * the rename settings, and stored in a compact binary form. The total size of the entries
+ * is bounded, the least recently used entries are evicted first. The cache is only an
+ * optimization, so its failures are collected as warnings instead of being thrown.
+ * @author LuoLiangchen
+ */
+public final class DiffCache {
+    /** The magic number of the entry files. */
+    private static final int MAGIC = 0x44494646;
+
+    /** The version of the entry format, which is a part of the keys. */
+    private static final int VERSION = 2;
+
+    /** The extension of the cache entry files. */
+    private static final String ENTRY_EXTENSION = ".diff";
+
+    /** The separator of the parts of the key material. */
+    private static final char KEY_SEPARATOR = '\0';
+
+    /** The directory holding the cache entries. */
+    private final File cacheDir;
+
+    /** The limit of the total size of the cache entries, in bytes. */
+    private final long sizeLimit;
+
+    /** The failures of reading, writing or evicting the cache entries. */
+    private final List<String> warnings = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * Creates a new instance of DiffCache.
+     * @param cacheDir  the directory holding the cache entries
+     * @param sizeLimit the limit of the total size of the cache entries, in bytes
+     */
+    public DiffCache(File cacheDir, long sizeLimit) {
+        this.cacheDir = cacheDir;
+        this.sizeLimit = sizeLimit;
+    }
+
+    /**
+     * Creates the cache key of the diff between the given commits. The diff algorithm is
+     * not a part of the key, as the entries hold no line-level change.
+     * @param baseCommit the id of the commit which the PR branch is compared with
+     * @param headCommit the id of the head commit of the PR branch
+     * @param pathFilter the path filters of the diff
+     * @param settings   the settings of the diff, of which only the rename settings are used
+     * @return the cache key
+     */
+    public static String createKey(String baseCommit, String headCommit,
+            PathFilterSpec pathFilter, DiffSettings settings) {
+        final StringBuilder material = new StringBuilder(256)
+                .append(VERSION).append(KEY_SEPARATOR)
+                .append(baseCommit).append(KEY_SEPARATOR)
+                .append(headCommit).append(KEY_SEPARATOR)
+                .append(pathFilter.includes()).append(KEY_SEPARATOR)
+                .append(pathFilter.excludes()).append(KEY_SEPARATOR)
+                .append(settings.renameScore()).append(KEY_SEPARATOR)
+                .append(settings.renameLimit());
+        return new ObjectInserter.Formatter().idFor(Constants.OBJ_BLOB,
+                material.toString().getBytes(Charset.forName("UTF-8"))).name();
+    }
+
+    /**
+     * Gets the cached diff of the given key, and marks it as the most recently used.
+     * A corrupted entry is deleted and reported as missing. The changes of the cached
+     * diff have no changed line, their line-level changes must be loaded again.
+     * @param key the cache key
+     * @return the cached diff, or {@code null} if there is no such entry
+     */
+    public BranchDiff get(String key) {
+        final File file = getFile(key);
+        BranchDiff returnValue = null;
+        if (file.isFile()) {
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(
+                    new GZIPInputStream(new FileInputStream(file))))) {
+                returnValue = readBranchDiff(input);
+            }
+            catch (IOException ex) {
+                warnings.add("diff cache entry " + file + " is dropped: " + ex.getMessage());
+                deleteEntry(file);
+            }
+            if (returnValue != null && !file.setLastModified(System.currentTimeMillis())) {
+                warnings.add("unable to mark diff cache entry " + file + " as used");
+            }
+        }
+        return returnValue;
+    }
+
+    /**
+     * Stores the given diff in the cache, without the line-level changes of its changes,
+     * so none of them is loaded, and evicts the least recently used entries beyond the
+     * size limit.
+     * The entry is written to a temporary file first and then moved to its final place,
+     * so that concurrent readers never see a partially written entry. A failure of writing
+     * the entry is collected as a warning, and the diff is simply not cached.
+     * @param key  the cache key
+     * @param diff the diff to store
+     */
+    public void put(String key, BranchDiff diff) {
+        try {
+            write(key, diff);
+            evict();
+        }
+        catch (IOException ex) {
+            warnings.add("unable to write diff cache entry " + getFile(key) + ": "
+                    + ex.getMessage());
+        }
+    }
+
+    /**
+     * Gets the failures of reading, writing or evicting the cache entries so far, which
+     * did not stop the diff.
+     * @return the warnings of the cache
+     */
+    public List<String> getWarnings() {
+        synchronized (warnings) {
+            return new ArrayList<>(warnings);
+        }
+    }
+
+    /**
+     * Writes the given diff as the entry of the given key, through a temporary file.
+     * @param key  the cache key
+     * @param diff the diff to write
+     * @throws IOException failure of writing the entry
+     */
+    private void write(String key, BranchDiff diff) throws IOException {
+        Files.createDirectories(cacheDir.toPath());
+        final File temp = File.createTempFile(key, ".tmp", cacheDir);
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(new FileOutputStream(temp))))) {
+                writeBranchDiff(output, diff);
+            }
+            Files.move(temp.toPath(), getFile(key).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    /**
+     * Deletes the least recently used entries until the total size of the entries is
+     * within the limit.
+     */
+    private void evict() {
+        final File[] files = cacheDir.listFiles((dir, name) -> name.endsWith(ENTRY_EXTENSION));
+        if (files != null) {
+            final List<File> entries = new ArrayList<>(Arrays.asList(files));
+            long size = 0;
+            for (File entry : entries) {
+                size += entry.length();
+            }
+            entries.sort((first, second) -> {
+                return Long.compare(first.lastModified(), second.lastModified());
+            });
+            for (int i = 0; size > sizeLimit && i < entries.size(); ++i) {
+                size -= entries.get(i).length();
+                deleteEntry(entries.get(i));
+            }
+        }
+    }
+
+    /**
+     * Gets the entry file of the given key.
+     * @param key the cache key
+     * @return the entry file
+     */
+    private File getFile(String key) {
+        return new File(cacheDir, key + ENTRY_EXTENSION);
+    }
+
+    /**
+     * Deletes an entry file, which might be deleted by another run at the same time.
+     * @param file the entry file
+     */
+    private void deleteEntry(File file) {
+        try {
+            Files.deleteIfExists(file.toPath());
+        }
+        catch (IOException ex) {
+            warnings.add("unable to delete diff cache entry " + file);
+        }
+    }
+
+    /**
+     * Writes the given diff to the entry output, without the line-level changes.
+     * @param output the entry output
+     * @param diff   the diff to write
+     * @throws IOException failure of writing
+     */
+    private static void writeBranchDiff(DataOutputStream output, BranchDiff diff)
+            throws IOException {
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeUTF(diff.branch());
+        output.writeUTF(diff.commitId());
+        output.writeUTF(diff.mergeBase());
+        output.writeInt(diff.changes().size());
+        for (GitChange change : diff.changes()) {
+            output.writeUTF(change.path());
+            output.writeByte(change.changeType().ordinal());
+            output.writeBoolean(change.oldPath().isPresent());
+            if (change.oldPath().isPresent()) {
+                output.writeUTF(change.oldPath().get());
+            }
+        }
+    }
+
+    /**
+     * Reads a diff from the entry input.
+     * @param input the entry input
+     * @return the diff
+     * @throws IOException failure of reading, or if the entry is malformed
+     */
+    private static BranchDiff readBranchDiff(DataInputStream input) throws IOException {
+        if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+            throw new IOException("not a diff cache entry of version " + VERSION);
+        }
+        final ImmutableBranchDiff.Builder builder = ImmutableBranchDiff.builder()
+                .branch(input.readUTF())
+                .commitId(input.readUTF())
+                .mergeBase(input.readUTF());
+        final int count = input.readInt();
+        final ChangeType[] changeTypes = ChangeType.values();
+        for (int i = 0; i < count; ++i) {
+            final ImmutableGitChange.Builder change = ImmutableGitChange.builder()
+                    .path(input.readUTF());
+            final int changeType = input.readUnsignedByte();
+            if (changeType >= changeTypes.length) {
+                throw new IOException("unknown change type " + changeType);
+            }
+            change.changeType(changeTypes[changeType]);
+            if (input.readBoolean()) {
+                change.oldPath(input.readUTF());
+            }
+            builder.addChanges(change.build());
+        }
+        return builder.build();
+    }
+}
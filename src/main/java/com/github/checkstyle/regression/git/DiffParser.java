@@ -19,31 +19,47 @@
 
 package com.github.checkstyle.regression.git;
 
-import java.io.File;
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
-import org.apache.commons.lang.math.IntRange;
-import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.RawText;
+import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.diff.RenameDetector;
+import org.eclipse.jgit.errors.MissingObjectException;
 import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevTree;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.revwalk.filter.RevFilter;
-import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
 import org.eclipse.jgit.treewalk.AbstractTreeIterator;
 import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
 import org.eclipse.jgit.util.io.DisabledOutputStream;
 
+import com.github.checkstyle.regression.data.BranchDiff;
+import com.github.checkstyle.regression.data.ChangeType;
 import com.github.checkstyle.regression.data.GitChange;
+import com.github.checkstyle.regression.data.ImmutableBranchDiff;
 import com.github.checkstyle.regression.data.ImmutableGitChange;
+import com.github.checkstyle.regression.data.ImmutableLineChanges;
+import com.github.checkstyle.regression.data.LineChanges;
+import com.github.checkstyle.regression.data.LineChangesLoader;
+import com.github.checkstyle.regression.data.LineRanges;
+import com.github.checkstyle.regression.data.PathFilterSpec;
 
 /**
  * Parses git diff between PR branch and master for the further use.
@@ -56,76 +72,393 @@ public final class DiffParser {
     }
 
     /**
-     * Parses the diff between a given branch and the master in the give repository path.
-     * @param repositoryPath the path of checkstyle repository
-     * @param branchName     the name of the branch to be compared with master
+     * Parses the diff between two revisions in the repository of the given session,
+     * together with their merge-base, through the given cache. Both revisions could be any
+     * revision string, like a branch name, a commit id, a tag, a remote-tracking ref or a
+     * full ref name like {@code refs/pull/1/head}, so a bare mirror works as well. The
+     * merge-base and the changed paths are not computed again when the diff of the same
+     * commits, path filters and rename settings is cached. Otherwise they are computed,
+     * then stored without any line-level change. Either way, the content of a file is still
+     * diffed with JGit when its line-level changes are accessed, which must happen before
+     * the session is closed. The cached diff is named after the given branch, as the cache
+     * key does not depend on it. The failures of the cache are collected by the cache.
+     * @param session      the session of checkstyle repository
+     * @param baseRevision the revision to be compared with, like master
+     * @param branchName   the revision of the PR branch
+     * @param pathFilter   the path filters of the diff
+     * @param settings     the settings of the computation of the line-level changes
+     * @param cache        the cache of the diffs
+     * @return the diff of the PR branch
+     * @throws IOException JGit library exception, or if a revision does not exist
+     */
+    public static BranchDiff parseCached(RepositorySession session, String baseRevision,
+            String branchName, PathFilterSpec pathFilter, DiffSettings settings,
+            DiffCache cache) throws IOException {
+        final Repository repository = session.getRepository();
+        BranchDiff returnValue;
+
+        try (ObjectReader reader = repository.newObjectReader();
+             RevWalk walk = new RevWalk(reader);
+             DiffFormatter formatter =
+                     createScanFormatter(repository, reader, pathFilter, settings)) {
+            final RevCommit baseCommit = parseCommit(walk, repository, baseRevision);
+            final RevCommit prCommit = parseCommit(walk, repository, branchName);
+            final String key = DiffCache.createKey(baseCommit.getName(), prCommit.getName(),
+                    pathFilter, settings);
+            returnValue = cache.get(key);
+            if (returnValue != null) {
+                returnValue = loadLineChangesLazily(repository,
+                        ImmutableBranchDiff.copyOf(returnValue).withBranch(branchName),
+                        settings);
+            }
+            else {
+                returnValue = parseBranch(session, walk, formatter, baseCommit, branchName,
+                        prCommit, settings);
+                cache.put(key, returnValue);
+            }
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Parses the diff between the working tree and the merge-base of HEAD and the base
+     * revision, in the repository of the given session, only for the paths selected by
+     * the given path filters. The uncommitted changes, staged or not, are included, as
+     * well as the untracked files which are not ignored, so no commit or branch is needed.
+     * The line-level changes are computed at once, as the contents in the working tree
+     * are read by the walk over it.
+     * @param session      the session of checkstyle repository
+     * @param baseRevision the revision to be compared with, like master
+     * @param pathFilter   the path filters of the diff
+     * @param settings     the settings of the computation of the line-level changes
      * @return a list of {@link GitChange} to represent the changes
-     * @throws IOException     JGit library exception
-     * @throws GitAPIException JGit library exception
-     */
-    public static List<GitChange> parse(String repositoryPath, String branchName)
-            throws IOException, GitAPIException {
-        final List<GitChange> returnValue = new LinkedList<>();
-        final File gitDir = new File(repositoryPath, ".git");
-        final Repository repository = new FileRepositoryBuilder().setGitDir(gitDir)
-                .readEnvironment().findGitDir().build();
-
-        try {
-            final TreeParserPair pair = getTreeParserPair(repository, branchName);
-            final Git git = new Git(repository);
-            final DiffFormatter formatter = new DiffFormatter(DisabledOutputStream.INSTANCE);
-            formatter.setRepository(repository);
+     * @throws IOException JGit library exception, or if there is no working tree
+     */
+    public static List<GitChange> parseWorkingTree(RepositorySession session,
+            String baseRevision, PathFilterSpec pathFilter, DiffSettings settings)
+            throws IOException {
+        final Repository repository = session.getRepository();
+        if (repository.isBare()) {
+            throw new IOException("unable to diff the working tree of a bare repository");
+        }
+        final List<GitChange> returnValue = new ArrayList<>();
 
-            try {
-                final List<DiffEntry> diffs = git.diff()
-                        .setOldTree(pair.commonAncestorTreeParser)
-                        .setNewTree(pair.prTreeParser)
-                        .call()
-                        .stream()
-                        .filter(entry -> entry.getChangeType() != DiffEntry.ChangeType.DELETE)
-                        .collect(Collectors.toList());
-                for (DiffEntry diff : diffs) {
-                    returnValue.add(convertDiffEntryToGitChange(diff, formatter));
+        try (RevWalk walk = new RevWalk(repository);
+             DiffFormatter formatter = createDiffFormatter(repository, settings.algorithm())) {
+            final RevCommit headCommit = parseCommit(walk, repository, Constants.HEAD);
+            final RevCommit baseCommit = parseCommit(walk, repository, baseRevision);
+            final RevCommit mergeBase =
+                    getMergeBaseCommit(session, walk, headCommit, baseCommit);
+            formatter.setPathFilter(GlobPathFilter.create(pathFilter));
+            setRenameDetection(formatter, settings);
+            for (DiffEntry diff : formatter.scan(prepareTreeParser(walk, mergeBase),
+                    new FileTreeIterator(repository))) {
+                if (diff.getChangeType() != DiffEntry.ChangeType.DELETE) {
+                    final LineChanges lineChanges = readLineChanges(diff, formatter);
+                    returnValue.add(convertDiffEntryToGitChange(
+                            diff, LineChangesLoader.of(lineChanges)));
                 }
             }
-            finally {
-                git.close();
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Parses the changed paths and change types between two heads of the same branch,
+     * like the heads before and after a push, in the repository of the given session,
+     * only for the paths selected by the given path filters. The trees of the two heads
+     * are compared directly rather than through their merge-base, so a force push is
+     * covered as well. Unlike the other diffs, the deleted files are kept, with their
+     * old paths, and no line-level change is computed.
+     * @param session     the session of checkstyle repository
+     * @param oldRevision the previous head of the branch
+     * @param newRevision the current head of the branch
+     * @param pathFilter  the path filters of the diff
+     * @return a list of {@link GitChange} to represent the changes
+     * @throws IOException JGit library exception, or if a revision does not exist
+     */
+    public static List<GitChange> parseUpdate(RepositorySession session, String oldRevision,
+            String newRevision, PathFilterSpec pathFilter) throws IOException {
+        final Repository repository = session.getRepository();
+        final List<GitChange> returnValue = new ArrayList<>();
+
+        try (RevWalk walk = new RevWalk(repository);
+             DiffFormatter formatter = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+            final RevCommit oldCommit = parseCommit(walk, repository, oldRevision);
+            final RevCommit newCommit = parseCommit(walk, repository, newRevision);
+            formatter.setRepository(repository);
+            formatter.setPathFilter(GlobPathFilter.create(pathFilter));
+            for (DiffEntry diff : formatter.scan(prepareTreeParser(walk, oldCommit),
+                    prepareTreeParser(walk, newCommit))) {
+                final String path;
+                if (diff.getChangeType() == DiffEntry.ChangeType.DELETE) {
+                    path = diff.getOldPath();
+                }
+                else {
+                    path = diff.getNewPath();
+                }
+                returnValue.add(ImmutableGitChange.builder()
+                        .path(path)
+                        .changeType(ChangeType.valueOf(diff.getChangeType().name()))
+                        .build());
+            }
+        }
+
+        return returnValue;
+    }
+
+    /**
+     * Parses the diffs between many branches and the base revision in the repository of
+     * the given session, in one walk. Each of the given names is either a revision, like the
+     * name of a branch, or a pattern of full ref names with {@code *} and {@code ?}
+     * wildcards, like <code>refs/pull/&#42;/head</code>, which selects all the matching refs
+     * but the ones at the base revision. The merge-bases are computed with one shared
+     * {@link RevWalk}, so the commits and trees on the base side are parsed only once for
+     * all the branches, and all the trees are read through one object reader. The diff of
+     * each branch is passed to the given consumer as soon as it is computed. The content of
+     * a file is diffed only when its line-level changes are accessed, which must happen
+     * before the session is closed.
+     * @param session      the session of checkstyle repository
+     * @param baseRevision the revision to be compared with, like master
+     * @param branchNames  the revisions of the branches or the patterns of ref names
+     * @param pathFilter   the path filters of the diff
+     * @param settings     the settings of the computation of the line-level changes
+     * @param consumer     the consumer of the diff of each branch
+     * @throws IOException JGit library exception, or if a revision does not exist
+     */
+    public static void parseBatch(RepositorySession session, String baseRevision,
+            List<String> branchNames, PathFilterSpec pathFilter, DiffSettings settings,
+            Consumer<BranchDiff> consumer) throws IOException {
+        parseBatch(session, baseRevision, branchNames, pathFilter, settings, null, consumer);
+    }
+
+    /**
+     * Parses the diffs between many branches and the base revision in the repository of
+     * the given session, in one walk, like
+     * {@link #parseBatch(RepositorySession, String, List, PathFilterSpec, DiffSettings,
+     * Consumer)}, through the given cache. The branches of which the diffs are cached
+     * skip the merge-base and the scan of the changed paths. The diffs of the other
+     * branches are stored
+     * without their line-level changes, which are always loaded lazily.
+     * @param session      the session of checkstyle repository
+     * @param baseRevision the revision to be compared with, like master
+     * @param branchNames  the revisions of the branches or the patterns of ref names
+     * @param pathFilter   the path filters of the diff
+     * @param settings     the settings of the computation of the line-level changes
+     * @param cache        the cache of the diffs, null to compute all the diffs
+     * @param consumer     the consumer of the diff of each branch
+     * @throws IOException JGit library exception, or if a revision does not exist
+     */
+    public static void parseBatch(RepositorySession session, String baseRevision,
+            List<String> branchNames, PathFilterSpec pathFilter, DiffSettings settings,
+            DiffCache cache, Consumer<BranchDiff> consumer) throws IOException {
+        final Repository repository = session.getRepository();
+
+        try (ObjectReader reader = repository.newObjectReader();
+             RevWalk walk = new RevWalk(reader);
+             DiffFormatter formatter =
+                     createScanFormatter(repository, reader, pathFilter, settings)) {
+            final RevCommit baseCommit = parseCommit(walk, repository, baseRevision);
+            final Map<String, ObjectId> branches =
+                    resolveBranches(repository, baseCommit, branchNames);
+
+            for (Map.Entry<String, ObjectId> branch : branches.entrySet()) {
+                final String key;
+                BranchDiff branchDiff = null;
+                if (cache == null) {
+                    key = null;
+                }
+                else {
+                    key = DiffCache.createKey(baseCommit.getName(), branch.getValue().getName(),
+                            pathFilter, settings);
+                    branchDiff = cache.get(key);
+                }
+                if (branchDiff != null) {
+                    branchDiff = loadLineChangesLazily(repository, ImmutableBranchDiff
+                            .copyOf(branchDiff).withBranch(branch.getKey()), settings);
+                }
+                else {
+                    branchDiff = parseBranch(session, walk, formatter, baseCommit,
+                            branch.getKey(), branch.getValue(), settings);
+                    if (cache != null) {
+                        cache.put(key, branchDiff);
+                    }
+                }
+                consumer.accept(branchDiff);
             }
         }
-        finally {
-            repository.close();
+    }
+
+    /**
+     * Sets the loaders of the line-level changes of a cached diff, which diff the content
+     * of a file between the merge-base and the head commit of the branch, by its paths.
+     * @param repository the repository of the diff
+     * @param branchDiff the cached diff, of which changes have no changed line
+     * @param settings   the settings of the computation of the line-level changes
+     * @return the diff of which line-level changes are loaded on their first access
+     */
+    private static BranchDiff loadLineChangesLazily(Repository repository,
+            BranchDiff branchDiff, DiffSettings settings) {
+        final List<GitChange> changes = new ArrayList<>(branchDiff.changes().size());
+        for (GitChange change : branchDiff.changes()) {
+            changes.add(ImmutableGitChange.copyOf(change).withLineChangesLoader(() -> {
+                return readLineChanges(repository, branchDiff.mergeBase(),
+                        branchDiff.commitId(), change, settings.algorithm());
+            }));
         }
+        return ImmutableBranchDiff.copyOf(branchDiff).withChanges(changes);
+    }
 
+    /**
+     * Creates a diff formatter which only scans the changed paths of two trees, through
+     * the given object reader, with the path filters and the rename detection applied.
+     * @param repository the repository of the trees
+     * @param reader     the object reader to read the trees with
+     * @param pathFilter the path filters of the diff
+     * @param settings   the settings of the rename detection
+     * @return the diff formatter
+     */
+    private static DiffFormatter createScanFormatter(Repository repository,
+            ObjectReader reader, PathFilterSpec pathFilter, DiffSettings settings) {
+        final DiffFormatter returnValue = new DiffFormatter(DisabledOutputStream.INSTANCE);
+        returnValue.setReader(reader, repository.getConfig());
+        returnValue.setPathFilter(GlobPathFilter.create(pathFilter));
+        setRenameDetection(returnValue, settings);
         return returnValue;
     }
 
     /**
-     * Gets a TreeParserPair for the further use.
-     * @param repository the repository to parse
-     * @param branch     the name of the PR branch
-     * @return the TreeParserPair prepared for the further use
-     * @throws IOException JGit library exception
+     * Parses the diff of a branch, with the given walk and diff formatter, which are
+     * shared by all the branches of a batch. The merge-base is found only once, and the
+     * content of a file is diffed only when its line-level changes are accessed.
+     * @param session    the session of checkstyle repository
+     * @param walk       the walk shared by the branches
+     * @param formatter  the diff formatter shared by the branches
+     * @param baseCommit the base commit
+     * @param branchName the name of the branch
+     * @param branchId   the id of the head commit of the branch
+     * @param settings   the settings of the computation of the line-level changes
+     * @return the diff of the branch
+     * @throws IOException JGit library exception, or if there is no merge-base
      */
-    private static TreeParserPair getTreeParserPair(Repository repository, String branch)
-            throws IOException {
-        final TreeParserPair returnValue;
-        final RevWalk walk = new RevWalk(repository);
+    private static BranchDiff parseBranch(RepositorySession session, RevWalk walk,
+            DiffFormatter formatter, RevCommit baseCommit, String branchName, ObjectId branchId,
+            DiffSettings settings) throws IOException {
+        final RevCommit prCommit = walk.parseCommit(branchId);
+        final RevCommit mergeBase = getMergeBaseCommit(session, walk, prCommit, baseCommit);
+        if (mergeBase == null) {
+            throw new IOException("unable to find the merge-base of "
+                    + branchName + " and " + baseCommit.getName());
+        }
+        final List<GitChange> changes = new ArrayList<>();
+        for (DiffEntry diff : formatter.scan(mergeBase.getTree(), prCommit.getTree())) {
+            if (diff.getChangeType() != DiffEntry.ChangeType.DELETE) {
+                changes.add(convertDiffEntryToGitChange(diff, () -> {
+                    return readLineChanges(session.getRepository(), diff, settings);
+                }));
+            }
+        }
+        return ImmutableBranchDiff.builder()
+                .branch(branchName)
+                .commitId(prCommit.getName())
+                .mergeBase(mergeBase.getName())
+                .changes(changes)
+                .build();
+    }
 
-        try {
-            final RevCommit prCommit = walk.parseCommit(
-                    repository.exactRef(Constants.R_HEADS + branch).getObjectId());
-            final RevCommit masterCommit = walk.parseCommit(
-                    repository.exactRef(Constants.R_HEADS + "master").getObjectId());
-            final RevCommit commonAncestorCommit = getMergeBaseCommit(walk, prCommit, masterCommit);
-            walk.dispose();
+    /**
+     * Gets the merge-base commit of two revisions in the repository of the given session.
+     * Both revisions could be any revision string, like a branch name, a commit id, a tag,
+     * a remote-tracking ref or a full ref name like {@code refs/pull/1/head}.
+     * @param session      the session of checkstyle repository
+     * @param baseRevision the revision to be compared with, like master
+     * @param branchName   the revision of the PR branch
+     * @return the id of the merge-base commit
+     * @throws IOException JGit library exception, or if a revision does not exist,
+     *                     or if the revisions have no merge-base
+     */
+    public static String getMergeBase(RepositorySession session, String baseRevision,
+            String branchName) throws IOException {
+        final Repository repository = session.getRepository();
 
-            returnValue = new TreeParserPair(prepareTreeParser(walk, prCommit),
-                    prepareTreeParser(walk, commonAncestorCommit));
+        try (RevWalk walk = new RevWalk(repository)) {
+            final RevCommit prCommit = parseCommit(walk, repository, branchName);
+            final RevCommit baseCommit = parseCommit(walk, repository, baseRevision);
+            final RevCommit mergeBase = getMergeBaseCommit(session, walk, prCommit, baseCommit);
+            if (mergeBase == null) {
+                throw new IOException("unable to find the merge-base of "
+                        + branchName + " and " + baseRevision);
+            }
+            return mergeBase.getName();
         }
-        finally {
-            walk.close();
+    }
+
+    /**
+     * Resolves the revisions and the patterns of ref names to the branches to diff,
+     * in the given order. The refs at the base commit are not selected by the patterns.
+     * @param repository  the repository to resolve the branches in
+     * @param baseCommit  the commit of the base revision
+     * @param branchNames the revisions of the branches or the patterns of ref names
+     * @return the map of branch name to the id of its head commit
+     * @throws IOException JGit library exception, or if a branch does not exist
+     */
+    private static Map<String, ObjectId> resolveBranches(Repository repository,
+            ObjectId baseCommit, List<String> branchNames) throws IOException {
+        final Map<String, ObjectId> returnValue = new LinkedHashMap<>();
+        for (String branchName : branchNames) {
+            if (branchName.indexOf('*') >= 0 || branchName.indexOf('?') >= 0) {
+                final Pattern pattern = GlobPathFilter.compile(branchName);
+                for (Ref ref : repository.getRefDatabase().getRefs()) {
+                    if (!baseCommit.equals(ref.getObjectId())
+                            && pattern.matcher(ref.getName()).matches()) {
+                        returnValue.put(toBranchName(ref.getName()), ref.getObjectId());
+                    }
+                }
+            }
+            else {
+                final ObjectId commitId = RepositorySession.resolve(repository, branchName);
+                if (commitId == null) {
+                    throw new IOException("unable to find branch " + branchName);
+                }
+                returnValue.put(branchName, commitId);
+            }
         }
+        return returnValue;
+    }
 
+    /**
+     * Parses the commit of the given revision.
+     * @param walk       the {@link RevWalk} to parse the commit
+     * @param repository the repository to resolve the revision in
+     * @param revision   the revision to parse
+     * @return the commit of the revision
+     * @throws IOException JGit library exception, or if the revision does not exist
+     */
+    private static RevCommit parseCommit(RevWalk walk, Repository repository, String revision)
+            throws IOException {
+        final ObjectId commitId = RepositorySession.resolve(repository, revision);
+        if (commitId == null) {
+            throw new IOException("unable to find revision " + revision);
+        }
+        return walk.parseCommit(commitId);
+    }
+
+    /**
+     * Converts a full ref name to the branch name, which is the short name for local
+     * branches and the full ref name for the others.
+     * @param refName the full ref name
+     * @return the branch name
+     */
+    private static String toBranchName(String refName) {
+        final String returnValue;
+        if (refName.startsWith(Constants.R_HEADS)) {
+            returnValue = refName.substring(Constants.R_HEADS.length());
+        }
+        else {
+            returnValue = refName;
+        }
         return returnValue;
     }
 
@@ -149,6 +482,43 @@ public final class DiffParser {
         return walk.next();
     }
 
+    /**
+     * Gets the merge-base of two commits, like
+     * {@link #getMergeBaseCommit(RevWalk, RevCommit, RevCommit)}, from the commit graph
+     * of the given session if it has one. The commits are walked if the commit graph
+     * could not index them, like in a shallow clone where some parents are missing.
+     * @param session the session of checkstyle repository
+     * @param walk    the {@link RevWalk} for computing merge bases
+     * @param commitA the first commit
+     * @param commitB the second commit
+     * @return the merge-base of two commits, or {@code null} if there is none
+     * @throws IOException JGit library exception
+     */
+    private static RevCommit getMergeBaseCommit(RepositorySession session, RevWalk walk,
+            RevCommit commitA, RevCommit commitB) throws IOException {
+        final Optional<CommitGraph> commitGraph = session.getCommitGraph();
+        RevCommit returnValue;
+        if (commitGraph.isPresent()) {
+            try {
+                final ObjectId mergeBase =
+                        commitGraph.get().getMergeBase(walk, commitA, commitB);
+                if (mergeBase == null) {
+                    returnValue = null;
+                }
+                else {
+                    returnValue = walk.parseCommit(mergeBase);
+                }
+            }
+            catch (MissingObjectException ex) {
+                returnValue = getMergeBaseCommit(walk, commitA, commitB);
+            }
+        }
+        else {
+            returnValue = getMergeBaseCommit(walk, commitA, commitB);
+        }
+        return returnValue;
+    }
+
     /**
      * Creates a tree parser from a commit, to be used by diff command.
      * @param walk   the {@link RevWalk} to parse the tree
@@ -166,55 +536,152 @@ public final class DiffParser {
     }
 
     /**
-     * Converts a {@link DiffEntry} to {@link GitChange} for the further use.
-     * @param diffEntry the {@link DiffEntry} instance to be converted
-     * @param formatter the diff formatter to provide the line changes information
-     * @return the {@link GitChange} instance converted from the given {@link DiffEntry}
+     * Enables the detection of the renamed and copied files of the given diff formatter,
+     * with the score and the limit of the given settings. The files of the same content
+     * are matched first, at the cost of a hash lookup, and the remaining ones are compared
+     * by similarity only if their numbers are within the rename limit.
+     * @param formatter the diff formatter, with its repository or reader set
+     * @param settings  the settings of the rename detection
+     */
+    private static void setRenameDetection(DiffFormatter formatter, DiffSettings settings) {
+        formatter.setDetectRenames(true);
+        final RenameDetector renameDetector = formatter.getRenameDetector();
+        renameDetector.setRenameScore(settings.renameScore());
+        renameDetector.setRenameLimit(settings.renameLimit());
+    }
+
+    /**
+     * Reads the line-level changes of a {@link DiffEntry}, with a diff formatter
+     * dedicated to this read.
+     * @param repository the repository to read the content from
+     * @param diffEntry  the {@link DiffEntry} to diff the content of
+     * @param settings   the settings of the computation of the line-level changes
+     * @return the line-level changes
      * @throws IOException JGit library exception
      */
-    private static GitChange convertDiffEntryToGitChange(
-            DiffEntry diffEntry, DiffFormatter formatter) throws IOException {
-        final List<Integer> addedLines = formatter.toFileHeader(diffEntry).toEditList().stream()
-                .filter(edit -> edit.getBeginB() < edit.getEndB())
-                .flatMapToInt(edit -> {
-                    return Arrays.stream(
-                            new IntRange(edit.getBeginB(), edit.getEndB() - 1).toArray());
-                })
-                .boxed()
-                .collect(Collectors.toList());
-        final List<Integer> deletedLines = formatter.toFileHeader(diffEntry).toEditList().stream()
-                .filter(edit -> edit.getBeginA() < edit.getEndA())
-                .flatMapToInt(edit -> {
-                    return Arrays.stream(
-                            new IntRange(edit.getBeginA(), edit.getEndA() - 1).toArray());
-                })
-                .boxed()
-                .collect(Collectors.toList());
-        return ImmutableGitChange.builder()
-                .path(diffEntry.getNewPath())
-                .addAllAddedLines(addedLines)
-                .addAllDeletedLines(deletedLines)
-                .build();
+    private static LineChanges readLineChanges(Repository repository, DiffEntry diffEntry,
+            DiffSettings settings) throws IOException {
+        try (DiffFormatter formatter = createDiffFormatter(repository, settings.algorithm())) {
+            return readLineChanges(diffEntry, formatter);
+        }
     }
 
-    /** A pair of tree parsers: PR branch tree parser and common ancestor tree parser. */
-    private static class TreeParserPair {
-        /** The tree parser of the head commit of PR branch. */
-        private final AbstractTreeIterator prTreeParser;
+    /**
+     * Reads the line-level changes of a {@link GitChange} between two commits, by the
+     * paths of the changed file, with a single diff of its content. The content of a
+     * missing path is empty, and a binary file has no changed line, like in a
+     * {@link DiffFormatter}.
+     * @param repository the repository to read the contents from
+     * @param oldCommit  the id of the commit before the change
+     * @param newCommit  the id of the commit after the change
+     * @param change     the change to diff the content of
+     * @param algorithm  the algorithm to compute the line-level changes
+     * @return the line-level changes
+     * @throws IOException JGit library exception
+     */
+    private static LineChanges readLineChanges(Repository repository, String oldCommit,
+            String newCommit, GitChange change, DiffAlgorithmType algorithm)
+            throws IOException {
+        try (ObjectReader reader = repository.newObjectReader();
+             RevWalk walk = new RevWalk(reader)) {
+            final byte[] oldContent = readContent(reader,
+                    walk.parseCommit(ObjectId.fromString(oldCommit)).getTree(),
+                    change.oldPath().orElse(change.path()));
+            final byte[] newContent = readContent(reader,
+                    walk.parseCommit(ObjectId.fromString(newCommit)).getTree(), change.path());
+            final List<Edit> edits;
+            if (RawText.isBinary(oldContent) || RawText.isBinary(newContent)) {
+                edits = new ArrayList<>();
+            }
+            else {
+                edits = algorithm.createAlgorithm().diff(RawTextComparator.DEFAULT,
+                        new RawText(oldContent), new RawText(newContent));
+            }
+            return toLineChanges(edits);
+        }
+    }
+
+    /**
+     * Reads the content of the file of the given path in a tree.
+     * @param reader the object reader to read the tree and the file with
+     * @param tree   the tree to look up the path in
+     * @param path   the path of the file
+     * @return the content of the file, empty if there is no such file
+     * @throws IOException JGit library exception
+     */
+    private static byte[] readContent(ObjectReader reader, RevTree tree, String path)
+            throws IOException {
+        byte[] returnValue = new byte[0];
+        try (TreeWalk treeWalk = TreeWalk.forPath(reader, path, tree)) {
+            if (treeWalk != null) {
+                returnValue = reader.open(treeWalk.getObjectId(0), Constants.OBJ_BLOB)
+                        .getBytes();
+            }
+        }
+        return returnValue;
+    }
+
+    /**
+     * Creates a diff formatter which only computes the edit lists, with its own
+     * object reader of the repository.
+     * @param repository the repository to read the contents from
+     * @param algorithm  the algorithm to compute the line-level changes
+     * @return the diff formatter
+     */
+    private static DiffFormatter createDiffFormatter(
+            Repository repository, DiffAlgorithmType algorithm) {
+        final DiffFormatter returnValue = new DiffFormatter(DisabledOutputStream.INSTANCE);
+        returnValue.setRepository(repository);
+        returnValue.setDiffAlgorithm(algorithm.createAlgorithm());
+        return returnValue;
+    }
 
-        /** The tree parser of the merge-base commit between PR branch and master. */
-        private final AbstractTreeIterator commonAncestorTreeParser;
+    /**
+     * Reads the line-level changes of a {@link DiffEntry}, with a single diff of its content.
+     * @param diffEntry the {@link DiffEntry} to diff the content of
+     * @param formatter the diff formatter to provide the line changes information
+     * @return the line-level changes
+     * @throws IOException JGit library exception
+     */
+    private static LineChanges readLineChanges(DiffEntry diffEntry, DiffFormatter formatter)
+            throws IOException {
+        return toLineChanges(formatter.toFileHeader(diffEntry).toEditList());
+    }
+
+    /**
+     * Converts the edits of a diff to the line-level changes.
+     * @param edits the edits of the diff
+     * @return the line-level changes
+     */
+    private static LineChanges toLineChanges(List<Edit> edits) {
+        final LineRanges.Builder addedLines = LineRanges.builder();
+        final LineRanges.Builder deletedLines = LineRanges.builder();
+        for (Edit edit : edits) {
+            addedLines.addRange(edit.getBeginB(), edit.getEndB());
+            deletedLines.addRange(edit.getBeginA(), edit.getEndA());
+        }
+        return ImmutableLineChanges.builder()
+                .added(addedLines.build())
+                .deleted(deletedLines.build())
+                .build();
+    }
 
-        /**
-         * Creates a new TreeParserPair instance.
-         * @param prTreeParser             the tree parser of the head commit of PR branch
-         * @param commonAncestorTreeParser the tree parser of the merge-base commit between
-         *                                 PR branch and master
-         */
-        TreeParserPair(
-                AbstractTreeIterator prTreeParser, AbstractTreeIterator commonAncestorTreeParser) {
-            this.prTreeParser = prTreeParser;
-            this.commonAncestorTreeParser = commonAncestorTreeParser;
+    /**
+     * Converts a {@link DiffEntry} to {@link GitChange} for the further use.
+     * @param diffEntry         the {@link DiffEntry} instance to be converted
+     * @param lineChangesLoader the loader of the line-level changes
+     * @return the {@link GitChange} instance converted from the given {@link DiffEntry}
+     */
+    private static GitChange convertDiffEntryToGitChange(
+            DiffEntry diffEntry, LineChangesLoader lineChangesLoader) {
+        final ImmutableGitChange.Builder builder = ImmutableGitChange.builder()
+                .path(diffEntry.getNewPath())
+                .changeType(ChangeType.valueOf(diffEntry.getChangeType().name()))
+                .lineChangesLoader(lineChangesLoader);
+        if (diffEntry.getChangeType() == DiffEntry.ChangeType.RENAME
+                || diffEntry.getChangeType() == DiffEntry.ChangeType.COPY) {
+            builder.oldPath(diffEntry.getOldPath());
         }
+        return builder.build();
     }
 }
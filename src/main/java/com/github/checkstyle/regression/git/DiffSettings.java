@@ -0,0 +1,67 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.git;
+
+import org.immutables.value.Value;
+
+/**
+ * Represents the settings of the computation of the line-level changes, and of the
+ * detection of the renamed and copied files.
+ * @author LuoLiangchen
+ */
+@Value.Immutable
+public interface DiffSettings {
+    /** The default minimum similarity score of renames. */
+    int DEFAULT_RENAME_SCORE = 50;
+
+    /** The default limit of the rename detection by similarity. */
+    int DEFAULT_RENAME_LIMIT = 200;
+
+    /**
+     * The algorithm to compute the line-level changes, histogram by default.
+     * @return the diff algorithm
+     */
+    @Value.Default
+    default DiffAlgorithmType algorithm() {
+        return DiffAlgorithmType.HISTOGRAM;
+    }
+
+    /**
+     * The minimum similarity score, from 0 to 100, of a deleted file and an added file
+     * to be detected as a rename, 50 by default like git. The same content is always
+     * detected as a rename, even with a score of 100.
+     * @return the minimum similarity score of renames
+     */
+    @Value.Default
+    default int renameScore() {
+        return DEFAULT_RENAME_SCORE;
+    }
+
+    /**
+     * The limit of the number of the deleted files or the added files of a diff, above
+     * which only the renames of the same content are detected. It bounds the similarity
+     * computation to the square of the limit in candidate pairs, 200 by default.
+     * @return the limit of the rename detection by similarity
+     */
+    @Value.Default
+    default int renameLimit() {
+        return DEFAULT_RENAME_LIMIT;
+    }
+}
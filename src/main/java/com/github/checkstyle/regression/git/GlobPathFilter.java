@@ -0,0 +1,206 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.git;
+
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import com.github.checkstyle.regression.data.PathFilterSpec;
+
+/**
+ * Filters the paths of a tree walk with the glob patterns of a {@link PathFilterSpec},
+ * so the blobs of the other paths are never read. Subtrees are entered only if they
+ * could contain an included path, and skipped if an exclude matches all their content.
+ * @author LuoLiangchen
+ */
+final class GlobPathFilter extends TreeFilter {
+    /** The separator of path segments. */
+    private static final char SEPARATOR = '/';
+
+    /** The suffix of glob patterns which match all the content of a directory. */
+    private static final String ALL_CONTENT = "/**";
+
+    /** The compiled patterns of the paths to include. */
+    private final List<Pattern> includes;
+
+    /** The literal directory prefixes of the include patterns, before any wildcard. */
+    private final List<String> includePrefixes;
+
+    /** The compiled patterns of the paths to exclude. */
+    private final List<Pattern> excludes;
+
+    /** The compiled patterns of the directories of which all the content is excluded. */
+    private final List<Pattern> excludedDirectories;
+
+    /**
+     * Creates a new GlobPathFilter instance.
+     * @param spec the path filters
+     */
+    private GlobPathFilter(PathFilterSpec spec) {
+        includes = spec.includes().stream()
+                .map(GlobPathFilter::compile)
+                .collect(Collectors.toList());
+        includePrefixes = spec.includes().stream()
+                .map(GlobPathFilter::getLiteralPrefix)
+                .collect(Collectors.toList());
+        excludes = spec.excludes().stream()
+                .map(GlobPathFilter::compile)
+                .collect(Collectors.toList());
+        excludedDirectories = spec.excludes().stream()
+                .filter(glob -> glob.endsWith(ALL_CONTENT))
+                .map(glob -> compile(glob.substring(0, glob.length() - ALL_CONTENT.length())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Creates the tree filter of the given path filters.
+     * @param spec the path filters
+     * @return the tree filter, which is {@link TreeFilter#ALL} if there is no filter
+     */
+    public static TreeFilter create(PathFilterSpec spec) {
+        final TreeFilter returnValue;
+        if (spec.includes().isEmpty() && spec.excludes().isEmpty()) {
+            returnValue = TreeFilter.ALL;
+        }
+        else {
+            returnValue = new GlobPathFilter(spec);
+        }
+        return returnValue;
+    }
+
+    @Override
+    public boolean include(TreeWalk walker) {
+        final String path = walker.getPathString();
+        final boolean returnValue;
+        if (walker.isSubtree()) {
+            returnValue = isDirectoryIncluded(path) && !matchesAny(excludedDirectories, path);
+        }
+        else {
+            returnValue = isPathSelected(path);
+        }
+        return returnValue;
+    }
+
+    @Override
+    public boolean shouldBeRecursive() {
+        return true;
+    }
+
+    @Override
+    public TreeFilter clone() {
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "GLOB(" + includes + ", " + excludes + ")";
+    }
+
+    /**
+     * Checks whether the given file path is selected by the filters.
+     * @param path the file path relative to the repository root
+     * @return true if the path is selected
+     */
+    boolean isPathSelected(String path) {
+        return (includes.isEmpty() || matchesAny(includes, path)) && !matchesAny(excludes, path);
+    }
+
+    /**
+     * Checks whether the given directory could contain an included path.
+     * @param path the directory path relative to the repository root
+     * @return true if the directory could contain an included path
+     */
+    private boolean isDirectoryIncluded(String path) {
+        final String directory = path + SEPARATOR;
+        return includes.isEmpty() || includePrefixes.stream().anyMatch(prefix -> {
+            return prefix.startsWith(directory) || directory.startsWith(prefix);
+        });
+    }
+
+    /**
+     * Checks whether the given path matches any of the given patterns.
+     * @param patterns the compiled patterns
+     * @param path     the path to check
+     * @return true if the path matches any of the patterns
+     */
+    private static boolean matchesAny(List<Pattern> patterns, String path) {
+        return patterns.stream().anyMatch(pattern -> pattern.matcher(path).matches());
+    }
+
+    /**
+     * Gets the literal directory prefix of a glob pattern, which is the path segments
+     * before the first one containing a wildcard, ending with a separator.
+     * @param glob the glob pattern
+     * @return the literal directory prefix, empty if the first segment contains a wildcard
+     */
+    private static String getLiteralPrefix(String glob) {
+        int end = glob.length();
+        for (int i = 0; i < glob.length(); ++i) {
+            if (glob.charAt(i) == '*' || glob.charAt(i) == '?') {
+                end = i;
+                break;
+            }
+        }
+        return glob.substring(0, glob.lastIndexOf(SEPARATOR, end - 1) + 1);
+    }
+
+    /**
+     * Compiles a glob pattern to a regular expression.
+     * @param glob the glob pattern
+     * @return the compiled regular expression
+     */
+    static Pattern compile(String glob) {
+        final StringBuilder regex = new StringBuilder();
+        int index = 0;
+        while (index < glob.length()) {
+            if (glob.startsWith("**/", index)) {
+                regex.append("(?:.*/)?");
+                index += "**/".length();
+            }
+            else if (glob.startsWith(ALL_CONTENT, index)
+                    && index + ALL_CONTENT.length() == glob.length()) {
+                regex.append("(?:/.*)?");
+                index += ALL_CONTENT.length();
+            }
+            else if (glob.startsWith("**", index)) {
+                regex.append(".*");
+                index += "**".length();
+            }
+            else {
+                final char character = glob.charAt(index);
+                if (character == '*') {
+                    regex.append("[^/]*");
+                }
+                else if (character == '?') {
+                    regex.append("[^/]");
+                }
+                else {
+                    regex.append(Pattern.quote(String.valueOf(character)));
+                }
+                ++index;
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+}
@@ -0,0 +1,56 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.git;
+
+import java.util.Optional;
+
+import org.immutables.value.Value;
+
+/**
+ * Represents the settings of the pack access of JGit, which are shared by all the
+ * repositories of the JVM. The absent settings keep the defaults of JGit.
+ * @author LuoLiangchen
+ */
+@Value.Immutable
+public interface PackSettings {
+    /**
+     * Whether to read the pack windows by memory mapping.
+     * @return whether to memory map the pack windows
+     */
+    Optional<Boolean> mmap();
+
+    /**
+     * The size of a pack window in bytes, which must be a power of 2.
+     * @return the size of a pack window
+     */
+    Optional<Integer> windowSize();
+
+    /**
+     * The maximum number of bytes of all the pack windows kept in memory.
+     * @return the limit of the pack windows in memory
+     */
+    Optional<Long> packedGitLimit();
+
+    /**
+     * The maximum number of bytes of the delta base cache of each object reader.
+     * @return the limit of the delta base cache
+     */
+    Optional<Integer> deltaBaseCacheLimit();
+}
@@ -0,0 +1,163 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.git;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Optional;
+
+import org.eclipse.jgit.errors.RevisionSyntaxException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.RepositoryCache;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
+import org.eclipse.jgit.util.FS;
+
+/**
+ * Represents a checkstyle repository opened once and shared by all the stages of
+ * a run, so the pack indexes and windows are loaded once rather than by each stage.
+ * The repository is safe to be read concurrently, each reader with its own object reader.
+ * It could be either a clone with a working tree or a bare mirror, as the stages only
+ * read the git objects and never check out in the repository.
+ * @author LuoLiangchen
+ */
+public final class RepositorySession implements Closeable {
+    /** The path of the checkstyle repository. */
+    private final String path;
+
+    /** The opened repository. */
+    private final Repository repository;
+
+    /** The commit graph used to find merge-bases, if any. */
+    private volatile CommitGraph commitGraph;
+
+    /**
+     * Creates a new RepositorySession instance.
+     * @param path       the path of the checkstyle repository
+     * @param repository the opened repository
+     */
+    private RepositorySession(String path, Repository repository) {
+        this.path = path;
+        this.repository = repository;
+    }
+
+    /**
+     * Opens the checkstyle repository in the given path, which is either the working
+     * tree of a clone or a bare repository.
+     * @param repositoryPath the path of checkstyle repository
+     * @return the opened session
+     * @throws IOException failure of opening the repository
+     */
+    public static RepositorySession open(String repositoryPath) throws IOException {
+        final File gitDir =
+                RepositoryCache.FileKey.resolve(new File(repositoryPath), FS.DETECTED);
+        if (gitDir == null) {
+            throw new IOException("not a git repository: " + repositoryPath);
+        }
+        final Repository repository = new FileRepositoryBuilder()
+                .setGitDir(gitDir)
+                .readEnvironment().build();
+        return new RepositorySession(repositoryPath, repository);
+    }
+
+    /**
+     * Resolves the given revision to a commit. A local branch of the given name is
+     * preferred, otherwise any revision string is accepted, like a commit id, a tag,
+     * a remote-tracking ref or a full ref name like {@code refs/pull/1/head}.
+     * @param repository the repository to resolve the revision in
+     * @param revision   the revision to resolve
+     * @return the id of the commit, or {@code null} if there is no such revision
+     * @throws IOException failure of reading the refs or the objects
+     */
+    public static ObjectId resolve(Repository repository, String revision) throws IOException {
+        final Ref ref = repository.exactRef(Constants.R_HEADS + revision);
+        ObjectId returnValue;
+        if (ref == null) {
+            try {
+                returnValue = repository.resolve(revision + "^{commit}");
+            }
+            catch (RevisionSyntaxException ex) {
+                returnValue = null;
+            }
+        }
+        else {
+            returnValue = ref.getObjectId();
+        }
+        return returnValue;
+    }
+
+    /**
+     * Applies the given settings of the pack access to all the repositories of the JVM.
+     * It should be called before opening any session, since the cached pack windows
+     * are dropped.
+     * @param settings the settings of the pack access
+     */
+    public static void configurePacks(PackSettings settings) {
+        final WindowCacheConfig config = new WindowCacheConfig();
+        settings.mmap().ifPresent(config::setPackedGitMMAP);
+        settings.windowSize().ifPresent(config::setPackedGitWindowSize);
+        settings.packedGitLimit().ifPresent(config::setPackedGitLimit);
+        settings.deltaBaseCacheLimit().ifPresent(config::setDeltaBaseCacheLimit);
+        config.install();
+    }
+
+    /**
+     * Gets the path of the checkstyle repository.
+     * @return the path of the checkstyle repository
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Gets the opened repository, which must not be closed by the callers.
+     * @return the opened repository
+     */
+    public Repository getRepository() {
+        return repository;
+    }
+
+    /**
+     * Gets the commit graph used to find merge-bases.
+     * @return the commit graph, or empty if the merge-bases are found by walking the commits
+     */
+    public Optional<CommitGraph> getCommitGraph() {
+        return Optional.ofNullable(commitGraph);
+    }
+
+    /**
+     * Sets the commit graph used to find merge-bases. It should be set before any stage
+     * uses the session.
+     * @param commitGraph the commit graph
+     */
+    public void setCommitGraph(CommitGraph commitGraph) {
+        this.commitGraph = commitGraph;
+    }
+
+    /** Closes the repository. */
+    @Override
+    public void close() {
+        repository.close();
+    }
+}
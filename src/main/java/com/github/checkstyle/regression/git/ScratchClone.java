@@ -0,0 +1,227 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.git;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheCheckout;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.util.FileUtils;
+
+/**
+ * Represents a temporary clone of the checkstyle repository, for the tools which need
+ * a working tree and local branches, like checkstyle-tester. The clone borrows the objects
+ * of the checkstyle repository through the alternates, like {@code git clone --shared},
+ * so nothing is copied but the checked out files, and the checkstyle repository itself,
+ * which could be a bare mirror shared by many jobs, is never written.
+ * The clone is deleted when it is closed.
+ * @author LuoLiangchen
+ */
+public final class ScratchClone implements Closeable {
+    /** The name of the object directory in a git directory. */
+    private static final String OBJECTS = "objects";
+
+    /** The path of the alternates file, relative to the object directory. */
+    private static final String ALTERNATES = "info/alternates";
+
+    /** The repository of the clone. */
+    private final Repository repository;
+
+    /** The name of the local branch of the base revision. */
+    private final String baseBranch;
+
+    /** The name of the local branch of the PR revision. */
+    private final String branch;
+
+    /**
+     * Creates a new ScratchClone instance.
+     * @param repository the repository of the clone
+     * @param baseBranch the name of the local branch of the base revision
+     * @param branch     the name of the local branch of the PR revision
+     */
+    private ScratchClone(Repository repository, String baseBranch, String branch) {
+        this.repository = repository;
+        this.baseBranch = baseBranch;
+        this.branch = branch;
+    }
+
+    /**
+     * Creates a clone of the repository of the given session in the given directory,
+     * with a local branch for each of the given revisions, named after the revision.
+     * The base branch is checked out.
+     * @param session      the session of checkstyle repository
+     * @param directory    the directory of the clone, which must not exist or be empty
+     * @param baseRevision the revision to be compared with, like master
+     * @param revision     the revision of the PR branch
+     * @return the created clone
+     * @throws IOException failure of resolving the revisions or creating the clone
+     */
+    public static ScratchClone create(RepositorySession session, File directory,
+            String baseRevision, String revision) throws IOException {
+        final Repository source = session.getRepository();
+        final ObjectId baseId = resolve(source, baseRevision);
+        final ObjectId id = resolve(source, revision);
+
+        final Repository repository = new FileRepositoryBuilder()
+                .setWorkTree(directory)
+                .build();
+        final ScratchClone returnValue = new ScratchClone(repository,
+                toBranchName(baseRevision), toBranchName(revision));
+        try {
+            repository.create();
+            final File alternates =
+                    new File(new File(repository.getDirectory(), OBJECTS), ALTERNATES);
+            final File objects = new File(source.getDirectory(), OBJECTS);
+            Files.write(alternates.toPath(),
+                    (objects.getAbsolutePath() + "\n").getBytes(StandardCharsets.UTF_8));
+            returnValue.createBranch(returnValue.branch, id);
+            returnValue.createBranch(returnValue.baseBranch, baseId);
+            returnValue.checkout(baseId);
+        }
+        catch (IOException ex) {
+            returnValue.close();
+            throw ex;
+        }
+        return returnValue;
+    }
+
+    /**
+     * Gets the path of the working tree of the clone.
+     * @return the path of the working tree
+     */
+    public String getPath() {
+        return repository.getWorkTree().getAbsolutePath();
+    }
+
+    /**
+     * Gets the name of the local branch of the base revision.
+     * @return the name of the local branch of the base revision
+     */
+    public String getBaseBranch() {
+        return baseBranch;
+    }
+
+    /**
+     * Gets the name of the local branch of the PR revision.
+     * @return the name of the local branch of the PR revision
+     */
+    public String getBranch() {
+        return branch;
+    }
+
+    /**
+     * Deletes the clone.
+     * @throws IOException failure of deleting the clone
+     */
+    @Override
+    public void close() throws IOException {
+        final File directory = repository.getWorkTree();
+        repository.close();
+        FileUtils.delete(directory, FileUtils.RECURSIVE | FileUtils.IGNORE_ERRORS);
+    }
+
+    /**
+     * Creates a local branch in the clone, and links HEAD to it.
+     * @param name     the name of the branch
+     * @param commitId the id of the head commit of the branch
+     * @throws IOException failure of updating the refs
+     */
+    private void createBranch(String name, ObjectId commitId) throws IOException {
+        final RefUpdate update = repository.updateRef(Constants.R_HEADS + name);
+        update.setNewObjectId(commitId);
+        update.setForceUpdate(true);
+        checkUpdate(update.update(), name);
+        checkUpdate(repository.updateRef(Constants.HEAD).link(Constants.R_HEADS + name), name);
+    }
+
+    /**
+     * Checks out the given commit into the working tree and the index of the clone.
+     * @param commitId the id of the commit to check out
+     * @throws IOException failure of the checkout
+     */
+    private void checkout(ObjectId commitId) throws IOException {
+        try (RevWalk walk = new RevWalk(repository)) {
+            final RevCommit commit = walk.parseCommit(commitId);
+            final DirCache dirCache = repository.lockDirCache();
+            new DirCacheCheckout(repository, dirCache, commit.getTree()).checkout();
+        }
+    }
+
+    /**
+     * Resolves the given revision in the checkstyle repository.
+     * @param repository the checkstyle repository
+     * @param revision   the revision to resolve
+     * @return the id of the commit
+     * @throws IOException JGit library exception, or if the revision does not exist
+     */
+    private static ObjectId resolve(Repository repository, String revision)
+            throws IOException {
+        final ObjectId returnValue = RepositorySession.resolve(repository, revision);
+        if (returnValue == null) {
+            throw new IOException("unable to find revision " + revision);
+        }
+        return returnValue;
+    }
+
+    /**
+     * Checks the result of a ref update.
+     * @param result the result of the update
+     * @param name   the name of the branch
+     * @throws IOException the update failed
+     */
+    private static void checkUpdate(RefUpdate.Result result, String name) throws IOException {
+        if (result != RefUpdate.Result.NEW && result != RefUpdate.Result.FORCED
+                && result != RefUpdate.Result.NO_CHANGE) {
+            throw new IOException("unable to create branch " + name + ": " + result);
+        }
+    }
+
+    /**
+     * Converts a revision to the name of a local branch, with the {@code refs/heads/}
+     * or {@code refs/} prefix removed and the characters which are not allowed in
+     * branch names replaced, like {@code pull/1/head} for {@code refs/pull/1/head}.
+     * @param revision the revision to convert
+     * @return the name of the local branch
+     */
+    private static String toBranchName(String revision) {
+        final String name;
+        if (revision.startsWith(Constants.R_HEADS)) {
+            name = revision.substring(Constants.R_HEADS.length());
+        }
+        else if (revision.startsWith(Constants.R_REFS)) {
+            name = revision.substring(Constants.R_REFS.length());
+        }
+        else {
+            name = revision;
+        }
+        return name.replaceAll("[^\\w./-]|\\.\\.|^[./]|[./]$", "-");
+    }
+}
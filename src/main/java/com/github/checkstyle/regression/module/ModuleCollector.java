@@ -19,15 +19,26 @@
 
 package com.github.checkstyle.regression.module;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+import com.github.checkstyle.regression.data.ClassifiedChanges;
+import com.github.checkstyle.regression.data.DependencyGraph;
 import com.github.checkstyle.regression.data.GitChange;
+import com.github.checkstyle.regression.data.ImmutableDependencyGraph;
+import com.github.checkstyle.regression.data.ImmutableModuleSelection;
+import com.github.checkstyle.regression.data.ImmutableModuleSetDelta;
 import com.github.checkstyle.regression.data.ModifiableModuleInfo;
 import com.github.checkstyle.regression.data.ModuleExtractInfo;
 import com.github.checkstyle.regression.data.ModuleInfo;
+import com.github.checkstyle.regression.data.ModuleSelection;
+import com.github.checkstyle.regression.data.ModuleSetDelta;
 
 /**
  * Collects all the necessary information for the generation, in module level.
@@ -40,24 +51,159 @@ public final class ModuleCollector {
 
     /**
      * Generates the module information from a list of changes.
-     * @param changes the changes source
+     * @param registry the registry of the modules of the PR branch
+     * @param changes  the changes source
      * @return the module information generated from the given changes
      */
-    public static List<ModuleInfo> generate(List<GitChange> changes) {
+    public static List<ModuleInfo> generate(ModuleRegistry registry, List<GitChange> changes) {
+        return generate(registry, changes, ImmutableModuleSetDelta.builder().build());
+    }
+
+    /**
+     * Generates the module information from a list of changes and the difference of
+     * the module sets between the merge-base and the PR branch. The added and moved
+     * modules are always selected, even if their own sources are not changed.
+     * The removed modules could not be configured in the PR branch, so they are skipped,
+     * which the caller reports from the delta.
+     * @param registry the registry of the modules of the PR branch
+     * @param changes  the changes source
+     * @param delta    the difference of the module sets
+     * @return the module information generated from the given changes and delta
+     */
+    public static List<ModuleInfo> generate(ModuleRegistry registry, List<GitChange> changes,
+            ModuleSetDelta delta) {
+        return select(registry, changes, delta, ImmutableDependencyGraph.builder().build())
+                .modules();
+    }
+
+    /**
+     * Selects the modules from a list of changes, the difference of the module sets
+     * between the merge-base and the PR branch, and the dependencies between the main
+     * sources of the PR branch. Besides the modules selected like
+     * {@link #generate(ModuleRegistry, List, ModuleSetDelta)}, the modules which extend
+     * or implement any changed class, and the modules which use any changed class, like
+     * a utility class or a module another module delegates to, directly or transitively,
+     * are selected. The numbers of the changed classes and of the modules extending or
+     * using them are returned with the modules, for the caller to report.
+     * @param registry     the registry of the modules of the PR branch
+     * @param changes      the changes source
+     * @param delta        the difference of the module sets
+     * @param dependencies the dependencies between the main sources of the PR branch
+     * @return the modules selected from the given changes and delta
+     */
+    public static ModuleSelection select(ModuleRegistry registry, List<GitChange> changes,
+            ModuleSetDelta delta, DependencyGraph dependencies) {
+        final ImmutableModuleSelection.Builder selection = ImmutableModuleSelection.builder();
         final Map<String, ModifiableModuleInfo> moduleInfos = new LinkedHashMap<>();
+        final ClassifiedChanges classified = ModuleUtils.classify(registry, changes);
+        final Set<String> changedClasses = new LinkedHashSet<>();
+
+        for (ModuleExtractInfo extractInfo : classified.modules()) {
+            moduleInfos.put(extractInfo.fullName(),
+                    ModifiableModuleInfo.create().setModuleExtractInfo(extractInfo));
+            changedClasses.add(extractInfo.fullName());
+        }
+        changedClasses.addAll(classified.utilities());
+
+        addSubtypeModules(registry, moduleInfos, changedClasses, selection);
+
+        if (!changedClasses.isEmpty()) {
+            int dependents = 0;
+            for (String fullName : dependencies.getTransitiveDependents(changedClasses)) {
+                final ModuleExtractInfo extractInfo = registry.getModuleExtractInfo(fullName);
+                if (extractInfo != null && !moduleInfos.containsKey(fullName)) {
+                    moduleInfos.put(fullName,
+                            ModifiableModuleInfo.create().setModuleExtractInfo(extractInfo));
+                    ++dependents;
+                }
+            }
+            selection.changedClasses(changedClasses.size()).dependentModules(dependents);
+        }
 
-        for (GitChange change : changes) {
-            if (ModuleUtils.isCheckstyleModule(change)) {
-                final String fullName = ModuleUtils.convertJavaSourceChangeToFullName(change);
-                final ModuleExtractInfo extractInfo = ModuleUtils.getModuleExtractInfo(fullName);
-                final ModifiableModuleInfo moduleInfo = ModifiableModuleInfo.create()
-                        .setModuleExtractInfo(extractInfo);
-                moduleInfos.put(extractInfo.fullName(), moduleInfo);
+        for (ModuleExtractInfo extractInfo : delta.added()) {
+            moduleInfos.computeIfAbsent(extractInfo.fullName(), name -> {
+                return ModifiableModuleInfo.create().setModuleExtractInfo(extractInfo);
+            });
+        }
+        for (ModuleExtractInfo extractInfo : delta.moved()) {
+            moduleInfos.computeIfAbsent(extractInfo.fullName(), name -> {
+                return ModifiableModuleInfo.create().setModuleExtractInfo(extractInfo);
+            });
+        }
+
+        return selection
+                .addAllModules(moduleInfos.values().stream()
+                        .map(ModifiableModuleInfo::toImmutable)
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
+    /**
+     * Adds the modules which extend or implement any of the changed classes, like the
+     * concrete checks of a changed abstract base check, unless they are already added.
+     * @param registry       the registry of the modules of the PR branch
+     * @param moduleInfos    the map of full qualified name to module information to add to
+     * @param changedClasses the full qualified names of the changed main classes
+     * @param selection      the builder of the selection to count the subtypes in
+     */
+    private static void addSubtypeModules(ModuleRegistry registry,
+            Map<String, ModifiableModuleInfo> moduleInfos, Set<String> changedClasses,
+            ImmutableModuleSelection.Builder selection) {
+        int subtypes = 0;
+        int supertypes = 0;
+        for (String fullName : changedClasses) {
+            final List<ModuleExtractInfo> extractInfos =
+                    registry.getSubtypeModuleExtractInfos(fullName);
+            if (!extractInfos.isEmpty()) {
+                ++supertypes;
+            }
+            for (ModuleExtractInfo extractInfo : extractInfos) {
+                if (!moduleInfos.containsKey(extractInfo.fullName())) {
+                    moduleInfos.put(extractInfo.fullName(),
+                            ModifiableModuleInfo.create().setModuleExtractInfo(extractInfo));
+                    ++subtypes;
+                }
             }
         }
+        selection.changedSupertypes(supertypes).subtypeModules(subtypes);
+    }
 
-        return moduleInfos.values().stream()
-                .map(ModifiableModuleInfo::toImmutable)
+    /**
+     * Selects the modules which must be run again after an update of the PR branch,
+     * from the modules generated for the current head. A module is selected when its
+     * own source is changed by the update, or when it was not selected in the previous
+     * run. The modules which use any main source changed by the update, like a utility
+     * class or another module, directly or transitively, are selected as well. The modules which
+     * extend or implement a changed class are selected as well.
+     * @param registry        the registry of the modules of the current head
+     * @param moduleInfos     the module information generated for the current head
+     * @param updateChanges   the changes between the previous head and the current head
+     * @param previousModules the full qualified names of the modules of the previous run
+     * @param dependencies    the dependencies between the main sources of the current head
+     * @return the module information of the modules to run again
+     */
+    public static List<ModuleInfo> selectUpdated(ModuleRegistry registry,
+            List<ModuleInfo> moduleInfos, List<GitChange> updateChanges,
+            Set<String> previousModules, DependencyGraph dependencies) {
+        final ClassifiedChanges classified = ModuleUtils.classify(registry, updateChanges);
+        final Set<String> updated = new HashSet<>(previousModules.size());
+        final List<String> changedClasses = new ArrayList<>(classified.utilities());
+        for (ModuleExtractInfo extractInfo : classified.modules()) {
+            updated.add(extractInfo.fullName());
+            changedClasses.add(extractInfo.fullName());
+        }
+        for (String fullName : changedClasses) {
+            for (ModuleExtractInfo extractInfo
+                    : registry.getSubtypeModuleExtractInfos(fullName)) {
+                updated.add(extractInfo.fullName());
+            }
+        }
+        updated.addAll(dependencies.getTransitiveDependents(changedClasses));
+        return moduleInfos.stream()
+                .filter(moduleInfo -> {
+                    final String fullName = moduleInfo.moduleExtractInfo().fullName();
+                    return updated.contains(fullName) || !previousModules.contains(fullName);
+                })
                 .collect(Collectors.toList());
     }
 }
@@ -0,0 +1,137 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.module;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.github.checkstyle.regression.data.ModuleExtractInfo;
+
+/**
+ * The immutable index of the modules extracted from a branch, by full qualified name,
+ * source path, test path and supertype. A registry is built once per run, and shared
+ * by all the stages of the run which select modules.
+ * @author LuoLiangchen
+ */
+public final class ModuleRegistry {
+    /** The map of full qualified name to module extract info. */
+    private final Map<String, ModuleExtractInfo> nameToModuleExtractInfo;
+
+    /** The map of main source path to module extract info. */
+    private final Map<String, ModuleExtractInfo> pathToModuleExtractInfo;
+
+    /** The map of test source path to the extract info of the tested module. */
+    private final Map<String, ModuleExtractInfo> testPathToModuleExtractInfo;
+
+    /**
+     * The map of full qualified name of a super class or interface to the extract infos
+     * of the modules which extend or implement it, directly or indirectly.
+     */
+    private final Map<String, List<ModuleExtractInfo>> supertypeToModuleExtractInfos;
+
+    /**
+     * Creates a new instance of ModuleRegistry and builds its indexes.
+     * @param map the map of full qualified name to module extract info, ordered by name
+     */
+    private ModuleRegistry(Map<String, ModuleExtractInfo> map) {
+        final Map<String, ModuleExtractInfo> paths = new HashMap<>();
+        final Map<String, ModuleExtractInfo> testPaths = new HashMap<>();
+        final Map<String, List<ModuleExtractInfo>> supertypes = new HashMap<>();
+        for (ModuleExtractInfo extractInfo : map.values()) {
+            paths.put(ModuleUtils.getMainSourcePath(extractInfo.fullName()), extractInfo);
+            testPaths.put(ModuleUtils.getTestSourcePath(extractInfo.fullName()), extractInfo);
+            final Set<String> names = new LinkedHashSet<>(extractInfo.hierarchies());
+            names.addAll(extractInfo.interfaces());
+            for (String supertype : names) {
+                supertypes.computeIfAbsent(supertype, name -> new ArrayList<>())
+                        .add(extractInfo);
+            }
+        }
+        nameToModuleExtractInfo = Collections.unmodifiableMap(map);
+        pathToModuleExtractInfo = Collections.unmodifiableMap(paths);
+        testPathToModuleExtractInfo = Collections.unmodifiableMap(testPaths);
+        supertypes.replaceAll((name, extractInfos) -> {
+            return Collections.unmodifiableList(extractInfos);
+        });
+        supertypeToModuleExtractInfos = Collections.unmodifiableMap(supertypes);
+    }
+
+    /**
+     * Builds the registry of the given modules.
+     * @param map the map of full qualified name to module extract info
+     * @return the registry of the given modules
+     */
+    public static ModuleRegistry of(Map<String, ModuleExtractInfo> map) {
+        return new ModuleRegistry(new TreeMap<>(map));
+    }
+
+    /**
+     * Gets the map of full qualified name to module extract info.
+     * @return the unmodifiable map of full qualified name to module extract info,
+     *      ordered by name
+     */
+    public Map<String, ModuleExtractInfo> getModuleExtractInfos() {
+        return nameToModuleExtractInfo;
+    }
+
+    /**
+     * Gets the module extract info from the given full qualified name.
+     * @param fullName the given full qualified name
+     * @return the module extract info, or {@code null} if it is not a module
+     */
+    public ModuleExtractInfo getModuleExtractInfo(String fullName) {
+        return nameToModuleExtractInfo.get(fullName);
+    }
+
+    /**
+     * Gets the extract info of the module of which main source is the given path.
+     * @param path the path of the main source file
+     * @return the module extract info, or {@code null} if it is not a module
+     */
+    ModuleExtractInfo getModuleExtractInfoBySource(String path) {
+        return pathToModuleExtractInfo.get(path);
+    }
+
+    /**
+     * Gets the extract info of the module of which test is the given path.
+     * @param path the path of the test source file
+     * @return the module extract info, or {@code null} if it is not a test of a module
+     */
+    ModuleExtractInfo getModuleExtractInfoByTest(String path) {
+        return testPathToModuleExtractInfo.get(path);
+    }
+
+    /**
+     * Gets the extract infos of the modules which extend or implement the class of the
+     * given full qualified name, directly or indirectly, like the concrete checks of
+     * an abstract base check.
+     * @param fullName the full qualified name of the super class or interface
+     * @return the extract infos of the modules, ordered by full qualified name
+     */
+    public List<ModuleExtractInfo> getSubtypeModuleExtractInfos(String fullName) {
+        return supertypeToModuleExtractInfos.getOrDefault(fullName, Collections.emptyList());
+    }
+}
@@ -19,85 +19,130 @@
 
 package com.github.checkstyle.regression.module;
 
-import java.util.Arrays;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
 
+import com.github.checkstyle.regression.data.ClassifiedChanges;
 import com.github.checkstyle.regression.data.GitChange;
+import com.github.checkstyle.regression.data.ImmutableClassifiedChanges;
+import com.github.checkstyle.regression.data.ImmutableModuleSetDelta;
 import com.github.checkstyle.regression.data.ModuleExtractInfo;
+import com.github.checkstyle.regression.data.ModuleSetDelta;
 
 /**
  * Contains utility methods related to checkstyle module.
  * @author LuoLiangchen
  */
 public final class ModuleUtils {
-    /** The compiled regex pattern of the path of Java source files. */
-    private static final Pattern JAVA_SOURCE_PARTTEN =
-            Pattern.compile("src/(main|test)/java/(.+)\\.java");
+    /** The path prefix of Java main source files. */
+    private static final String JAVA_MAIN_SOURCE_PREFIX = "src/main/java/";
+
+    /** The path prefix of Java test source files. */
+    private static final String JAVA_TEST_SOURCE_PREFIX = "src/test/java/";
+
+    /** The extension of Java source files. */
+    private static final String JAVA_EXTENSION = ".java";
 
     /** The postfix of a test of a checkstyle module. */
     private static final String TEST_POSTFIX = "Test";
 
-    /** The map of full qualified name to module extract info. */
-    private static final Map<String, ModuleExtractInfo> NAME_TO_MODULE_EXTRACT_INFO =
-            new HashMap<>();
-
     /** Prevents instantiation. */
     private ModuleUtils() {
     }
 
     /**
-     * Sets the map of full qualified name to module extract info with the given map.
-     * @param map the given map
+     * Gets the path of the main source file of the class of the given full qualified name.
+     * @param fullName the full qualified name of the class
+     * @return the path of the main source file
+     */
+    static String getMainSourcePath(String fullName) {
+        return JAVA_MAIN_SOURCE_PREFIX + fullName.replace('.', '/') + JAVA_EXTENSION;
+    }
+
+    /**
+     * Gets the path of the test source file of the module of the given full qualified name.
+     * @param fullName the full qualified name of the module
+     * @return the path of the test source file
+     */
+    static String getTestSourcePath(String fullName) {
+        return JAVA_TEST_SOURCE_PREFIX + fullName.replace('.', '/') + TEST_POSTFIX
+                + JAVA_EXTENSION;
+    }
+
+    /**
+     * Classifies the given changes in one pass. A change is the main source of a module,
+     * the test of a module, the main source of another class, like a utility class, or
+     * none of them. Module sources and tests are found by a lookup in the path index,
+     * only the full qualified names of the other main sources are built.
+     * @param registry the registry of the modules
+     * @param changes  the changes to classify
+     * @return the classified changes, in the order of the given changes
+     */
+    public static ClassifiedChanges classify(ModuleRegistry registry,
+            List<GitChange> changes) {
+        final ImmutableClassifiedChanges.Builder builder = ImmutableClassifiedChanges.builder();
+        for (GitChange change : changes) {
+            final String path = change.path();
+            final ModuleExtractInfo module = registry.getModuleExtractInfoBySource(path);
+            if (module != null) {
+                builder.addModules(module);
+            }
+            else {
+                final ModuleExtractInfo testedModule = registry.getModuleExtractInfoByTest(path);
+                if (testedModule != null) {
+                    builder.addModuleTests(testedModule);
+                }
+                else if (isJavaSource(path, JAVA_MAIN_SOURCE_PREFIX)) {
+                    builder.addUtilities(getFullName(path, JAVA_MAIN_SOURCE_PREFIX));
+                }
+                else {
+                    builder.addOthers(change);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Checks whether any of the given changes is a Java main source, of a module or of
+     * another class. Only such changes are looked up in the dependencies between the
+     * main sources, so the dependencies are not needed without them.
+     * @param changes the changes to check
+     * @return true if any of the given changes is a Java main source
      */
-    public static void setNameToModuleExtractInfo(Map<String, ModuleExtractInfo> map) {
-        NAME_TO_MODULE_EXTRACT_INFO.clear();
-        NAME_TO_MODULE_EXTRACT_INFO.putAll(map);
+    public static boolean hasJavaMainSourceChanges(List<GitChange> changes) {
+        return changes.stream()
+                .anyMatch(change -> isJavaSource(change.path(), JAVA_MAIN_SOURCE_PREFIX));
     }
 
     /**
      * Checks whether the corresponding file of a change may be considered as
      * a checkstyle module.
      * Changes of checkstyle modules are Java main source files, of which full
-     * qualified names are in the extract module info map.
-     * @param change change to check
+     * qualified names are in the registry.
+     * @param registry the registry of the modules
+     * @param change   change to check
      * @return true if the corresponding file of a change may be considered as
      *      a checkstyle module
      */
-    public static boolean isCheckstyleModule(GitChange change) {
-        final boolean returnValue;
-        if (isJavaMainSource(change)) {
-            final String fullName = convertJavaSourceChangeToFullName(change);
-            returnValue = NAME_TO_MODULE_EXTRACT_INFO.containsKey(fullName);
-        }
-        else {
-            returnValue = false;
-        }
-        return returnValue;
+    public static boolean isCheckstyleModule(ModuleRegistry registry, GitChange change) {
+        return registry.getModuleExtractInfoBySource(change.path()) != null;
     }
 
     /**
      * Checks whether the corresponding file of a change may be considered as
      * a checkstyle utility class.
      * Changes of checkstyle utility classes are Java main source files, of which full
-     * qualified names are not in the extract module info map.
-     * @param change change to check
+     * qualified names are not in the registry.
+     * @param registry the registry of the modules
+     * @param change   change to check
      * @return true if the corresponding file of a change may be considered as
      *      a checkstyle utility class.
      */
-    public static boolean isCheckstyleUtility(GitChange change) {
-        final boolean returnValue;
-        if (isJavaMainSource(change)) {
-            final String fullName = convertJavaSourceChangeToFullName(change);
-            returnValue = !NAME_TO_MODULE_EXTRACT_INFO.containsKey(fullName);
-        }
-        else {
-            returnValue = false;
-        }
-        return returnValue;
+    public static boolean isCheckstyleUtility(ModuleRegistry registry, GitChange change) {
+        return isJavaSource(change.path(), JAVA_MAIN_SOURCE_PREFIX)
+                && registry.getModuleExtractInfoBySource(change.path()) == null;
     }
 
     /**
@@ -105,78 +150,65 @@ public final class ModuleUtils {
      * a test of checkstyle module.
      * Changes of checkstyle module tests are Java test source files, of which full
      * qualified names end with "Test" and the full names of corresponding modules are
-     * in the extract module info map.
-     * @param change change to check
+     * in the registry.
+     * @param registry the registry of the modules
+     * @param change   change to check
      * @return true if the corresponding file of a change may be considered as
      *      a test of checkstyle module
      */
-    public static boolean isCheckstyleModuleTest(GitChange change) {
-        final boolean returnValue;
-        if (isJavaTestSource(change)) {
-            final String fullName = convertJavaSourceChangeToFullName(change);
-            if (fullName.endsWith(TEST_POSTFIX)) {
-                returnValue = NAME_TO_MODULE_EXTRACT_INFO.containsKey(
-                        fullName.substring(0, fullName.length() - TEST_POSTFIX.length()));
-            }
-            else {
-                returnValue = false;
-            }
-        }
-        else {
-            returnValue = false;
-        }
-        return returnValue;
+    public static boolean isCheckstyleModuleTest(ModuleRegistry registry, GitChange change) {
+        return registry.getModuleExtractInfoByTest(change.path()) != null;
     }
 
     /**
-     * Checks whether the corresponding file of a change may be considered as
-     * a Java main source file.
-     * Changes of Java main source files are which have path matching
-     * {@code JAVA_SOURCE_PARTTEN} and in "main" directory.
-     * @param change change to check
-     * @return true if the corresponding file of a change may be considered as
-     *      a Java main source file.
+     * Checks whether the given path is a Java source file under the given source root.
+     * @param path   the path to check
+     * @param prefix the path prefix of the source root
+     * @return true if the given path is a Java source file under the given source root
      */
-    private static boolean isJavaMainSource(GitChange change) {
-        final boolean returnValue;
-        final Matcher matcher = JAVA_SOURCE_PARTTEN.matcher(change.path());
-        if (matcher.find()) {
-            returnValue = "main".equals(matcher.group(1));
-        }
-        else {
-            returnValue = false;
-        }
-        return returnValue;
+    private static boolean isJavaSource(String path, String prefix) {
+        return path.startsWith(prefix) && path.endsWith(JAVA_EXTENSION)
+                && path.length() > prefix.length() + JAVA_EXTENSION.length();
     }
 
     /**
-     * Checks whether the corresponding file of a change may be considered as
-     * a Java test source file.
-     * Changes of Java test source files are which have path matching
-     * {@code JAVA_SOURCE_PARTTEN} and in "test" directory.
-     * @param change change to check
-     * @return true if the corresponding file of a change may be considered as
-     *      a Java test source file.
+     * Gets the full qualified name of a Java source file under the given source root.
+     * @param path   the path of the Java source file
+     * @param prefix the path prefix of the source root
+     * @return the full qualified name
      */
-    private static boolean isJavaTestSource(GitChange change) {
-        final boolean returnValue;
-        final Matcher matcher = JAVA_SOURCE_PARTTEN.matcher(change.path());
-        if (matcher.find()) {
-            returnValue = "test".equals(matcher.group(1));
-        }
-        else {
-            returnValue = false;
-        }
-        return returnValue;
+    private static String getFullName(String path, String prefix) {
+        return path.substring(prefix.length(), path.length() - JAVA_EXTENSION.length())
+                .replace('/', '.');
     }
 
     /**
-     * Gets the module extract info from the given full qualified name.
-     * @param fullName the given full qualified name
-     * @return the module extract info got from the given full qualified name
+     * Creates the difference of the module sets between the merge-base and the PR branch.
+     * @param baseExtractInfos the full qualified name to module extract info map
+     *                         of the merge-base
+     * @param prExtractInfos   the full qualified name to module extract info map
+     *                         of the PR branch
+     * @return the difference of the module sets, ordered by full qualified name
      */
-    public static ModuleExtractInfo getModuleExtractInfo(String fullName) {
-        return NAME_TO_MODULE_EXTRACT_INFO.get(fullName);
+    public static ModuleSetDelta createModuleSetDelta(
+            Map<String, ModuleExtractInfo> baseExtractInfos,
+            Map<String, ModuleExtractInfo> prExtractInfos) {
+        final ImmutableModuleSetDelta.Builder builder = ImmutableModuleSetDelta.builder();
+        for (ModuleExtractInfo prInfo : new TreeMap<>(prExtractInfos).values()) {
+            final ModuleExtractInfo baseInfo = baseExtractInfos.get(prInfo.fullName());
+            if (baseInfo == null) {
+                builder.addAdded(prInfo);
+            }
+            else if (!baseInfo.parent().equals(prInfo.parent())) {
+                builder.addMoved(prInfo);
+            }
+        }
+        for (ModuleExtractInfo baseInfo : new TreeMap<>(baseExtractInfos).values()) {
+            if (!prExtractInfos.containsKey(baseInfo.fullName())) {
+                builder.addRemoved(baseInfo);
+            }
+        }
+        return builder.build();
     }
 
     /**
@@ -185,7 +217,14 @@ public final class ModuleUtils {
      * @return the corresponding full qualified name
      */
     public static String convertJavaSourceChangeToFullName(GitChange change) {
-        return Arrays.stream(JAVA_SOURCE_PARTTEN.matcher(change.path())
-                .replaceAll("$2").split("/")).collect(Collectors.joining("."));
+        final String path = change.path();
+        final String returnValue;
+        if (path.startsWith(JAVA_TEST_SOURCE_PREFIX)) {
+            returnValue = getFullName(path, JAVA_TEST_SOURCE_PREFIX);
+        }
+        else {
+            returnValue = getFullName(path, JAVA_MAIN_SOURCE_PREFIX);
+        }
+        return returnValue;
     }
 }
@@ -0,0 +1,163 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.pipeline;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the stages of the regression tool as a dependency graph. A stage starts as
+ * soon as all its dependencies succeed, so the stages which do not depend on each
+ * other overlap. The time of each stage and the critical path are reported.
+ * @author LuoLiangchen
+ */
+public final class Pipeline implements Closeable {
+    /** The executor of the stages. */
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    /** The stages, in order of addition. */
+    private final List<Stage<?>> stages = Collections.synchronizedList(new ArrayList<>());
+
+    /** The creation time of the pipeline, in nanoseconds. */
+    private final long originNanos = System.nanoTime();
+
+    /**
+     * Adds a stage to the pipeline.
+     * @param name         the name of the stage
+     * @param task         the work of the stage
+     * @param dependencies the stages which the new stage depends on
+     * @param <T>          the type of the result
+     * @return the added stage
+     */
+    public <T> Stage<T> add(String name, StageTask<T> task, Stage<?>... dependencies) {
+        final Stage<T> stage = new Stage<>(name, Arrays.asList(dependencies));
+        final CompletableFuture<?>[] futures = stage.getDependencies().stream()
+                .map(Stage::getFuture)
+                .toArray(CompletableFuture<?>[]::new);
+        CompletableFuture.allOf(futures).whenCompleteAsync((ignored, failure) -> {
+            if (failure == null) {
+                stage.run(task);
+            }
+            else {
+                stage.skip(failure);
+            }
+        }, executor);
+        stages.add(stage);
+        return stage;
+    }
+
+    /** Waits until all the stages are either done or failed. */
+    public void await() {
+        final CompletableFuture<?>[] futures = getStages().stream()
+                .map(Stage::getFuture)
+                .toArray(CompletableFuture<?>[]::new);
+        try {
+            CompletableFuture.allOf(futures).join();
+        }
+        catch (CompletionException ignored) {
+            // the failures are reported by the stages themselves
+        }
+    }
+
+    /**
+     * Gets the report of the time of each stage which has run, and of the critical path,
+     * which is the chain of dependencies ending at the stage which finished last.
+     * @return the report
+     */
+    public String getReport() {
+        final StringBuilder builder = new StringBuilder("pipeline stage times:");
+        Stage<?> last = null;
+        for (Stage<?> stage : getStages()) {
+            if (stage.hasRun()) {
+                builder.append(System.lineSeparator()).append(String.format(
+                        "%8d ms  %s (started at %d ms)",
+                        toMillis(stage.getEndNanos() - stage.getStartNanos()),
+                        stage.getName(), toMillis(stage.getStartNanos() - originNanos)));
+                if (last == null || stage.getEndNanos() > last.getEndNanos()) {
+                    last = stage;
+                }
+            }
+        }
+        if (last != null) {
+            final List<String> path = new LinkedList<>();
+            final long endNanos = last.getEndNanos();
+            Stage<?> current = last;
+            while (current != null) {
+                path.add(0, current.getName());
+                current = getLastDependency(current);
+            }
+            builder.append(System.lineSeparator()).append(String.format(
+                    "critical path (%d ms): %s",
+                    toMillis(endNanos - originNanos), String.join(" -> ", path)));
+        }
+        return builder.toString();
+    }
+
+    /** Shuts down the executor of the stages, the running stages are not interrupted. */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * Gets a snapshot of the stages.
+     * @return the stages, in order of addition
+     */
+    private List<Stage<?>> getStages() {
+        synchronized (stages) {
+            return new ArrayList<>(stages);
+        }
+    }
+
+    /**
+     * Gets the dependency of the given stage which finished last.
+     * @param stage the stage
+     * @return the dependency which finished last, or {@code null} if there is none
+     */
+    private static Stage<?> getLastDependency(Stage<?> stage) {
+        Stage<?> returnValue = null;
+        for (Stage<?> dependency : stage.getDependencies()) {
+            if (dependency.hasRun()
+                    && (returnValue == null
+                        || dependency.getEndNanos() > returnValue.getEndNanos())) {
+                returnValue = dependency;
+            }
+        }
+        return returnValue;
+    }
+
+    /**
+     * Converts nanoseconds to milliseconds.
+     * @param nanos the nanoseconds
+     * @return the milliseconds
+     */
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
@@ -0,0 +1,167 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.pipeline;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Represents a stage of a {@link Pipeline}, which starts as soon as all its
+ * dependencies succeed, and fails without running if any of them fails.
+ * @param <T> the type of the result
+ * @author LuoLiangchen
+ */
+public final class Stage<T> {
+    /** The time of a stage which is not started or finished. */
+    private static final long NOT_TIMED = -1;
+
+    /** The name of the stage. */
+    private final String name;
+
+    /** The stages which this stage depends on. */
+    private final List<Stage<?>> dependencies;
+
+    /** The future of the result. */
+    private final CompletableFuture<T> future = new CompletableFuture<>();
+
+    /** The start time of the stage, in nanoseconds. */
+    private volatile long startNanos = NOT_TIMED;
+
+    /** The end time of the stage, in nanoseconds. */
+    private volatile long endNanos = NOT_TIMED;
+
+    /**
+     * Creates a new Stage instance.
+     * @param name         the name of the stage
+     * @param dependencies the stages which this stage depends on
+     */
+    Stage(String name, List<Stage<?>> dependencies) {
+        this.name = name;
+        this.dependencies = Collections.unmodifiableList(dependencies);
+    }
+
+    /**
+     * Gets the name of the stage.
+     * @return the name of the stage
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Waits for the result of the stage. The failure of the stage, or of any of
+     * its dependencies, is rethrown as is.
+     * @return the result of the stage
+     * @throws Exception failure of the stage
+     */
+    public T get() throws Exception {
+        try {
+            return future.get();
+        }
+        catch (ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Gets the stages which this stage depends on.
+     * @return the stages which this stage depends on
+     */
+    List<Stage<?>> getDependencies() {
+        return dependencies;
+    }
+
+    /**
+     * Gets the future of the result.
+     * @return the future of the result
+     */
+    CompletableFuture<T> getFuture() {
+        return future;
+    }
+
+    /**
+     * Checks whether the stage has run, either successfully or not.
+     * @return true if the stage has run
+     */
+    boolean hasRun() {
+        return endNanos != NOT_TIMED;
+    }
+
+    /**
+     * Gets the start time of the stage.
+     * @return the start time of the stage, in nanoseconds
+     */
+    long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * Gets the end time of the stage.
+     * @return the end time of the stage, in nanoseconds
+     */
+    long getEndNanos() {
+        return endNanos;
+    }
+
+    /**
+     * Runs the given task and completes the stage with its result. The stage is completed
+     * by any failure of the task, so that its waiters are never blocked forever, and an
+     * error is rethrown afterwards.
+     * @param task the work of the stage
+     */
+    void run(StageTask<T> task) {
+        startNanos = System.nanoTime();
+        try {
+            final T result = task.run();
+            endNanos = System.nanoTime();
+            future.complete(result);
+        }
+        // -@cs[IllegalCatch] The failure of any task must complete the stage
+        catch (Throwable ex) {
+            endNanos = System.nanoTime();
+            future.completeExceptionally(ex);
+            if (ex instanceof Error) {
+                throw (Error) ex;
+            }
+        }
+    }
+
+    /**
+     * Fails the stage without running it, because of the failure of a dependency.
+     * @param failure the failure of the dependency
+     */
+    void skip(Throwable failure) {
+        final Throwable cause;
+        if (failure instanceof CompletionException && failure.getCause() != null) {
+            cause = failure.getCause();
+        }
+        else {
+            cause = failure;
+        }
+        future.completeExceptionally(cause);
+    }
+}
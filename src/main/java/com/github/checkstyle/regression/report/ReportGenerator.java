@@ -22,6 +22,8 @@ package com.github.checkstyle.regression.report;
 import java.io.File;
 import java.io.IOException;
 
+import org.apache.commons.io.FileUtils;
+
 /**
  * Generates the regression diff report.
  * @author LuoLiangchen
@@ -32,24 +34,25 @@ public final class ReportGenerator {
     }
 
     /**
-     * Generates the regression diff report.
+     * Generates the regression diff report. The branches are checked out in the given
+     * repository by checkstyle-tester.
      * @param testerPath the path to the directory which holds 'diff.groovy'
      * @param repoPath   the path to the checkstyle repository
+     * @param baseBranch the name of the branch to be compared with, like master
      * @param branch     the name of the PR branch
      * @param configFile the generated config file
      * @return the directory of the generated reports
      * @throws InterruptedException failure of running CLI
      * @throws IOException          failure of running CLI
      */
-    public static File generate(
-            String testerPath, String repoPath, String branch, File configFile)
-            throws InterruptedException, IOException {
+    public static File generate(String testerPath, String repoPath, String baseBranch,
+            String branch, File configFile) throws InterruptedException, IOException {
         final Process process = new ProcessBuilder()
                 .directory(new File(testerPath))
                 .command(
                         "groovy", "diff.groovy",
                         "-r", repoPath,
-                        "-b", "master",
+                        "-b", baseBranch,
                         "-p", branch,
                         "-c", configFile.getAbsolutePath(),
                         "-l", "projects-to-test-on.properties"
@@ -66,4 +69,28 @@ public final class ReportGenerator {
         }
         return reportDir;
     }
+
+    /**
+     * Generates the regression diff report, and moves it to a directory of the given name
+     * next to the default one, replacing any previous report of the same name. This keeps
+     * the reports of many branches generated with the same checkstyle-tester.
+     * @param testerPath the path to the directory which holds 'diff.groovy'
+     * @param repoPath   the path to the checkstyle repository
+     * @param baseBranch the name of the branch to be compared with, like master
+     * @param branch     the name of the PR branch
+     * @param configFile the generated config file
+     * @param reportName the name of the directory of the generated reports
+     * @return the directory of the generated reports
+     * @throws InterruptedException failure of running CLI
+     * @throws IOException          failure of running CLI or of moving the reports
+     */
+    public static File generate(String testerPath, String repoPath, String baseBranch,
+            String branch, File configFile, String reportName)
+            throws InterruptedException, IOException {
+        final File reportDir = generate(testerPath, repoPath, baseBranch, branch, configFile);
+        final File returnValue = new File(reportDir.getParentFile(), reportName);
+        FileUtils.deleteDirectory(returnValue);
+        FileUtils.moveDirectory(reportDir, returnValue);
+        return returnValue;
+    }
 }
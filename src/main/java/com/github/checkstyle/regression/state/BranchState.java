@@ -0,0 +1,52 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.state;
+
+import java.util.Map;
+
+import org.immutables.value.Value;
+
+/**
+ * Represents the state of a PR branch after a run, which the next run of the same
+ * branch starts from. Each module keeps the result of the run which ran it last,
+ * so the results of an incremental run are merged with the ones of the previous runs.
+ * @author LuoLiangchen
+ */
+@Value.Immutable
+public interface BranchState {
+    /**
+     * The commit id of the head of the PR branch which was run.
+     * @return the commit id of the head
+     */
+    String head();
+
+    /**
+     * The commit id of the merge-base of the head and the base revision.
+     * @return the commit id of the merge-base
+     */
+    String mergeBase();
+
+    /**
+     * The map of the full qualified name of each selected module to the path of its
+     * result, either the report or the config which it was run with.
+     * @return the module to result path map
+     */
+    Map<String, String> results();
+}
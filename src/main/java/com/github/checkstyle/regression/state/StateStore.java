@@ -0,0 +1,132 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.state;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * On-disk store of the states of the PR branches, one properties file per branch.
+ * @author LuoLiangchen
+ */
+public final class StateStore {
+    /** The property key of the head commit id. */
+    private static final String KEY_HEAD = "head";
+
+    /** The property key of the merge-base commit id. */
+    private static final String KEY_MERGE_BASE = "mergeBase";
+
+    /** The prefix of the property keys of the module results. */
+    private static final String KEY_RESULT_PREFIX = "result.";
+
+    /** The extension of the state files. */
+    private static final String STATE_EXTENSION = ".properties";
+
+    /** The directory holding the state files. */
+    private final File stateDir;
+
+    /**
+     * Creates a new instance of StateStore.
+     * @param stateDir the directory holding the state files
+     */
+    public StateStore(File stateDir) {
+        this.stateDir = stateDir;
+    }
+
+    /**
+     * Gets the state file of the given branch.
+     * @param branch the name of the branch
+     * @return the state file
+     */
+    public File getFile(String branch) {
+        return new File(stateDir, branch.replaceAll("[^\\w.-]", "-") + STATE_EXTENSION);
+    }
+
+    /**
+     * Loads the state of the given branch.
+     * @param branch the name of the branch
+     * @return the state of the branch, absent if the branch has not been run
+     * @throws IOException failure of reading the state file, or if it is malformed
+     */
+    public Optional<BranchState> load(String branch) throws IOException {
+        final File file = getFile(branch);
+        final Optional<BranchState> returnValue;
+        if (file.isFile()) {
+            final Properties properties = new Properties();
+            try (InputStream stream = new FileInputStream(file)) {
+                properties.load(stream);
+            }
+            final String head = properties.getProperty(KEY_HEAD);
+            final String mergeBase = properties.getProperty(KEY_MERGE_BASE);
+            if (head == null || mergeBase == null) {
+                throw new IOException("malformed state file " + file);
+            }
+            final ImmutableBranchState.Builder builder = ImmutableBranchState.builder()
+                    .head(head)
+                    .mergeBase(mergeBase);
+            for (String key : properties.stringPropertyNames()) {
+                if (key.startsWith(KEY_RESULT_PREFIX)) {
+                    builder.putResults(key.substring(KEY_RESULT_PREFIX.length()),
+                            properties.getProperty(key));
+                }
+            }
+            returnValue = Optional.of(builder.build());
+        }
+        else {
+            returnValue = Optional.empty();
+        }
+        return returnValue;
+    }
+
+    /**
+     * Saves the state of the given branch, replacing the previous one. The state is
+     * written to a temporary file first and then moved to its final place, so that
+     * an interrupted run never leaves a partially written state.
+     * @param branch the name of the branch
+     * @param state  the state of the branch
+     * @throws IOException failure of writing the state file
+     */
+    public void save(String branch, BranchState state) throws IOException {
+        final Properties properties = new Properties();
+        properties.setProperty(KEY_HEAD, state.head());
+        properties.setProperty(KEY_MERGE_BASE, state.mergeBase());
+        for (Map.Entry<String, String> result : state.results().entrySet()) {
+            properties.setProperty(KEY_RESULT_PREFIX + result.getKey(), result.getValue());
+        }
+
+        Files.createDirectories(stateDir.toPath());
+        final File file = getFile(branch);
+        final File temp = File.createTempFile(file.getName(), ".tmp", stateDir);
+        try (OutputStream stream = new FileOutputStream(temp)) {
+            properties.store(stream, "state of " + branch);
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+}
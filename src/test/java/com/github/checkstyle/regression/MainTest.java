@@ -35,14 +35,85 @@ import org.junit.rules.TemporaryFolder;
 
 public final class MainTest {
     private static final String USAGE = String.format(Locale.ROOT,
-            "usage: java -jar regression-tool.jar -r <arg> -p <arg> [-t <arg>]%n"
-                    + "       [--stopAfterConfigGeneration]%n"
-                    + " -r,--checkstyleRepoPath <arg>     the path of the checkstyle repository%n"
-                    + " -p,--patchBranch <arg>            the name of the PR branch%n"
-                    + " -t,--checkstyleTesterPath <arg>   the path of the checkstyle-tester%n"
-                    + "                                   directory%n"
-                    + "    --stopAfterConfigGeneration    indicates that regression tool would%n"
-                    + "                                   stop after generating config%n");
+            "usage: java -jar regression-tool.jar -r <arg> [-p <arg>] [--batch]%n"
+                    + "       [--baseRevision <arg>] [--workingTree] [--stateDir <arg>] [-t%n"
+                    + "       <arg>] [--stopAfterConfigGeneration] [-c <arg>] [--cacheDir <arg>]%n"
+                    + "       [--diffCacheLimit <arg>] [--extractFromSources] [--mavenProfile%n"
+                    + "       <arg>] [--includePaths <arg>] [--excludePaths <arg>]%n"
+                    + "       [--diffAlgorithm <arg>] [--renameScore <arg>] [--renameLimit <arg>]%n"
+                    + "       [--packedGitMmap] [--packedGitWindowSize <arg>] [--packedGitLimit%n"
+                    + "       <arg>] [--deltaBaseCacheLimit <arg>]%n"
+                    + " -r,--checkstyleRepoPath <arg>      the path of the checkstyle repository%n"
+                    + " -p,--patchBranch <arg>             the revision of the PR branch, like a%n"
+                    + "                                    branch name, a commit id, a tag, a%n"
+                    + "                                    remote-tracking ref or a ref like%n"
+                    + "                                    'refs/pull/1/head'%n"
+                    + "    --batch                         indicates that patchBranch is a comma%n"
+                    + "                                    separated list of branch names or%n"
+                    + "                                    patterns of ref names like%n"
+                    + "                                    'refs/pull/*/head', which are all%n"
+                    + "                                    diffed in one walk and processed in%n"
+                    + "                                    one run%n"
+                    + "    --baseRevision <arg>            the revision which the PR branch is%n"
+                    + "                                    compared with, any revision like%n"
+                    + "                                    patchBranch, default is 'master'%n"
+                    + "    --workingTree                   indicates that the working tree, with%n"
+                    + "                                    the uncommitted changes, would be%n"
+                    + "                                    compared with the base revision%n"
+                    + "                                    instead of a PR branch%n"
+                    + "    --stateDir <arg>                the directory of the states of the PR%n"
+                    + "                                    branches, when it is given, only the%n"
+                    + "                                    modules affected since the previous%n"
+                    + "                                    run of the same branch are run again,%n"
+                    + "                                    and the other results are kept%n"
+                    + " -t,--checkstyleTesterPath <arg>    the path of the checkstyle-tester%n"
+                    + "                                    directory%n"
+                    + "    --stopAfterConfigGeneration     indicates that regression tool would%n"
+                    + "                                    stop after generating config%n"
+                    + " -c,--checkstyleClassesPath <arg>   the path of the compiled checkstyle%n"
+                    + "                                    classes of the PR branch, either a%n"
+                    + "                                    class directory or a jar, modules are%n"
+                    + "                                    read from it instead of being%n"
+                    + "                                    extracted by Maven%n"
+                    + "    --cacheDir <arg>                the directory of the regression tool%n"
+                    + "                                    caches, default is 'regression-tool'%n"
+                    + "                                    in the git directory of the checkstyle%n"
+                    + "                                    repository%n"
+                    + "    --diffCacheLimit <arg>          the limit of the total size of the%n"
+                    + "                                    cached diffs, default is '256m'%n"
+                    + "    --extractFromSources            indicates that modules would be%n"
+                    + "                                    extracted by parsing the sources of%n"
+                    + "                                    the PR branch, without checkout and%n"
+                    + "                                    Maven%n"
+                    + "    --mavenProfile <arg>            the path of the properties file of the%n"
+                    + "                                    Maven invocation settings used by the%n"
+                    + "                                    extraction%n"
+                    + "    --includePaths <arg>            comma separated glob patterns of the%n"
+                    + "                                    paths to include in the diff, default%n"
+                    + "                                    is%n"
+                    + "                                    'src/main/java/**/*.java,src/test/java%n"
+                    + "                                    /**/*.java'%n"
+                    + "    --excludePaths <arg>            comma separated glob patterns of the%n"
+                    + "                                    paths to exclude from the diff%n"
+                    + "    --diffAlgorithm <arg>           the algorithm to compute the changed%n"
+                    + "                                    lines, either 'histogram' or 'myers',%n"
+                    + "                                    default is 'histogram'%n"
+                    + "    --renameScore <arg>             the minimum similarity score, from 0%n"
+                    + "                                    to 100, of a deleted file and an added%n"
+                    + "                                    file to be detected as a rename,%n"
+                    + "                                    default is 50%n"
+                    + "    --renameLimit <arg>             the number of deleted or added files%n"
+                    + "                                    above which only the renames of the%n"
+                    + "                                    same content are detected, default is%n"
+                    + "                                    200%n"
+                    + "    --packedGitMmap                 indicates that the pack windows would%n"
+                    + "                                    be memory mapped%n"
+                    + "    --packedGitWindowSize <arg>     the size of a pack window, a power of%n"
+                    + "                                    2 like '64k' or '1m'%n"
+                    + "    --packedGitLimit <arg>          the limit of the pack windows in%n"
+                    + "                                    memory, like '256m'%n"
+                    + "    --deltaBaseCacheLimit <arg>     the limit of the delta base cache of%n"
+                    + "                                    each reader, like '96m'%n");
 
     private static final String EOL = System.getProperty("line.separator");
 
@@ -65,7 +136,7 @@ public final class MainTest {
         exit.expectSystemExitWithStatus(-1);
         exit.checkAssertionAfterwards(() -> {
             assertEquals("Unexpected ouput log", USAGE, systemOut.getLog());
-            assertEquals("Unexpected system error log", "Missing required options: r, p" + EOL,
+            assertEquals("Unexpected system error log", "Missing required option: r" + EOL,
                     systemErr.getLog());
         });
         Main.main();
@@ -111,6 +182,63 @@ public final class MainTest {
         }
     }
 
+    @Test
+    public void testMissingBranch() throws Exception {
+        try {
+            final File directory = temporaryFolder.newFolder();
+            Main.main("-r", directory.getCanonicalPath(), "--stopAfterConfigGeneration");
+            fail("Exception is expected");
+        }
+        catch (IllegalArgumentException ex) {
+            assertEquals("Invalid error message",
+                    "missing patchBranch, which is required if you are not using"
+                            + " --workingTree mode", ex.getLocalizedMessage());
+        }
+    }
+
+    @Test
+    public void testWorkingTreeWithBranch() throws Exception {
+        try {
+            final File directory = temporaryFolder.newFolder();
+            Main.main("-r", directory.getCanonicalPath(), "-p", "BAD", "--workingTree",
+                    "--extractFromSources", "--stopAfterConfigGeneration");
+            fail("Exception is expected");
+        }
+        catch (IllegalArgumentException ex) {
+            assertEquals("Invalid error message",
+                    "patchBranch and --batch could not be used with --workingTree mode",
+                    ex.getLocalizedMessage());
+        }
+    }
+
+    @Test
+    public void testWorkingTreeWithMavenExtraction() throws Exception {
+        try {
+            final File directory = temporaryFolder.newFolder();
+            Main.main("-r", directory.getCanonicalPath(), "--workingTree",
+                    "--stopAfterConfigGeneration");
+            fail("Exception is expected");
+        }
+        catch (IllegalArgumentException ex) {
+            assertEquals("Invalid error message", "--workingTree mode requires either "
+                    + "checkstyleClassesPath or --extractFromSources", ex.getLocalizedMessage());
+        }
+    }
+
+    @Test
+    public void testWorkingTreeWithReport() throws Exception {
+        try {
+            final File directory = temporaryFolder.newFolder();
+            Main.main("-r", directory.getCanonicalPath(), "--workingTree",
+                    "--extractFromSources");
+            fail("Exception is expected");
+        }
+        catch (IllegalArgumentException ex) {
+            assertEquals("Invalid error message", "--workingTree mode could only be used "
+                    + "with --stopAfterConfigGeneration mode", ex.getLocalizedMessage());
+        }
+    }
+
     @Test
     public void testMissingTester() throws Exception {
         try {
@@ -154,4 +282,163 @@ public final class MainTest {
                     ex.getLocalizedMessage());
         }
     }
+
+    @Test
+    public void testClassesNonExistent() throws Exception {
+        try {
+            final File directory = temporaryFolder.newFolder();
+            Main.main("-r", directory.getCanonicalPath(), "-p", "BAD", "-c", "BAD",
+                    "--stopAfterConfigGeneration");
+            fail("Exception is expected");
+        }
+        catch (IllegalArgumentException ex) {
+            assertEquals("Invalid error message",
+                    "path of checkstyle classes must exist", ex.getLocalizedMessage());
+        }
+    }
+
+    @Test
+    public void testClassesWithExtractFromSources() throws Exception {
+        try {
+            final File directory = temporaryFolder.newFolder();
+            Main.main("-r", directory.getCanonicalPath(), "-p", "BAD",
+                    "-c", directory.getCanonicalPath(), "--extractFromSources",
+                    "--stopAfterConfigGeneration");
+            fail("Exception is expected");
+        }
+        catch (IllegalArgumentException ex) {
+            assertEquals("Invalid error message",
+                    "checkstyleClassesPath could not be used with --extractFromSources mode",
+                    ex.getLocalizedMessage());
+        }
+    }
+
+    @Test
+    public void testMavenProfileNonExistent() throws Exception {
+        try {
+            final File directory = temporaryFolder.newFolder();
+            Main.main("-r", directory.getCanonicalPath(), "-p", "BAD",
+                    "--mavenProfile", "BAD", "--stopAfterConfigGeneration");
+            fail("Exception is expected");
+        }
+        catch (IllegalArgumentException ex) {
+            assertEquals("Invalid error message",
+                    "path of maven profile must exist and be a file", ex.getLocalizedMessage());
+        }
+    }
+
+    @Test
+    public void testClassesWithBatch() throws Exception {
+        try {
+            final File directory = temporaryFolder.newFolder();
+            Main.main("-r", directory.getCanonicalPath(), "-p", "BAD", "--batch",
+                    "-c", directory.getCanonicalPath(), "--stopAfterConfigGeneration");
+            fail("Exception is expected");
+        }
+        catch (IllegalArgumentException ex) {
+            assertEquals("Invalid error message",
+                    "checkstyleClassesPath could not be used with --batch mode",
+                    ex.getLocalizedMessage());
+        }
+    }
+
+    @Test
+    public void testStateDirWithBatch() throws Exception {
+        try {
+            final File directory = temporaryFolder.newFolder();
+            Main.main("-r", directory.getCanonicalPath(), "-p", "BAD", "--batch",
+                    "--stateDir", directory.getCanonicalPath(), "--stopAfterConfigGeneration");
+            fail("Exception is expected");
+        }
+        catch (IllegalArgumentException ex) {
+            assertEquals("Invalid error message",
+                    "stateDir could not be used with --batch or --workingTree mode",
+                    ex.getLocalizedMessage());
+        }
+    }
+
+    @Test
+    public void testDiffAlgorithmInvalid() throws Exception {
+        try {
+            final File directory = temporaryFolder.newFolder();
+            Main.main("-r", directory.getCanonicalPath(), "-p", "BAD",
+                    "--diffAlgorithm", "BAD", "--stopAfterConfigGeneration");
+            fail("Exception is expected");
+        }
+        catch (IllegalArgumentException ex) {
+            assertEquals("Invalid error message",
+                    "diff algorithm must be either histogram or myers", ex.getLocalizedMessage());
+        }
+    }
+
+    @Test
+    public void testRenameScoreInvalid() throws Exception {
+        try {
+            final File directory = temporaryFolder.newFolder();
+            Main.main("-r", directory.getCanonicalPath(), "-p", "BAD",
+                    "--renameScore", "101", "--stopAfterConfigGeneration");
+            fail("Exception is expected");
+        }
+        catch (IllegalArgumentException ex) {
+            assertEquals("Invalid error message",
+                    "renameScore must be an integer from 0 to 100", ex.getLocalizedMessage());
+        }
+    }
+
+    @Test
+    public void testRenameLimitInvalid() throws Exception {
+        try {
+            final File directory = temporaryFolder.newFolder();
+            Main.main("-r", directory.getCanonicalPath(), "-p", "BAD",
+                    "--renameLimit", "none", "--stopAfterConfigGeneration");
+            fail("Exception is expected");
+        }
+        catch (IllegalArgumentException ex) {
+            assertEquals("Invalid error message",
+                    "renameLimit must be a positive integer", ex.getLocalizedMessage());
+        }
+    }
+
+    @Test
+    public void testDiffCacheLimitInvalid() throws Exception {
+        try {
+            final File directory = temporaryFolder.newFolder();
+            Main.main("-r", directory.getCanonicalPath(), "-p", "BAD",
+                    "--diffCacheLimit", "0", "--stopAfterConfigGeneration");
+            fail("Exception is expected");
+        }
+        catch (IllegalArgumentException ex) {
+            assertEquals("Invalid error message", "diffCacheLimit must be a positive number "
+                    + "with an optional k, m or g suffix", ex.getLocalizedMessage());
+        }
+    }
+
+    @Test
+    public void testPackSizeInvalid() throws Exception {
+        try {
+            final File directory = temporaryFolder.newFolder();
+            Main.main("-r", directory.getCanonicalPath(), "-p", "BAD",
+                    "--deltaBaseCacheLimit", "10x", "--stopAfterConfigGeneration");
+            fail("Exception is expected");
+        }
+        catch (IllegalArgumentException ex) {
+            assertEquals("Invalid error message", "size of pack options must be "
+                    + "a positive number with an optional k, m or g suffix",
+                    ex.getLocalizedMessage());
+        }
+    }
+
+    @Test
+    public void testPackedGitWindowSizeNotPowerOfTwo() throws Exception {
+        try {
+            final File directory = temporaryFolder.newFolder();
+            Main.main("-r", directory.getCanonicalPath(), "-p", "BAD",
+                    "--packedGitWindowSize", "3k", "--stopAfterConfigGeneration");
+            fail("Exception is expected");
+        }
+        catch (IllegalArgumentException ex) {
+            assertEquals("Invalid error message",
+                    "packedGitWindowSize must be a power of 2", ex.getLocalizedMessage());
+        }
+    }
 }
@@ -0,0 +1,58 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.data;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+public class DependencyGraphTest {
+    @Test
+    public void testDependents() {
+        final DependencyGraph graph = ImmutableDependencyGraph.builder()
+                .putDependencies("a.Foo", new HashSet<>(Arrays.asList("a.Bar", "a.Baz")))
+                .putDependencies("a.Bar", Collections.singleton("a.Baz"))
+                .putDependencies("a.Baz", Collections.emptySet())
+                .build();
+        assertEquals("The dependents are wrong", new HashSet<>(Arrays.asList("a.Foo", "a.Bar")),
+                graph.dependents().get("a.Baz"));
+        assertEquals("A class without dependents should be absent",
+                null, graph.dependents().get("a.Foo"));
+    }
+
+    @Test
+    public void testGetTransitiveDependents() {
+        final DependencyGraph graph = ImmutableDependencyGraph.builder()
+                .putDependencies("a.Foo", Collections.singleton("a.Bar"))
+                .putDependencies("a.Bar", Collections.singleton("a.Baz"))
+                .putDependencies("a.Baz", Collections.singleton("a.Bar"))
+                .putDependencies("a.Qux", Collections.emptySet())
+                .build();
+        assertEquals("The transitive dependents are wrong", Arrays.asList("a.Bar", "a.Baz",
+                "a.Foo"), Arrays.asList(graph.getTransitiveDependents(
+                        Collections.singleton("a.Baz")).toArray()));
+        assertEquals("There should be no dependents", Collections.emptySet(),
+                graph.getTransitiveDependents(Collections.singleton("a.Qux")));
+    }
+}
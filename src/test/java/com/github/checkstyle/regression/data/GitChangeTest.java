@@ -0,0 +1,82 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class GitChangeTest {
+    @Test
+    public void testDefaultLineChanges() {
+        final GitChange change = ImmutableGitChange.builder().path("Foo").build();
+        assertEquals("The default change type is wrong", ChangeType.MODIFY, change.changeType());
+        assertSame("There should be no added line", LineRanges.EMPTY, change.addedLineRanges());
+        assertEquals("There should be no deleted line",
+                Collections.emptyList(), change.deletedLines());
+    }
+
+    @Test
+    public void testLineChangesLoadedOnce() {
+        final AtomicInteger loads = new AtomicInteger();
+        final LineChanges lineChanges = ImmutableLineChanges.builder()
+                .added(LineRanges.builder().addRange(0, 2).build())
+                .build();
+        final GitChange change = ImmutableGitChange.builder()
+                .path("Foo")
+                .lineChangesLoader(() -> {
+                    loads.incrementAndGet();
+                    return lineChanges;
+                })
+                .build();
+        assertEquals("The line changes should not be loaded before accessed", 0, loads.get());
+        assertEquals("The added lines are wrong", Arrays.asList(0, 1), change.addedLines());
+        assertSame("The line changes are wrong", lineChanges, change.lineChanges());
+        assertEquals("The line changes should be loaded once", 1, loads.get());
+    }
+
+    @Test
+    public void testLineChangesLoadFailure() {
+        final IOException failure = new IOException("failed");
+        final GitChange change = ImmutableGitChange.builder()
+                .path("Foo")
+                .lineChangesLoader(() -> {
+                    throw failure;
+                })
+                .build();
+        try {
+            change.lineChanges();
+            fail("Exception is expected");
+        }
+        catch (UncheckedIOException ex) {
+            assertEquals("Exception message is wrong",
+                    "unable to load the line changes of Foo", ex.getMessage());
+            assertSame("Exception cause is wrong", failure, ex.getCause());
+        }
+    }
+}
@@ -0,0 +1,119 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class LineRangesTest {
+    @Test
+    public void testBuildMergesRanges() {
+        final LineRanges ranges = LineRanges.builder()
+                .addRange(10, 12)
+                .addRange(1, 3)
+                .addRange(2, 5)
+                .addLine(5)
+                .addRange(7, 7)
+                .build();
+        assertEquals("The range count is wrong", 2, ranges.getRangeCount());
+        assertEquals("The first start is wrong", 1, ranges.getStart(0));
+        assertEquals("The first end is wrong", 6, ranges.getEnd(0));
+        assertEquals("The second start is wrong", 10, ranges.getStart(1));
+        assertEquals("The second end is wrong", 12, ranges.getEnd(1));
+        assertEquals("The size is wrong", 7, ranges.size());
+        assertEquals("The string form is wrong", "[1..5, 10..11]", ranges.toString());
+    }
+
+    @Test
+    public void testEmpty() {
+        final LineRanges ranges = LineRanges.builder().addRange(3, 3).build();
+        assertSame("Empty ranges should be shared", LineRanges.EMPTY, ranges);
+        assertTrue("The ranges should be empty", ranges.isEmpty());
+        assertEquals("The list view is wrong", Collections.emptyList(), ranges.toList());
+        assertFalse("Empty ranges should contain no line", ranges.contains(0));
+    }
+
+    @Test
+    public void testContains() {
+        final LineRanges ranges = LineRanges.builder().addRange(2, 4).addLine(8).build();
+        assertFalse("Line before the ranges should not be contained", ranges.contains(1));
+        assertTrue("Start of a range should be contained", ranges.contains(2));
+        assertTrue("Last line of a range should be contained", ranges.contains(3));
+        assertFalse("End of a range should not be contained", ranges.contains(4));
+        assertTrue("Single line should be contained", ranges.contains(8));
+        assertFalse("Line after the ranges should not be contained", ranges.contains(9));
+    }
+
+    @Test
+    public void testOverlaps() {
+        final LineRanges ranges = LineRanges.builder().addRange(2, 4).addRange(8, 10).build();
+        assertFalse("Range before the ranges should not overlap", ranges.overlaps(0, 2));
+        assertTrue("Range across a start should overlap", ranges.overlaps(1, 3));
+        assertTrue("Range inside a range should overlap", ranges.overlaps(8, 9));
+        assertFalse("Range between the ranges should not overlap", ranges.overlaps(4, 8));
+        assertTrue("Range covering a whole range should overlap", ranges.overlaps(5, 11));
+        assertFalse("Empty range should not overlap", ranges.overlaps(3, 3));
+        assertFalse("Range after the ranges should not overlap", ranges.overlaps(10, 20));
+    }
+
+    @Test
+    public void testToList() {
+        final LineRanges ranges = LineRanges.builder().addRange(1, 3).addLine(5).build();
+        assertEquals("The list view is wrong", Arrays.asList(1, 2, 5), ranges.toList());
+        try {
+            ranges.toList().get(3);
+            fail("Exception is expected");
+        }
+        catch (IndexOutOfBoundsException ex) {
+            assertEquals("Exception message is wrong", "Index: 3", ex.getMessage());
+        }
+    }
+
+    @Test
+    public void testEquality() {
+        final LineRanges ranges = LineRanges.builder().addRange(1, 3).build();
+        final LineRanges same = LineRanges.builder().addLine(2).addLine(1).build();
+        assertEquals("Ranges of same lines should be equal", ranges, same);
+        assertEquals("Hash codes of equal ranges should be equal",
+                ranges.hashCode(), same.hashCode());
+        assertFalse("Ranges of different lines should not be equal",
+                ranges.equals(LineRanges.builder().addRange(1, 4).build()));
+    }
+
+    @Test
+    public void testIllegalRange() {
+        try {
+            LineRanges.builder().addRange(3, 2);
+            fail("Exception is expected");
+        }
+        catch (IllegalArgumentException ex) {
+            assertEquals("Exception message is wrong",
+                    "illegal line range: 3 until 2", ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,139 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.extract;
+
+import static com.github.checkstyle.regression.internal.TestUtils.assertUtilsClassHasPrivateConstructor;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.Test;
+
+import com.github.checkstyle.regression.Main;
+
+public class ClassScannerTest {
+    @Test
+    public void testIsProperUtilsClass() throws Exception {
+        assertUtilsClassHasPrivateConstructor(ClassScanner.class);
+        assertUtilsClassHasPrivateConstructor(ClassFileReader.class);
+    }
+
+    @Test
+    public void testScanDirectory() throws Exception {
+        final Map<String, ClassInfo> classes = ClassScanner.scan(new File("target/classes"));
+
+        final ClassInfo processor = classes.get(ExtractInfoProcessor.class.getName());
+        assertEquals("The super class is wrong",
+                Optional.of("java.lang.Object"), processor.superName());
+        assertTrue("The private constructor without parameters should be found",
+                processor.hasDefaultConstructor());
+        assertTrue("ExtractInfoProcessor is a top level class", processor.isTopLevel());
+        assertFalse("ExtractInfoProcessor is not abstract", processor.isAbstract());
+
+        final ClassInfo cache = classes.get(ExtractInfoCache.class.getName());
+        assertFalse("ExtractInfoCache has no constructor without parameters",
+                cache.hasDefaultConstructor());
+
+        final ClassInfo classInfo = classes.get(ClassInfo.class.getName());
+        assertTrue("Interfaces should be considered as abstract", classInfo.isAbstract());
+        assertEquals("Interfaces should have no super class",
+                Optional.empty(), classInfo.superName());
+        assertEquals("The package name is wrong",
+                "com.github.checkstyle.regression.extract", classInfo.packageName());
+        assertEquals("The simple name is wrong", "ClassInfo", classInfo.simpleName());
+
+        final ClassInfo builder = classes.get(ImmutableClassInfo.Builder.class.getCanonicalName());
+        assertFalse("Nested classes are not top level classes", builder.isTopLevel());
+        assertEquals("The interfaces are wrong", Collections.singletonList("java.io.Closeable"),
+                classes.get(CheckstyleInjector.class.getName()).interfaces());
+    }
+
+    @Test
+    public void testScanNonExistentLocation() throws Exception {
+        try {
+            ClassScanner.scan(new File("BAD"));
+            fail("Exception is expected");
+        }
+        catch (IOException ex) {
+            assertEquals("Exception message is wrong",
+                    "class location does not exist: BAD", ex.getMessage());
+        }
+    }
+
+    @Test
+    public void testReadNonClassFile() throws Exception {
+        try {
+            ClassFileReader.read(new ByteArrayInputStream(new byte[] {0, 1, 2, 3}));
+            fail("Exception is expected");
+        }
+        catch (IOException ex) {
+            assertEquals("Exception message is wrong", "not a class file", ex.getMessage());
+        }
+    }
+
+    @Test
+    public void testReadWhenSkipMakesNoProgress() throws Exception {
+        final byte[] bytes = Files.readAllBytes(new File("target/classes/"
+                + Main.class.getName().replace('.', '/') + ".class").toPath());
+        final ClassInfo expected = ClassFileReader.read(new ByteArrayInputStream(bytes));
+        assertEquals("Attributes should be skipped even if the stream skips nothing",
+                expected, ClassFileReader.read(new NonSkippingInputStream(
+                        new ByteArrayInputStream(bytes))));
+    }
+
+    @Test
+    public void testReadTruncatedClassFile() throws Exception {
+        final byte[] bytes = Files.readAllBytes(new File("target/classes/"
+                + Main.class.getName().replace('.', '/') + ".class").toPath());
+        try {
+            ClassFileReader.read(new NonSkippingInputStream(new ByteArrayInputStream(
+                    Arrays.copyOf(bytes, bytes.length * 9 / 10))));
+            fail("Exception is expected");
+        }
+        catch (IOException ex) {
+            assertTrue("A truncated class file should fail at its end",
+                    ex instanceof EOFException);
+        }
+    }
+
+    private static final class NonSkippingInputStream extends FilterInputStream {
+        NonSkippingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public long skip(long count) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.extract;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.checkstyle.regression.data.DependencyGraph;
+import com.github.checkstyle.regression.data.ImmutableDependencyGraph;
+
+public class DependencyCacheTest {
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testPutAndGet() throws Exception {
+        final DependencyCache cache =
+                new DependencyCache(new File(temporaryFolder.getRoot(), "cache"));
+        assertNull("There should be no entry before putting", cache.get("key"));
+        final DependencyGraph graph = ImmutableDependencyGraph.builder()
+                .putDependencies("a.Foo", new HashSet<>(Arrays.asList("a.Bar", "a.Baz")))
+                .putDependencies("a.Bar", Collections.singleton("a.Baz"))
+                .putDependencies("a.Baz", Collections.emptySet())
+                .build();
+        cache.put("key", graph);
+        assertEquals("The cached graph is wrong", graph, cache.get("key"));
+    }
+
+    @Test
+    public void testGetCorruptedEntry() throws Exception {
+        final File cacheDir = temporaryFolder.newFolder();
+        final File entry = new File(cacheDir, "key.deps");
+        Files.write(entry.toPath(), "corrupted".getBytes(Charset.forName("UTF-8")));
+        assertNull("A corrupted entry should be missing", new DependencyCache(cacheDir)
+                .get("key"));
+        assertFalse("A corrupted entry should be deleted", entry.exists());
+    }
+}
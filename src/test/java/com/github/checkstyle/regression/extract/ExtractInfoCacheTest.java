@@ -0,0 +1,102 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.extract;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import org.eclipse.jgit.lib.Repository;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.checkstyle.regression.internal.FileUtils;
+import com.github.checkstyle.regression.internal.GitUtils;
+
+public class ExtractInfoCacheTest {
+    private static final String MAIN_SOURCE = "src/main/java/Foo.java";
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @After
+    public void tearDown() throws Exception {
+        GitUtils.clearTempRepositories();
+    }
+
+    @Test
+    public void testKeyIgnoresChangesOutsideMainSources() throws Exception {
+        try (Repository repository = GitUtils.createNewRepository()) {
+            GitUtils.addAnEmptyFileAndCommit(repository, MAIN_SOURCE);
+            final String masterKey = ExtractInfoCache.createKey(repository, "master");
+            GitUtils.createNewBranchAndCheckout(repository, "foo");
+            GitUtils.addAnEmptyFileAndCommit(repository, "src/test/java/FooTest.java");
+            assertEquals("Changes outside main sources should not change the key",
+                    masterKey, ExtractInfoCache.createKey(repository, "foo"));
+        }
+    }
+
+    @Test
+    public void testKeyChangesWithMainSources() throws Exception {
+        try (Repository repository = GitUtils.createNewRepository()) {
+            final File source = GitUtils.addAnEmptyFileAndCommit(repository, MAIN_SOURCE);
+            final String masterKey = ExtractInfoCache.createKey(repository, "master");
+            GitUtils.createNewBranchAndCheckout(repository, "foo");
+            Files.write(source.toPath(), "class Foo {}".getBytes(Charset.forName("UTF-8")),
+                    StandardOpenOption.APPEND);
+            GitUtils.addAllAndCommit(repository, "modify Foo");
+            assertNotEquals("Changes of main sources should change the key",
+                    masterKey, ExtractInfoCache.createKey(repository, "foo"));
+        }
+    }
+
+    @Test
+    public void testKeyOfNonExistentBranch() throws Exception {
+        try (Repository repository = GitUtils.createNewRepository()) {
+            GitUtils.addAnEmptyFileAndCommit(repository, MAIN_SOURCE);
+            ExtractInfoCache.createKey(repository, "BAD");
+            fail("Exception is expected");
+        }
+        catch (InjectException ex) {
+            assertEquals("Exception message is wrong",
+                    "unable to find branch BAD", ex.getMessage());
+        }
+    }
+
+    @Test
+    public void testPutAndGet() throws Exception {
+        final ExtractInfoCache cache =
+                new ExtractInfoCache(new File(temporaryFolder.getRoot(), "cache"));
+        assertNull("There should be no entry before putting", cache.get("key"));
+        final File generated = temporaryFolder.newFile();
+        Files.write(generated.toPath(), "[]".getBytes(Charset.forName("UTF-8")));
+        final File entry = cache.put("key", generated);
+        assertEquals("The cached file is wrong", entry, cache.get("key"));
+        assertEquals("The cached content is wrong", "[]", FileUtils.readFile(entry));
+    }
+}
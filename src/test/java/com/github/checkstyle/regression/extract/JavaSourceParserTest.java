@@ -0,0 +1,149 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.extract;
+
+import static com.github.checkstyle.regression.internal.TestUtils.assertUtilsClassHasPrivateConstructor;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Test;
+
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+
+public class JavaSourceParserTest {
+    @Test
+    public void testIsProperUtilsClass() throws Exception {
+        assertUtilsClassHasPrivateConstructor(JavaSourceParser.class);
+    }
+
+    @Test
+    public void testParseClass() throws Exception {
+        final List<SourceClass> classes = JavaSourceParser.parse("Foo.java",
+                "package foo.bar;\n"
+                + "import java.util.List;\n"
+                + "import java.util.*;\n"
+                + "import static java.util.Collections.emptyList;\n"
+                + "public abstract class Foo<T> extends Base<T>\n"
+                + "        implements java.io.Serializable, Map.Entry<T, T> {\n"
+                + "    private Foo(int value) {}\n"
+                + "}\n");
+        assertEquals("The count of classes is wrong", 1, classes.size());
+        final SourceClass foo = classes.get(0);
+        assertEquals("The name is wrong", "foo.bar.Foo", foo.name());
+        assertEquals("The package name is wrong", "foo.bar", foo.packageName());
+        assertEquals("The enclosing names are wrong",
+                Collections.emptyList(), foo.enclosingNames());
+        assertEquals("The single-type imports are wrong",
+                Collections.singletonMap("List", "java.util.List"), foo.singleTypeImports());
+        assertEquals("The on-demand imports are wrong",
+                Collections.singletonList("java.util"), foo.onDemandImports());
+        assertEquals("The raw super name is wrong", Optional.of("Base"), foo.rawSuperName());
+        assertEquals("The raw interfaces are wrong",
+                Arrays.asList("java.io.Serializable", "Map.Entry"), foo.rawInterfaces());
+        assertTrue("The class should be abstract", foo.isAbstract());
+        assertFalse("The class should not have a default constructor",
+                foo.hasDefaultConstructor());
+    }
+
+    @Test
+    public void testParseNestedTypes() throws Exception {
+        final List<SourceClass> classes = JavaSourceParser.parse("Foo.java",
+                "class Foo {\n"
+                + "    Foo() {}\n"
+                + "    Foo(int value) {}\n"
+                + "    interface Bar extends Comparable<Bar>, Cloneable {\n"
+                + "        enum Baz implements Runnable { A; public void run() {} }\n"
+                + "    }\n"
+                + "    @interface Qux {}\n"
+                + "}\n");
+        assertEquals("The count of classes is wrong", 4, classes.size());
+
+        final SourceClass foo = classes.get(0);
+        assertEquals("The name is wrong", "Foo", foo.name());
+        assertEquals("The package name is wrong", "", foo.packageName());
+        assertEquals("The raw super name is wrong", Optional.empty(), foo.rawSuperName());
+        assertFalse("The class should not be abstract", foo.isAbstract());
+        assertTrue("The class should have a default constructor", foo.hasDefaultConstructor());
+
+        final SourceClass bar = classes.get(1);
+        assertEquals("The name is wrong", "Foo.Bar", bar.name());
+        assertEquals("The enclosing names are wrong",
+                Collections.singletonList("Foo"), bar.enclosingNames());
+        assertTrue("The interface should be abstract", bar.isAbstract());
+        assertEquals("The raw interfaces are wrong",
+                Arrays.asList("Comparable", "Cloneable"), bar.rawInterfaces());
+
+        final SourceClass baz = classes.get(2);
+        assertEquals("The name is wrong", "Foo.Bar.Baz", baz.name());
+        assertEquals("The enclosing names are wrong",
+                Arrays.asList("Foo.Bar", "Foo"), baz.enclosingNames());
+        assertEquals("The raw super name is wrong",
+                Optional.of("java.lang.Enum"), baz.rawSuperName());
+        assertEquals("The raw interfaces are wrong",
+                Collections.singletonList("Runnable"), baz.rawInterfaces());
+
+        final SourceClass qux = classes.get(3);
+        assertEquals("The name is wrong", "Foo.Qux", qux.name());
+        assertTrue("The annotation should be abstract", qux.isAbstract());
+        assertEquals("The raw interfaces are wrong",
+                Collections.singletonList("java.lang.annotation.Annotation"),
+                qux.rawInterfaces());
+    }
+
+    @Test
+    public void testParseReferences() throws Exception {
+        final SourceReferences references = JavaSourceParser.parseReferences("Foo.java",
+                "package foo.bar;\n"
+                + "import java.util.List;\n"
+                + "import java.util.*;\n"
+                + "import static foo.Util.check;\n"
+                + "class Foo extends Base {\n"
+                + "    List<Helper> field = check(Other.VALUE);\n"
+                + "}\n");
+        assertEquals("The package name is wrong", "foo.bar", references.packageName());
+        assertEquals("The imports are wrong",
+                Arrays.asList("java.util.List", "foo.Util.check"), references.imports());
+        assertEquals("The on-demand imports are wrong",
+                Collections.singletonList("java.util"), references.onDemandImports());
+        assertEquals("The identifiers are wrong", new HashSet<>(Arrays.asList(
+                "Foo", "Base", "List", "Helper", "field", "check", "Other", "VALUE")),
+                references.identifiers());
+    }
+
+    @Test
+    public void testParseInvalidSource() {
+        try {
+            JavaSourceParser.parse("Foo.java", "class Foo {");
+            fail("Exception is expected");
+        }
+        catch (CheckstyleException ex) {
+            assertTrue("Exception message is wrong",
+                    ex.getMessage().contains("Foo.java"));
+        }
+    }
+}
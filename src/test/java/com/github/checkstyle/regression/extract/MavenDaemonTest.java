@@ -0,0 +1,102 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.extract;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Properties;
+
+import org.apache.maven.shared.invoker.DefaultInvocationRequest;
+import org.apache.maven.shared.invoker.DefaultInvoker;
+import org.apache.maven.shared.invoker.InvocationRequest;
+import org.apache.maven.shared.invoker.Invoker;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MavenDaemonTest {
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testConfigure() throws Exception {
+        final File executable = new File("/opt/mvnd/bin/mvnd");
+        final File storageDir = temporaryFolder.newFolder();
+        final MavenProfile profile = ImmutableMavenProfile.builder()
+                .jvmOptions("-Xmx1g")
+                .daemonIdleTimeout("1h")
+                .build();
+        final Invoker invoker = new DefaultInvoker();
+        final InvocationRequest request = new DefaultInvocationRequest();
+        final Properties properties = new Properties();
+        new MavenDaemon(executable, storageDir, profile)
+                .configure(invoker, request, properties);
+
+        assertEquals("The executable is wrong", executable, invoker.getMavenExecutable());
+        assertTrue("The invocation should be offline", request.isOffline());
+        assertEquals("The storage directory is wrong", storageDir.getAbsolutePath(),
+                properties.getProperty("mvnd.daemonStorage"));
+        assertEquals("The idle timeout is wrong", "1h",
+                properties.getProperty("mvnd.idleTimeout"));
+        assertEquals("The JVM arguments are wrong", "-Xmx1g",
+                properties.getProperty("mvnd.jvmArgs"));
+    }
+
+    @Test
+    public void testStop() throws Exception {
+        final File arguments = temporaryFolder.newFile();
+        final File executable = createScript("echo \"$@\" > " + arguments.getAbsolutePath());
+        final File storageDir = temporaryFolder.newFolder();
+        new MavenDaemon(executable, storageDir, ImmutableMavenProfile.builder().build()).stop();
+        assertEquals("The arguments of the daemon client are wrong",
+                "--stop -Dmvnd.daemonStorage=" + storageDir.getAbsolutePath() + "\n",
+                new String(Files.readAllBytes(arguments.toPath()), Charset.forName("UTF-8")));
+    }
+
+    @Test
+    public void testStopFailure() throws Exception {
+        final File executable = createScript("exit 3");
+        try {
+            new MavenDaemon(executable, temporaryFolder.newFolder(),
+                    ImmutableMavenProfile.builder().build()).stop();
+            fail("Exception is expected");
+        }
+        catch (IOException ex) {
+            assertEquals("Exception message is wrong",
+                    "maven daemon stop exit with code: 3", ex.getMessage());
+        }
+    }
+
+    private File createScript(String command) throws IOException {
+        assumeTrue("Shell scripts are required", new File("/bin/sh").canExecute());
+        final File script = temporaryFolder.newFile("mvnd");
+        Files.write(script.toPath(), ("#!/bin/sh\n" + command + "\n")
+                .getBytes(Charset.forName("UTF-8")));
+        assertTrue("Unable to make the script executable", script.setExecutable(true));
+        return script;
+    }
+}
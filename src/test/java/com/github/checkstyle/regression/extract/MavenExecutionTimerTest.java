@@ -0,0 +1,71 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.extract;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class MavenExecutionTimerTest {
+    @Test
+    public void testTimes() throws Exception {
+        final long[] now = {0};
+        final List<String> output = new ArrayList<>();
+        final MavenExecutionTimer timer = new MavenExecutionTimer(output::add, () -> now[0]);
+        timer.consumeLine("[INFO] Scanning for projects...");
+        now[0] = TimeUnit.MILLISECONDS.toNanos(10);
+        timer.consumeLine("[INFO] --- maven-resources-plugin:2.6:resources "
+                + "(default-resources) @ checkstyle ---");
+        now[0] = TimeUnit.MILLISECONDS.toNanos(30);
+        timer.consumeLine("[INFO] Copying 1 resource");
+        now[0] = TimeUnit.MILLISECONDS.toNanos(40);
+        timer.consumeLine("[INFO] --- compiler:3.8.1:compile (default-compile) @ checkstyle ---");
+        now[0] = TimeUnit.MILLISECONDS.toNanos(100);
+        timer.consumeLine("[INFO] BUILD SUCCESS");
+        timer.finish();
+        assertEquals("The output should be passed on", 5, output.size());
+
+        final Map<String, Long> expected = new LinkedHashMap<>();
+        expected.put("maven-resources-plugin:2.6:resources (default-resources)", 30L);
+        expected.put("compiler:3.8.1:compile (default-compile)", 60L);
+        assertEquals("The times are wrong", expected, timer.getTimes());
+        assertEquals("The order of executions is wrong",
+                Arrays.asList(expected.keySet().toArray()),
+                Arrays.asList(timer.getTimes().keySet().toArray()));
+        assertTrue("The report should contain the total",
+                timer.getReport().endsWith("90 ms  total"));
+    }
+
+    @Test
+    public void testFinishWithoutExecution() throws Exception {
+        final MavenExecutionTimer timer = new MavenExecutionTimer(line -> { });
+        timer.consumeLine("[INFO] BUILD FAILURE");
+        timer.finish();
+        assertTrue("There should be no execution", timer.getTimes().isEmpty());
+    }
+}
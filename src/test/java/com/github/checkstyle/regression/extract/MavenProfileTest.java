@@ -0,0 +1,71 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.extract;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Optional;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MavenProfileTest {
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testLoadEmpty() throws Exception {
+        final File file = temporaryFolder.newFile();
+        assertEquals("Empty profile should be the default one",
+                ImmutableMavenProfile.builder().build(), MavenProfile.load(file));
+    }
+
+    @Test
+    public void testLoad() throws Exception {
+        final File file = temporaryFolder.newFile();
+        Files.write(file.toPath(), ("offline=true\n"
+                + "skipAnalysis=true\n"
+                + "threads=1C\n"
+                + "localRepository=/tmp/m2\n"
+                + "jvmOptions=-Xmx1g -XX:+TieredCompilation\n"
+                + "reuseClasses=true\n"
+                + "daemonExecutable=/opt/mvnd/bin/mvnd\n"
+                + "daemonIdleTimeout=1h\n"
+                + "stopDaemon=true\n").getBytes(Charset.forName("UTF-8")));
+        final MavenProfile profile = MavenProfile.load(file);
+        assertEquals("Offline is wrong", true, profile.offline());
+        assertEquals("Skip analysis is wrong", true, profile.skipAnalysis());
+        assertEquals("Threads is wrong", Optional.of("1C"), profile.threads());
+        assertEquals("Local repository is wrong",
+                Optional.of("/tmp/m2"), profile.localRepository());
+        assertEquals("JVM options is wrong",
+                Optional.of("-Xmx1g -XX:+TieredCompilation"), profile.jvmOptions());
+        assertEquals("Reuse classes is wrong", true, profile.reuseClasses());
+        assertEquals("Daemon executable is wrong",
+                Optional.of("/opt/mvnd/bin/mvnd"), profile.daemonExecutable());
+        assertEquals("Daemon idle timeout is wrong",
+                Optional.of("1h"), profile.daemonIdleTimeout());
+        assertEquals("Stop daemon is wrong", true, profile.stopDaemon());
+    }
+}
@@ -0,0 +1,126 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.extract;
+
+import static com.github.checkstyle.regression.internal.TestUtils.assertUtilsClassHasPrivateConstructor;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+import com.github.checkstyle.regression.data.ModuleExtractInfo;
+import com.google.common.reflect.ClassPath;
+import com.puppycrawl.tools.checkstyle.api.AbstractCheck;
+import com.puppycrawl.tools.checkstyle.utils.ModuleReflectionUtil;
+
+public class ModuleClassifierTest {
+    @Test
+    public void testIsProperUtilsClass() throws Exception {
+        assertUtilsClassHasPrivateConstructor(ModuleClassifier.class);
+    }
+
+    @Test
+    public void testClassifyIsSameAsReflection() throws Exception {
+        final File jar = new File(AbstractCheck.class.getProtectionDomain()
+                .getCodeSource().getLocation().toURI());
+        final Map<String, ModuleExtractInfo> actual =
+                ModuleClassifier.classify(ClassScanner.scan(jar));
+
+        final Map<String, String> expected = new TreeMap<>();
+        for (ClassPath.ClassInfo classInfo : ClassPath.from(getClass().getClassLoader())
+                .getTopLevelClassesRecursive("com.puppycrawl.tools.checkstyle")) {
+            final Class<?> clazz = loadClass(classInfo);
+            if (clazz != null && ModuleReflectionUtil.isCheckstyleModule(clazz)) {
+                expected.put(clazz.getName(), getParent(clazz));
+            }
+        }
+
+        final Map<String, String> actualParents = new TreeMap<>();
+        actual.forEach((name, extractInfo) -> actualParents.put(name, extractInfo.parent()));
+        assertEquals("The classified modules are not the same as reflection",
+                expected, actualParents);
+    }
+
+    @Test
+    public void testClassifyHierarchiesAreSameAsReflection() throws Exception {
+        final File jar = new File(AbstractCheck.class.getProtectionDomain()
+                .getCodeSource().getLocation().toURI());
+        final Map<String, ModuleExtractInfo> actual =
+                ModuleClassifier.classify(ClassScanner.scan(jar));
+
+        for (ModuleExtractInfo extractInfo : actual.values()) {
+            final Class<?> clazz = Class.forName(extractInfo.fullName());
+            final List<String> hierarchies = new ArrayList<>();
+            final List<String> interfaces = new ArrayList<>();
+            addInterfaces(interfaces, clazz);
+            Class<?> superClass = clazz.getSuperclass();
+            while (!Object.class.equals(superClass)) {
+                hierarchies.add(superClass.getCanonicalName());
+                addInterfaces(interfaces, superClass);
+                superClass = superClass.getSuperclass();
+            }
+            assertEquals("The hierarchies are wrong for " + extractInfo.fullName(),
+                    hierarchies, extractInfo.hierarchies());
+            assertEquals("The interfaces are wrong for " + extractInfo.fullName(),
+                    interfaces, extractInfo.interfaces());
+        }
+    }
+
+    private static void addInterfaces(List<String> interfaces, Class<?> clazz) {
+        for (Class<?> implemented : clazz.getInterfaces()) {
+            interfaces.add(implemented.getCanonicalName());
+        }
+    }
+
+    /**
+     * Loads the class, the classes which depend on optional libraries of checkstyle,
+     * like the ant task, could not be loaded and they are not modules.
+     */
+    private static Class<?> loadClass(ClassPath.ClassInfo classInfo) {
+        Class<?> clazz;
+        try {
+            clazz = classInfo.load();
+        }
+        catch (NoClassDefFoundError ignored) {
+            clazz = null;
+        }
+        return clazz;
+    }
+
+    private static String getParent(Class<?> clazz) {
+        final String parent;
+        if (ModuleReflectionUtil.isCheckstyleTreeWalkerCheck(clazz)
+                || ModuleReflectionUtil.isTreeWalkerFilterModule(clazz)) {
+            parent = "TreeWalker";
+        }
+        else if (ModuleReflectionUtil.isRootModule(clazz)) {
+            parent = "";
+        }
+        else {
+            parent = "Checker";
+        }
+        return parent;
+    }
+}
@@ -0,0 +1,241 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.extract;
+
+import static com.github.checkstyle.regression.internal.TestUtils.assertUtilsClassHasPrivateConstructor;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import org.eclipse.jgit.lib.Repository;
+import org.junit.After;
+import org.junit.Test;
+
+import com.github.checkstyle.regression.data.ChangeType;
+import com.github.checkstyle.regression.data.FilteredChanges;
+import com.github.checkstyle.regression.data.GitChange;
+import com.github.checkstyle.regression.data.ImmutableGitChange;
+import com.github.checkstyle.regression.data.ImmutableLineChanges;
+import com.github.checkstyle.regression.data.LineChangesLoader;
+import com.github.checkstyle.regression.data.LineRanges;
+import com.github.checkstyle.regression.git.RepositorySession;
+import com.github.checkstyle.regression.internal.GitUtils;
+
+public class NeutralChangeFilterTest {
+    private static final String FOO_SOURCE = "src/main/java/foo/Foo.java";
+
+    private static final String BAR_SOURCE = "src/main/java/foo/Bar.java";
+
+    private static final String FOO_CONTENT = "package foo;\n"
+            + "import java.util.List;\n"
+            + "/** Foo. */\n"
+            + "class Foo {\n"
+            + "    // the count\n"
+            + "    int count = 1;\n"
+            + "}\n";
+
+    @After
+    public void tearDown() throws Exception {
+        GitUtils.clearTempRepositories();
+    }
+
+    @Test
+    public void testIsProperUtilsClass() throws Exception {
+        assertUtilsClassHasPrivateConstructor(NeutralChangeFilter.class);
+    }
+
+    @Test
+    public void testCommentChangeIsNeutral() throws Exception {
+        final String newContent = FOO_CONTENT
+                .replace("/** Foo. */", "/**\n * The Foo.\n */")
+                .replace("// the count", "// the count of foo");
+        final GitChange change = createChange(FOO_SOURCE, ChangeType.MODIFY,
+                LineRanges.builder().addRange(2, 5).addLine(6).build(),
+                LineRanges.builder().addLine(2).addLine(4).build());
+        assertEquals("The reason is wrong",
+                Optional.of("only comments, Javadoc, imports or blank lines are changed"),
+                NeutralChangeFilter.getNeutralReason(change, FOO_CONTENT, newContent));
+    }
+
+    @Test
+    public void testImportChangeIsNeutral() throws Exception {
+        final String oldContent = FOO_CONTENT.replace("import java.util.List;",
+                "import java.util.List;\nimport static java.util.Collections.emptyList;");
+        final String newContent = FOO_CONTENT.replace("import java.util.List;",
+                "import static java.util.Collections.emptyList;\n\nimport java.util.List;");
+        final GitChange change = createChange(FOO_SOURCE, ChangeType.MODIFY,
+                LineRanges.builder().addRange(1, 3).build(),
+                LineRanges.builder().addRange(2, 3).build());
+        assertEquals("Reordered imports should be neutral",
+                Optional.of("only comments, Javadoc, imports or blank lines are changed"),
+                NeutralChangeFilter.getNeutralReason(change, oldContent, newContent));
+    }
+
+    @Test
+    public void testImportTargetChangeIsNotNeutral() throws Exception {
+        final GitChange change = createChange(FOO_SOURCE, ChangeType.MODIFY,
+                LineRanges.builder().addLine(1).build(),
+                LineRanges.builder().addLine(1).build());
+        assertEquals("Changes of import targets should not be neutral", Optional.empty(),
+                NeutralChangeFilter.getNeutralReason(change, FOO_CONTENT,
+                        FOO_CONTENT.replace("java.util.List", "java.awt.List")));
+        final String oldContent = FOO_CONTENT.replace("import java.util.List;",
+                "import static java.util.Collections.emptyList;");
+        assertEquals("Changes of static import targets should not be neutral",
+                Optional.empty(), NeutralChangeFilter.getNeutralReason(change, oldContent,
+                        oldContent.replace("Collections", "Arrays")));
+        assertEquals("Added imports should not be neutral", Optional.empty(),
+                NeutralChangeFilter.getNeutralReason(change, FOO_CONTENT,
+                        FOO_CONTENT.replace("import java.util.List;",
+                                "import java.util.List;\nimport java.util.Map;")));
+        assertEquals("Removed imports should not be neutral", Optional.empty(),
+                NeutralChangeFilter.getNeutralReason(change, FOO_CONTENT,
+                        FOO_CONTENT.replace("import java.util.List;", "")));
+    }
+
+    @Test
+    public void testFormattingChangeIsNeutral() throws Exception {
+        final String newContent = FOO_CONTENT.replace("int count = 1;", "int count =\n1 ;");
+        final GitChange change = createChange(FOO_SOURCE, ChangeType.MODIFY,
+                LineRanges.builder().addRange(5, 7).build(),
+                LineRanges.builder().addLine(5).build());
+        assertEquals("The reason is wrong", Optional.of("only formatting is changed"),
+                NeutralChangeFilter.getNeutralReason(change, FOO_CONTENT, newContent));
+    }
+
+    @Test
+    public void testChangeWithoutLinesIsNeutral() throws Exception {
+        final String newContent = FOO_CONTENT.replace("// the count", "");
+        final GitChange change = createChange(FOO_SOURCE, ChangeType.MODIFY,
+                LineRanges.EMPTY, LineRanges.EMPTY);
+        assertEquals("The reason is wrong",
+                Optional.of("only comments, Javadoc, imports or formatting are changed"),
+                NeutralChangeFilter.getNeutralReason(change, FOO_CONTENT, newContent));
+    }
+
+    @Test
+    public void testCodeChangeIsNotNeutral() throws Exception {
+        final GitChange change = createChange(FOO_SOURCE, ChangeType.MODIFY,
+                LineRanges.builder().addLine(5).build(),
+                LineRanges.builder().addLine(5).build());
+        assertEquals("Changes of code should not be neutral", Optional.empty(),
+                NeutralChangeFilter.getNeutralReason(change, FOO_CONTENT,
+                        FOO_CONTENT.replace("count = 1", "count = 2")));
+        assertEquals("Moved code should not be neutral", Optional.empty(),
+                NeutralChangeFilter.getNeutralReason(change, FOO_CONTENT,
+                        FOO_CONTENT.replace("int count = 1;", "{ int count = 1; }")));
+    }
+
+    @Test
+    public void testParseFailureIsNotNeutral() throws Exception {
+        final GitChange change = createChange(FOO_SOURCE, ChangeType.MODIFY,
+                LineRanges.builder().addLine(5).build(),
+                LineRanges.builder().addLine(5).build());
+        final FilteredChanges filtered = NeutralChangeFilter.filter(
+                Collections.singletonList(change), path -> FOO_CONTENT,
+                path -> FOO_CONTENT.replace("int count = 1;", "int count = ;"));
+        assertEquals("Sources which could not be parsed should not be neutral",
+                Collections.singletonList(change), filtered.changes());
+        assertEquals("The unparsed source should be reported",
+                Collections.singleton(FOO_SOURCE), filtered.unparsed().keySet());
+    }
+
+    @Test
+    public void testFilterChangesOfRepository() throws Exception {
+        try (Repository repository = GitUtils.createNewRepository()) {
+            final File foo = GitUtils.addAnEmptyFileAndCommit(repository, FOO_SOURCE);
+            final File bar = GitUtils.addAnEmptyFileAndCommit(repository, BAR_SOURCE);
+            writeFile(foo, FOO_CONTENT);
+            writeFile(bar, FOO_CONTENT.replace("Foo", "Bar"));
+            GitUtils.addAllAndCommit(repository, "add Foo and Bar");
+            GitUtils.createNewBranchAndCheckout(repository, "foo");
+            writeFile(foo, FOO_CONTENT.replace("// the count", "// the count of foo"));
+            writeFile(bar, FOO_CONTENT.replace("Foo", "Bar").replace("1", "2"));
+            GitUtils.addAllAndCommit(repository, "modify Foo and Bar");
+
+            final GitChange fooChange = createChange(FOO_SOURCE, ChangeType.MODIFY,
+                    LineRanges.builder().addLine(4).build(),
+                    LineRanges.builder().addLine(4).build());
+            final GitChange barChange = createChange(BAR_SOURCE, ChangeType.MODIFY,
+                    LineRanges.builder().addLine(5).build(),
+                    LineRanges.builder().addLine(5).build());
+            final GitChange addChange = createChange("src/main/java/foo/Baz.java",
+                    ChangeType.ADD, LineRanges.EMPTY, LineRanges.EMPTY);
+            final GitChange testChange = createChange("src/test/java/foo/FooTest.java",
+                    ChangeType.MODIFY, LineRanges.EMPTY, LineRanges.EMPTY);
+            try (RepositorySession session =
+                    RepositorySession.open(repository.getDirectory().getParent())) {
+                final FilteredChanges filtered =
+                        ExtractInfoProcessor.filterNeutralChanges(session, "master", "foo",
+                                Arrays.asList(fooChange, barChange, addChange, testChange));
+                assertEquals("Only the neutral changes should be filtered out",
+                        Arrays.asList(barChange, addChange, testChange), filtered.changes());
+                assertEquals("The reason of the neutral change is wrong",
+                        Collections.singletonMap(FOO_SOURCE,
+                                "only comments, Javadoc, imports or blank lines are changed"),
+                        filtered.skipped());
+            }
+        }
+    }
+
+    @Test
+    public void testFilterChangesOfWorkingTree() throws Exception {
+        try (Repository repository = GitUtils.createNewRepository()) {
+            final File foo = GitUtils.addAnEmptyFileAndCommit(repository, FOO_SOURCE);
+            writeFile(foo, FOO_CONTENT);
+            GitUtils.addAllAndCommit(repository, "add Foo");
+            writeFile(foo, FOO_CONTENT.replace("/** Foo. */", "/** The foo. */"));
+
+            final GitChange fooChange = createChange(FOO_SOURCE, ChangeType.MODIFY,
+                    LineRanges.EMPTY, LineRanges.builder().addLine(3).build());
+            final GitChange missingChange = createChange(BAR_SOURCE, ChangeType.MODIFY,
+                    LineRanges.EMPTY, LineRanges.builder().addLine(1).build());
+            try (RepositorySession session =
+                    RepositorySession.open(repository.getDirectory().getParent())) {
+                final FilteredChanges filtered =
+                        ExtractInfoProcessor.filterNeutralChangesOfWorkingTree(session,
+                                "master", Arrays.asList(fooChange, missingChange));
+                assertEquals("Missing sources should not be filtered out",
+                        Collections.singletonList(missingChange), filtered.changes());
+            }
+        }
+    }
+
+    private static GitChange createChange(String path, ChangeType changeType,
+            LineRanges added, LineRanges deleted) {
+        return ImmutableGitChange.builder()
+                .path(path)
+                .changeType(changeType)
+                .lineChangesLoader(LineChangesLoader.of(ImmutableLineChanges.builder()
+                        .added(added)
+                        .deleted(deleted)
+                        .build()))
+                .build();
+    }
+
+    private static void writeFile(File file, String content) throws Exception {
+        Files.write(file.toPath(), content.getBytes(Charset.forName("UTF-8")));
+    }
+}
@@ -0,0 +1,206 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.extract;
+
+import static com.github.checkstyle.regression.internal.TestUtils.assertUtilsClassHasPrivateConstructor;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.eclipse.jgit.lib.Repository;
+import org.junit.After;
+import org.junit.Test;
+
+import com.github.checkstyle.regression.data.DependencyGraph;
+import com.github.checkstyle.regression.data.ModuleExtractInfo;
+import com.github.checkstyle.regression.internal.GitUtils;
+
+public class SourceScannerTest {
+    private static final String SOURCE_ROOT = "src/main/java/com/puppycrawl/tools/checkstyle/";
+
+    private static final String CHECKS_PACKAGE = "com.puppycrawl.tools.checkstyle.checks.";
+
+    private static final String UTILS_PACKAGE = "com.puppycrawl.tools.checkstyle.utils.";
+
+    @After
+    public void tearDown() throws Exception {
+        GitUtils.clearTempRepositories();
+    }
+
+    @Test
+    public void testIsProperUtilsClass() throws Exception {
+        assertUtilsClassHasPrivateConstructor(SourceScanner.class);
+    }
+
+    @Test
+    public void testScan() throws Exception {
+        try (Repository repository = GitUtils.createNewRepository()) {
+            addSource(repository, "api/AutomaticBean.java",
+                    "package com.puppycrawl.tools.checkstyle.api;\n"
+                    + "public abstract class AutomaticBean {}\n");
+            addSource(repository, "api/AbstractCheck.java",
+                    "package com.puppycrawl.tools.checkstyle.api;\n"
+                    + "public abstract class AbstractCheck extends AutomaticBean {}\n");
+            addSource(repository, "checks/FooCheck.java",
+                    "package com.puppycrawl.tools.checkstyle.checks;\n"
+                    + "import com.puppycrawl.tools.checkstyle.api.*;\n"
+                    + "public class FooCheck extends AbstractCheck {\n"
+                    + "    static class Inner extends FooCheck implements Runnable {\n"
+                    + "        public void run() {}\n"
+                    + "    }\n"
+                    + "}\n");
+            addSource(repository, "checks/BarCheck.java",
+                    "package com.puppycrawl.tools.checkstyle.checks;\n"
+                    + "public class BarCheck extends FooCheck.Inner {}\n");
+            addSource(repository, "checks/Broken.java", "class Broken {");
+            GitUtils.addAllAndCommit(repository, "add sources");
+
+            final List<String> warnings = new ArrayList<>();
+            final Map<String, ClassInfo> classes = SourceScanner.scan(
+                    repository, repository.resolve("master"), 2, warnings);
+            assertEquals("The count of classes is wrong", 5, classes.size());
+            assertEquals("The broken source should be skipped with a warning", 1,
+                    warnings.size());
+            assertTrue("The warning should name the broken source",
+                    warnings.get(0).startsWith("unable to parse " + SOURCE_ROOT
+                            + "checks/Broken.java, skipped: "));
+
+            final ClassInfo inner =
+                    classes.get("com.puppycrawl.tools.checkstyle.checks.FooCheck.Inner");
+            assertEquals("The super name is wrong",
+                    Optional.of("com.puppycrawl.tools.checkstyle.checks.FooCheck"),
+                    inner.superName());
+            assertEquals("The interfaces are wrong",
+                    Collections.singletonList("java.lang.Runnable"), inner.interfaces());
+            assertFalse("The class should not be top level", inner.isTopLevel());
+
+            final ClassInfo bar = classes.get("com.puppycrawl.tools.checkstyle.checks.BarCheck");
+            assertEquals("The super name is wrong",
+                    Optional.of("com.puppycrawl.tools.checkstyle.checks.FooCheck.Inner"),
+                    bar.superName());
+
+            final Map<String, ModuleExtractInfo> modules = ModuleClassifier.classify(classes);
+            assertEquals("The modules are wrong", Arrays.asList(
+                    "com.puppycrawl.tools.checkstyle.checks.BarCheck",
+                    "com.puppycrawl.tools.checkstyle.checks.FooCheck"),
+                    Arrays.asList(modules.keySet().toArray()));
+        }
+    }
+
+    @Test
+    public void testScanWorkingTree() throws Exception {
+        try (Repository repository = GitUtils.createNewRepository()) {
+            addSource(repository, "api/AutomaticBean.java",
+                    "package com.puppycrawl.tools.checkstyle.api;\n"
+                    + "public abstract class AutomaticBean {}\n");
+            GitUtils.addAllAndCommit(repository, "add sources");
+            addSource(repository, "checks/FooCheck.java",
+                    "package com.puppycrawl.tools.checkstyle.checks;\n"
+                    + "import com.puppycrawl.tools.checkstyle.api.AutomaticBean;\n"
+                    + "public class FooCheck extends AutomaticBean {}\n");
+
+            final Map<String, ClassInfo> classes =
+                    SourceScanner.scan(repository.getWorkTree(), 2, new ArrayList<>());
+            assertEquals("The uncommitted source should be scanned", Optional.of(
+                    "com.puppycrawl.tools.checkstyle.api.AutomaticBean"),
+                    classes.get("com.puppycrawl.tools.checkstyle.checks.FooCheck").superName());
+            assertEquals("The count of classes is wrong", 2, classes.size());
+        }
+    }
+
+    @Test
+    public void testScanDependencies() throws Exception {
+        try (Repository repository = GitUtils.createNewRepository()) {
+            addSource(repository, "utils/CommonUtil.java",
+                    "package com.puppycrawl.tools.checkstyle.utils;\n"
+                    + "public final class CommonUtil {}\n");
+            addSource(repository, "utils/TokenUtil.java",
+                    "package com.puppycrawl.tools.checkstyle.utils;\n"
+                    + "public final class TokenUtil {\n"
+                    + "    static { CommonUtil.class.getName(); }\n"
+                    + "}\n");
+            addSource(repository, "checks/FooCheck.java",
+                    "package com.puppycrawl.tools.checkstyle.checks;\n"
+                    + "import com.puppycrawl.tools.checkstyle.utils.TokenUtil;\n"
+                    + "public class FooCheck {}\n");
+            addSource(repository, "checks/BarCheck.java",
+                    "package com.puppycrawl.tools.checkstyle.checks;\n"
+                    + "import static com.puppycrawl.tools.checkstyle.utils.CommonUtil.foo;\n"
+                    + "public class BarCheck extends FooCheck {}\n");
+            addSource(repository, "checks/BazCheck.java",
+                    "package com.puppycrawl.tools.checkstyle.checks;\n"
+                    + "import com.puppycrawl.tools.checkstyle.utils.*;\n"
+                    + "public class BazCheck { CommonUtil util; }\n");
+            addSource(repository, "checks/Broken.java", "class Broken {");
+            GitUtils.addAllAndCommit(repository, "add sources");
+
+            final DependencyGraph graph = SourceScanner.scanDependencies(
+                    repository, repository.resolve("master"), 2, new ArrayList<>());
+            assertEquals("The count of classes is wrong", 5, graph.dependencies().size());
+            assertEquals("The dependencies are wrong", new HashSet<>(Arrays.asList(
+                    CHECKS_PACKAGE + "FooCheck", UTILS_PACKAGE + "CommonUtil")),
+                    graph.dependencies().get(CHECKS_PACKAGE + "BarCheck"));
+            assertEquals("The dependents are wrong", new HashSet<>(Arrays.asList(
+                    UTILS_PACKAGE + "TokenUtil", CHECKS_PACKAGE + "FooCheck",
+                    CHECKS_PACKAGE + "BarCheck", CHECKS_PACKAGE + "BazCheck")),
+                    graph.getTransitiveDependents(
+                            Collections.singleton(UTILS_PACKAGE + "CommonUtil")));
+        }
+    }
+
+    @Test
+    public void testScanDependenciesOfWorkingTree() throws Exception {
+        try (Repository repository = GitUtils.createNewRepository()) {
+            addSource(repository, "utils/CommonUtil.java",
+                    "package com.puppycrawl.tools.checkstyle.utils;\n"
+                    + "public final class CommonUtil {}\n");
+            GitUtils.addAllAndCommit(repository, "add sources");
+            addSource(repository, "checks/FooCheck.java",
+                    "package com.puppycrawl.tools.checkstyle.checks;\n"
+                    + "import com.puppycrawl.tools.checkstyle.utils.CommonUtil;\n"
+                    + "public class FooCheck {}\n");
+
+            final DependencyGraph graph =
+                    SourceScanner.scanDependencies(repository.getWorkTree(), 2,
+                            new ArrayList<>());
+            assertEquals("The uncommitted source should be scanned",
+                    Collections.singleton(UTILS_PACKAGE + "CommonUtil"),
+                    graph.dependencies().get(CHECKS_PACKAGE + "FooCheck"));
+        }
+    }
+
+    private static void addSource(Repository repository, String path, String content)
+            throws Exception {
+        final File file = new File(repository.getDirectory().getParent(), SOURCE_ROOT + path);
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), content.getBytes(Charset.forName("UTF-8")));
+    }
+}
@@ -0,0 +1,133 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.extract;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+import org.eclipse.jgit.lib.Repository;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.checkstyle.regression.internal.FileUtils;
+import com.github.checkstyle.regression.internal.GitUtils;
+
+public class WorktreeTest {
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @After
+    public void tearDown() throws Exception {
+        GitUtils.clearTempRepositories();
+    }
+
+    @Test
+    public void testCheckoutKeepsUntrackedFiles() throws Exception {
+        try (Repository repository = GitUtils.createNewRepository()) {
+            GitUtils.addAnEmptyFileAndCommit(repository, "Foo.java");
+            GitUtils.createNewBranchAndCheckout(repository, "foo");
+            GitUtils.addAnEmptyFileAndCommit(repository, "Bar.java");
+            final File poolDir = temporaryFolder.newFolder();
+
+            try (Worktree worktree = Worktree.acquire(repository, poolDir)) {
+                final File directory = worktree.getDirectory();
+                assertEquals("The directory of the first slot is wrong",
+                        new File(poolDir, "0"), directory);
+                worktree.checkout("foo");
+                assertTrue("Bar.java should be checked out",
+                        new File(directory, "Bar.java").exists());
+
+                final File output = new File(directory, "target/output");
+                Files.createDirectories(output.getParentFile().toPath());
+                Files.write(output.toPath(), "warm".getBytes(Charset.forName("UTF-8")));
+                worktree.checkout("master");
+                assertTrue("Foo.java should be checked out",
+                        new File(directory, "Foo.java").exists());
+                assertFalse("Bar.java should be removed",
+                        new File(directory, "Bar.java").exists());
+                assertEquals("Untracked files should be kept", "warm",
+                        FileUtils.readFile(output));
+            }
+            assertEquals("The branch of the repository should not be changed",
+                    "foo", repository.getBranch());
+        }
+    }
+
+    @Test
+    public void testAcquireDifferentSlots() throws Exception {
+        try (Repository repository = GitUtils.createNewRepository()) {
+            GitUtils.addAnEmptyFileAndCommit(repository, "Foo.java");
+            final File poolDir = temporaryFolder.newFolder();
+
+            try (Worktree first = Worktree.acquire(repository, poolDir)) {
+                try (Worktree second = Worktree.acquire(repository, poolDir)) {
+                    assertNotEquals("Slots in use should not be shared",
+                            first.getDirectory(), second.getDirectory());
+                }
+            }
+            try (Worktree worktree = Worktree.acquire(repository, poolDir)) {
+                assertEquals("Released slot should be reused",
+                        new File(poolDir, "0"), worktree.getDirectory());
+            }
+        }
+    }
+
+    @Test
+    public void testCheckoutNonExistentBranch() throws Exception {
+        try (Repository repository = GitUtils.createNewRepository()) {
+            GitUtils.addAnEmptyFileAndCommit(repository, "Foo.java");
+            try (Worktree worktree = Worktree.acquire(repository, temporaryFolder.newFolder())) {
+                worktree.checkout("BAD");
+                fail("Exception is expected");
+            }
+        }
+        catch (IOException ex) {
+            assertEquals("Exception message is wrong",
+                    "unable to find branch BAD", ex.getMessage());
+        }
+    }
+
+    @Test
+    public void testCheckoutCommit() throws Exception {
+        try (Repository repository = GitUtils.createNewRepository()) {
+            GitUtils.addAnEmptyFileAndCommit(repository, "Foo.java");
+            final String commitId = repository.resolve("master").getName();
+            GitUtils.addAnEmptyFileAndCommit(repository, "Bar.java");
+
+            try (Worktree worktree = Worktree.acquire(repository, temporaryFolder.newFolder())) {
+                worktree.checkout(commitId);
+                assertTrue("Foo.java should be checked out",
+                        new File(worktree.getDirectory(), "Foo.java").exists());
+                assertFalse("Bar.java should not be checked out",
+                        new File(worktree.getDirectory(), "Bar.java").exists());
+            }
+        }
+    }
+}
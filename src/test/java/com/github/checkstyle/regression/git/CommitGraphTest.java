@@ -0,0 +1,140 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.git;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.MergeCommand;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.checkstyle.regression.internal.GitUtils;
+
+public class CommitGraphTest {
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @After
+    public void tearDown() throws Exception {
+        GitUtils.clearTempRepositories();
+    }
+
+    @Test
+    public void testGetMergeBaseAfterMerge() throws Exception {
+        try (Repository repository = createMergeRepository()) {
+            final CommitGraph graph =
+                    CommitGraph.load(new File(temporaryFolder.getRoot(), "commit-graph"));
+            assertEquals("The merge-base should be the merged commit of foo",
+                    repository.resolve("foo~1"), getMergeBase(repository, graph, "foo", "master"));
+            assertEquals("The merge-base should be the same in both directions",
+                    repository.resolve("foo~1"), getMergeBase(repository, graph, "master", "foo"));
+            assertEquals("The merge-base of an ancestor should be the ancestor",
+                    repository.resolve("master~1"),
+                    getMergeBase(repository, graph, "master", "master~1"));
+            assertEquals("All the commits should be indexed", 5, graph.getCommitCount());
+        }
+    }
+
+    @Test
+    public void testGetMergeBaseWithoutCommonAncestor() throws Exception {
+        try (Repository repository = GitUtils.createNewRepository()) {
+            GitUtils.addAnEmptyFileAndCommit(repository, "HelloWorld");
+            try (Git git = new Git(repository)) {
+                git.checkout().setOrphan(true).setName("orphan").call();
+            }
+            GitUtils.addAnEmptyFileAndCommit(repository, "Orphan");
+            final CommitGraph graph =
+                    CommitGraph.load(new File(temporaryFolder.getRoot(), "commit-graph"));
+            assertNull("There should be no merge-base",
+                    getMergeBase(repository, graph, "master", "orphan"));
+        }
+    }
+
+    @Test
+    public void testSaveAndLoadIncrementally() throws Exception {
+        try (Repository repository = createMergeRepository()) {
+            final File file = new File(temporaryFolder.getRoot(), "graphs/commit-graph");
+            final CommitGraph graph = CommitGraph.load(file);
+            getMergeBase(repository, graph, "foo", "master");
+            graph.save();
+
+            GitUtils.checkoutBranch(repository, "foo");
+            GitUtils.addAnEmptyFileAndCommit(repository, "Baz");
+            final CommitGraph loaded = CommitGraph.load(file);
+            assertEquals("The saved commits should be loaded", 5, loaded.getCommitCount());
+            assertEquals("The merge-base is wrong", repository.resolve("foo~2"),
+                    getMergeBase(repository, loaded, "foo", "master"));
+            assertEquals("Only the new commit should be indexed", 6, loaded.getCommitCount());
+        }
+    }
+
+    @Test
+    public void testLoadCorruptedGraph() throws Exception {
+        final File file = temporaryFolder.newFile();
+        Files.write(file.toPath(), "not a commit graph".getBytes(Charset.forName("UTF-8")));
+        final CommitGraph graph = CommitGraph.load(file);
+        assertEquals("A corrupted graph should be empty", 0, graph.getCommitCount());
+        assertTrue("The load failure should be kept", graph.getLoadError().isPresent());
+    }
+
+    private static ObjectId getMergeBase(Repository repository, CommitGraph graph,
+            String revisionA, String revisionB) throws Exception {
+        try (RevWalk walk = new RevWalk(repository)) {
+            return graph.getMergeBase(walk, walk.parseCommit(repository.resolve(revisionA)),
+                    walk.parseCommit(repository.resolve(revisionB)));
+        }
+    }
+
+    /**
+     * Creates a repository where master merges the first commit of the branch "foo",
+     * and both have a commit after the merge-base.
+     * @return the repository
+     * @throws Exception failure of creating the repository
+     */
+    private static Repository createMergeRepository() throws Exception {
+        final Repository repository = GitUtils.createNewRepository();
+        GitUtils.addAnEmptyFileAndCommit(repository, "HelloWorld");
+        GitUtils.createNewBranchAndCheckout(repository, "foo");
+        GitUtils.addAnEmptyFileAndCommit(repository, "Foo");
+        GitUtils.checkoutBranch(repository, "master");
+        GitUtils.addAnEmptyFileAndCommit(repository, "Bar");
+        try (Git git = new Git(repository)) {
+            git.merge().include(repository.resolve("foo"))
+                    .setFastForward(MergeCommand.FastForwardMode.NO_FF)
+                    .setMessage("merge foo")
+                    .call();
+        }
+        GitUtils.checkoutBranch(repository, "foo");
+        GitUtils.addAnEmptyFileAndCommit(repository, "Qux");
+        return repository;
+    }
+}
@@ -0,0 +1,176 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.git;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.checkstyle.regression.data.BranchDiff;
+import com.github.checkstyle.regression.data.ChangeType;
+import com.github.checkstyle.regression.data.GitChange;
+import com.github.checkstyle.regression.data.ImmutableBranchDiff;
+import com.github.checkstyle.regression.data.ImmutableGitChange;
+import com.github.checkstyle.regression.data.ImmutableLineChanges;
+import com.github.checkstyle.regression.data.ImmutablePathFilterSpec;
+import com.github.checkstyle.regression.data.LineChangesLoader;
+import com.github.checkstyle.regression.data.LineRanges;
+import com.github.checkstyle.regression.data.PathFilterSpec;
+
+public class DiffCacheTest {
+    private static final String BASE_COMMIT = "1111111111111111111111111111111111111111";
+
+    private static final String HEAD_COMMIT = "2222222222222222222222222222222222222222";
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testKeyDependsOnFiltersAndSettings() {
+        final PathFilterSpec noFilter = ImmutablePathFilterSpec.builder().build();
+        final DiffSettings settings = ImmutableDiffSettings.builder().build();
+        final String key = DiffCache.createKey(BASE_COMMIT, HEAD_COMMIT, noFilter, settings);
+        assertEquals("The same inputs should have the same key", key,
+                DiffCache.createKey(BASE_COMMIT, HEAD_COMMIT, noFilter, settings));
+        assertNotEquals("The head commit should change the key", key,
+                DiffCache.createKey(BASE_COMMIT, BASE_COMMIT, noFilter, settings));
+        assertNotEquals("The path filters should change the key", key,
+                DiffCache.createKey(BASE_COMMIT, HEAD_COMMIT,
+                        ImmutablePathFilterSpec.builder().addIncludes("src/**").build(),
+                        settings));
+        assertNotEquals("The diff settings should change the key", key,
+                DiffCache.createKey(BASE_COMMIT, HEAD_COMMIT, noFilter,
+                        ImmutableDiffSettings.builder().renameScore(90).build()));
+        assertEquals("The diff algorithm should not change the key", key,
+                DiffCache.createKey(BASE_COMMIT, HEAD_COMMIT, noFilter,
+                        ImmutableDiffSettings.builder()
+                                .algorithm(DiffAlgorithmType.MYERS).build()));
+    }
+
+    @Test
+    public void testPutAndGet() throws Exception {
+        final DiffCache cache =
+                new DiffCache(new File(temporaryFolder.getRoot(), "diffs"), Long.MAX_VALUE);
+        assertNull("There should be no entry before putting", cache.get("key"));
+        final BranchDiff diff = createBranchDiff();
+        cache.put("key", diff);
+        final BranchDiff cached = cache.get("key");
+        assertEquals("The cached diff is wrong", diff, cached);
+        final GitChange renamed = cached.changes().get(1);
+        assertEquals("The old path is wrong", "Foo.java", renamed.oldPath().get());
+        assertTrue("The added lines should not be cached",
+                renamed.addedLineRanges().isEmpty());
+        assertTrue("The deleted lines should not be cached",
+                renamed.deletedLineRanges().isEmpty());
+    }
+
+    @Test
+    public void testPutDoesNotLoadLineChanges() throws Exception {
+        final DiffCache cache =
+                new DiffCache(new File(temporaryFolder.getRoot(), "diffs"), Long.MAX_VALUE);
+        final BranchDiff diff = ImmutableBranchDiff.builder()
+                .branch("foo")
+                .commitId(HEAD_COMMIT)
+                .mergeBase(BASE_COMMIT)
+                .addChanges(ImmutableGitChange.builder()
+                        .path("Foo.java")
+                        .lineChangesLoader(() -> {
+                            throw new IOException("line changes should not be loaded");
+                        })
+                        .build())
+                .build();
+        cache.put("key", diff);
+        assertEquals("The cached diff is wrong", diff, cache.get("key"));
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed() throws Exception {
+        final File directory = new File(temporaryFolder.getRoot(), "diffs");
+        final DiffCache unbounded = new DiffCache(directory, Long.MAX_VALUE);
+        unbounded.put("first", createBranchDiff());
+        unbounded.put("second", createBranchDiff());
+        final File first = new File(directory, "first.diff");
+        final File second = new File(directory, "second.diff");
+        assertTrue("The second entry should be made older",
+                second.setLastModified(first.lastModified() - 10000));
+        assertTrue("The first entry should be made older",
+                first.setLastModified(first.lastModified() - 20000));
+        assertNotNull("The first entry should be cached", unbounded.get("first"));
+
+        final DiffCache cache = new DiffCache(directory, first.length() * 2 + 1);
+        cache.put("third", createBranchDiff());
+        assertTrue("The recently used entry should be kept", first.exists());
+        assertFalse("The least recently used entry should be evicted", second.exists());
+        assertNotNull("The new entry should be cached", cache.get("third"));
+    }
+
+    @Test
+    public void testGetCorruptedEntry() throws Exception {
+        final File directory = temporaryFolder.getRoot();
+        final File entry = new File(directory, "key.diff");
+        Files.write(entry.toPath(), "not a diff".getBytes(Charset.forName("UTF-8")));
+        assertNull("A corrupted entry should be missing",
+                new DiffCache(directory, Long.MAX_VALUE).get("key"));
+        assertFalse("A corrupted entry should be deleted", entry.exists());
+    }
+
+    @Test
+    public void testPutFailureIsWarning() throws Exception {
+        final File file = temporaryFolder.newFile("diffs");
+        final DiffCache cache = new DiffCache(file, Long.MAX_VALUE);
+        cache.put("key", createBranchDiff());
+        assertNull("The failed entry should be missing", cache.get("key"));
+        assertEquals("The failure of writing should be a warning", 1,
+                cache.getWarnings().size());
+    }
+
+    private static BranchDiff createBranchDiff() {
+        return ImmutableBranchDiff.builder()
+                .branch("foo")
+                .commitId(HEAD_COMMIT)
+                .mergeBase(BASE_COMMIT)
+                .addChanges(ImmutableGitChange.builder()
+                        .path("Added.java")
+                        .changeType(ChangeType.ADD)
+                        .build())
+                .addChanges(ImmutableGitChange.builder()
+                        .path("Bar.java")
+                        .oldPath("Foo.java")
+                        .changeType(ChangeType.RENAME)
+                        .lineChangesLoader(LineChangesLoader.of(ImmutableLineChanges.builder()
+                                .added(LineRanges.builder().addRange(1, 3).addLine(7).build())
+                                .deleted(LineRanges.builder().addLine(2).build())
+                                .build()))
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,159 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.git;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.lib.Repository;
+
+import com.github.checkstyle.regression.data.GitChange;
+import com.github.checkstyle.regression.data.ImmutablePathFilterSpec;
+import com.github.checkstyle.regression.data.PathFilterSpec;
+import com.github.checkstyle.regression.internal.GitUtils;
+
+/**
+ * Measures the throughput of {@link DiffParser#parseBatch} with each diff algorithm, when
+ * all the line-level changes are loaded, on a synthetic PR which modifies many large
+ * sources.
+ * It is not run by the build, run it with
+ * {@code java -cp <test classpath> com.github.checkstyle.regression.git.DiffParserBenchmark
+ * [files] [lines]}.
+ */
+public final class DiffParserBenchmark {
+    private static final int DEFAULT_FILES = 400;
+
+    private static final int DEFAULT_LINES = 2000;
+
+    /** Every this many lines, one line is modified in the PR branch. */
+    private static final int MODIFIED_LINE_INTERVAL = 10;
+
+    private static final int WARMUP_ROUNDS = 2;
+
+    private static final int MEASURED_ROUNDS = 5;
+
+    private static final String BRANCH = "benchmark";
+
+    /** Prevents instantiation. */
+    private DiffParserBenchmark() {
+    }
+
+    public static void main(String... args) throws Exception {
+        final int files = getArgument(args, 0, DEFAULT_FILES);
+        final int lines = getArgument(args, 1, DEFAULT_LINES);
+        try (Repository repository = GitUtils.createNewRepository()) {
+            createSyntheticPr(repository, files, lines);
+            final String path = repository.getDirectory().getParent();
+            final PathFilterSpec pathFilter = ImmutablePathFilterSpec.builder().build();
+            System.out.printf("%d files of %d lines%n", files, lines);
+            for (DiffAlgorithmType algorithm : DiffAlgorithmType.values()) {
+                final DiffSettings settings = ImmutableDiffSettings.builder()
+                        .algorithm(algorithm)
+                        .build();
+                final long nanos = measure(path, pathFilter, settings);
+                System.out.printf("%-9s: %6d ms, %8.1f files/s%n",
+                        algorithm, TimeUnit.NANOSECONDS.toMillis(nanos),
+                        files * (double) TimeUnit.SECONDS.toNanos(1) / nanos);
+            }
+        }
+        finally {
+            GitUtils.clearTempRepositories();
+        }
+    }
+
+    private static int getArgument(String[] args, int index, int defaultValue) {
+        final int returnValue;
+        if (args.length > index) {
+            returnValue = Integer.parseInt(args[index]);
+        }
+        else {
+            returnValue = defaultValue;
+        }
+        return returnValue;
+    }
+
+    /** Gets the median time of parsing, after warming up. */
+    private static long measure(String path, PathFilterSpec pathFilter, DiffSettings settings)
+            throws Exception {
+        final long[] times = new long[MEASURED_ROUNDS];
+        try (RepositorySession session = RepositorySession.open(path)) {
+            for (int i = 0; i < WARMUP_ROUNDS; ++i) {
+                parse(session, pathFilter, settings);
+            }
+            for (int i = 0; i < MEASURED_ROUNDS; ++i) {
+                final long start = System.nanoTime();
+                parse(session, pathFilter, settings);
+                times[i] = System.nanoTime() - start;
+            }
+        }
+        Arrays.sort(times);
+        return times[MEASURED_ROUNDS / 2];
+    }
+
+    /** Parses the diff of the benchmark branch and loads all its line-level changes. */
+    private static void parse(RepositorySession session, PathFilterSpec pathFilter,
+            DiffSettings settings) throws IOException {
+        DiffParser.parseBatch(session, "master", Collections.singletonList(BRANCH), pathFilter,
+                settings, diff -> {
+                    for (GitChange change : diff.changes()) {
+                        change.lineChanges();
+                    }
+                });
+    }
+
+    private static void createSyntheticPr(Repository repository, int files, int lines)
+            throws Exception {
+        final File root = repository.getDirectory().getParentFile();
+        for (int i = 0; i < files; ++i) {
+            writeSource(root, i, lines, false);
+        }
+        GitUtils.addAllAndCommit(repository, "add sources");
+        GitUtils.createNewBranchAndCheckout(repository, BRANCH);
+        for (int i = 0; i < files; ++i) {
+            writeSource(root, i, lines, true);
+        }
+        GitUtils.addAllAndCommit(repository, "modify sources");
+    }
+
+    private static void writeSource(File root, int index, int lines, boolean modified)
+            throws IOException {
+        final File file = new File(root, "src/main/java/benchmark/Source" + index + ".java");
+        if (!file.getParentFile().exists() && !file.getParentFile().mkdirs()) {
+            throw new IOException("Could not create directory " + file.getParentFile());
+        }
+        final StringBuilder content = new StringBuilder(
+                "package benchmark;\n\npublic class Source" + index + " {\n");
+        for (int line = 0; line < lines; ++line) {
+            if (modified && line % MODIFIED_LINE_INTERVAL == 0) {
+                content.append("    private int modifiedField").append(line).append(" = 1;\n");
+            }
+            else {
+                content.append("    private int field").append(line).append(";\n");
+            }
+        }
+        content.append("}\n");
+        Files.write(file.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -21,25 +21,42 @@ package com.github.checkstyle.regression.git;
 
 import static com.github.checkstyle.regression.internal.TestUtils.assertUtilsClassHasPrivateConstructor;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
 import org.apache.commons.lang.SystemUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.RefUpdate;
 import org.eclipse.jgit.lib.Repository;
 import org.junit.After;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import com.github.checkstyle.regression.data.BranchDiff;
+import com.github.checkstyle.regression.data.ChangeType;
 import com.github.checkstyle.regression.data.GitChange;
 import com.github.checkstyle.regression.data.ImmutableGitChange;
+import com.github.checkstyle.regression.data.ImmutablePathFilterSpec;
+import com.github.checkstyle.regression.data.LineRanges;
+import com.github.checkstyle.regression.data.PathFilterSpec;
 import com.github.checkstyle.regression.internal.GitUtils;
 
 public class DiffParserTest {
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @After
     public void tearDown() throws Exception {
         GitUtils.clearTempRepositories();
@@ -56,11 +73,11 @@ public class DiffParserTest {
             GitUtils.addAnEmptyFileAndCommit(repository, "HelloWorld");
             GitUtils.createNewBranchAndCheckout(repository, "foo");
             GitUtils.addAnEmptyFileAndCommit(repository, "AddedFile");
-            final List<GitChange> changes = DiffParser.parse(
-                    repository.getDirectory().getParent(), "foo");
+            final List<GitChange> changes = parse(repository, "foo");
             assertEquals("There should be 1 change detected", 1, changes.size());
             final GitChange expected = ImmutableGitChange.builder()
                     .path("AddedFile")
+                    .changeType(ChangeType.ADD)
                     .build();
             assertEquals("The change is not as expected", expected, changes.get(0));
         }
@@ -74,14 +91,14 @@ public class DiffParserTest {
             Files.write(helloWorld.toPath(), "hello world!".getBytes(Charset.forName("UTF-8")),
                     StandardOpenOption.APPEND);
             GitUtils.addAllAndCommit(repository, "append text to HelloWorld");
-            final List<GitChange> changes = DiffParser.parse(
-                    repository.getDirectory().getParent(), "foo");
+            final List<GitChange> changes = parse(repository, "foo");
             assertEquals("There should be 1 change detected", 1, changes.size());
             final GitChange expected = ImmutableGitChange.builder()
                     .path("HelloWorld")
-                    .addAddedLines(0)
                     .build();
             assertEquals("The change is not as expected", expected, changes.get(0));
+            assertEquals("The added lines are not as expected",
+                    LineRanges.builder().addLine(0).build(), changes.get(0).addedLineRanges());
         }
     }
 
@@ -92,8 +109,7 @@ public class DiffParserTest {
             GitUtils.addAnEmptyFileAndCommit(repository, "FileToDelete");
             GitUtils.createNewBranchAndCheckout(repository, "foo");
             GitUtils.removeFileAndCommit(repository, "FileToDelete");
-            final List<GitChange> changes = DiffParser.parse(
-                    repository.getDirectory().getParent(), "foo");
+            final List<GitChange> changes = parse(repository, "foo");
             assertEquals("There should be no changes detected", 0, changes.size());
         }
     }
@@ -105,11 +121,12 @@ public class DiffParserTest {
             GitUtils.createNewBranchAndCheckout(repository, "foo");
             GitUtils.addAnEmptyFileAndCommit(repository, "HelloWorldFoo");
             GitUtils.removeFileAndCommit(repository, "HelloWorld");
-            final List<GitChange> changes = DiffParser.parse(
-                    repository.getDirectory().getParent(), "foo");
+            final List<GitChange> changes = parse(repository, "foo");
             assertEquals("There should be 1 change detected", 1, changes.size());
             final GitChange expected = ImmutableGitChange.builder()
                     .path("HelloWorldFoo")
+                    .oldPath("HelloWorld")
+                    .changeType(ChangeType.RENAME)
                     .build();
             assertEquals("The change is not as expected", expected, changes.get(0));
         }
@@ -124,19 +141,24 @@ public class DiffParserTest {
             GitUtils.addAnEmptyFileAndCommit(repository, "src/com/foo/c.java");
             GitUtils.addAnEmptyFileAndCommit(repository, "src/com/foo/d.java");
             GitUtils.removeFileAndCommit(repository, "a.txt");
-            final List<GitChange> changes = DiffParser.parse(
-                    repository.getDirectory().getParent(), "foo");
+            final List<GitChange> changes = parse(repository, "foo");
             assertEquals("There should be 3 change detected", 3, changes.size());
             final GitChange expected0 = ImmutableGitChange.builder()
                     .path("b.txt")
+                    .oldPath("a.txt")
+                    .changeType(ChangeType.RENAME)
                     .build();
             assertEquals("The change is not as expected", expected0, changes.get(0));
             final GitChange expected1 = ImmutableGitChange.builder()
                     .path("src/com/foo/c.java")
+                    .oldPath("a.txt")
+                    .changeType(ChangeType.COPY)
                     .build();
             assertEquals("The change is not as expected", expected1, changes.get(1));
             final GitChange expected2 = ImmutableGitChange.builder()
                     .path("src/com/foo/d.java")
+                    .oldPath("a.txt")
+                    .changeType(ChangeType.COPY)
                     .build();
             assertEquals("The change is not as expected", expected2, changes.get(2));
         }
@@ -150,11 +172,11 @@ public class DiffParserTest {
             GitUtils.addAnEmptyFileAndCommit(repository, "ChangeInFoo");
             GitUtils.checkoutBranch(repository, "master");
             GitUtils.addAnEmptyFileAndCommit(repository, "ChangeInMaster");
-            final List<GitChange> changes = DiffParser.parse(
-                    repository.getDirectory().getParent(), "foo");
+            final List<GitChange> changes = parse(repository, "foo");
             assertEquals("There should be 1 change detected", 1, changes.size());
             final GitChange expected = ImmutableGitChange.builder()
                     .path("ChangeInFoo")
+                    .changeType(ChangeType.ADD)
                     .build();
             assertEquals("The only change path should be 'ChangeInFoo'",
                     expected, changes.get(0));
@@ -168,15 +190,16 @@ public class DiffParserTest {
             GitUtils.createNewBranchAndCheckout(repository, "foo");
             GitUtils.addAnEmptyFileAndCommit(repository, "AddInCommit1");
             GitUtils.addAnEmptyFileAndCommit(repository, "AddInCommit2");
-            final List<GitChange> changes = DiffParser.parse(
-                    repository.getDirectory().getParent(), "foo");
+            final List<GitChange> changes = parse(repository, "foo");
             assertEquals("There should be 2 change detected", 2, changes.size());
             final GitChange expected0 = ImmutableGitChange.builder()
                     .path("AddInCommit1")
+                    .changeType(ChangeType.ADD)
                     .build();
             assertEquals("The change is not as expected", expected0, changes.get(0));
             final GitChange expected1 = ImmutableGitChange.builder()
                     .path("AddInCommit2")
+                    .changeType(ChangeType.ADD)
                     .build();
             assertEquals("The change is not as expected", expected1, changes.get(1));
         }
@@ -194,8 +217,7 @@ public class DiffParserTest {
                 permissions.add(PosixFilePermission.OWNER_EXECUTE);
                 Files.setPosixFilePermissions(file.toPath(), permissions);
                 GitUtils.addAllAndCommit(repository, "Change file mode");
-                final List<GitChange> changes = DiffParser.parse(
-                        repository.getDirectory().getParent(), "foo");
+                final List<GitChange> changes = parse(repository, "foo");
                 assertEquals("There should be 1 change detected", 1, changes.size());
                 final GitChange expected = ImmutableGitChange.builder()
                         .path("HelloWorld")
@@ -216,14 +238,14 @@ public class DiffParserTest {
             Files.write(helloWorld.toPath(), "line 1 added\nline 2 added\n"
                     .getBytes(Charset.forName("UTF-8")), StandardOpenOption.APPEND);
             GitUtils.addAllAndCommit(repository, "add line 1, 2");
-            final List<GitChange> changes = DiffParser.parse(
-                    repository.getDirectory().getParent(), "foo");
+            final List<GitChange> changes = parse(repository, "foo");
             assertEquals("There should be 1 change detected", 1, changes.size());
             final GitChange expected = ImmutableGitChange.builder()
                     .path("HelloWorld")
-                    .addAddedLines(1, 2)
                     .build();
             assertEquals("The change is not as expected", expected, changes.get(0));
+            assertEquals("The added lines are not as expected",
+                    LineRanges.builder().addRange(1, 3).build(), changes.get(0).addedLineRanges());
         }
     }
 
@@ -238,14 +260,14 @@ public class DiffParserTest {
             Files.write(helloWorld.toPath(), "line 0\n"
                     .getBytes(Charset.forName("UTF-8")), StandardOpenOption.TRUNCATE_EXISTING);
             GitUtils.addAllAndCommit(repository, "remove two lines");
-            final List<GitChange> changes = DiffParser.parse(
-                    repository.getDirectory().getParent(), "foo");
+            final List<GitChange> changes = parse(repository, "foo");
             assertEquals("There should be 1 change detected", 1, changes.size());
             final GitChange expected = ImmutableGitChange.builder()
                     .path("HelloWorld")
-                    .addDeletedLines(1, 2)
                     .build();
             assertEquals("The change is not as expected", expected, changes.get(0));
+            assertEquals("The deleted lines are not as expected",
+                    LineRanges.builder().addRange(1, 3).build(), changes.get(0).deletedLineRanges());
         }
     }
 
@@ -260,15 +282,506 @@ public class DiffParserTest {
             Files.write(helloWorld.toPath(), "line 0\nline 1 changed\nline 2 changed\n"
                     .getBytes(Charset.forName("UTF-8")), StandardOpenOption.TRUNCATE_EXISTING);
             GitUtils.addAllAndCommit(repository, "modify two lines");
-            final List<GitChange> changes = DiffParser.parse(
-                    repository.getDirectory().getParent(), "foo");
+            final List<GitChange> changes = parse(repository, "foo");
             assertEquals("There should be 1 change detected", 1, changes.size());
             final GitChange expected = ImmutableGitChange.builder()
                     .path("HelloWorld")
-                    .addAddedLines(1, 2)
-                    .addDeletedLines(1, 2)
                     .build();
             assertEquals("The change is not as expected", expected, changes.get(0));
+            assertEquals("The added lines are not as expected",
+                    LineRanges.builder().addRange(1, 3).build(), changes.get(0).addedLineRanges());
+            assertEquals("The deleted lines are not as expected",
+                    LineRanges.builder().addRange(1, 3).build(), changes.get(0).deletedLineRanges());
+        }
+    }
+
+    @Test
+    public void testParseWithPathFilter() throws Exception {
+        try (Repository repository = GitUtils.createNewRepository()) {
+            GitUtils.addAnEmptyFileAndCommit(repository, "HelloWorld");
+            GitUtils.createNewBranchAndCheckout(repository, "foo");
+            GitUtils.addAnEmptyFileAndCommit(repository, "src/main/java/foo/Foo.java");
+            GitUtils.addAnEmptyFileAndCommit(repository, "src/main/java/foo/bar/Bar.java");
+            GitUtils.addAnEmptyFileAndCommit(repository, "src/test/resources/foo/InputFoo.java");
+            GitUtils.addAnEmptyFileAndCommit(repository, "src/xdocs/index.xml");
+            final PathFilterSpec pathFilter = ImmutablePathFilterSpec.builder()
+                    .from(PathFilterSpec.defaultSpec())
+                    .addExcludes("src/main/java/foo/bar/**")
+                    .build();
+            final List<GitChange> changes = parse(repository, "foo", pathFilter,
+                    ImmutableDiffSettings.builder().build());
+            assertEquals("There should be 1 change detected", 1, changes.size());
+            final GitChange expected = ImmutableGitChange.builder()
+                    .path("src/main/java/foo/Foo.java")
+                    .changeType(ChangeType.ADD)
+                    .build();
+            assertEquals("The change is not as expected", expected, changes.get(0));
+        }
+    }
+
+    @Test
+    public void testParseWithSession() throws Exception {
+        try (Repository repository = GitUtils.createNewRepository()) {
+            final File helloWorld = GitUtils.addAnEmptyFileAndCommit(repository, "HelloWorld");
+            Files.write(helloWorld.toPath(), "line 0\nline 1\n"
+                    .getBytes(Charset.forName("UTF-8")), StandardOpenOption.APPEND);
+            GitUtils.addAllAndCommit(repository, "add original two lines");
+            GitUtils.createNewBranchAndCheckout(repository, "foo");
+            Files.write(helloWorld.toPath(), "line 0\nline 1 changed\nline 2 added\n"
+                    .getBytes(Charset.forName("UTF-8")), StandardOpenOption.TRUNCATE_EXISTING);
+            GitUtils.addAllAndCommit(repository, "modify line 1 and add line 2");
+            GitUtils.addAnEmptyFileAndCommit(repository, "AddedFile");
+            try (RepositorySession session =
+                    RepositorySession.open(repository.getDirectory().getParent())) {
+                final List<GitChange> changes = parse(session, "master", "foo",
+                        ImmutablePathFilterSpec.builder().build(),
+                        ImmutableDiffSettings.builder().build());
+                assertEquals("There should be 2 changes detected", 2, changes.size());
+                final GitChange expected0 = ImmutableGitChange.builder()
+                        .path("AddedFile")
+                        .changeType(ChangeType.ADD)
+                        .build();
+                assertEquals("The change is not as expected", expected0, changes.get(0));
+                final GitChange expected1 = ImmutableGitChange.builder()
+                        .path("HelloWorld")
+                        .build();
+                assertEquals("The change is not as expected", expected1, changes.get(1));
+                assertEquals("The added lines are not as expected",
+                        LineRanges.builder().addRange(1, 3).build(),
+                        changes.get(1).addedLineRanges());
+                assertEquals("The deleted lines are not as expected",
+                        LineRanges.builder().addLine(1).build(),
+                        changes.get(1).deletedLineRanges());
+            }
+        }
+    }
+
+    @Test
+    public void testParseWithBaseRevision() throws Exception {
+        try (Repository repository = GitUtils.createNewRepository()) {
+            GitUtils.addAnEmptyFileAndCommit(repository, "HelloWorld");
+            try (Git git = new Git(repository)) {
+                git.tag().setName("base").call();
+            }
+            final String baseId = repository.resolve("master").getName();
+            GitUtils.createNewBranchAndCheckout(repository, "foo");
+            GitUtils.addAnEmptyFileAndCommit(repository, "Foo");
+            final String fooId = repository.resolve("foo").getName();
+            GitUtils.checkoutBranch(repository, "master");
+            GitUtils.addAnEmptyFileAndCommit(repository, "Bar");
+            try (RepositorySession session =
+                    RepositorySession.open(repository.getDirectory().getParent())) {
+                final List<GitChange> changes = parse(session, "base", fooId,
+                        ImmutablePathFilterSpec.builder().build(),
+                        ImmutableDiffSettings.builder().build());
+                assertEquals("There should be 1 change detected", 1, changes.size());
+                assertEquals("The change is not as expected", "Foo", changes.get(0).path());
+                assertEquals("The merge-base is not as expected", baseId,
+                        DiffParser.getMergeBase(session, "refs/tags/base", fooId));
+            }
+        }
+    }
+
+    @Test
+    public void testParseWithNonExistentRevision() throws Exception {
+        try (Repository repository = GitUtils.createNewRepository()) {
+            GitUtils.addAnEmptyFileAndCommit(repository, "HelloWorld");
+            try (RepositorySession session =
+                    RepositorySession.open(repository.getDirectory().getParent())) {
+                parse(session, "BAD", "master",
+                        ImmutablePathFilterSpec.builder().build(),
+                        ImmutableDiffSettings.builder().build());
+                fail("Exception is expected");
+            }
+            catch (IOException ex) {
+                assertEquals("Exception message is wrong",
+                        "unable to find revision BAD", ex.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testParseWithRename() throws Exception {
+        try (Repository repository = createRenameRepository()) {
+            try (RepositorySession session =
+                    RepositorySession.open(repository.getDirectory().getParent())) {
+                final List<GitChange> changes = parse(session, "master", "foo",
+                        ImmutablePathFilterSpec.builder().build(),
+                        ImmutableDiffSettings.builder().build());
+                assertEquals("There should be 1 change detected", 1, changes.size());
+                assertEquals("The rename is not as expected", ImmutableGitChange.builder()
+                        .path("Bar.java").oldPath("Foo.java").changeType(ChangeType.RENAME)
+                        .build(), changes.get(0));
+                assertEquals("Only the edited line should be added",
+                        LineRanges.builder().addLine(4).build(),
+                        changes.get(0).addedLineRanges());
+                assertEquals("Only the edited line should be deleted",
+                        LineRanges.builder().addLine(4).build(),
+                        changes.get(0).deletedLineRanges());
+            }
+        }
+    }
+
+    @Test
+    public void testParseWithRenameScore() throws Exception {
+        try (Repository repository = createRenameRepository()) {
+            try (RepositorySession session =
+                    RepositorySession.open(repository.getDirectory().getParent())) {
+                final List<GitChange> changes = parse(session, "master", "foo",
+                        ImmutablePathFilterSpec.builder().build(),
+                        ImmutableDiffSettings.builder().renameScore(100).build());
+                assertEquals("The similar file should be added",
+                        Collections.singletonList(ImmutableGitChange.builder()
+                                .path("Bar.java").changeType(ChangeType.ADD).build()),
+                        changes);
+                assertEquals("All the lines should be added",
+                        LineRanges.builder().addRange(0, 10).build(),
+                        changes.get(0).addedLineRanges());
+            }
+        }
+    }
+
+    @Test
+    public void testParseBatchWithRename() throws Exception {
+        try (Repository repository = createRenameRepository()) {
+            try (RepositorySession session =
+                    RepositorySession.open(repository.getDirectory().getParent())) {
+                final List<BranchDiff> diffs = new ArrayList<>();
+                DiffParser.parseBatch(session, "master", Collections.singletonList("foo"),
+                        ImmutablePathFilterSpec.builder().build(),
+                        ImmutableDiffSettings.builder().build(), diffs::add);
+                assertEquals("The rename is not as expected",
+                        Collections.singletonList(ImmutableGitChange.builder()
+                                .path("Bar.java").oldPath("Foo.java")
+                                .changeType(ChangeType.RENAME).build()),
+                        diffs.get(0).changes());
+            }
+        }
+    }
+
+    @Test
+    public void testParseUpdateAfterForcePush() throws Exception {
+        try (Repository repository = GitUtils.createNewRepository()) {
+            GitUtils.addAnEmptyFileAndCommit(repository, "HelloWorld");
+            GitUtils.createNewBranchAndCheckout(repository, "foo");
+            GitUtils.addAnEmptyFileAndCommit(repository, "Foo");
+            GitUtils.addAnEmptyFileAndCommit(repository, "Bar");
+            final String oldHead = repository.resolve("foo").name();
+            GitUtils.checkoutBranch(repository, "master");
+            GitUtils.createNewBranchAndCheckout(repository, "foo2");
+            final File foo = GitUtils.addAnEmptyFileAndCommit(repository, "Foo");
+            Files.write(foo.toPath(), "line 0\n".getBytes(Charset.forName("UTF-8")));
+            GitUtils.addAllAndCommit(repository, "modify Foo");
+            GitUtils.addAnEmptyFileAndCommit(repository, "Baz");
+            try (RepositorySession session =
+                    RepositorySession.open(repository.getDirectory().getParent())) {
+                final List<GitChange> changes = DiffParser.parseUpdate(session, oldHead,
+                        "foo2", ImmutablePathFilterSpec.builder().build());
+                assertEquals("The changes of the update are not as expected", Arrays.asList(
+                        ImmutableGitChange.builder().path("Bar")
+                                .changeType(ChangeType.DELETE).build(),
+                        ImmutableGitChange.builder().path("Baz")
+                                .changeType(ChangeType.ADD).build(),
+                        ImmutableGitChange.builder().path("Foo")
+                                .changeType(ChangeType.MODIFY).build()), changes);
+            }
+        }
+    }
+
+    @Test
+    public void testParseWorkingTree() throws Exception {
+        try (Repository repository = GitUtils.createNewRepository()) {
+            final File helloWorld = GitUtils.addAnEmptyFileAndCommit(repository, "HelloWorld");
+            GitUtils.createNewBranchAndCheckout(repository, "foo");
+            GitUtils.addAnEmptyFileAndCommit(repository, "Foo");
+            Files.write(helloWorld.toPath(), "line 0\nline 1\n"
+                    .getBytes(Charset.forName("UTF-8")), StandardOpenOption.APPEND);
+            final File untracked = new File(repository.getWorkTree(), "Untracked");
+            Files.write(untracked.toPath(), "line 0\n".getBytes(Charset.forName("UTF-8")));
+            try (RepositorySession session =
+                    RepositorySession.open(repository.getDirectory().getParent())) {
+                final List<GitChange> changes = DiffParser.parseWorkingTree(session, "master",
+                        ImmutablePathFilterSpec.builder().build(),
+                        ImmutableDiffSettings.builder().build());
+                assertEquals("There should be 3 changes detected", 3, changes.size());
+                assertEquals("The committed change is not as expected",
+                        ImmutableGitChange.builder().path("Foo").changeType(ChangeType.ADD)
+                                .build(), changes.get(0));
+                assertEquals("The uncommitted change is not as expected", "HelloWorld",
+                        changes.get(1).path());
+                assertEquals("The added lines are not as expected",
+                        LineRanges.builder().addRange(0, 2).build(),
+                        changes.get(1).addedLineRanges());
+                assertEquals("The untracked file is not as expected", "Untracked",
+                        changes.get(2).path());
+                assertEquals("The added lines are not as expected",
+                        LineRanges.builder().addLine(0).build(),
+                        changes.get(2).addedLineRanges());
+            }
+        }
+    }
+
+    @Test
+    public void testParseBatch() throws Exception {
+        try (Repository repository = GitUtils.createNewRepository()) {
+            GitUtils.addAnEmptyFileAndCommit(repository, "HelloWorld");
+            final String masterId = repository.resolve("master").getName();
+            GitUtils.createNewBranchAndCheckout(repository, "foo");
+            GitUtils.addAnEmptyFileAndCommit(repository, "Foo");
+            final RefUpdate update = repository.updateRef("refs/pull/1/head");
+            update.setNewObjectId(repository.resolve("foo"));
+            update.update();
+            GitUtils.checkoutBranch(repository, "master");
+            GitUtils.createNewBranchAndCheckout(repository, "bar");
+            GitUtils.addAnEmptyFileAndCommit(repository, "Bar");
+            final List<BranchDiff> diffs = new ArrayList<>();
+            try (RepositorySession session =
+                    RepositorySession.open(repository.getDirectory().getParent())) {
+                DiffParser.parseBatch(session, "master", Arrays.asList("bar", "refs/pull/*/head"),
+                        ImmutablePathFilterSpec.builder().build(),
+                        ImmutableDiffSettings.builder().build(), diffs::add);
+            }
+            assertEquals("There should be 2 branches diffed", 2, diffs.size());
+            assertEquals("The branch is not as expected", "bar", diffs.get(0).branch());
+            assertEquals("The branch is not as expected",
+                    "refs/pull/1/head", diffs.get(1).branch());
+            assertEquals("The commit is not as expected",
+                    repository.resolve("foo").getName(), diffs.get(1).commitId());
+            for (BranchDiff diff : diffs) {
+                assertEquals("The merge-base is not as expected", masterId, diff.mergeBase());
+                assertEquals("There should be 1 change detected", 1, diff.changes().size());
+            }
+            assertEquals("The change is not as expected", "Bar",
+                    diffs.get(0).changes().get(0).path());
+            assertEquals("The change is not as expected", "Foo",
+                    diffs.get(1).changes().get(0).path());
+        }
+    }
+
+    @Test
+    public void testParseCached() throws Exception {
+        try (Repository repository = createRenameRepository()) {
+            final String mergeBase = repository.resolve("master").getName();
+            GitUtils.createNewBranchAndCheckout(repository, "bar");
+            final File cacheDir = temporaryFolder.getRoot();
+            final DiffCache cache = new DiffCache(cacheDir, Long.MAX_VALUE);
+            final PathFilterSpec pathFilter = ImmutablePathFilterSpec.builder().build();
+            final DiffSettings settings = ImmutableDiffSettings.builder().build();
+            try (RepositorySession session =
+                    RepositorySession.open(repository.getDirectory().getParent())) {
+                final BranchDiff diff = DiffParser.parseCached(session, "master", "foo",
+                        pathFilter, settings, cache);
+                assertEquals("The diff should be cached", 1, cacheDir.list().length);
+                final BranchDiff cached = DiffParser.parseCached(session, "master", "bar",
+                        pathFilter, settings, cache);
+                assertEquals("The diff of the same commits should be cached",
+                        1, cacheDir.list().length);
+                assertEquals("The merge-base is not as expected", mergeBase,
+                        cached.mergeBase());
+                assertEquals("The cached diff should be named after the branch",
+                        "bar", cached.branch());
+                assertEquals("The cached changes are not as expected",
+                        diff.changes(), cached.changes());
+                final GitChange change = cached.changes().get(0);
+                assertEquals("The change type is not as expected",
+                        ChangeType.RENAME, change.changeType());
+                assertEquals("The added lines are not as expected",
+                        LineRanges.builder().addLine(4).build(), change.addedLineRanges());
+                assertEquals("The deleted lines are not as expected",
+                        LineRanges.builder().addLine(4).build(), change.deletedLineRanges());
+                assertEquals("The cached lines should be the same as the computed ones",
+                        diff.changes().get(0).lineChanges(), change.lineChanges());
+            }
+        }
+    }
+
+    @Test
+    public void testParseBatchWithNonExistentBranch() throws Exception {
+        try (Repository repository = GitUtils.createNewRepository()) {
+            GitUtils.addAnEmptyFileAndCommit(repository, "HelloWorld");
+            try (RepositorySession session =
+                    RepositorySession.open(repository.getDirectory().getParent())) {
+                DiffParser.parseBatch(session, "master", Collections.singletonList("BAD"),
+                        ImmutablePathFilterSpec.builder().build(),
+                        ImmutableDiffSettings.builder().build(), diff -> { });
+                fail("Exception is expected");
+            }
+            catch (IOException ex) {
+                assertEquals("Exception message is wrong",
+                        "unable to find branch BAD", ex.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testParseWithoutMergeBase() throws Exception {
+        try (Repository repository = GitUtils.createNewRepository()) {
+            GitUtils.addAnEmptyFileAndCommit(repository, "HelloWorld");
+            try (Git git = new Git(repository)) {
+                git.checkout().setOrphan(true).setName("foo").call();
+            }
+            GitUtils.addAnEmptyFileAndCommit(repository, "AddedFile");
+            try (RepositorySession session =
+                    RepositorySession.open(repository.getDirectory().getParent())) {
+                parse(session, "master", "foo",
+                        ImmutablePathFilterSpec.builder().build(),
+                        ImmutableDiffSettings.builder().build());
+                fail("Exception is expected");
+            }
+            catch (IOException ex) {
+                assertEquals("Exception message is wrong",
+                        "unable to find the merge-base of foo and "
+                                + repository.resolve("master").getName(), ex.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testParseManyFiles() throws Exception {
+        try (Repository repository = GitUtils.createNewRepository()) {
+            GitUtils.addAnEmptyFileAndCommit(repository, "HelloWorld");
+            GitUtils.createNewBranchAndCheckout(repository, "foo");
+            final List<GitChange> expected = new ArrayList<>();
+            for (int i = 0; i < 5; ++i) {
+                final String path = "File" + i;
+                final File file = GitUtils.addAnEmptyFileAndCommit(repository, path);
+                Files.write(file.toPath(), "line 0\nline 1\n"
+                        .getBytes(Charset.forName("UTF-8")), StandardOpenOption.APPEND);
+                expected.add(ImmutableGitChange.builder()
+                        .path(path)
+                        .changeType(ChangeType.ADD)
+                        .build());
+            }
+            GitUtils.addAllAndCommit(repository, "add two lines to each file");
+            final DiffSettings settings = ImmutableDiffSettings.builder()
+                    .algorithm(DiffAlgorithmType.MYERS)
+                    .build();
+            final List<GitChange> changes = parse(repository, "foo",
+                    ImmutablePathFilterSpec.builder().build(), settings);
+            assertEquals("The changes should be in the order of the paths", expected, changes);
+            for (GitChange change : changes) {
+                assertEquals("The added lines are not as expected",
+                        LineRanges.builder().addRange(0, 2).build(), change.addedLineRanges());
+            }
+        }
+    }
+
+    @Test
+    public void testGetMergeBase() throws Exception {
+        try (Repository repository = GitUtils.createNewRepository()) {
+            GitUtils.addAnEmptyFileAndCommit(repository, "HelloWorld");
+            final String mergeBase = repository.resolve("master").getName();
+            GitUtils.createNewBranchAndCheckout(repository, "foo");
+            GitUtils.addAnEmptyFileAndCommit(repository, "Foo");
+            GitUtils.checkoutBranch(repository, "master");
+            GitUtils.addAnEmptyFileAndCommit(repository, "Bar");
+            try (RepositorySession session =
+                    RepositorySession.open(repository.getDirectory().getParent())) {
+                assertEquals("The merge-base is wrong", mergeBase,
+                        DiffParser.getMergeBase(session, "master", "foo"));
+            }
+        }
+    }
+
+    @Test
+    public void testGetMergeBaseWithCommitGraph() throws Exception {
+        try (Repository repository = GitUtils.createNewRepository()) {
+            GitUtils.addAnEmptyFileAndCommit(repository, "HelloWorld");
+            final String mergeBase = repository.resolve("master").getName();
+            GitUtils.createNewBranchAndCheckout(repository, "foo");
+            GitUtils.addAnEmptyFileAndCommit(repository, "Foo");
+            GitUtils.checkoutBranch(repository, "master");
+            GitUtils.addAnEmptyFileAndCommit(repository, "Bar");
+            try (RepositorySession session =
+                    RepositorySession.open(repository.getDirectory().getParent())) {
+                final CommitGraph graph =
+                        CommitGraph.load(new File(temporaryFolder.getRoot(), "commit-graph"));
+                session.setCommitGraph(graph);
+                assertEquals("The merge-base is wrong", mergeBase,
+                        DiffParser.getMergeBase(session, "master", "foo"));
+                assertEquals("The commits should be indexed", 3, graph.getCommitCount());
+            }
         }
     }
+
+    /**
+     * Creates a repository where the branch "foo" renames Foo.java of master to Bar.java
+     * and edits one of its ten lines.
+     * @return the repository
+     * @throws Exception failure of creating the repository
+     */
+    private static Repository createRenameRepository() throws Exception {
+        final Repository repository = GitUtils.createNewRepository();
+        final File foo = GitUtils.addAnEmptyFileAndCommit(repository, "Foo.java");
+        final StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 10; ++i) {
+            content.append("line ").append(i).append('\n');
+        }
+        Files.write(foo.toPath(), content.toString().getBytes(Charset.forName("UTF-8")));
+        GitUtils.addAllAndCommit(repository, "fill Foo.java");
+        GitUtils.createNewBranchAndCheckout(repository, "foo");
+        Files.delete(foo.toPath());
+        Files.write(new File(repository.getWorkTree(), "Bar.java").toPath(),
+                content.toString().replace("line 4", "line four")
+                        .getBytes(Charset.forName("UTF-8")));
+        GitUtils.addAllAndCommit(repository, "rename Foo.java");
+        return repository;
+    }
+
+    /**
+     * Parses the diff between the given branch and master, like the batch flow of a
+     * single branch, and loads the line-level changes before the session is closed.
+     * @param repository the repository of the diff
+     * @param branchName the name of the branch to be compared with master
+     * @return the changes of the branch
+     * @throws Exception failure of the diff
+     */
+    private static List<GitChange> parse(Repository repository, String branchName)
+            throws Exception {
+        return parse(repository, branchName, ImmutablePathFilterSpec.builder().build(),
+                ImmutableDiffSettings.builder().build());
+    }
+
+    /**
+     * Parses the diff between the given branch and master, like the batch flow of a
+     * single branch, and loads the line-level changes before the session is closed.
+     * @param repository the repository of the diff
+     * @param branchName the name of the branch to be compared with master
+     * @param pathFilter the path filters of the diff
+     * @param settings   the settings of the computation of the line-level changes
+     * @return the changes of the branch
+     * @throws Exception failure of the diff
+     */
+    private static List<GitChange> parse(Repository repository, String branchName,
+            PathFilterSpec pathFilter, DiffSettings settings) throws Exception {
+        try (RepositorySession session =
+                RepositorySession.open(repository.getDirectory().getParent())) {
+            final List<GitChange> returnValue =
+                    parse(session, "master", branchName, pathFilter, settings);
+            for (GitChange change : returnValue) {
+                change.lineChanges();
+            }
+            return returnValue;
+        }
+    }
+
+    /**
+     * Parses the diff between two revisions through the batch flow of a single branch.
+     * The line-level changes are loaded lazily, before the session is closed.
+     * @param session      the session of the repository
+     * @param baseRevision the revision to be compared with
+     * @param branchName   the revision of the branch
+     * @param pathFilter   the path filters of the diff
+     * @param settings     the settings of the computation of the line-level changes
+     * @return the changes of the branch
+     * @throws Exception failure of the diff
+     */
+    private static List<GitChange> parse(RepositorySession session, String baseRevision,
+            String branchName, PathFilterSpec pathFilter, DiffSettings settings)
+            throws Exception {
+        final List<BranchDiff> diffs = new ArrayList<>();
+        DiffParser.parseBatch(session, baseRevision, Collections.singletonList(branchName),
+                pathFilter, settings, diffs::add);
+        return diffs.get(0).changes();
+    }
 }
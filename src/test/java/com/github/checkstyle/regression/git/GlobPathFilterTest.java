@@ -0,0 +1,81 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.git;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.regex.Pattern;
+
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.junit.Test;
+
+import com.github.checkstyle.regression.data.ImmutablePathFilterSpec;
+import com.github.checkstyle.regression.data.PathFilterSpec;
+
+public class GlobPathFilterTest {
+    @Test
+    public void testCompile() {
+        final Pattern pattern = GlobPathFilter.compile("src/main/java/**/*.java");
+        assertTrue("Nested file should match",
+                pattern.matcher("src/main/java/foo/bar/Foo.java").matches());
+        assertTrue("File directly in the directory should match",
+                pattern.matcher("src/main/java/Foo.java").matches());
+        assertFalse("File of other extension should not match",
+                pattern.matcher("src/main/java/foo/Foo.xml").matches());
+        assertFalse("File in other directory should not match",
+                pattern.matcher("src/test/java/Foo.java").matches());
+        assertTrue("Single character wildcard should match",
+                GlobPathFilter.compile("Fo?.java").matcher("Foo.java").matches());
+        assertFalse("Single segment wildcard should not match across segments",
+                GlobPathFilter.compile("*.java").matcher("foo/Foo.java").matches());
+        assertTrue("Trailing all content wildcard should match the directory itself",
+                GlobPathFilter.compile("src/test/resources/**")
+                        .matcher("src/test/resources").matches());
+        assertTrue("Special characters should be quoted",
+                GlobPathFilter.compile("a+b(c).txt").matcher("a+b(c).txt").matches());
+    }
+
+    @Test
+    public void testCreateWithoutFilters() {
+        assertSame("No filter should include all the paths", TreeFilter.ALL,
+                GlobPathFilter.create(ImmutablePathFilterSpec.builder().build()));
+    }
+
+    @Test
+    public void testIsPathSelected() {
+        final PathFilterSpec spec = ImmutablePathFilterSpec.builder()
+                .from(PathFilterSpec.defaultSpec())
+                .addExcludes("**/internal/**")
+                .build();
+        final GlobPathFilter filter = (GlobPathFilter) GlobPathFilter.create(spec);
+        assertTrue("Main source should be selected",
+                filter.isPathSelected("src/main/java/foo/Foo.java"));
+        assertTrue("Test source should be selected",
+                filter.isPathSelected("src/test/java/foo/FooTest.java"));
+        assertFalse("Resources should not be selected",
+                filter.isPathSelected("src/test/resources/foo/InputFoo.java"));
+        assertFalse("Documentation should not be selected",
+                filter.isPathSelected("src/xdocs/index.xml"));
+        assertFalse("Excluded source should not be selected",
+                filter.isPathSelected("src/main/java/foo/internal/Foo.java"));
+    }
+}
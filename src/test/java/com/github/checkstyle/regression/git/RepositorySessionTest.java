@@ -0,0 +1,140 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.git;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.checkstyle.regression.data.ImmutablePathFilterSpec;
+import com.github.checkstyle.regression.internal.GitUtils;
+
+public class RepositorySessionTest {
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @After
+    public void tearDown() throws Exception {
+        new WindowCacheConfig().install();
+        GitUtils.clearTempRepositories();
+    }
+
+    @Test
+    public void testSessionSharedByStages() throws Exception {
+        try (Repository repository = GitUtils.createNewRepository()) {
+            GitUtils.addAnEmptyFileAndCommit(repository, "HelloWorld");
+            GitUtils.createNewBranchAndCheckout(repository, "foo");
+            GitUtils.addAnEmptyFileAndCommit(repository, "AddedFile");
+            final String path = repository.getDirectory().getParent();
+            RepositorySession.configurePacks(ImmutablePackSettings.builder()
+                    .mmap(true)
+                    .windowSize(16 * 1024)
+                    .deltaBaseCacheLimit(1024 * 1024)
+                    .build());
+            try (RepositorySession session = RepositorySession.open(path)) {
+                assertEquals("The path is wrong", path, session.getPath());
+                final String mergeBase = DiffParser.getMergeBase(session, "master", "foo");
+                assertEquals("The merge-base is wrong",
+                        repository.resolve("master").getName(), mergeBase);
+                assertEquals("There should be 1 change detected", 1, DiffParser.parseCached(
+                        session, "master", "foo", ImmutablePathFilterSpec.builder().build(),
+                        ImmutableDiffSettings.builder().build(), createDiffCache())
+                        .changes().size());
+                assertNotNull("The repository should stay open after the stages",
+                        session.getRepository().resolve("foo"));
+            }
+        }
+    }
+
+    @Test
+    public void testOpenBareMirror() throws Exception {
+        try (Repository repository = GitUtils.createNewRepository()) {
+            GitUtils.addAnEmptyFileAndCommit(repository, "HelloWorld");
+            GitUtils.createNewBranchAndCheckout(repository, "foo");
+            GitUtils.addAnEmptyFileAndCommit(repository, "AddedFile");
+            final File mirror = temporaryFolder.newFolder();
+            Git.cloneRepository()
+                    .setURI(repository.getDirectory().toURI().toString())
+                    .setDirectory(mirror)
+                    .setBare(true)
+                    .call()
+                    .close();
+            try (RepositorySession session = RepositorySession.open(mirror.getPath())) {
+                assertEquals("The merge-base is wrong", repository.resolve("master").getName(),
+                        DiffParser.getMergeBase(session, "master", "foo"));
+                assertEquals("There should be 1 change detected", 1, DiffParser.parseCached(
+                        session, "master", "foo", ImmutablePathFilterSpec.builder().build(),
+                        ImmutableDiffSettings.builder().build(), createDiffCache())
+                        .changes().size());
+            }
+        }
+    }
+
+    @Test
+    public void testOpenNonRepository() throws Exception {
+        final File directory = temporaryFolder.newFolder();
+        try (RepositorySession session = RepositorySession.open(directory.getPath())) {
+            fail("Exception is expected, but opened " + session.getPath());
+        }
+        catch (IOException ex) {
+            assertEquals("Exception message is wrong",
+                    "not a git repository: " + directory.getPath(), ex.getMessage());
+        }
+    }
+
+    @Test
+    public void testResolve() throws Exception {
+        try (Repository repository = GitUtils.createNewRepository()) {
+            GitUtils.addAnEmptyFileAndCommit(repository, "HelloWorld");
+            final String masterId = repository.resolve("master").getName();
+            try (Git git = new Git(repository)) {
+                git.tag().setName("v1").setAnnotated(true).setMessage("v1").call();
+            }
+            final RefUpdate update = repository.updateRef("refs/pull/1/head");
+            update.setNewObjectId(repository.resolve("master"));
+            update.update();
+            for (String revision : new String[] {"master", masterId, "v1", "refs/pull/1/head"}) {
+                assertEquals("The revision is resolved wrongly: " + revision,
+                        masterId, RepositorySession.resolve(repository, revision).getName());
+            }
+            assertNull("The revision should not exist",
+                    RepositorySession.resolve(repository, "BAD"));
+            assertNull("The revision should not exist",
+                    RepositorySession.resolve(repository, "BAD^{"));
+        }
+    }
+
+    private DiffCache createDiffCache() {
+        return new DiffCache(new File(temporaryFolder.getRoot(), "diffs"), Long.MAX_VALUE);
+    }
+}
@@ -0,0 +1,101 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.git;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.checkstyle.regression.internal.GitUtils;
+
+public class ScratchCloneTest {
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @After
+    public void tearDown() throws Exception {
+        GitUtils.clearTempRepositories();
+    }
+
+    @Test
+    public void testCreate() throws Exception {
+        try (Repository repository = GitUtils.createNewRepository()) {
+            GitUtils.addAnEmptyFileAndCommit(repository, "HelloWorld");
+            GitUtils.createNewBranchAndCheckout(repository, "foo");
+            GitUtils.addAnEmptyFileAndCommit(repository, "Foo");
+            final RefUpdate update = repository.updateRef("refs/pull/1/head");
+            update.setNewObjectId(repository.resolve("foo"));
+            update.update();
+            final File directory = new File(temporaryFolder.getRoot(), "clone");
+            try (RepositorySession session =
+                    RepositorySession.open(repository.getDirectory().getPath());
+                    ScratchClone clone = ScratchClone.create(
+                            session, directory, "master", "refs/pull/1/head")) {
+                assertEquals("The base branch is wrong", "master", clone.getBaseBranch());
+                assertEquals("The branch is wrong", "pull/1/head", clone.getBranch());
+                assertTrue("The base revision should be checked out",
+                        new File(directory, "HelloWorld").exists());
+                assertFalse("The PR revision should not be checked out",
+                        new File(directory, "Foo").exists());
+                try (Repository cloneRepository = new FileRepositoryBuilder()
+                        .setWorkTree(new File(clone.getPath())).build()) {
+                    assertEquals("The branch should be at the PR revision",
+                            repository.resolve("foo"), cloneRepository.resolve("pull/1/head"));
+                    assertEquals("The branch should be checked out",
+                            "master", cloneRepository.getBranch());
+                }
+            }
+            assertFalse("The clone should be deleted", directory.exists());
+            assertEquals("The checkstyle repository should not be touched",
+                    "foo", repository.getBranch());
+        }
+    }
+
+    @Test
+    public void testCreateWithNonExistentRevision() throws Exception {
+        try (Repository repository = GitUtils.createNewRepository()) {
+            GitUtils.addAnEmptyFileAndCommit(repository, "HelloWorld");
+            final File directory = new File(temporaryFolder.getRoot(), "clone");
+            try (RepositorySession session =
+                    RepositorySession.open(repository.getDirectory().getPath());
+                    ScratchClone clone = ScratchClone.create(
+                            session, directory, "master", "BAD")) {
+                fail("Exception is expected, but created " + clone.getPath());
+            }
+            catch (IOException ex) {
+                assertEquals("Exception message is wrong",
+                        "unable to find revision BAD", ex.getMessage());
+            }
+            assertFalse("The clone should not be created", directory.exists());
+        }
+    }
+}
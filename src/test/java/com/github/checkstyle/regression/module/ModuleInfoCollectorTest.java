@@ -28,19 +28,27 @@ import java.io.Reader;
 import java.lang.reflect.Method;
 import java.nio.charset.Charset;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import com.github.checkstyle.regression.data.DependencyGraph;
 import com.github.checkstyle.regression.data.GitChange;
+import com.github.checkstyle.regression.data.ImmutableDependencyGraph;
 import com.github.checkstyle.regression.data.ImmutableGitChange;
 import com.github.checkstyle.regression.data.ImmutableModuleExtractInfo;
 import com.github.checkstyle.regression.data.ImmutableModuleInfo;
+import com.github.checkstyle.regression.data.ImmutableModuleSetDelta;
 import com.github.checkstyle.regression.data.ModuleExtractInfo;
 import com.github.checkstyle.regression.data.ModuleInfo;
+import com.github.checkstyle.regression.data.ModuleSelection;
+import com.github.checkstyle.regression.data.ModuleSetDelta;
 import com.github.checkstyle.regression.extract.ExtractInfoProcessor;
 
 public class ModuleInfoCollectorTest {
@@ -53,6 +61,8 @@ public class ModuleInfoCollectorTest {
     private static final String JAVA_TEST_SOURCE_PREFIX =
             "src/test/java/com/puppycrawl/tools/checkstyle/";
 
+    private ModuleRegistry registry;
+
     @SuppressWarnings("unchecked")
     @Before
     public void setUp() throws Exception {
@@ -64,7 +74,7 @@ public class ModuleInfoCollectorTest {
         method.setAccessible(true);
         final Map<String, ModuleExtractInfo> map =
                 (Map<String, ModuleExtractInfo>) method.invoke(ExtractInfoProcessor.class, reader);
-        ModuleUtils.setNameToModuleExtractInfo(map);
+        registry = ModuleRegistry.of(map);
     }
 
     @Test
@@ -90,7 +100,7 @@ public class ModuleInfoCollectorTest {
                 .parent("TreeWalker")
                 .build();
         final List<ModuleInfo> moduleInfos =
-                ModuleCollector.generate(changes);
+                ModuleCollector.generate(registry, changes);
         final ModuleInfo moduleInfo = ImmutableModuleInfo.builder()
                 .moduleExtractInfo(moduleExtractInfo)
                 .build();
@@ -119,7 +129,7 @@ public class ModuleInfoCollectorTest {
                 .parent("Checker")
                 .build();
         final List<ModuleInfo> moduleInfos =
-                ModuleCollector.generate(changes);
+                ModuleCollector.generate(registry, changes);
         final ModuleInfo moduleInfo = ImmutableModuleInfo.builder()
                 .moduleExtractInfo(moduleExtractInfo)
                 .build();
@@ -138,7 +148,224 @@ public class ModuleInfoCollectorTest {
         changes.add(ImmutableGitChange.builder()
                 .path("foo/A.java").build());
         final List<ModuleInfo> moduleInfos =
-                ModuleCollector.generate(changes);
+                ModuleCollector.generate(registry, changes);
         assertEquals("The size of the module info list should be 0", 0, moduleInfos.size());
     }
+
+    @Test
+    public void testGenerateConfigNodesForModuleSetDelta() {
+        final GitChange moduleChange = ImmutableGitChange.builder()
+                .path(JAVA_MAIN_SOURCE_PREFIX + "checks/NewlineAtEndOfFileCheck.java")
+                .build();
+        final ModuleExtractInfo changed = ImmutableModuleExtractInfo.builder()
+                .name("NewlineAtEndOfFileCheck")
+                .packageName(BASE_PACKAGE + ".checks")
+                .parent("Checker")
+                .build();
+        final ModuleExtractInfo added = ImmutableModuleExtractInfo.builder()
+                .name("FooCheck")
+                .packageName(BASE_PACKAGE + ".checks")
+                .parent("TreeWalker")
+                .build();
+        final ModuleExtractInfo moved = ImmutableModuleExtractInfo.builder()
+                .name("EmptyStatementCheck")
+                .packageName(BASE_PACKAGE + ".checks.coding")
+                .parent("Checker")
+                .build();
+        final ModuleExtractInfo removed = ImmutableModuleExtractInfo.builder()
+                .name("BarCheck")
+                .packageName(BASE_PACKAGE + ".checks")
+                .parent("TreeWalker")
+                .build();
+        final ModuleSetDelta delta = ImmutableModuleSetDelta.builder()
+                .addAdded(added, changed)
+                .addMoved(moved)
+                .addRemoved(removed)
+                .build();
+        final List<ModuleInfo> moduleInfos =
+                ModuleCollector.generate(registry, Collections.singletonList(moduleChange), delta);
+        final List<ModuleInfo> expected = Arrays.asList(
+                ImmutableModuleInfo.builder().moduleExtractInfo(changed).build(),
+                ImmutableModuleInfo.builder().moduleExtractInfo(added).build(),
+                ImmutableModuleInfo.builder().moduleExtractInfo(moved).build());
+        assertEquals("The module infos are wrong", expected, moduleInfos);
+    }
+
+    @Test
+    public void testSelectUpdated() {
+        final List<ModuleInfo> moduleInfos = ModuleCollector.generate(registry, Arrays.asList(
+                ImmutableGitChange.builder()
+                        .path(JAVA_MAIN_SOURCE_PREFIX + "checks/NewlineAtEndOfFileCheck.java")
+                        .build(),
+                ImmutableGitChange.builder()
+                        .path(JAVA_MAIN_SOURCE_PREFIX + "checks/coding/EmptyStatementCheck.java")
+                        .build()));
+        final GitChange testChange = ImmutableGitChange.builder()
+                .path(JAVA_TEST_SOURCE_PREFIX + "checks/NewlineAtEndOfFileCheckTest.java")
+                .build();
+        final Set<String> previousModules = new HashSet<>(Arrays.asList(
+                BASE_PACKAGE + ".checks.NewlineAtEndOfFileCheck",
+                BASE_PACKAGE + ".checks.coding.EmptyStatementCheck"));
+        final List<GitChange> updateChanges = Arrays.asList(testChange,
+                ImmutableGitChange.builder()
+                        .path(JAVA_MAIN_SOURCE_PREFIX + "checks/coding/EmptyStatementCheck.java")
+                        .build());
+        assertEquals("The updated module should be selected",
+                Collections.singletonList(moduleInfos.get(1)),
+                ModuleCollector.selectUpdated(registry, moduleInfos, updateChanges,
+                        previousModules, ImmutableDependencyGraph.builder().build()));
+        assertEquals("The module which was not run should be selected",
+                Collections.singletonList(moduleInfos.get(1)),
+                ModuleCollector.selectUpdated(registry, moduleInfos,
+                        Collections.singletonList(testChange),
+                        Collections.singleton(BASE_PACKAGE + ".checks.NewlineAtEndOfFileCheck"),
+                        ImmutableDependencyGraph.builder().build()));
+    }
+
+    @Test
+    public void testSelectForUtilityDependents() {
+        final ModuleSelection selection = ModuleCollector.select(registry, Arrays.asList(
+                ImmutableGitChange.builder()
+                        .path(JAVA_MAIN_SOURCE_PREFIX + "checks/NewlineAtEndOfFileCheck.java")
+                        .build(),
+                ImmutableGitChange.builder()
+                        .path(JAVA_MAIN_SOURCE_PREFIX + "utils/CommonUtil.java")
+                        .build()),
+                ImmutableModuleSetDelta.builder().build(), createDependencyGraph());
+        assertEquals("The dependent module should be selected once", Arrays.asList(
+                BASE_PACKAGE + ".checks.NewlineAtEndOfFileCheck",
+                BASE_PACKAGE + ".checks.coding.EmptyStatementCheck"),
+                Arrays.asList(selection.modules().stream()
+                        .map(moduleInfo -> moduleInfo.moduleExtractInfo().fullName())
+                        .toArray()));
+        assertEquals("Both changed classes should be looked up", 2,
+                selection.changedClasses());
+        assertEquals("Only the dependent module should be counted", 1,
+                selection.dependentModules());
+    }
+
+    @Test
+    public void testSelectUpdatedWithUtilityDependents() {
+        final List<ModuleInfo> moduleInfos = ModuleCollector.generate(registry, Arrays.asList(
+                ImmutableGitChange.builder()
+                        .path(JAVA_MAIN_SOURCE_PREFIX + "checks/NewlineAtEndOfFileCheck.java")
+                        .build(),
+                ImmutableGitChange.builder()
+                        .path(JAVA_MAIN_SOURCE_PREFIX + "checks/coding/EmptyStatementCheck.java")
+                        .build()));
+        final Set<String> previousModules = new HashSet<>(Arrays.asList(
+                BASE_PACKAGE + ".checks.NewlineAtEndOfFileCheck",
+                BASE_PACKAGE + ".checks.coding.EmptyStatementCheck"));
+        final List<GitChange> updateChanges = Collections.singletonList(
+                ImmutableGitChange.builder()
+                        .path(JAVA_MAIN_SOURCE_PREFIX + "utils/TokenUtil.java")
+                        .build());
+        assertEquals("Only the module using the utility should be selected",
+                Collections.singletonList(moduleInfos.get(1)),
+                ModuleCollector.selectUpdated(registry, moduleInfos, updateChanges, previousModules,
+                        createDependencyGraph()));
+    }
+
+    @Test
+    public void testSelectForModuleDependents() {
+        final ModuleSelection selection = ModuleCollector.select(registry,
+                Collections.singletonList(ImmutableGitChange.builder()
+                        .path(JAVA_MAIN_SOURCE_PREFIX + "checks/NewlineAtEndOfFileCheck.java")
+                        .build()),
+                ImmutableModuleSetDelta.builder().build(), createModuleDependencyGraph());
+        assertEquals("The module using the changed module should be selected", Arrays.asList(
+                BASE_PACKAGE + ".checks.NewlineAtEndOfFileCheck",
+                BASE_PACKAGE + ".checks.coding.EmptyStatementCheck"),
+                Arrays.asList(selection.modules().stream()
+                        .map(moduleInfo -> moduleInfo.moduleExtractInfo().fullName())
+                        .toArray()));
+    }
+
+    @Test
+    public void testSelectUpdatedWithModuleDependents() {
+        final List<ModuleInfo> moduleInfos = ModuleCollector.generate(registry, Arrays.asList(
+                ImmutableGitChange.builder()
+                        .path(JAVA_MAIN_SOURCE_PREFIX + "checks/NewlineAtEndOfFileCheck.java")
+                        .build(),
+                ImmutableGitChange.builder()
+                        .path(JAVA_MAIN_SOURCE_PREFIX + "checks/coding/EmptyStatementCheck.java")
+                        .build()));
+        final Set<String> previousModules = new HashSet<>(Arrays.asList(
+                BASE_PACKAGE + ".checks.NewlineAtEndOfFileCheck",
+                BASE_PACKAGE + ".checks.coding.EmptyStatementCheck"));
+        final List<GitChange> updateChanges = Collections.singletonList(
+                ImmutableGitChange.builder()
+                        .path(JAVA_MAIN_SOURCE_PREFIX + "checks/NewlineAtEndOfFileCheck.java")
+                        .build());
+        assertEquals("The module using the changed module should be selected too",
+                moduleInfos,
+                ModuleCollector.selectUpdated(registry, moduleInfos, updateChanges, previousModules,
+                        createModuleDependencyGraph()));
+    }
+
+    @Test
+    public void testGenerateConfigNodesForSupertypeChange() {
+        final List<ModuleInfo> moduleInfos = ModuleCollector.generate(registry,
+                Collections.singletonList(ImmutableGitChange.builder()
+                        .path(JAVA_MAIN_SOURCE_PREFIX + "api/AbstractFileSetCheck.java")
+                        .build()));
+        assertEquals("The subclass module should be selected", Collections.singletonList(
+                BASE_PACKAGE + ".checks.NewlineAtEndOfFileCheck"),
+                Arrays.asList(moduleInfos.stream()
+                        .map(moduleInfo -> moduleInfo.moduleExtractInfo().fullName())
+                        .toArray()));
+    }
+
+    @Test
+    public void testSelectForSupertypeChange() {
+        final ModuleSelection selection = ModuleCollector.select(registry,
+                Collections.singletonList(ImmutableGitChange.builder()
+                        .path(JAVA_MAIN_SOURCE_PREFIX + "api/AbstractFileSetCheck.java")
+                        .build()),
+                ImmutableModuleSetDelta.builder().build(),
+                ImmutableDependencyGraph.builder().build());
+        assertEquals("The changed base class should be counted", 1,
+                selection.changedSupertypes());
+        assertEquals("The subclass module should be counted", 1, selection.subtypeModules());
+    }
+
+    @Test
+    public void testSelectUpdatedWithSupertypeChange() {
+        final List<ModuleInfo> moduleInfos = ModuleCollector.generate(registry, Arrays.asList(
+                ImmutableGitChange.builder()
+                        .path(JAVA_MAIN_SOURCE_PREFIX + "checks/NewlineAtEndOfFileCheck.java")
+                        .build(),
+                ImmutableGitChange.builder()
+                        .path(JAVA_MAIN_SOURCE_PREFIX + "checks/coding/EmptyStatementCheck.java")
+                        .build()));
+        final Set<String> previousModules = new HashSet<>(Arrays.asList(
+                BASE_PACKAGE + ".checks.NewlineAtEndOfFileCheck",
+                BASE_PACKAGE + ".checks.coding.EmptyStatementCheck"));
+        final List<GitChange> updateChanges = Collections.singletonList(
+                ImmutableGitChange.builder()
+                        .path(JAVA_MAIN_SOURCE_PREFIX + "api/AbstractCheck.java")
+                        .build());
+        assertEquals("Only the module extending the changed class should be selected",
+                Collections.singletonList(moduleInfos.get(1)),
+                ModuleCollector.selectUpdated(registry, moduleInfos, updateChanges, previousModules,
+                        ImmutableDependencyGraph.builder().build()));
+    }
+
+    private static DependencyGraph createDependencyGraph() {
+        return ImmutableDependencyGraph.builder()
+                .putDependencies(BASE_PACKAGE + ".checks.coding.EmptyStatementCheck",
+                        Collections.singleton(BASE_PACKAGE + ".utils.TokenUtil"))
+                .putDependencies(BASE_PACKAGE + ".utils.TokenUtil",
+                        Collections.singleton(BASE_PACKAGE + ".utils.CommonUtil"))
+                .putDependencies(BASE_PACKAGE + ".checks.NewlineAtEndOfFileCheck",
+                        Collections.singleton(BASE_PACKAGE + ".utils.CommonUtil"))
+                .build();
+    }
+
+    private static DependencyGraph createModuleDependencyGraph() {
+        return ImmutableDependencyGraph.builder()
+                .putDependencies(BASE_PACKAGE + ".checks.coding.EmptyStatementCheck",
+                        Collections.singleton(BASE_PACKAGE + ".checks.NewlineAtEndOfFileCheck"))
+                .build();
+    }
 }
@@ -0,0 +1,84 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.module;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Method;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.checkstyle.regression.data.ModuleExtractInfo;
+import com.github.checkstyle.regression.extract.ExtractInfoProcessor;
+
+public class ModuleRegistryTest {
+    private static final String BASE_PACKAGE = "com.puppycrawl.tools.checkstyle";
+
+    private Map<String, ModuleExtractInfo> extractInfos;
+
+    @SuppressWarnings("unchecked")
+    @Before
+    public void setUp() throws Exception {
+        final InputStream is = ExtractInfoProcessor.class.getClassLoader()
+                .getResourceAsStream("checkstyle_modules.json");
+        final InputStreamReader reader = new InputStreamReader(is, Charset.forName("UTF-8"));
+        final Method method = ExtractInfoProcessor.class
+                .getDeclaredMethod("getModuleExtractInfosFromReader", Reader.class);
+        method.setAccessible(true);
+        extractInfos =
+                (Map<String, ModuleExtractInfo>) method.invoke(ExtractInfoProcessor.class, reader);
+    }
+
+    @Test
+    public void testGetModuleExtractInfos() {
+        final ModuleRegistry registry = ModuleRegistry.of(extractInfos);
+        assertEquals("The modules are wrong", Arrays.asList(
+                BASE_PACKAGE + ".checks.NewlineAtEndOfFileCheck",
+                BASE_PACKAGE + ".checks.coding.EmptyStatementCheck"),
+                Arrays.asList(registry.getModuleExtractInfos().keySet().toArray()));
+    }
+
+    @Test
+    public void testGetSubtypeModuleExtractInfos() {
+        final ModuleRegistry registry = ModuleRegistry.of(extractInfos);
+        assertEquals("The modules extending the abstract check are wrong",
+                Collections.singletonList(registry.getModuleExtractInfo(
+                        BASE_PACKAGE + ".checks.coding.EmptyStatementCheck")),
+                registry.getSubtypeModuleExtractInfos(BASE_PACKAGE + ".api.AbstractCheck"));
+        assertEquals("The modules implementing the interface are wrong",
+                Arrays.asList(BASE_PACKAGE + ".checks.NewlineAtEndOfFileCheck",
+                        BASE_PACKAGE + ".checks.coding.EmptyStatementCheck"),
+                Arrays.asList(registry.getSubtypeModuleExtractInfos(
+                        BASE_PACKAGE + ".api.Configurable").stream()
+                        .map(ModuleExtractInfo::fullName)
+                        .toArray()));
+        assertEquals("A class without subtype modules should have none",
+                Collections.emptyList(), registry.getSubtypeModuleExtractInfos(
+                        BASE_PACKAGE + ".checks.coding.EmptyStatementCheck"));
+    }
+}
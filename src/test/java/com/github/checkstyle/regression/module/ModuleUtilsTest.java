@@ -29,15 +29,21 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 import java.lang.reflect.Method;
 import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import com.github.checkstyle.regression.data.ClassifiedChanges;
 import com.github.checkstyle.regression.data.GitChange;
 import com.github.checkstyle.regression.data.ImmutableGitChange;
 import com.github.checkstyle.regression.data.ImmutableModuleExtractInfo;
+import com.github.checkstyle.regression.data.ImmutableModuleSetDelta;
 import com.github.checkstyle.regression.data.ModuleExtractInfo;
+import com.github.checkstyle.regression.data.ModuleSetDelta;
 import com.github.checkstyle.regression.extract.ExtractInfoProcessor;
 
 public class ModuleUtilsTest {
@@ -49,6 +55,8 @@ public class ModuleUtilsTest {
     private static final String JAVA_TEST_SOURCE_PREFIX =
             "src/test/java/com/puppycrawl/tools/checkstyle/";
 
+    private ModuleRegistry registry;
+
     @SuppressWarnings("unchecked")
     @Before
     public void setUp() throws Exception {
@@ -60,7 +68,7 @@ public class ModuleUtilsTest {
         method.setAccessible(true);
         final Map<String, ModuleExtractInfo> map =
                 (Map<String, ModuleExtractInfo>) method.invoke(ExtractInfoProcessor.class, reader);
-        ModuleUtils.setNameToModuleExtractInfo(map);
+        registry = ModuleRegistry.of(map);
     }
 
     @Test
@@ -73,7 +81,7 @@ public class ModuleUtilsTest {
         final GitChange change = ImmutableGitChange.builder()
                 .path(JAVA_MAIN_SOURCE_PREFIX + "checks/coding/EmptyStatementCheck.java")
                 .build();
-        final boolean result = ModuleUtils.isCheckstyleModule(change);
+        final boolean result = ModuleUtils.isCheckstyleModule(registry, change);
         assertTrue("EmptyStatementCheck should be considered as a checkstyle module", result);
     }
 
@@ -82,7 +90,7 @@ public class ModuleUtilsTest {
         final GitChange change = ImmutableGitChange.builder()
                 .path(JAVA_MAIN_SOURCE_PREFIX + "PackageObjectFactory.java")
                 .build();
-        final boolean result = ModuleUtils.isCheckstyleModule(change);
+        final boolean result = ModuleUtils.isCheckstyleModule(registry, change);
         assertFalse("PackageObjectFactory should not be considered as a checkstyle module", result);
     }
 
@@ -92,7 +100,7 @@ public class ModuleUtilsTest {
                 .path("backup/test/java/foo/Foo.java")
                 .build();
         final boolean result =
-                ModuleUtils.isCheckstyleModule(change);
+                ModuleUtils.isCheckstyleModule(registry, change);
         assertFalse("Non main file should not be consideres as a checkstyle module", result);
     }
 
@@ -101,7 +109,7 @@ public class ModuleUtilsTest {
         final GitChange change = ImmutableGitChange.builder()
                 .path(JAVA_MAIN_SOURCE_PREFIX + "utils/CheckUtils.java")
                 .build();
-        final boolean result = ModuleUtils.isCheckstyleUtility(change);
+        final boolean result = ModuleUtils.isCheckstyleUtility(registry, change);
         assertTrue("CheckUtils should be considered as a checkstyle utility", result);
     }
 
@@ -110,7 +118,7 @@ public class ModuleUtilsTest {
         final GitChange change = ImmutableGitChange.builder()
                 .path(JAVA_MAIN_SOURCE_PREFIX + "checks/coding/EmptyStatementCheck.java")
                 .build();
-        final boolean result = ModuleUtils.isCheckstyleUtility(change);
+        final boolean result = ModuleUtils.isCheckstyleUtility(registry, change);
         assertFalse("EmptyStatementCheck should not be considered as a checkstyle utility",
                 result);
     }
@@ -121,16 +129,40 @@ public class ModuleUtilsTest {
                 .path("src/test/java/foo/Foo.java")
                 .build();
         final boolean result =
-                ModuleUtils.isCheckstyleUtility(change);
+                ModuleUtils.isCheckstyleUtility(registry, change);
         assertFalse("Non main file should not be consideres as a checkstyle utility", result);
     }
 
+    @Test
+    public void testHasJavaMainSourceChanges() {
+        final boolean result = ModuleUtils.hasJavaMainSourceChanges(Arrays.asList(
+                ImmutableGitChange.builder()
+                        .path(JAVA_TEST_SOURCE_PREFIX + "utils/CheckUtilsTest.java")
+                        .build(),
+                ImmutableGitChange.builder()
+                        .path(JAVA_MAIN_SOURCE_PREFIX + "utils/CheckUtils.java")
+                        .build()));
+        assertTrue("A change of a main source should be found", result);
+    }
+
+    @Test
+    public void testHasJavaMainSourceChangesNonMainFiles() {
+        final boolean result = ModuleUtils.hasJavaMainSourceChanges(Arrays.asList(
+                ImmutableGitChange.builder()
+                        .path(JAVA_TEST_SOURCE_PREFIX + "utils/CheckUtilsTest.java")
+                        .build(),
+                ImmutableGitChange.builder()
+                        .path("src/main/resources/checkstyle_packages.xml")
+                        .build()));
+        assertFalse("Changes of non main sources should not be found", result);
+    }
+
     @Test
     public void testIsCheckstyleModuleTest() {
         final GitChange change = ImmutableGitChange.builder()
                 .path(JAVA_TEST_SOURCE_PREFIX + "checks/coding/EmptyStatementCheckTest.java")
                 .build();
-        final boolean result = ModuleUtils.isCheckstyleModuleTest(change);
+        final boolean result = ModuleUtils.isCheckstyleModuleTest(registry, change);
         assertTrue("EmptyStatementCheckTest should be considered as a checkstyle module test",
                 result);
     }
@@ -140,7 +172,7 @@ public class ModuleUtilsTest {
         final GitChange change = ImmutableGitChange.builder()
                 .path(JAVA_TEST_SOURCE_PREFIX + "internal/CheckUtil.java")
                 .build();
-        final boolean result = ModuleUtils.isCheckstyleModuleTest(change);
+        final boolean result = ModuleUtils.isCheckstyleModuleTest(registry, change);
         assertFalse("CheckUtil should not be considered as a checkstyle module test",
                 result);
     }
@@ -150,14 +182,14 @@ public class ModuleUtilsTest {
         final GitChange change = ImmutableGitChange.builder()
                 .path("backup/test/java/foo/Foo.java")
                 .build();
-        final boolean result = ModuleUtils.isCheckstyleModuleTest(change);
+        final boolean result = ModuleUtils.isCheckstyleModuleTest(registry, change);
         assertFalse("CheckUtil should not be considered as a checkstyle module test",
                 result);
     }
 
     @Test
     public void testConvertModuleChangeToExtractInfo() {
-        final ModuleExtractInfo moduleExtractInfo = ModuleUtils
+        final ModuleExtractInfo moduleExtractInfo = registry
                 .getModuleExtractInfo(BASE_PACKAGE + ".checks.coding.EmptyStatementCheck");
         final ModuleExtractInfo expected = ImmutableModuleExtractInfo.builder()
                 .name("EmptyStatementCheck")
@@ -167,4 +199,69 @@ public class ModuleUtilsTest {
         assertEquals("The extract info of EmptyStatementCheck is wrong",
                 expected, moduleExtractInfo);
     }
+
+    @Test
+    public void testCreateModuleSetDelta() {
+        final ModuleExtractInfo unchanged = createExtractInfo("UnchangedCheck", "TreeWalker");
+        final ModuleExtractInfo removed = createExtractInfo("RemovedCheck", "TreeWalker");
+        final ModuleExtractInfo added = createExtractInfo("AddedCheck", "Checker");
+        final ModuleExtractInfo movedBase = createExtractInfo("MovedCheck", "TreeWalker");
+        final ModuleExtractInfo movedPr = createExtractInfo("MovedCheck", "Checker");
+        final Map<String, ModuleExtractInfo> base = new HashMap<>();
+        base.put(unchanged.fullName(), unchanged);
+        base.put(removed.fullName(), removed);
+        base.put(movedBase.fullName(), movedBase);
+        final Map<String, ModuleExtractInfo> pr = new HashMap<>();
+        pr.put(unchanged.fullName(), unchanged);
+        pr.put(added.fullName(), added);
+        pr.put(movedPr.fullName(), movedPr);
+
+        final ModuleSetDelta expected = ImmutableModuleSetDelta.builder()
+                .addAdded(added)
+                .addRemoved(removed)
+                .addMoved(movedPr)
+                .build();
+        assertEquals("The module set delta is wrong",
+                expected, ModuleUtils.createModuleSetDelta(base, pr));
+    }
+
+    @Test
+    public void testClassify() {
+        final GitChange module = ImmutableGitChange.builder()
+                .path(JAVA_MAIN_SOURCE_PREFIX + "checks/coding/EmptyStatementCheck.java")
+                .build();
+        final GitChange moduleTest = ImmutableGitChange.builder()
+                .path(JAVA_TEST_SOURCE_PREFIX + "checks/NewlineAtEndOfFileCheckTest.java")
+                .build();
+        final GitChange utility = ImmutableGitChange.builder()
+                .path(JAVA_MAIN_SOURCE_PREFIX + "utils/CheckUtils.java")
+                .build();
+        final GitChange testUtility = ImmutableGitChange.builder()
+                .path(JAVA_TEST_SOURCE_PREFIX + "checks/coding/EmptyStatementCheck.java")
+                .build();
+        final GitChange other = ImmutableGitChange.builder()
+                .path("src/main/resources/checkstyle_packages.xml")
+                .build();
+        final ClassifiedChanges classified = ModuleUtils.classify(registry,
+                Arrays.asList(other, utility, module, testUtility, moduleTest));
+        assertEquals("The modules are wrong", Collections.singletonList(registry
+                .getModuleExtractInfo(BASE_PACKAGE + ".checks.coding.EmptyStatementCheck")),
+                classified.modules());
+        assertEquals("The module tests are wrong", Collections.singletonList(registry
+                .getModuleExtractInfo(BASE_PACKAGE + ".checks.NewlineAtEndOfFileCheck")),
+                classified.moduleTests());
+        assertEquals("The utilities are wrong",
+                Collections.singletonList(BASE_PACKAGE + ".utils.CheckUtils"),
+                classified.utilities());
+        assertEquals("The other changes are wrong",
+                Arrays.asList(other, testUtility), classified.others());
+    }
+
+    private static ModuleExtractInfo createExtractInfo(String name, String parent) {
+        return ImmutableModuleExtractInfo.builder()
+                .name(name)
+                .packageName(BASE_PACKAGE + ".checks")
+                .parent(parent)
+                .build();
+    }
 }
@@ -0,0 +1,134 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.pipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+public class PipelineTest {
+    @Test
+    public void testDependentStageUsesResults() throws Exception {
+        try (Pipeline pipeline = new Pipeline()) {
+            final Stage<Integer> first = pipeline.add("first", () -> 1);
+            final Stage<Integer> second = pipeline.add("second", () -> 2);
+            final Stage<Integer> sum = pipeline.add("sum",
+                    () -> first.get() + second.get(), first, second);
+            assertEquals("The result of the stage is wrong", Integer.valueOf(3), sum.get());
+        }
+    }
+
+    @Test
+    public void testIndependentStagesOverlap() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(2);
+        try (Pipeline pipeline = new Pipeline()) {
+            final StageTask<Boolean> task = () -> {
+                latch.countDown();
+                return latch.await(10, TimeUnit.SECONDS);
+            };
+            final Stage<Boolean> first = pipeline.add("first", task);
+            final Stage<Boolean> second = pipeline.add("second", task);
+            assertTrue("Independent stages should run concurrently", first.get());
+            assertTrue("Independent stages should run concurrently", second.get());
+        }
+    }
+
+    @Test
+    public void testFailurePropagation() throws Exception {
+        final IOException failure = new IOException("failed");
+        final AtomicBoolean dependentRun = new AtomicBoolean();
+        try (Pipeline pipeline = new Pipeline()) {
+            final Stage<String> failed = pipeline.add("failed", () -> {
+                throw failure;
+            });
+            final Stage<String> dependent = pipeline.add("dependent", () -> {
+                dependentRun.set(true);
+                return "";
+            }, failed);
+            pipeline.await();
+            try {
+                dependent.get();
+                fail("Exception is expected");
+            }
+            catch (IOException ex) {
+                assertSame("The failure of the dependency should be rethrown", failure, ex);
+            }
+            assertFalse("The dependent stage should not run", dependentRun.get());
+        }
+    }
+
+    @Test
+    public void testErrorCompletesStage() throws Exception {
+        final AssertionError failure = new AssertionError("failed");
+        try (Pipeline pipeline = new Pipeline()) {
+            final Stage<String> failed = pipeline.add("failed", () -> {
+                throw failure;
+            });
+            final Stage<String> dependent = pipeline.add("dependent", () -> "", failed);
+            pipeline.await();
+            try {
+                dependent.get();
+                fail("Exception is expected");
+            }
+            catch (ExecutionException ex) {
+                assertSame("The error should complete the dependent stage", failure,
+                        ex.getCause());
+            }
+        }
+    }
+
+    @Test
+    public void testReport() throws Exception {
+        try (Pipeline pipeline = new Pipeline()) {
+            final Stage<Integer> first = pipeline.add("first", () -> 1);
+            final Stage<Integer> slow = pipeline.add("slow", () -> {
+                Thread.sleep(50);
+                return 2;
+            });
+            final Stage<Integer> last = pipeline.add("last", () -> 3, first, slow);
+            last.get();
+            final String report = pipeline.getReport();
+            assertTrue("The report should start with the header",
+                    report.startsWith("pipeline stage times:"));
+            assertTrue("The report should contain the time of each stage",
+                    report.contains(" ms  first (started at "));
+            assertTrue("The critical path should follow the slowest dependency: " + report,
+                    report.matches("(?s).*critical path \\(\\d+ ms\\): slow -> last$"));
+        }
+    }
+
+    @Test
+    public void testEmptyReport() {
+        try (Pipeline pipeline = new Pipeline()) {
+            assertEquals("The report of empty pipeline is wrong",
+                    "pipeline stage times:", pipeline.getReport());
+        }
+    }
+}
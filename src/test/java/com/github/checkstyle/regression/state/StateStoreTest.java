@@ -0,0 +1,79 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2022 the original author or authors.
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+
+package com.github.checkstyle.regression.state;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Optional;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class StateStoreTest {
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testLoadWithoutState() throws Exception {
+        final StateStore store = new StateStore(temporaryFolder.getRoot());
+        assertFalse("There should be no state before saving",
+                store.load("foo").isPresent());
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        final StateStore store = new StateStore(new File(temporaryFolder.getRoot(), "state"));
+        final BranchState state = ImmutableBranchState.builder()
+                .head("1111111111111111111111111111111111111111")
+                .mergeBase("2222222222222222222222222222222222222222")
+                .putResults("com.puppycrawl.tools.checkstyle.checks.FooCheck", "/tmp/report-1")
+                .putResults("com.puppycrawl.tools.checkstyle.checks.BarCheck", "/tmp/report-2")
+                .build();
+        store.save("refs/pull/1/head", state);
+        assertEquals("The state file is wrong",
+                new File(temporaryFolder.getRoot(), "state/refs-pull-1-head.properties"),
+                store.getFile("refs/pull/1/head"));
+        assertEquals("The loaded state is wrong", Optional.of(state),
+                store.load("refs/pull/1/head"));
+    }
+
+    @Test
+    public void testLoadMalformedState() throws Exception {
+        final StateStore store = new StateStore(temporaryFolder.getRoot());
+        Files.write(store.getFile("foo").toPath(),
+                "head=1111111111111111111111111111111111111111\n"
+                        .getBytes(Charset.forName("UTF-8")));
+        try {
+            store.load("foo");
+            fail("Exception is expected");
+        }
+        catch (IOException ex) {
+            assertEquals("Exception message is wrong",
+                    "malformed state file " + store.getFile("foo"), ex.getMessage());
+        }
+    }
+}